@@ -0,0 +1,227 @@
+package org.bahmni.module.admin.csv.persister;
+
+import org.apache.log4j.Logger;
+import org.bahmni.csv.CSVEntity;
+import org.bahmni.csv.EntityPersister;
+import org.bahmni.csv.Messages;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves csv rows in chunks of one transaction each, instead of one session and transaction per row like
+ * {@link DatabasePersister}. Rows are handed to a single worker thread that keeps one session open, commits once
+ * chunkSize rows are saved or no more rows have come in for a moment, and clears the session after every
+ * commit. A row is only reported once its chunk has committed, so callers block until then and the importer has
+ * to call {@link #persist} from as many threads as rows it wants in a chunk. When a row throws or a commit fails,
+ * the chunk is rolled back and its rows are saved again one by one and reported with their own result.
+ * Set hibernate.jdbc.batch_size in the runtime properties to have the inserts of a chunk sent in JDBC batches.
+ */
+public class ChunkedTransactionPersister<T extends CSVEntity> implements EntityPersister<T> {
+    private static final Logger log = Logger.getLogger(ChunkedTransactionPersister.class);
+    private static final long IDLE_COMMIT_MILLIS = 200;
+
+    private final EntityPersister<T> persister;
+    private final PlatformTransactionManager transactionManager;
+    private final int chunkSize;
+    private final UserContext userContext;
+
+    private final BlockingQueue<PendingRow> pendingRows = new LinkedBlockingQueue<>();
+    private Thread worker;
+
+    public ChunkedTransactionPersister(EntityPersister<T> persister, PlatformTransactionManager transactionManager, int chunkSize) {
+        this.persister = persister;
+        this.transactionManager = transactionManager;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.userContext = Context.getUserContext();
+    }
+
+    @Override
+    public Messages validate(T csvEntity) {
+        return persister.validate(csvEntity);
+    }
+
+    @Override
+    public Messages persist(T csvEntity) {
+        PendingRow pendingRow = new PendingRow(csvEntity);
+        synchronized (this) {
+            pendingRows.add(pendingRow);
+            if (worker == null) {
+                worker = new Thread(new Worker(), "chunked-csv-import");
+                worker.setDaemon(true);
+                worker.start();
+            }
+        }
+        return pendingRow.awaitMessages();
+    }
+
+    private synchronized boolean stopWhenIdle() {
+        if (pendingRows.isEmpty()) {
+            worker = null;
+            return true;
+        }
+        return false;
+    }
+
+    private class Worker implements Runnable {
+        private final List<PendingRow> chunk = new ArrayList<>();
+        private TransactionStatus transaction;
+
+        @Override
+        public void run() {
+            Context.openSession();
+            try {
+                Context.setUserContext(userContext);
+                while (true) {
+                    PendingRow pendingRow = pendingRows.poll(IDLE_COMMIT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (pendingRow == null) {
+                        commitChunk();
+                        if (stopWhenIdle()) {
+                            return;
+                        }
+                        continue;
+                    }
+                    saveInChunk(pendingRow);
+                    if (chunk.size() >= chunkSize) {
+                        commitChunk();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abandon(e);
+            } catch (RuntimeException e) {
+                log.error(e.getMessage(), e);
+                abandon(e);
+            } finally {
+                Context.closeSession();
+            }
+        }
+
+        private void saveInChunk(PendingRow pendingRow) {
+            try {
+                if (transaction == null) {
+                    transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+                }
+                pendingRow.savedMessages = persister.persist(pendingRow.csvEntity);
+                chunk.add(pendingRow);
+            } catch (Throwable e) {
+                log.error(e.getMessage(), e);
+                rollbackChunk();
+                replayChunk();
+                pendingRow.done(saveAlone(pendingRow.csvEntity));
+            }
+        }
+
+        private void commitChunk() {
+            if (transaction == null) {
+                return;
+            }
+            try {
+                transactionManager.commit(transaction);
+            } catch (Throwable e) {
+                log.error("Could not commit a chunk of " + chunk.size() + " rows, saving them one by one", e);
+                transaction = null;
+                Context.clearSession();
+                replayChunk();
+                return;
+            }
+            transaction = null;
+            for (PendingRow pendingRow : chunk) {
+                pendingRow.done(pendingRow.savedMessages);
+            }
+            chunk.clear();
+            Context.clearSession();
+        }
+
+        private void abandon(Exception e) {
+            try {
+                rollbackChunk();
+            } finally {
+                for (PendingRow pendingRow : chunk) {
+                    pendingRow.done(new Messages(e));
+                }
+                chunk.clear();
+                synchronized (ChunkedTransactionPersister.this) {
+                    worker = null;
+                    PendingRow pendingRow;
+                    while ((pendingRow = pendingRows.poll()) != null) {
+                        pendingRow.done(new Messages(e));
+                    }
+                }
+            }
+        }
+
+        private void rollbackChunk() {
+            try {
+                if (transaction != null && !transaction.isCompleted()) {
+                    transactionManager.rollback(transaction);
+                }
+            } catch (Throwable e) {
+                log.error("Could not roll back a chunk of " + chunk.size() + " rows", e);
+            } finally {
+                transaction = null;
+                Context.clearSession();
+            }
+        }
+
+        private void replayChunk() {
+            for (PendingRow pendingRow : chunk) {
+                pendingRow.done(saveAlone(pendingRow.csvEntity));
+            }
+            chunk.clear();
+        }
+
+        private Messages saveAlone(T csvEntity) {
+            TransactionStatus rowTransaction = null;
+            try {
+                rowTransaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+                Messages messages = persister.persist(csvEntity);
+                transactionManager.commit(rowTransaction);
+                return messages;
+            } catch (Throwable e) {
+                log.error(e.getMessage(), e);
+                if (rowTransaction != null && !rowTransaction.isCompleted()) {
+                    transactionManager.rollback(rowTransaction);
+                }
+                return new Messages(e);
+            } finally {
+                Context.clearSession();
+            }
+        }
+    }
+
+    private class PendingRow {
+        private final T csvEntity;
+        private final CountDownLatch saved = new CountDownLatch(1);
+        private Messages savedMessages;
+        private volatile Messages messages;
+
+        PendingRow(T csvEntity) {
+            this.csvEntity = csvEntity;
+        }
+
+        void done(Messages messages) {
+            this.messages = messages;
+            saved.countDown();
+        }
+
+        Messages awaitMessages() {
+            try {
+                saved.await();
+                return messages;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Messages(e);
+            }
+        }
+    }
+}
@@ -5,12 +5,14 @@ import org.apache.log4j.Logger;
 import org.bahmni.csv.EntityPersister;
 import org.bahmni.csv.Messages;
 import org.bahmni.module.admin.csv.models.MultipleEncounterRow;
+import org.bahmni.module.admin.csv.service.ImportMetadataDictionary;
 import org.bahmni.module.admin.csv.service.PatientMatchService;
 import org.bahmni.module.admin.encounter.BahmniEncounterTransactionImportService;
+import org.bahmni.module.admin.observation.ConceptCache;
+import org.bahmni.module.admin.observation.ObservationMapper;
 import org.bahmni.module.admin.retrospectiveEncounter.service.DuplicateObservationService;
 import org.openmrs.Patient;
 import org.openmrs.api.context.Context;
-import org.openmrs.api.context.UserContext;
 import org.openmrs.module.bahmniemrapi.encountertransaction.contract.BahmniEncounterTransaction;
 import org.openmrs.module.bahmniemrapi.encountertransaction.service.BahmniEncounterTransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,9 +20,13 @@ import org.springframework.stereotype.Component;
 
 import java.util.List;
 
+/**
+ * Saves one encounter row in the OpenMRS session of the calling thread. It does not guard against two rows of the
+ * same patient being saved at the same time, so imports running on several threads go through
+ * {@link PartitionedEncounterPersister}, which also looks after the sessions of its threads.
+ */
 @Component
 public class EncounterPersister implements EntityPersister<MultipleEncounterRow> {
-    public static final String IMPORT_ID = "IMPORT_ID_";
     @Autowired
     private PatientMatchService patientMatchService;
     @Autowired
@@ -29,17 +35,24 @@ public class EncounterPersister implements EntityPersister<MultipleEncounterRow>
     private DuplicateObservationService duplicateObservationService;
     @Autowired
     private BahmniEncounterTransactionImportService bahmniEncounterTransactionImportService;
+    @Autowired
+    private ImportMetadataDictionary importMetadataDictionary;
+    @Autowired
+    private ConceptCache conceptCache;
+    @Autowired
+    private ObservationMapper observationMapper;
 
-    private UserContext userContext;
     private String patientMatchingAlgorithmClassName;
     private boolean shouldMatchExactPatientId;
 
     private static final Logger log = Logger.getLogger(EncounterPersister.class);
 
-    public void init(UserContext userContext, String patientMatchingAlgorithmClassName, boolean shouldMatchExactPatientId) {
-        this.userContext = userContext;
+    public void init(String patientMatchingAlgorithmClassName, boolean shouldMatchExactPatientId) {
         this.patientMatchingAlgorithmClassName = patientMatchingAlgorithmClassName;
         this.shouldMatchExactPatientId = shouldMatchExactPatientId;
+        importMetadataDictionary.clear();
+        observationMapper.init();
+        conceptCache.invalidateAll();
     }
 
     @Override
@@ -53,36 +66,28 @@ public class EncounterPersister implements EntityPersister<MultipleEncounterRow>
         if (StringUtils.isEmpty(multipleEncounterRow.patientIdentifier)) {
             return noMatchingPatients(multipleEncounterRow);
         }
-        synchronized ((IMPORT_ID + multipleEncounterRow.patientIdentifier).intern()) {
-            try {
-                Context.openSession();
-                Context.setUserContext(userContext);
-
-                Patient patient = patientMatchService.getPatient(patientMatchingAlgorithmClassName, multipleEncounterRow.patientAttributes,
-                        multipleEncounterRow.patientIdentifier, shouldMatchExactPatientId);
-                if (patient == null) {
-                    return noMatchingPatients(multipleEncounterRow);
-                }
-
-                List<BahmniEncounterTransaction> bahmniEncounterTransactions = bahmniEncounterTransactionImportService.getBahmniEncounterTransaction(multipleEncounterRow, patient);
+        try {
+            Patient patient = patientMatchService.getPatient(patientMatchingAlgorithmClassName, multipleEncounterRow.patientAttributes,
+                    multipleEncounterRow.patientIdentifier, shouldMatchExactPatientId);
+            if (patient == null) {
+                return noMatchingPatients(multipleEncounterRow);
+            }
 
-                for (BahmniEncounterTransaction bahmniEncounterTransaction : bahmniEncounterTransactions) {
-                    duplicateObservationService.filter(bahmniEncounterTransaction, patient, multipleEncounterRow.getVisitStartDate(), multipleEncounterRow.getVisitEndDate());
-                }
+            List<BahmniEncounterTransaction> bahmniEncounterTransactions = bahmniEncounterTransactionImportService.getBahmniEncounterTransaction(multipleEncounterRow, patient);
 
-                for (BahmniEncounterTransaction bahmniEncounterTransaction : bahmniEncounterTransactions) {
-                    bahmniEncounterTransactionService.save(bahmniEncounterTransaction, patient, multipleEncounterRow.getVisitStartDate(), multipleEncounterRow.getVisitEndDate());
-                }
+            for (BahmniEncounterTransaction bahmniEncounterTransaction : bahmniEncounterTransactions) {
+                duplicateObservationService.filter(bahmniEncounterTransaction, patient, multipleEncounterRow.getVisitStartDate(), multipleEncounterRow.getVisitEndDate());
+            }
 
-                return new Messages();
-            } catch (Exception e) {
-                log.error(e.getMessage(), e);
-                Context.clearSession();
-                return new Messages(e);
-            } finally {
-                Context.flushSession();
-                Context.closeSession();
+            for (BahmniEncounterTransaction bahmniEncounterTransaction : bahmniEncounterTransactions) {
+                bahmniEncounterTransactionService.save(bahmniEncounterTransaction, patient, multipleEncounterRow.getVisitStartDate(), multipleEncounterRow.getVisitEndDate());
             }
+
+            return new Messages();
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            Context.clearSession();
+            return new Messages(e);
         }
     }
 
@@ -0,0 +1,45 @@
+package org.bahmni.module.admin.csv.persister;
+
+import java.util.Date;
+
+public class ImportThroughput {
+    private int numberOfThreads;
+    private Date startTime;
+    private long rowsProcessed;
+    private long rowsFailed;
+    private long rowsInProgress;
+    private double rowsPerSecond;
+
+    public ImportThroughput(int numberOfThreads, Date startTime, long rowsProcessed, long rowsFailed, long rowsInProgress, double rowsPerSecond) {
+        this.numberOfThreads = numberOfThreads;
+        this.startTime = startTime;
+        this.rowsProcessed = rowsProcessed;
+        this.rowsFailed = rowsFailed;
+        this.rowsInProgress = rowsInProgress;
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    public Date getStartTime() {
+        return startTime;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    public long getRowsInProgress() {
+        return rowsInProgress;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+}
@@ -4,6 +4,7 @@ import org.bahmni.csv.EntityPersister;
 import org.bahmni.csv.Messages;
 import org.bahmni.module.admin.csv.models.LabResultRow;
 import org.bahmni.module.admin.csv.models.LabResultsRow;
+import org.bahmni.module.admin.csv.service.ImportMetadataDictionary;
 import org.bahmni.module.admin.csv.service.PatientMatchService;
 import org.openmrs.module.bahmniemrapi.encountertransaction.command.impl.BahmniVisitAttributeSaveCommandImpl;
 import org.openmrs.module.bahmniemrapi.encountertransaction.service.VisitIdentificationHelper;
@@ -16,7 +17,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.text.ParseException;
-import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 
@@ -30,11 +30,7 @@ public class LabResultPersister implements EntityPersister<LabResultsRow> {
     @Autowired
     private PatientMatchService patientMatchService;
     @Autowired
-    private ConceptService conceptService;
-    @Autowired
-    private OrderService orderService;
-    @Autowired
-    private ProviderService providerService;
+    private ImportMetadataDictionary importMetadataDictionary;
     @Autowired
     private EncounterService encounterService;
     @Autowired
@@ -49,6 +45,7 @@ public class LabResultPersister implements EntityPersister<LabResultsRow> {
         this.userContext = userContext;
         this.patientMatchingAlgorithmClassName = patientMatchingAlgorithmClassName;
         this.shouldMatchExactPatientId = shouldMatchExactPatientId;
+        importMetadataDictionary.clear();
     }
 
     @Override
@@ -60,7 +57,7 @@ public class LabResultPersister implements EntityPersister<LabResultsRow> {
             visit.addEncounter(encounter);
             encounter.setPatient(patient);
             encounter.setEncounterDatetime(labResultsRow.getTestDate());
-            encounter.setEncounterType(encounterService.getEncounterType(LAB_RESULT_ENCOUNTER_TYPE));
+            encounter.setEncounterType(importMetadataDictionary.getEncounterType(LAB_RESULT_ENCOUNTER_TYPE));
             encounter.addProvider(encounterService.getEncounterRoleByUuid(EncounterRole.UNKNOWN_ENCOUNTER_ROLE_UUID), getProvider());
             HashSet<Obs> resultObservations = new HashSet<>();
             for (LabResultRow labResultRow : labResultsRow.getTestResults()) {
@@ -88,12 +85,12 @@ public class LabResultPersister implements EntityPersister<LabResultsRow> {
 
     private TestOrder getTestOrder(Patient patient, LabResultRow labResultRow, Date testDate) throws ParseException {
         TestOrder testOrder = new TestOrder();
-        testOrder.setConcept(conceptService.getConceptByName(labResultRow.getTest()));
+        testOrder.setConcept(importMetadataDictionary.getConcept(labResultRow.getTest()));
         testOrder.setDateActivated(testDate);
         testOrder.setAutoExpireDate(testDate);
         testOrder.setPatient(patient);
-        testOrder.setOrderType(orderService.getOrderTypeByName(LAB_ORDER_TYPE));
-        testOrder.setCareSetting(orderService.getCareSettingByName(CareSetting.CareSettingType.OUTPATIENT.toString()));
+        testOrder.setOrderType(importMetadataDictionary.getOrderType(LAB_ORDER_TYPE));
+        testOrder.setCareSetting(importMetadataDictionary.getCareSetting(CareSetting.CareSettingType.OUTPATIENT.toString()));
         testOrder.setOrderer(getProvider());
         return testOrder;
     }
@@ -107,8 +104,7 @@ public class LabResultPersister implements EntityPersister<LabResultsRow> {
     }
 
     private Provider getProvider() {
-        Collection<Provider> providers = providerService.getProvidersByPerson(userContext.getAuthenticatedUser().getPerson());
-        return providers.size() > 0 ? providers.iterator().next() : null;
+        return importMetadataDictionary.getProvider(userContext.getAuthenticatedUser().getPerson());
     }
 
     @Override
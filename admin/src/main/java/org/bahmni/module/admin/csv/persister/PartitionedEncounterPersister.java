@@ -0,0 +1,165 @@
+package org.bahmni.module.admin.csv.persister;
+
+import org.apache.log4j.Logger;
+import org.bahmni.csv.EntityPersister;
+import org.bahmni.csv.Messages;
+import org.bahmni.module.admin.csv.models.MultipleEncounterRow;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs encounter import rows on a fixed number of single threaded partitions, picking the partition from the
+ * patient identifier. Rows of one patient are therefore saved one after the other without any locking, while
+ * rows of other patients carry on in the other partitions. Each partition thread keeps its OpenMRS session open
+ * while it is busy and flushes and clears it after every row, instead of opening a new session per row. Only one
+ * import runs at a time, a second one is refused while rows of the first are still being saved.
+ */
+@Component
+public class PartitionedEncounterPersister implements EntityPersister<MultipleEncounterRow> {
+    private static final Logger log = Logger.getLogger(PartitionedEncounterPersister.class);
+    private static final long IDLE_PARTITION_TIMEOUT_IN_SECONDS = 60;
+
+    private EncounterPersister encounterPersister;
+    private ThreadPoolExecutor[] partitions = new ThreadPoolExecutor[0];
+    private volatile UserContext userContext;
+
+    private volatile Date startTime;
+    private final AtomicLong rowsProcessed = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final AtomicLong rowsInProgress = new AtomicLong();
+    private volatile long lastRowCompletedAt;
+
+    @Autowired
+    public PartitionedEncounterPersister(EncounterPersister encounterPersister) {
+        this.encounterPersister = encounterPersister;
+    }
+
+    public synchronized void init(UserContext userContext, String patientMatchingAlgorithmClassName, boolean shouldMatchExactPatientId, int numberOfThreads) {
+        if (rowsInProgress.get() > 0) {
+            throw new IllegalStateException("An encounter import is still running, " + rowsInProgress.get() + " rows are being saved");
+        }
+        this.userContext = userContext;
+        encounterPersister.init(patientMatchingAlgorithmClassName, shouldMatchExactPatientId);
+        // Partitions are only resized between imports, so rows of a patient never end up in two partitions at once
+        if (partitions.length != numberOfThreads) {
+            for (ThreadPoolExecutor partition : partitions) {
+                partition.shutdown();
+            }
+            partitions = createPartitions(Math.max(1, numberOfThreads));
+        }
+        startTime = new Date();
+        lastRowCompletedAt = startTime.getTime();
+        rowsProcessed.set(0);
+        rowsFailed.set(0);
+    }
+
+    @Override
+    public Messages validate(MultipleEncounterRow multipleEncounterRow) {
+        return encounterPersister.validate(multipleEncounterRow);
+    }
+
+    @Override
+    public Messages persist(final MultipleEncounterRow multipleEncounterRow) {
+        rowsInProgress.incrementAndGet();
+        try {
+            Messages messages = partitionFor(multipleEncounterRow.patientIdentifier).submit(new Callable<Messages>() {
+                @Override
+                public Messages call() throws Exception {
+                    Context.setUserContext(userContext);
+                    try {
+                        return encounterPersister.persist(multipleEncounterRow);
+                    } finally {
+                        Context.flushSession();
+                        Context.clearSession();
+                    }
+                }
+            }).get();
+            if (!messages.isEmpty()) {
+                rowsFailed.incrementAndGet();
+            }
+            return messages;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rowsFailed.incrementAndGet();
+            return new Messages(e);
+        } catch (ExecutionException e) {
+            log.error(e.getCause().getMessage(), e.getCause());
+            rowsFailed.incrementAndGet();
+            return new Messages(e.getCause());
+        } finally {
+            rowsInProgress.decrementAndGet();
+            rowsProcessed.incrementAndGet();
+            lastRowCompletedAt = System.currentTimeMillis();
+        }
+    }
+
+    public ImportThroughput getThroughput() {
+        Date startTime = this.startTime;
+        long rowsProcessed = this.rowsProcessed.get();
+        double rowsPerSecond = 0;
+        if (startTime != null && lastRowCompletedAt > startTime.getTime()) {
+            rowsPerSecond = rowsProcessed * 1000.0 / (lastRowCompletedAt - startTime.getTime());
+        }
+        return new ImportThroughput(getNumberOfThreads(), startTime, rowsProcessed, rowsFailed.get(), rowsInProgress.get(), rowsPerSecond);
+    }
+
+    public synchronized int getNumberOfThreads() {
+        return partitions.length;
+    }
+
+    private synchronized ThreadPoolExecutor partitionFor(String patientIdentifier) {
+        if (partitions.length == 0) {
+            partitions = createPartitions(1);
+        }
+        int hash = patientIdentifier == null ? 0 : patientIdentifier.hashCode();
+        return partitions[(hash & Integer.MAX_VALUE) % partitions.length];
+    }
+
+    private ThreadPoolExecutor[] createPartitions(int numberOfThreads) {
+        ThreadPoolExecutor[] partitions = new ThreadPoolExecutor[numberOfThreads];
+        for (int i = 0; i < numberOfThreads; i++) {
+            partitions[i] = new ThreadPoolExecutor(1, 1, IDLE_PARTITION_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new PartitionThreadFactory(i));
+            partitions[i].allowCoreThreadTimeOut(true);
+        }
+        return partitions;
+    }
+
+    private static class PartitionThreadFactory implements ThreadFactory {
+        private final int partition;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        PartitionThreadFactory(int partition) {
+            this.partition = partition;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Context.openSession();
+                    try {
+                        runnable.run();
+                    } finally {
+                        Context.closeSession();
+                    }
+                }
+            }, "encounter-import-" + partition + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,27 +1,24 @@
 package org.bahmni.module.admin.csv.persister;
 
-import org.apache.log4j.Logger;
 import org.bahmni.csv.EntityPersister;
 import org.bahmni.csv.Messages;
 import org.bahmni.csv.RowResult;
 import org.bahmni.module.admin.csv.models.PatientRow;
 import org.bahmni.module.admin.csv.service.CSVAddressService;
 import org.bahmni.module.admin.csv.service.CSVPatientService;
-import org.openmrs.api.AdministrationService;
+import org.bahmni.module.admin.csv.service.ImportMetadataDictionary;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.PatientService;
 import org.openmrs.api.PersonService;
 import org.openmrs.api.context.Context;
-import org.openmrs.api.context.UserContext;
 import org.openmrs.module.addresshierarchy.service.AddressHierarchyService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.text.ParseException;
+
 @Component
 public class PatientPersister implements EntityPersister<PatientRow> {
-    private UserContext userContext;
-
     @Autowired
     private PatientService patientService;
 
@@ -32,33 +29,21 @@ public class PatientPersister implements EntityPersister<PatientRow> {
     private ConceptService conceptService;
 
     @Autowired
-    @Qualifier("adminService")
-    private AdministrationService administrationService;
+    private ImportMetadataDictionary importMetadataDictionary;
 
     private CSVAddressService csvAddressService;
 
-    private static final Logger log = Logger.getLogger(PatientPersister.class);
-
-    public void init(UserContext userContext) {
-        this.userContext = userContext;
+    public void init() {
+        importMetadataDictionary.clear();
     }
 
     @Override
     public Messages persist(PatientRow patientRow) {
         try {
-            Context.openSession();
-            Context.setUserContext(userContext);
-
-            new CSVPatientService(patientService, personService, conceptService, administrationService, getAddressHierarchyService()).save(patientRow);
-
+            new CSVPatientService(patientService, personService, conceptService, importMetadataDictionary, getAddressHierarchyService()).save(patientRow);
             return new Messages();
-        } catch (Throwable e) {
-            log.error(e.getMessage(), e);
-            Context.clearSession();
+        } catch (ParseException e) {
             return new Messages(e);
-        } finally {
-            Context.flushSession();
-            Context.closeSession();
         }
     }
 
@@ -7,7 +7,6 @@ import org.bahmni.module.admin.csv.utils.CSVUtils;
 import org.bahmni.module.referencedata.labconcepts.contract.*;
 import org.openmrs.*;
 import org.openmrs.Concept;
-import org.openmrs.api.AdministrationService;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.PatientService;
 import org.openmrs.api.PersonService;
@@ -19,19 +18,17 @@ import java.util.List;
 
 public class CSVPatientService {
 
-    private static final String EMR_PRIMARY_IDENTIFIER_TYPE = "emr.primaryIdentifierType";
-
     private PatientService patientService;
     private PersonService personService;
     private ConceptService conceptService;
-    private AdministrationService administrationService;
+    private ImportMetadataDictionary importMetadataDictionary;
     private CSVAddressService csvAddressService;
 
-    public CSVPatientService(PatientService patientService, PersonService personService, ConceptService conceptService, AdministrationService administrationService, CSVAddressService csvAddressService) {
+    public CSVPatientService(PatientService patientService, PersonService personService, ConceptService conceptService, ImportMetadataDictionary importMetadataDictionary, CSVAddressService csvAddressService) {
         this.patientService = patientService;
         this.personService = personService;
         this.conceptService = conceptService;
-        this.administrationService = administrationService;
+        this.importMetadataDictionary = importMetadataDictionary;
         this.csvAddressService = csvAddressService;
     }
 
@@ -85,18 +82,14 @@ public class CSVPatientService {
     }
 
     private PersonAttributeType findAttributeType(String key) {
-        for (PersonAttributeType personAttributeType  : personService.getAllPersonAttributeTypes(false)) {
-            if(key.equalsIgnoreCase(personAttributeType.getName())) {
-                return personAttributeType;
-            }
+        PersonAttributeType personAttributeType = importMetadataDictionary.getPersonAttributeType(key);
+        if (personAttributeType != null) {
+            return personAttributeType;
         }
-
         throw new RuntimeException(String.format("Person Attribute %s not found", key));
     }
 
     private PatientIdentifierType getPatientIdentifierType() {
-        String globalProperty = administrationService.getGlobalProperty(EMR_PRIMARY_IDENTIFIER_TYPE);
-        PatientIdentifierType patientIdentifierByUuid = patientService.getPatientIdentifierTypeByUuid(globalProperty);
-        return patientIdentifierByUuid;
+        return importMetadataDictionary.getPrimaryIdentifierType();
     }
 }
@@ -0,0 +1,216 @@
+package org.bahmni.module.admin.csv.service;
+
+import org.openmrs.CareSetting;
+import org.openmrs.Concept;
+import org.openmrs.ConceptName;
+import org.openmrs.EncounterType;
+import org.openmrs.OrderType;
+import org.openmrs.PatientIdentifierType;
+import org.openmrs.Person;
+import org.openmrs.PersonAttributeType;
+import org.openmrs.Provider;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.ConceptService;
+import org.openmrs.api.EncounterService;
+import org.openmrs.api.OrderService;
+import org.openmrs.api.PatientService;
+import org.openmrs.api.PersonService;
+import org.openmrs.api.ProviderService;
+import org.openmrs.api.context.Context;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Metadata looked up by a csv persister, kept for the length of one import run and shared by all its threads.
+ * Every bean that uses it gets an instance of its own, which its persister clears when a run starts, so one
+ * import never drops the lookups of another. Only ids are kept: the metadata is loaded again by id, from the
+ * session cache, in the session of the row asking for it. Lookups that find nothing are not kept.
+ */
+@Component
+@Scope("prototype")
+public class ImportMetadataDictionary {
+    private static final String EMR_PRIMARY_IDENTIFIER_TYPE = "emr.primaryIdentifierType";
+    private static final String PRIMARY_IDENTIFIER_TYPE_KEY = "primary";
+
+    private PersonService personService;
+    private PatientService patientService;
+    private AdministrationService administrationService;
+    private EncounterService encounterService;
+    private OrderService orderService;
+    private ConceptService conceptService;
+    private ProviderService providerService;
+
+    private volatile ConcurrentMap<String, Integer> personAttributeTypeIds;
+    private final ConcurrentMap<String, Integer> patientIdentifierTypeIds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> encounterTypeIds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> orderTypeIds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> careSettingIds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> conceptIds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> codedAnswerUuids = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Integer> providerIds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ImportMetadataDictionary(PersonService personService, PatientService patientService, @Qualifier("adminService") AdministrationService administrationService,
+                                    EncounterService encounterService, OrderService orderService, ConceptService conceptService, ProviderService providerService) {
+        this.personService = personService;
+        this.patientService = patientService;
+        this.administrationService = administrationService;
+        this.encounterService = encounterService;
+        this.orderService = orderService;
+        this.conceptService = conceptService;
+        this.providerService = providerService;
+    }
+
+    public void clear() {
+        personAttributeTypeIds = null;
+        patientIdentifierTypeIds.clear();
+        encounterTypeIds.clear();
+        orderTypeIds.clear();
+        careSettingIds.clear();
+        conceptIds.clear();
+        codedAnswerUuids.clear();
+        providerIds.clear();
+    }
+
+    public PersonAttributeType getPersonAttributeType(String name) {
+        if (name == null) {
+            return null;
+        }
+        ConcurrentMap<String, Integer> personAttributeTypeIds = this.personAttributeTypeIds;
+        if (personAttributeTypeIds == null) {
+            personAttributeTypeIds = new ConcurrentHashMap<>();
+            for (PersonAttributeType personAttributeType : personService.getAllPersonAttributeTypes(false)) {
+                cache(personAttributeTypeIds, key(personAttributeType.getName()), personAttributeType.getPersonAttributeTypeId());
+            }
+            this.personAttributeTypeIds = personAttributeTypeIds;
+        }
+        Integer personAttributeTypeId = personAttributeTypeIds.get(key(name));
+        return personAttributeTypeId == null ? null : personService.getPersonAttributeType(personAttributeTypeId);
+    }
+
+    public PatientIdentifierType getPrimaryIdentifierType() {
+        Integer patientIdentifierTypeId = patientIdentifierTypeIds.get(PRIMARY_IDENTIFIER_TYPE_KEY);
+        if (patientIdentifierTypeId != null) {
+            return patientService.getPatientIdentifierType(patientIdentifierTypeId);
+        }
+        String uuid = administrationService.getGlobalProperty(EMR_PRIMARY_IDENTIFIER_TYPE);
+        PatientIdentifierType patientIdentifierType = patientService.getPatientIdentifierTypeByUuid(uuid);
+        if (patientIdentifierType != null) {
+            cache(patientIdentifierTypeIds, PRIMARY_IDENTIFIER_TYPE_KEY, patientIdentifierType.getPatientIdentifierTypeId());
+        }
+        return patientIdentifierType;
+    }
+
+    public EncounterType getEncounterType(String name) {
+        if (name == null) {
+            return null;
+        }
+        Integer encounterTypeId = encounterTypeIds.get(name);
+        if (encounterTypeId != null) {
+            return encounterService.getEncounterType(encounterTypeId);
+        }
+        EncounterType encounterType = encounterService.getEncounterType(name);
+        if (encounterType != null) {
+            cache(encounterTypeIds, name, encounterType.getEncounterTypeId());
+        }
+        return encounterType;
+    }
+
+    public OrderType getOrderType(String name) {
+        if (name == null) {
+            return null;
+        }
+        Integer orderTypeId = orderTypeIds.get(name);
+        if (orderTypeId != null) {
+            return orderService.getOrderType(orderTypeId);
+        }
+        OrderType orderType = orderService.getOrderTypeByName(name);
+        if (orderType != null) {
+            cache(orderTypeIds, name, orderType.getOrderTypeId());
+        }
+        return orderType;
+    }
+
+    public CareSetting getCareSetting(String name) {
+        if (name == null) {
+            return null;
+        }
+        Integer careSettingId = careSettingIds.get(name);
+        if (careSettingId != null) {
+            return orderService.getCareSetting(careSettingId);
+        }
+        CareSetting careSetting = orderService.getCareSettingByName(name);
+        if (careSetting != null) {
+            cache(careSettingIds, name, careSetting.getCareSettingId());
+        }
+        return careSetting;
+    }
+
+    public Concept getConcept(String name) {
+        if (name == null) {
+            return null;
+        }
+        Integer conceptId = conceptIds.get(name);
+        if (conceptId != null) {
+            return conceptService.getConcept(conceptId);
+        }
+        Concept concept = conceptService.getConceptByName(name);
+        if (concept != null) {
+            cache(conceptIds, name, concept.getConceptId());
+        }
+        return concept;
+    }
+
+    /**
+     * Uuid of the concept whose fully specified name (or name) in the current locale is answerName, or null when
+     * there is none. Kept per question, since the same name is looked up again for every row of the question.
+     */
+    public String getCodedAnswerUuid(Concept question, String answerName) {
+        if (answerName == null) {
+            return null;
+        }
+        String key = question.getUuid() + ":" + key(answerName);
+        String answerUuid = codedAnswerUuids.get(key);
+        if (answerUuid == null) {
+            for (Concept concept : conceptService.getConceptsByName(answerName)) {
+                ConceptName name = concept.getFullySpecifiedName(Context.getLocale()) != null ? concept.getFullySpecifiedName(Context.getLocale()) : concept.getName();
+                if (name != null && name.getName().equalsIgnoreCase(answerName)) {
+                    answerUuid = concept.getUuid();
+                    break;
+                }
+            }
+            cache(codedAnswerUuids, key, answerUuid);
+        }
+        return answerUuid;
+    }
+
+    public Provider getProvider(Person person) {
+        Integer providerId = providerIds.get(person.getPersonId());
+        if (providerId != null) {
+            return providerService.getProvider(providerId);
+        }
+        Collection<Provider> providersOfPerson = providerService.getProvidersByPerson(person);
+        Provider provider = providersOfPerson.size() > 0 ? providersOfPerson.iterator().next() : null;
+        if (provider != null) {
+            cache(providerIds, person.getPersonId(), provider.getProviderId());
+        }
+        return provider;
+    }
+
+    private <K, V> void cache(ConcurrentMap<K, V> map, K key, V value) {
+        if (key != null && value != null) {
+            map.putIfAbsent(key, value);
+        }
+    }
+
+    private String key(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -1,6 +1,5 @@
 package org.bahmni.module.admin.csv.service;
 
-import groovy.lang.GroovyClassLoader;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.bahmni.csv.KeyValue;
@@ -9,15 +8,14 @@ import org.bahmni.module.admin.csv.patientmatchingalgorithm.PatientMatchingAlgor
 import org.bahmni.module.admin.csv.patientmatchingalgorithm.exception.CannotMatchPatientException;
 import org.bahmni.module.bahmnicore.service.BahmniPatientService;
 import org.openmrs.Patient;
+import org.openmrs.module.bahmniemrapi.script.ScriptEngineRegistry;
 import org.openmrs.util.OpenmrsUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Component
 public class PatientMatchService {
@@ -28,7 +26,7 @@ public class PatientMatchService {
     private static final Logger log = Logger.getLogger(PatientMatchService.class);
 
     // Mujir - an implementation could use multiple patient matching algorithms
-    protected Map<String, PatientMatchingAlgorithm> patientMatchingAlgorithms = new HashMap<>();
+    protected ScriptEngineRegistry scriptEngineRegistry = ScriptEngineRegistry.getInstance();
 
     public Patient getPatient(String matchingAlgorithmClassName, List<KeyValue> patientAttributes, String patientIdentifier, boolean shouldMatchExactPatientId) throws IOException, IllegalAccessException, InstantiationException, CannotMatchPatientException {
         List<Patient> matchingPatients = patientService.get(patientIdentifier, shouldMatchExactPatientId);
@@ -46,13 +44,7 @@ public class PatientMatchService {
     }
 
     private PatientMatchingAlgorithm getPatientMatchingAlgorithm(String matchingAlgorithmClassName) throws IOException, InstantiationException, IllegalAccessException {
-        PatientMatchingAlgorithm patientMatchingAlgorithm = patientMatchingAlgorithms.get(matchingAlgorithmClassName);
-        if (patientMatchingAlgorithm == null) {
-            Class clazz = new GroovyClassLoader().parseClass(new File(getAlgorithmClassPath(matchingAlgorithmClassName)));
-            patientMatchingAlgorithms.put(matchingAlgorithmClassName, (PatientMatchingAlgorithm) clazz.newInstance());
-        }
-
-        return patientMatchingAlgorithms.get(matchingAlgorithmClassName);
+        return scriptEngineRegistry.getInstance(new File(getAlgorithmClassPath(matchingAlgorithmClassName)), PatientMatchingAlgorithm.class);
     }
 
     private String getAlgorithmClassPath(String matchingAlgorithmClassName) {
@@ -1,31 +1,94 @@
 package org.bahmni.module.admin.observation;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.openmrs.Concept;
 import org.openmrs.api.ConceptService;
 import org.openmrs.module.emrapi.encounter.exception.ConceptNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
 
+/**
+ * Concept ids by name for the csv import mappers, shared by all import threads. Keeps the most recently used
+ * names, including names that have no concept, and is emptied by {@link ConceptCacheInvalidationAdvice} whenever
+ * a concept is saved, retired or purged. Only ids are shared, the concept itself is loaded in the session of the
+ * calling thread.
+ */
+@Component
 public class ConceptCache {
-    private Map<String, Concept> cachedConcepts = new HashMap<>();
+    private static final int DEFAULT_MAXIMUM_SIZE = 5000;
+
+    private final Map<String, Integer> cachedConceptIds;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
     private ConceptService conceptService;
 
+    @Autowired
     public ConceptCache(ConceptService conceptService) {
+        this(conceptService, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public ConceptCache(ConceptService conceptService, final int maximumSize) {
         this.conceptService = conceptService;
+        this.cachedConceptIds = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > maximumSize;
+            }
+        };
     }
 
     public Concept getConcept(String conceptName) {
-        if (!cachedConcepts.containsKey(conceptName)) {
-            cachedConcepts.put(conceptName, fetchConcept(conceptName));
+        Integer conceptId;
+        boolean cached;
+        long lookupGeneration = generation.get();
+        synchronized (cachedConceptIds) {
+            conceptId = cachedConceptIds.get(conceptName);
+            cached = conceptId != null || cachedConceptIds.containsKey(conceptName);
         }
-        return cachedConcepts.get(conceptName);
+        Concept concept = null;
+        if (cached) {
+            concept = conceptId != null ? conceptService.getConcept(conceptId) : null;
+            cached = conceptId == null || concept != null;
+        }
+        if (cached) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+            concept = conceptService.getConceptByName(conceptName);
+            synchronized (cachedConceptIds) {
+                // A concept saved while this name was looked up may have been missed, so the result is not kept
+                if (generation.get() == lookupGeneration) {
+                    cachedConceptIds.put(conceptName, concept != null ? concept.getId() : null);
+                }
+            }
+        }
+        if (concept == null)
+            throw new ConceptNotFoundException("Concept '" + conceptName + "' not found");
+        return concept;
     }
 
-    private Concept fetchConcept(String conceptName) {
-        Concept obsConcept = conceptService.getConceptByName(conceptName);
-        if (obsConcept == null)
-            throw new ConceptNotFoundException("Concept '" + conceptName + "' not found");
+    public void invalidateAll() {
+        synchronized (cachedConceptIds) {
+            generation.incrementAndGet();
+            cachedConceptIds.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cachedConceptIds) {
+            return cachedConceptIds.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
 
-        return obsConcept;
+    public long getMissCount() {
+        return missCount.get();
     }
 }
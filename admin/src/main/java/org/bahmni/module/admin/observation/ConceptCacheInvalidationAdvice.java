@@ -0,0 +1,51 @@
+package org.bahmni.module.admin.observation;
+
+import org.openmrs.api.context.Context;
+import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Empties the {@link ConceptCache} when a concept changes, straight away and again once the transaction completes,
+ * so a name looked up by an import thread before the change was committed is not kept.
+ */
+public class ConceptCacheInvalidationAdvice implements AfterReturningAdvice {
+    private static final List<String> INVALIDATING_METHODS = Arrays.asList("saveConcept", "retireConcept", "unretireConcept", "purgeConcept");
+
+    private ConceptCache conceptCache;
+
+    public ConceptCacheInvalidationAdvice() {
+    }
+
+    public ConceptCacheInvalidationAdvice(ConceptCache conceptCache) {
+        this.conceptCache = conceptCache;
+    }
+
+    @Override
+    public void afterReturning(Object returnValue, Method method, Object[] arguments, Object target) throws Throwable {
+        if (!INVALIDATING_METHODS.contains(method.getName())) {
+            return;
+        }
+        final ConceptCache conceptCache = getConceptCache();
+        conceptCache.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    conceptCache.invalidateAll();
+                }
+            });
+        }
+    }
+
+    private ConceptCache getConceptCache() {
+        if (conceptCache == null) {
+            conceptCache = Context.getRegisteredComponents(ConceptCache.class).get(0);
+        }
+        return conceptCache;
+    }
+}
@@ -9,7 +9,6 @@ import org.apache.log4j.Logger;
 import org.bahmni.csv.KeyValue;
 import org.bahmni.module.admin.csv.models.EncounterRow;
 import org.openmrs.Concept;
-import org.openmrs.api.ConceptService;
 import org.openmrs.module.bahmniemrapi.diagnosis.contract.BahmniDiagnosisRequest;
 import org.openmrs.module.emrapi.diagnosis.Diagnosis;
 import org.openmrs.module.emrapi.encounter.domain.EncounterTransaction;
@@ -25,8 +24,8 @@ public class DiagnosisMapper {
     private final ConceptCache conceptCache;
 
     @Autowired
-    public DiagnosisMapper(ConceptService conceptService) {
-        this.conceptCache = new ConceptCache(conceptService);
+    public DiagnosisMapper(ConceptCache conceptCache) {
+        this.conceptCache = conceptCache;
     }
 
     public List<BahmniDiagnosisRequest> getBahmniDiagnosis(EncounterRow encounterRow) throws ParseException {
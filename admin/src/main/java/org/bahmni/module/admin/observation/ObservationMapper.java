@@ -3,10 +3,8 @@ package org.bahmni.module.admin.observation;
 import org.apache.commons.lang.StringUtils;
 import org.bahmni.csv.KeyValue;
 import org.bahmni.module.admin.csv.models.EncounterRow;
+import org.bahmni.module.admin.csv.service.ImportMetadataDictionary;
 import org.openmrs.Concept;
-import org.openmrs.ConceptName;
-import org.openmrs.api.ConceptService;
-import org.openmrs.api.context.Context;
 import org.openmrs.module.emrapi.encounter.domain.EncounterTransaction;
 import org.openmrs.module.emrapi.encounter.exception.ConceptNotFoundException;
 
@@ -19,12 +17,19 @@ import org.springframework.stereotype.Component;
 public class ObservationMapper {
     private final ConceptCache conceptCache;
 
-    private ConceptService conceptService;
+    private ImportMetadataDictionary importMetadataDictionary;
 
     @Autowired
-    public ObservationMapper(ConceptService conceptService) {
-        this.conceptCache = new ConceptCache(conceptService);
-        this.conceptService = conceptService;
+    public ObservationMapper(ConceptCache conceptCache, ImportMetadataDictionary importMetadataDictionary) {
+        this.conceptCache = conceptCache;
+        this.importMetadataDictionary = importMetadataDictionary;
+    }
+
+    /**
+     * Starts an import run, so coded answers looked up by earlier runs are looked up again.
+     */
+    public void init() {
+        importMetadataDictionary.clear();
     }
 
     public List<EncounterTransaction.Observation> getObservations(EncounterRow encounterRow) throws ParseException {
@@ -88,18 +93,10 @@ public class ObservationMapper {
 
     private String getValue(KeyValue obsRow, Concept obsConcept) throws ParseException {
         if (obsConcept.getDatatype().isCoded()) {
-            List<Concept> valueConcepts = conceptService.getConceptsByName(obsRow.getValue());
-            Concept valueConcept = null;
-            for (Concept concept : valueConcepts) {
-                ConceptName name = concept.getFullySpecifiedName(Context.getLocale()) != null ? concept.getFullySpecifiedName(Context.getLocale()) : concept.getName();
-                if (name.getName().equalsIgnoreCase(obsRow.getValue())) {
-                    valueConcept = concept;
-                    break;
-                }
-            }
-            if (valueConcept == null)
+            String valueConceptUuid = importMetadataDictionary.getCodedAnswerUuid(obsConcept, obsRow.getValue());
+            if (valueConceptUuid == null)
                 throw new ConceptNotFoundException(obsRow.getValue() + " not found");
-            return valueConcept.getUuid();
+            return valueConceptUuid;
         }
         return obsRow.getValue();
     }
@@ -12,14 +12,32 @@ import org.openmrs.module.emrapi.encounter.domain.EncounterTransaction;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
+import static org.apache.commons.collections.CollectionUtils.addIgnoreNull;
+
+/**
+ * Finds which incoming observations and diagnoses are already in a visit. The visit's obs are indexed by concept
+ * name (and, when first asked for a concept, by value) and by encounter datetime, so every lookup is a hash lookup
+ * rather than a scan of the whole visit.
+ */
 public class DuplicateObservationsMatcher {
+    private static final String CODED_VALUE_PREFIX = "coded:";
+    private static final String NUMERIC_VALUE_PREFIX = "numeric:";
+    private static final String TEXT_VALUE_PREFIX = "text:";
+
     private Visit matchingVisit;
     private BahmniVisit visit;
-    private List<Obs> visitObservations;
     private String requestedEncounterType;
+    private Map<String, List<Obs>> visitObsByConceptName;
+    private Map<String, Set<String>> visitObsValuesByConceptName = new HashMap<>();
+    private Set<String> conceptNamesWithNumericValues = new HashSet<>();
+    private Map<Long, Set<String>> conceptNamesByEncounterDateTime;
 
     public DuplicateObservationsMatcher(Visit matchingVisit, String requestedEncounterType) {
         this.visit = new BahmniVisit(matchingVisit);
@@ -28,13 +46,11 @@ public class DuplicateObservationsMatcher {
     }
 
     public List<EncounterTransaction.Observation> getUniqueObservations(List<EncounterTransaction.Observation> observations) {
-        List<Obs> allObs = getObservationsForVisit();
-
         List<EncounterTransaction.Observation> uniqueObservations = new ArrayList<>();
         for (EncounterTransaction.Observation anObservation : observations) {
             String anObservationValue = (String) anObservation.getValue();
             String observationConceptName = anObservation.getConcept().getName();
-            if (isUnique(allObs, anObservationValue, observationConceptName)) {
+            if (isUnique(anObservationValue, observationConceptName)) {
                 uniqueObservations.add(anObservation);
             }
         }
@@ -42,49 +58,24 @@ public class DuplicateObservationsMatcher {
     }
 
     public Collection<BahmniObservation> getNewlyAddedBahmniObservations(Collection<BahmniObservation> observations, Date encounterDateTime) {
-        List<Encounter> matchedEncounters = getAllEncountersByDate(encounterDateTime);
-        return filterObsIfItIsExists(observations, matchedEncounters);
-    }
-
-    private Collection<BahmniObservation> filterObsIfItIsExists(Collection<BahmniObservation> observations, List<Encounter> matchedEncounters) {
+        Set<String> existingConceptNames = getConceptNamesByEncounterDateTime().get(encounterDateTime.getTime());
+        if (existingConceptNames == null) {
+            return observations;
+        }
         List<BahmniObservation> existingObs = new ArrayList<>();
-        for (Encounter matchedEncounter : matchedEncounters) {
-            for (BahmniObservation observation : observations) {
-                if (isObsExisits(observation, matchedEncounter.getAllObs())) {
-                    existingObs.add(observation);
-                }
+        for (BahmniObservation observation : observations) {
+            if (existingConceptNames.contains(normalize(observation.getConcept().getName()))) {
+                existingObs.add(observation);
             }
         }
         observations.removeAll(existingObs);
         return observations;
     }
 
-    private boolean isObsExisits(BahmniObservation observation, Set<Obs> existingObs) {
-        for (Obs obs : existingObs) {
-            if (doesConceptNameMatch(obs, observation.getConcept().getName())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private List<Encounter> getAllEncountersByDate(Date encounterDateTime) {
-        Set<Encounter> encounters = matchingVisit.getEncounters();
-        List<Encounter> matchingEncounters = new ArrayList<>();
-        for (Encounter encounter : encounters) {
-            if (encounterDateTime.equals(encounter.getEncounterDatetime()))
-                matchingEncounters.add(encounter);
-        }
-        return matchingEncounters;
-    }
-
-
     public List<BahmniDiagnosisRequest> getUniqueDiagnoses(List<BahmniDiagnosisRequest> bahmniDiagnoses) {
-        List<Obs> allObs = getObservationsForVisit();
-
         List<BahmniDiagnosisRequest> uniqueDiagnoses = new ArrayList<>();
         for (BahmniDiagnosisRequest diagnosisRequest : bahmniDiagnoses) {
-            if (diagnosisRequest.getCodedAnswer()!=null && isUnique(allObs, diagnosisRequest.getCodedAnswer().getUuid(), EmrApiConstants.CONCEPT_CODE_CODED_DIAGNOSIS)) {
+            if (diagnosisRequest.getCodedAnswer()!=null && isUnique(diagnosisRequest.getCodedAnswer().getUuid(), EmrApiConstants.CONCEPT_CODE_CODED_DIAGNOSIS)) {
                 uniqueDiagnoses.add(diagnosisRequest);
             }else if(diagnosisRequest.getCodedAnswer() == null){
                 uniqueDiagnoses.add(diagnosisRequest);
@@ -93,32 +84,84 @@ public class DuplicateObservationsMatcher {
         return uniqueDiagnoses;
     }
 
-    private List<Obs> getObservationsForVisit() {
-        if (visitObservations == null)
-            visitObservations = visit.obsFor(requestedEncounterType);
-
-        return visitObservations;
+    private Map<Long, Set<String>> getConceptNamesByEncounterDateTime() {
+        if (conceptNamesByEncounterDateTime == null) {
+            conceptNamesByEncounterDateTime = new HashMap<>();
+            for (Encounter encounter : matchingVisit.getEncounters()) {
+                if (encounter.getEncounterDatetime() == null) {
+                    continue;
+                }
+                Set<String> conceptNames = conceptNamesByEncounterDateTime.get(encounter.getEncounterDatetime().getTime());
+                if (conceptNames == null) {
+                    conceptNames = new HashSet<>();
+                    conceptNamesByEncounterDateTime.put(encounter.getEncounterDatetime().getTime(), conceptNames);
+                }
+                for (Obs obs : encounter.getAllObs()) {
+                    conceptNames.add(normalize(obs.getConcept().getName().getName()));
+                }
+            }
+        }
+        return conceptNamesByEncounterDateTime;
     }
 
-    private boolean isUnique(List<Obs> allObs, String anObservationValue, String observationConceptName) {
-        for (Obs anObs : allObs) {
-            if (doesConceptNameMatch(anObs, observationConceptName) && doesObsValueMatch(anObs, anObservationValue)) {
-                return false;
+    private Map<String, List<Obs>> getVisitObsByConceptName() {
+        if (visitObsByConceptName == null) {
+            visitObsByConceptName = new HashMap<>();
+            for (Obs obs : visit.obsFor(requestedEncounterType)) {
+                String conceptName = normalize(obs.getConcept().getName().getName());
+                List<Obs> obsOfConcept = visitObsByConceptName.get(conceptName);
+                if (obsOfConcept == null) {
+                    obsOfConcept = new ArrayList<>();
+                    visitObsByConceptName.put(conceptName, obsOfConcept);
+                }
+                obsOfConcept.add(obs);
             }
         }
-        return true;
+        return visitObsByConceptName;
     }
 
-    private boolean doesConceptNameMatch(Obs obs, String conceptName) {
-        return conceptName.equalsIgnoreCase(obs.getConcept().getName().getName());
+    private boolean isUnique(String anObservationValue, String observationConceptName) {
+        String conceptName = normalize(observationConceptName);
+        List<Obs> obsOfConcept = getVisitObsByConceptName().get(conceptName);
+        if (obsOfConcept == null) {
+            return true;
+        }
+        Set<String> values = visitObsValuesByConceptName.get(conceptName);
+        if (values == null) {
+            values = new HashSet<>();
+            for (Obs obs : obsOfConcept) {
+                String valueKey = obsValueKey(obs);
+                if (valueKey != null && valueKey.startsWith(NUMERIC_VALUE_PREFIX)) {
+                    conceptNamesWithNumericValues.add(conceptName);
+                }
+                addIgnoreNull(values, valueKey);
+            }
+            visitObsValuesByConceptName.put(conceptName, values);
+        }
+        if (values.contains(CODED_VALUE_PREFIX + normalize(anObservationValue)) || values.contains(TEXT_VALUE_PREFIX + normalize(anObservationValue))) {
+            return false;
+        }
+        return !(conceptNamesWithNumericValues.contains(conceptName) && values.contains(numericValueKey(Double.parseDouble(anObservationValue))));
     }
 
-    private boolean doesObsValueMatch(Obs obs, String anObservationValue) {
+    // Matches the way values were compared before: coded values by answer uuid, numeric values by number and
+    // anything else by its text, ignoring case
+    private String obsValueKey(Obs obs) {
         if (obs.getConcept().getDatatype().isCoded() && obs.getValueCoded() != null) {
-            return anObservationValue.equalsIgnoreCase(obs.getValueCoded().getUuid());
+            return CODED_VALUE_PREFIX + normalize(obs.getValueCoded().getUuid());
         } else if (obs.getConcept().isNumeric()) {
-            return Double.parseDouble(anObservationValue) == obs.getValueNumeric();
+            return obs.getValueNumeric() == null ? null : numericValueKey(obs.getValueNumeric());
         }
-        return anObservationValue.equalsIgnoreCase(obs.getValueAsString(Context.getLocale()));
+        String valueAsString = obs.getValueAsString(Context.getLocale());
+        return valueAsString == null ? null : TEXT_VALUE_PREFIX + normalize(valueAsString);
+    }
+
+    private String numericValueKey(double value) {
+        // adding 0.0 turns -0.0 into 0.0, which == treated as equal
+        return NUMERIC_VALUE_PREFIX + (value + 0.0);
+    }
+
+    private String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ENGLISH);
     }
 }
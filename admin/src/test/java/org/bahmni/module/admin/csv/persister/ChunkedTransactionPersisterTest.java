@@ -0,0 +1,107 @@
+package org.bahmni.module.admin.csv.persister;
+
+import org.bahmni.csv.EntityPersister;
+import org.bahmni.csv.Messages;
+import org.bahmni.module.admin.csv.models.DrugRow;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.openmrs.api.context.Context;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Context.class)
+public class ChunkedTransactionPersisterTest {
+    @Mock
+    private EntityPersister<DrugRow> drugPersister;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionStatus chunkTransaction = mock(TransactionStatus.class);
+    private TransactionStatus rowTransaction = mock(TransactionStatus.class);
+    private ExecutorService migratorThreads = Executors.newFixedThreadPool(2);
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        mockStatic(Context.class);
+        when(drugPersister.persist(any(DrugRow.class))).thenReturn(new Messages());
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(chunkTransaction, rowTransaction);
+    }
+
+    @Test
+    public void shouldCommitOncePerChunk() throws Exception {
+        ChunkedTransactionPersister<DrugRow> persister = new ChunkedTransactionPersister<>(drugPersister, transactionManager, 2);
+
+        Future<Messages> firstRow = persistInThread(persister, new DrugRow());
+        Future<Messages> secondRow = persistInThread(persister, new DrugRow());
+
+        assertTrue(firstRow.get().isEmpty());
+        assertTrue(secondRow.get().isEmpty());
+        verify(transactionManager).commit(chunkTransaction);
+        verify(transactionManager, times(1)).getTransaction(any(TransactionDefinition.class));
+    }
+
+    @Test
+    public void shouldSaveRowsOneByOneWhenARowOfTheChunkFails() throws Exception {
+        DrugRow goodRow = new DrugRow();
+        DrugRow badRow = new DrugRow();
+        when(drugPersister.persist(badRow)).thenThrow(new RuntimeException("Drug name not specified"));
+        ChunkedTransactionPersister<DrugRow> persister = new ChunkedTransactionPersister<>(drugPersister, transactionManager, 10);
+
+        Future<Messages> goodRowMessages = persistInThread(persister, goodRow);
+        verify(drugPersister, timeout(1000)).persist(goodRow);
+        Messages badRowMessages = persister.persist(badRow);
+
+        assertFalse(badRowMessages.isEmpty());
+        assertTrue(goodRowMessages.get().isEmpty());
+        verify(transactionManager).rollback(chunkTransaction);
+        verify(transactionManager, never()).commit(chunkTransaction);
+        verify(transactionManager).commit(rowTransaction);
+        verify(drugPersister, times(2)).persist(goodRow);
+    }
+
+    @Test
+    public void shouldReportARowFailingOnlyWhenTheChunkCommits() {
+        DrugRow badRow = new DrugRow();
+        when(drugPersister.persist(badRow)).thenReturn(new Messages()).thenThrow(new RuntimeException("Duplicate drug"));
+        doThrow(new TransactionSystemException("Duplicate entry")).when(transactionManager).commit(chunkTransaction);
+        ChunkedTransactionPersister<DrugRow> persister = new ChunkedTransactionPersister<>(drugPersister, transactionManager, 1);
+
+        assertFalse(persister.persist(badRow).isEmpty());
+        verify(drugPersister, times(2)).persist(badRow);
+    }
+
+    private Future<Messages> persistInThread(final ChunkedTransactionPersister<DrugRow> persister, final DrugRow drugRow) {
+        return migratorThreads.submit(new Callable<Messages>() {
+            @Override
+            public Messages call() {
+                return persister.persist(drugRow);
+            }
+        });
+    }
+}
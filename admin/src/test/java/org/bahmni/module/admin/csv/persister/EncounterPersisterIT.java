@@ -13,7 +13,6 @@ import org.openmrs.*;
 import org.openmrs.api.EncounterService;
 import org.openmrs.api.VisitService;
 import org.openmrs.api.context.Context;
-import org.openmrs.api.context.UserContext;
 import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -35,7 +34,6 @@ public class EncounterPersisterIT extends BaseModuleWebContextSensitiveTest {
     private VisitService visitService;
 
     private String path;
-    protected UserContext userContext;
     private boolean shouldMatchExactPatientId = false;
 
     @Before
@@ -49,9 +47,8 @@ public class EncounterPersisterIT extends BaseModuleWebContextSensitiveTest {
 
 
         Context.authenticate("admin", "test");
-        userContext = Context.getUserContext();
         boolean shouldMatchExactPatientId = false;
-        encounterPersister.init(userContext, null, shouldMatchExactPatientId);
+        encounterPersister.init(null, shouldMatchExactPatientId);
     }
 
     @Test
@@ -588,7 +585,7 @@ public class EncounterPersisterIT extends BaseModuleWebContextSensitiveTest {
         multipleEncounterRow.visitType = "OPD";
         multipleEncounterRow.patientIdentifier = "GAN200001";
 
-        encounterPersister.init(userContext, "NoMatch.groovy", shouldMatchExactPatientId);
+        encounterPersister.init("NoMatch.groovy", shouldMatchExactPatientId);
 
         Messages errorMessages = encounterPersister.persist(multipleEncounterRow);
         assertThat(errorMessages.size(), is(Matchers.greaterThan(0)));
@@ -602,7 +599,7 @@ public class EncounterPersisterIT extends BaseModuleWebContextSensitiveTest {
         multipleEncounterRow.encounterType = "Consultation";
         multipleEncounterRow.visitType = "OPD";
         multipleEncounterRow.patientIdentifier = "200000";
-        encounterPersister.init(userContext, "MultipleMatchPatient.groovy", shouldMatchExactPatientId);
+        encounterPersister.init("MultipleMatchPatient.groovy", shouldMatchExactPatientId);
 
         Messages errorMessages = encounterPersister.persist(multipleEncounterRow);
 
@@ -617,7 +614,7 @@ public class EncounterPersisterIT extends BaseModuleWebContextSensitiveTest {
         multipleEncounterRow.encounterType = "Consultation";
         multipleEncounterRow.visitType = "OPD";
         multipleEncounterRow.patientIdentifier = patientId;
-        encounterPersister.init(userContext, "GANIdentifier.groovy", shouldMatchExactPatientId);
+        encounterPersister.init("GANIdentifier.groovy", shouldMatchExactPatientId);
 
         EncounterRow anEncounter = new EncounterRow();
         anEncounter.obsRows = new ArrayList<>();
@@ -646,7 +643,7 @@ public class EncounterPersisterIT extends BaseModuleWebContextSensitiveTest {
         multipleEncounterRow.visitType = "OPD";
         multipleEncounterRow.patientIdentifier = "GAN200000";
         multipleEncounterRow.patientAttributes = getPatientAttributes();
-        encounterPersister.init(userContext, "IdAndNameMatch.groovy", shouldMatchExactPatientId);
+        encounterPersister.init("IdAndNameMatch.groovy", shouldMatchExactPatientId);
 
         EncounterRow anEncounter = new EncounterRow();
         anEncounter.obsRows = new ArrayList<>();
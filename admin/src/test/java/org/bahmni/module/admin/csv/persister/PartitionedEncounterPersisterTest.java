@@ -0,0 +1,138 @@
+package org.bahmni.module.admin.csv.persister;
+
+import org.bahmni.csv.Messages;
+import org.bahmni.module.admin.csv.models.MultipleEncounterRow;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openmrs.api.context.Context;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Context.class)
+public class PartitionedEncounterPersisterTest {
+    @Mock
+    private EncounterPersister encounterPersister;
+
+    private PartitionedEncounterPersister partitionedEncounterPersister;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        mockStatic(Context.class);
+        partitionedEncounterPersister = new PartitionedEncounterPersister(encounterPersister);
+        partitionedEncounterPersister.init(null, null, false, 3);
+    }
+
+    @Test
+    public void shouldNotSaveRowsOfOnePatientAtTheSameTime() throws Exception {
+        final AtomicBoolean saving = new AtomicBoolean();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        when(encounterPersister.persist(any(MultipleEncounterRow.class))).thenAnswer(new Answer<Messages>() {
+            @Override
+            public Messages answer(InvocationOnMock invocation) throws Throwable {
+                if (!saving.compareAndSet(false, true)) {
+                    overlapped.set(true);
+                }
+                Thread.sleep(5);
+                saving.set(false);
+                return new Messages();
+            }
+        });
+
+        ExecutorService readers = Executors.newFixedThreadPool(6);
+        List<Future<Messages>> results = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            final MultipleEncounterRow row = rowFor("GAN200000");
+            results.add(readers.submit(new Callable<Messages>() {
+                @Override
+                public Messages call() throws Exception {
+                    return partitionedEncounterPersister.persist(row);
+                }
+            }));
+        }
+        for (Future<Messages> result : results) {
+            result.get();
+        }
+        readers.shutdown();
+
+        assertFalse(overlapped.get());
+        assertEquals(30, partitionedEncounterPersister.getThroughput().getRowsProcessed());
+    }
+
+    @Test
+    public void shouldCountFailedRows() {
+        when(encounterPersister.persist(any(MultipleEncounterRow.class))).thenReturn(new Messages("No matching patients found"));
+
+        Messages messages = partitionedEncounterPersister.persist(rowFor("GAN200001"));
+
+        assertFalse(messages.isEmpty());
+        ImportThroughput throughput = partitionedEncounterPersister.getThroughput();
+        assertEquals(3, throughput.getNumberOfThreads());
+        assertEquals(1, throughput.getRowsProcessed());
+        assertEquals(1, throughput.getRowsFailed());
+        assertEquals(0, throughput.getRowsInProgress());
+    }
+
+    @Test
+    public void shouldRefuseToStartAnotherImportWhileRowsAreBeingSaved() throws Exception {
+        final CountDownLatch saving = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(encounterPersister.persist(any(MultipleEncounterRow.class))).thenAnswer(new Answer<Messages>() {
+            @Override
+            public Messages answer(InvocationOnMock invocation) throws Throwable {
+                saving.countDown();
+                release.await();
+                return new Messages();
+            }
+        });
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        Future<Messages> result = reader.submit(new Callable<Messages>() {
+            @Override
+            public Messages call() throws Exception {
+                return partitionedEncounterPersister.persist(rowFor("GAN200000"));
+            }
+        });
+        saving.await();
+
+        try {
+            partitionedEncounterPersister.init(null, null, false, 3);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(1, partitionedEncounterPersister.getThroughput().getRowsInProgress());
+        } finally {
+            release.countDown();
+        }
+        result.get();
+        reader.shutdown();
+
+        assertEquals(1, partitionedEncounterPersister.getThroughput().getRowsProcessed());
+    }
+
+    private MultipleEncounterRow rowFor(String patientIdentifier) {
+        MultipleEncounterRow multipleEncounterRow = new MultipleEncounterRow();
+        multipleEncounterRow.patientIdentifier = patientIdentifier;
+        return multipleEncounterRow;
+    }
+}
@@ -9,7 +9,6 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.context.Context;
-import org.openmrs.api.context.UserContext;
 import org.openmrs.test.BaseContextSensitiveTest;
 
 import java.util.ArrayList;
@@ -33,8 +32,6 @@ public class PatientPersisterIT extends BaseContextSensitiveTest {
         System.setProperty("OPENMRS_APPLICATION_DATA_DIRECTORY", path);
 
         Context.authenticate("admin", "test");
-        UserContext userContext = Context.getUserContext();
-        patientPersister.init(userContext);
     }
 
     @Test
@@ -47,9 +47,13 @@ public class CSVPatientServiceTest {
     @Mock
     private CSVAddressService csvAddressService;
 
+    private ImportMetadataDictionary importMetadataDictionary;
+    private int personAttributeTypeId;
+
     @Before
     public void setUp() throws Exception {
         initMocks(this);
+        importMetadataDictionary = new ImportMetadataDictionary(mockPersonService, mockPatientService, mockAdminService, null, null, conceptService, null);
     }
 
     @Rule
@@ -63,7 +67,7 @@ public class CSVPatientServiceTest {
         patientRow.lastName = "Powar";
 
         ArgumentCaptor<Patient> patientArgumentCaptor = ArgumentCaptor.forClass(Patient.class);
-        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, mockAdminService, csvAddressService);
+        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, importMetadataDictionary, csvAddressService);
 
         Patient savedPatient = csvPatientService.save(patientRow);
 
@@ -86,7 +90,7 @@ public class CSVPatientServiceTest {
         patientRow.birthdate = "1998-07-07";
 
         ArgumentCaptor<Patient> patientArgumentCaptor = ArgumentCaptor.forClass(Patient.class);
-        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, mockAdminService, csvAddressService);
+        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, importMetadataDictionary, csvAddressService);
 
         Patient savedPatient = csvPatientService.save(patientRow);
 
@@ -110,7 +114,7 @@ public class CSVPatientServiceTest {
 
 
         ArgumentCaptor<Patient> patientArgumentCaptor = ArgumentCaptor.forClass(Patient.class);
-        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, mockAdminService, csvAddressService);
+        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, importMetadataDictionary, csvAddressService);
 
         Patient savedPatient = csvPatientService.save(patientRow);
 
@@ -160,7 +164,7 @@ public class CSVPatientServiceTest {
         when(addressHierarchyService.getAddressHierarchyLevels()).thenReturn(addressHierarchyLevels);
 
         ArgumentCaptor<Patient> patientArgumentCaptor = ArgumentCaptor.forClass(Patient.class);
-        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, mockAdminService, new CSVAddressService(addressHierarchyService));
+        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, importMetadataDictionary, new CSVAddressService(addressHierarchyService));
         Patient savedPatient = csvPatientService.save(patientRow);
 
         verify(mockPatientService).savePatient(patientArgumentCaptor.capture());
@@ -176,17 +180,18 @@ public class CSVPatientServiceTest {
 
     @Test
     public void save_person_attributes() throws ParseException {
-        when(mockPersonService.getAllPersonAttributeTypes(false)).thenReturn(Arrays.asList(
-                createPersonAttributeType("familyNameLocal","java.lang.String"),
-                createPersonAttributeType("caste","java.lang.String")
-        ));
+        List<PersonAttributeType> personAttributeTypes = Arrays.asList(
+                createPersonAttributeType("familyNameLocal", "java.lang.String"),
+                createPersonAttributeType("caste", "java.lang.String")
+        );
+        when(mockPersonService.getAllPersonAttributeTypes(false)).thenReturn(personAttributeTypes);
         PatientRow patientRow = new PatientRow();
         patientRow.attributes = new ArrayList<KeyValue>() {{
             add(new KeyValue("familyNameLocal", "ram"));
             add(new KeyValue("caste", "gond"));
         }};
 
-        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, mockAdminService, csvAddressService);
+        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, importMetadataDictionary, csvAddressService);
         csvPatientService.save(patientRow);
 
         ArgumentCaptor<Patient> patientArgumentCaptor = ArgumentCaptor.forClass(Patient.class);
@@ -199,8 +204,9 @@ public class CSVPatientServiceTest {
 
     @Test
     public void fails_whenNonExistingAttributeIsImported() throws ParseException {
-        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, mockAdminService, csvAddressService);
-        when(mockPersonService.getAllPersonAttributeTypes(false)).thenReturn(Arrays.asList(createPersonAttributeType("familyNameLocal", "java.lang.String")));
+        CSVPatientService csvPatientService = new CSVPatientService(mockPatientService, mockPersonService, conceptService, importMetadataDictionary, csvAddressService);
+        List<PersonAttributeType> personAttributeTypes = Arrays.asList(createPersonAttributeType("familyNameLocal", "java.lang.String"));
+        when(mockPersonService.getAllPersonAttributeTypes(false)).thenReturn(personAttributeTypes);
 
         PatientRow patientRow = new PatientRow();
         patientRow.attributes = Arrays.asList(new KeyValue("nonExisting", "someValue"));
@@ -211,9 +217,10 @@ public class CSVPatientServiceTest {
     }
 
     private PersonAttributeType createPersonAttributeType(String name, String format) {
-        PersonAttributeType personAttributeType = new PersonAttributeType();
+        PersonAttributeType personAttributeType = new PersonAttributeType(++personAttributeTypeId);
         personAttributeType.setName(name);
         personAttributeType.setFormat(format);
+        when(mockPersonService.getPersonAttributeType(personAttributeTypeId)).thenReturn(personAttributeType);
         return personAttributeType;
     }
 }
\ No newline at end of file
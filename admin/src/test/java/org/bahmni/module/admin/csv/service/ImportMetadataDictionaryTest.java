@@ -0,0 +1,125 @@
+package org.bahmni.module.admin.csv.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.openmrs.Concept;
+import org.openmrs.ConceptAnswer;
+import org.openmrs.ConceptName;
+import org.openmrs.EncounterType;
+import org.openmrs.PersonAttributeType;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.ConceptService;
+import org.openmrs.api.EncounterService;
+import org.openmrs.api.OrderService;
+import org.openmrs.api.PatientService;
+import org.openmrs.api.PersonService;
+import org.openmrs.api.ProviderService;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class ImportMetadataDictionaryTest {
+    @Mock
+    private PersonService personService;
+    @Mock
+    private PatientService patientService;
+    @Mock
+    private AdministrationService administrationService;
+    @Mock
+    private EncounterService encounterService;
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private ConceptService conceptService;
+    @Mock
+    private ProviderService providerService;
+
+    private ImportMetadataDictionary importMetadataDictionary;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        importMetadataDictionary = new ImportMetadataDictionary(personService, patientService, administrationService, encounterService, orderService, conceptService, providerService);
+    }
+
+    @Test
+    public void shouldLoadPersonAttributeTypesOnceAndMatchIgnoringCase() {
+        PersonAttributeType caste = new PersonAttributeType(7);
+        caste.setName("caste");
+        when(personService.getAllPersonAttributeTypes(false)).thenReturn(Arrays.asList(caste));
+        when(personService.getPersonAttributeType(7)).thenReturn(caste);
+
+        assertSame(caste, importMetadataDictionary.getPersonAttributeType("Caste"));
+        assertSame(caste, importMetadataDictionary.getPersonAttributeType("caste"));
+        assertNull(importMetadataDictionary.getPersonAttributeType("education"));
+
+        verify(personService, times(1)).getAllPersonAttributeTypes(false);
+    }
+
+    @Test
+    public void shouldLookUpEncounterTypeByNameAgainOnlyAfterClear() {
+        EncounterType labResult = new EncounterType(3);
+        when(encounterService.getEncounterType("LAB_RESULT")).thenReturn(labResult);
+        when(encounterService.getEncounterType(3)).thenReturn(labResult);
+
+        assertSame(labResult, importMetadataDictionary.getEncounterType("LAB_RESULT"));
+        assertSame(labResult, importMetadataDictionary.getEncounterType("LAB_RESULT"));
+        importMetadataDictionary.clear();
+        assertSame(labResult, importMetadataDictionary.getEncounterType("LAB_RESULT"));
+
+        verify(encounterService, times(2)).getEncounterType("LAB_RESULT");
+    }
+
+    @Test
+    public void shouldLoadCachedEncounterTypeByIdInTheCurrentSession() {
+        EncounterType labResult = new EncounterType(3);
+        EncounterType labResultInCurrentSession = new EncounterType(3);
+        when(encounterService.getEncounterType("LAB_RESULT")).thenReturn(labResult);
+        when(encounterService.getEncounterType(3)).thenReturn(labResultInCurrentSession);
+
+        importMetadataDictionary.getEncounterType("LAB_RESULT");
+
+        assertSame(labResultInCurrentSession, importMetadataDictionary.getEncounterType("LAB_RESULT"));
+    }
+
+    @Test
+    public void shouldFindCodedAnswerByNameWhetherOrNotItIsAnAnswerOfTheQuestion() {
+        Concept confirmed = concept(407, "Confirmed");
+        Concept certainty = concept(404, "Diagnosis Certainty");
+        certainty.addAnswer(new ConceptAnswer(confirmed));
+        Concept status = concept(405, "Diagnosis Status");
+        when(conceptService.getConceptsByName("CONFIRMED")).thenReturn(Arrays.asList(confirmed));
+        when(conceptService.getConceptsByName("Confirmed")).thenReturn(Arrays.asList(concept(408, "Confirmed Case"), confirmed));
+
+        assertEquals(confirmed.getUuid(), importMetadataDictionary.getCodedAnswerUuid(certainty, "CONFIRMED"));
+        assertEquals(confirmed.getUuid(), importMetadataDictionary.getCodedAnswerUuid(status, "Confirmed"));
+        assertNull(importMetadataDictionary.getCodedAnswerUuid(status, "Ruled Out"));
+    }
+
+    @Test
+    public void shouldLookUpCodedAnswerOncePerQuestion() {
+        Concept confirmed = concept(407, "Confirmed");
+        Concept certainty = concept(404, "Diagnosis Certainty");
+        when(conceptService.getConceptsByName("Confirmed")).thenReturn(Arrays.asList(confirmed));
+
+        importMetadataDictionary.getCodedAnswerUuid(certainty, "Confirmed");
+        importMetadataDictionary.getCodedAnswerUuid(certainty, "Confirmed");
+
+        verify(conceptService, times(1)).getConceptsByName("Confirmed");
+    }
+
+    private Concept concept(int conceptId, String name) {
+        Concept concept = new Concept(conceptId);
+        concept.setFullySpecifiedName(new ConceptName(name, Locale.ENGLISH));
+        return concept;
+    }
+}
@@ -4,12 +4,19 @@ import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 import org.openmrs.Concept;
 import org.openmrs.api.ConceptService;
+import org.openmrs.module.emrapi.encounter.exception.ConceptNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 public class ConceptCacheTest {
 
@@ -24,7 +31,7 @@ public class ConceptCacheTest {
 
     @Test
     public void shouldGetConceptByName() {
-        Concept expectedConcept = new Concept();
+        Concept expectedConcept = new Concept(1);
         String conceptName = "conceptName";
         when(conceptService.getConceptByName(conceptName)).thenReturn(expectedConcept);
 
@@ -34,13 +41,113 @@ public class ConceptCacheTest {
 
     @Test
     public void shouldCacheConcepts() {
-        Concept expectedConcept = new Concept();
+        Concept expectedConcept = new Concept(1);
         String conceptName = "conceptName";
         when(conceptService.getConceptByName(conceptName)).thenReturn(expectedConcept);
+        when(conceptService.getConcept(1)).thenReturn(expectedConcept);
 
         ConceptCache conceptCache = new ConceptCache(conceptService);
         assertEquals(conceptCache.getConcept(conceptName), expectedConcept);
         assertEquals(conceptCache.getConcept(conceptName), expectedConcept);
         verify(conceptService, times(1)).getConceptByName(conceptName);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldCacheConceptsThatAreNotFound() {
+        ConceptCache conceptCache = new ConceptCache(conceptService);
+        for (int i = 0; i < 2; i++) {
+            try {
+                conceptCache.getConcept("unknown");
+                fail("Should have thrown ConceptNotFoundException");
+            } catch (ConceptNotFoundException e) {
+            }
+        }
+        verify(conceptService, times(1)).getConceptByName("unknown");
+        assertEquals(1, conceptCache.getHitCount());
+        assertEquals(1, conceptCache.getMissCount());
+    }
+
+    @Test
+    public void shouldKeepOnlyMostRecentlyUsedConcepts() {
+        when(conceptService.getConceptByName(anyString())).thenReturn(new Concept(1));
+        when(conceptService.getConcept(1)).thenReturn(new Concept(1));
+
+        ConceptCache conceptCache = new ConceptCache(conceptService, 2);
+        conceptCache.getConcept("first");
+        conceptCache.getConcept("second");
+        conceptCache.getConcept("first");
+        conceptCache.getConcept("third");
+        conceptCache.getConcept("first");
+        conceptCache.getConcept("second");
+
+        assertEquals(2, conceptCache.size());
+        verify(conceptService, times(1)).getConceptByName("first");
+        verify(conceptService, times(2)).getConceptByName("second");
+    }
+
+    @Test
+    public void shouldFetchConceptAgainAfterInvalidation() {
+        String conceptName = "conceptName";
+        when(conceptService.getConceptByName(conceptName)).thenReturn(new Concept(1));
+
+        ConceptCache conceptCache = new ConceptCache(conceptService);
+        conceptCache.getConcept(conceptName);
+        new ConceptCacheInvalidationAdvice(conceptCache).afterReturning(null, ConceptService.class.getMethod("saveConcept", Concept.class), new Object[]{new Concept()}, conceptService);
+        conceptCache.getConcept(conceptName);
+
+        verify(conceptService, times(2)).getConceptByName(conceptName);
+    }
+
+    @Test
+    public void shouldLoadCachedConceptInTheCurrentSession() {
+        Concept reloadedConcept = new Concept(1);
+        when(conceptService.getConceptByName("conceptName")).thenReturn(new Concept(1));
+        when(conceptService.getConcept(1)).thenReturn(reloadedConcept);
+
+        ConceptCache conceptCache = new ConceptCache(conceptService);
+        conceptCache.getConcept("conceptName");
+
+        assertSame(reloadedConcept, conceptCache.getConcept("conceptName"));
+    }
+
+    @Test
+    public void shouldNotKeepNameLookedUpWhileAConceptWasSaved() {
+        final ConceptCache conceptCache = new ConceptCache(conceptService);
+        when(conceptService.getConceptByName("unknown")).thenAnswer(new Answer<Concept>() {
+            @Override
+            public Concept answer(InvocationOnMock invocation) throws Throwable {
+                conceptCache.invalidateAll();
+                return null;
+            }
+        });
+
+        try {
+            conceptCache.getConcept("unknown");
+            fail("Should have thrown ConceptNotFoundException");
+        } catch (ConceptNotFoundException e) {
+        }
+
+        assertEquals(0, conceptCache.size());
+    }
+
+    @Test
+    public void shouldInvalidateAgainAfterTheSavingTransactionCompletes() throws Throwable {
+        ConceptCache conceptCache = new ConceptCache(conceptService);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            new ConceptCacheInvalidationAdvice(conceptCache).afterReturning(null, ConceptService.class.getMethod("saveConcept", Concept.class), new Object[]{new Concept()}, conceptService);
+            try {
+                conceptCache.getConcept("unknown");
+                fail("Should have thrown ConceptNotFoundException");
+            } catch (ConceptNotFoundException e) {
+            }
+            assertEquals(1, conceptCache.size());
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+
+            assertEquals(0, conceptCache.size());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -21,7 +21,7 @@ public class DiagnosisMapperTest {
         List<KeyValue> diagnosesKeyValues = Arrays.asList(new KeyValue("diagnosis", " "));
 
         ConceptService mockConceptService = mock(ConceptService.class);
-        DiagnosisMapper diagnosisMapper = new DiagnosisMapper(mockConceptService);
+        DiagnosisMapper diagnosisMapper = new DiagnosisMapper(new ConceptCache(mockConceptService));
 
         EncounterRow encounterRow = new EncounterRow();
         encounterRow.encounterDateTime = "2012-01-01";
@@ -37,7 +37,7 @@ public class DiagnosisMapperTest {
 
         ConceptService mockConceptService = mock(ConceptService.class);
         when(mockConceptService.getConceptByName("diagnosis")).thenReturn(null);
-        DiagnosisMapper diagnosisMapper = new DiagnosisMapper(mockConceptService);
+        DiagnosisMapper diagnosisMapper = new DiagnosisMapper(new ConceptCache(mockConceptService));
 
         EncounterRow encounterRow = new EncounterRow();
         encounterRow.encounterDateTime = "2012-01-01";
@@ -15,6 +15,8 @@ import org.openmrs.Obs;
 import org.openmrs.Visit;
 import org.openmrs.module.bahmniemrapi.diagnosis.contract.BahmniDiagnosisRequest;
 import org.openmrs.module.bahmniemrapi.encountertransaction.contract.BahmniObservation;
+import org.openmrs.module.emrapi.EmrApiConstants;
+import org.openmrs.module.emrapi.encounter.domain.EncounterTransaction;
 import org.openmrs.util.LocaleUtility;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
@@ -209,4 +211,29 @@ public class DuplicateObservationsMatcherTest {
         assertEquals(1,requests.size());
 
     }
+
+    @Test
+    public void shouldNotGetCodedDiagnosisThatIsAlreadyInTheVisit() throws Exception {
+        Concept codedDiagnosis = new ConceptBuilder().withName(EmrApiConstants.CONCEPT_CODE_CODED_DIAGNOSIS).withCodedDataType().build();
+        Concept malaria = new ConceptBuilder().withName("Malaria").withUUID("malaria-uuid").build();
+        Obs malariaDiagnosis = new ObsBuilder().withConcept(codedDiagnosis).withValue(malaria).build();
+
+        whenNew(BahmniVisit.class).withArguments(visit).thenReturn(bahmniVisit);
+        when(bahmniVisit.obsFor("OPD")).thenReturn(Arrays.asList(malariaDiagnosis));
+        List<BahmniDiagnosisRequest> requests = new ArrayList<>();
+        requests.add(diagnosisRequest("MALARIA-UUID"));
+        requests.add(diagnosisRequest("typhoid-uuid"));
+
+        duplicateObservationsMatcher = new DuplicateObservationsMatcher(visit, "OPD");
+        requests = duplicateObservationsMatcher.getUniqueDiagnoses(requests);
+
+        assertEquals(1, requests.size());
+        assertEquals("typhoid-uuid", requests.get(0).getCodedAnswer().getUuid());
+    }
+
+    private BahmniDiagnosisRequest diagnosisRequest(String codedAnswerUuid) {
+        BahmniDiagnosisRequest request = new BahmniDiagnosisRequest();
+        request.setCodedAnswer(new EncounterTransaction.Concept(codedAnswerUuid));
+        return request;
+    }
 }
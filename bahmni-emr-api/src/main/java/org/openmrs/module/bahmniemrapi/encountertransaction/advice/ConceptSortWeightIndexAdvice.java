@@ -0,0 +1,34 @@
+package org.openmrs.module.bahmniemrapi.encountertransaction.advice;
+
+import org.openmrs.module.bahmniemrapi.encountertransaction.mapper.ConceptSortWeightIndex;
+import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Drops the cached {@link ConceptSortWeightIndex}es when a concept changes, straight away and again once the
+ * transaction completes, so an index built from the concept before the change was committed is not kept.
+ */
+public class ConceptSortWeightIndexAdvice implements AfterReturningAdvice {
+    private static final List<String> INVALIDATING_METHODS = Arrays.asList("saveConcept", "retireConcept", "unretireConcept", "purgeConcept");
+
+    @Override
+    public void afterReturning(Object returnValue, Method method, Object[] args, Object target) throws Throwable {
+        if (!INVALIDATING_METHODS.contains(method.getName())) {
+            return;
+        }
+        ConceptSortWeightIndex.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    ConceptSortWeightIndex.invalidateAll();
+                }
+            });
+        }
+    }
+}
@@ -106,6 +106,45 @@ public class BahmniObservation implements Comparable<BahmniObservation>{
         groupMembers.removeAll(observations);
     }
 
+    /**
+     * Copy that shares nothing mutable with this observation, its group members included.
+     */
+    public BahmniObservation copy() {
+        List<BahmniObservation> groupMemberCopies = new ArrayList<>();
+        for (BahmniObservation groupMember : groupMembers) {
+            groupMemberCopies.add(groupMember.copy());
+        }
+        BahmniObservation copy = withGroupMembers(groupMemberCopies);
+        copy.encounterTransactionObservation = new EncounterTransaction.Observation();
+        copy.setUuid(getUuid());
+        copy.setConcept(getConcept());
+        copy.setValue(getValue());
+        copy.setComment(getComment());
+        copy.setVoided(getVoided());
+        copy.setVoidReason(getVoidReason());
+        copy.setObservationDateTime(getObservationDateTime());
+        copy.setOrderUuid(getOrderUuid());
+        copy.providers = new HashSet<>(providers);
+        return copy;
+    }
+
+    public BahmniObservation withGroupMembers(Collection<BahmniObservation> groupMembers) {
+        BahmniObservation copy = new BahmniObservation();
+        copy.encounterDateTime = encounterDateTime;
+        copy.visitStartDateTime = visitStartDateTime;
+        copy.targetObsRelation = targetObsRelation;
+        copy.encounterTransactionObservation = encounterTransactionObservation;
+        copy.groupMembers = new ArrayList<>(groupMembers);
+        copy.providers = providers;
+        copy.isAbnormal = isAbnormal;
+        copy.duration = duration;
+        copy.type = type;
+        copy.encounterUuid = encounterUuid;
+        copy.obsGroupUuid = obsGroupUuid;
+        copy.conceptSortWeight = conceptSortWeight;
+        return copy;
+    }
+
     public String getOrderUuid() {
         return encounterTransactionObservation.getOrderUuid();
     }
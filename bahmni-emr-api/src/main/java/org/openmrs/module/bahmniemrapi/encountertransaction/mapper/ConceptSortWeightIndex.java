@@ -0,0 +1,95 @@
+package org.openmrs.module.bahmniemrapi.encountertransaction.mapper;
+
+import org.openmrs.Concept;
+import org.openmrs.api.context.Context;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sort weights of every concept under a set of root concepts, numbered the same way
+ * {@link ConceptSortWeightUtil} always has, but computed in a single walk of the concept tree. Indexes hold
+ * only names and weights, are cached by locale and root concept uuids across sessions, and are dropped by
+ * {@link org.openmrs.module.bahmniemrapi.encountertransaction.advice.ConceptSortWeightIndexAdvice} whenever a
+ * concept is saved, retired or purged. Every drop starts a new generation and an index built before the latest
+ * drop is not kept, so a read racing with a concept save cannot cache stale weights.
+ */
+public class ConceptSortWeightIndex {
+    private static final int MAX_CACHED_INDEXES = 1024;
+    private static final ConcurrentMap<String, ConceptSortWeightIndex> indexes = new ConcurrentHashMap<>();
+    private static final AtomicLong generation = new AtomicLong();
+
+    private final Map<String, Integer> sortWeights;
+
+    public static ConceptSortWeightIndex forConcepts(Collection<Concept> rootConcepts) {
+        String key = keyFor(rootConcepts);
+        ConceptSortWeightIndex conceptSortWeightIndex = indexes.get(key);
+        if (conceptSortWeightIndex == null) {
+            long builtInGeneration = generation.get();
+            conceptSortWeightIndex = new ConceptSortWeightIndex(rootConcepts);
+            synchronized (indexes) {
+                if (generation.get() == builtInGeneration) {
+                    if (indexes.size() >= MAX_CACHED_INDEXES) {
+                        indexes.clear();
+                    }
+                    indexes.put(key, conceptSortWeightIndex);
+                }
+            }
+        }
+        return conceptSortWeightIndex;
+    }
+
+    public static void invalidateAll() {
+        synchronized (indexes) {
+            generation.incrementAndGet();
+            indexes.clear();
+        }
+    }
+
+    ConceptSortWeightIndex(Collection<Concept> rootConcepts) {
+        Map<String, Integer> sortWeights = new HashMap<>();
+        index(rootConcepts, 0, sortWeights);
+        this.sortWeights = Collections.unmodifiableMap(sortWeights);
+    }
+
+    public int getSortWeightFor(String conceptName) {
+        if (conceptName == null) {
+            return 0;
+        }
+        Integer sortWeight = sortWeights.get(normalize(conceptName));
+        return sortWeight == null ? 0 : sortWeight;
+    }
+
+    // A set that does not hold the concept only moves the weight on by its direct member count
+    private static void index(Collection<Concept> concepts, int startSortWeight, Map<String, Integer> sortWeights) {
+        for (Concept concept : concepts) {
+            startSortWeight++;
+            String conceptName = normalize(concept.getName().getName());
+            if (!sortWeights.containsKey(conceptName)) {
+                sortWeights.put(conceptName, startSortWeight);
+            }
+            if (concept.getSetMembers().size() > 0) {
+                index(concept.getSetMembers(), startSortWeight, sortWeights);
+                startSortWeight += concept.getSetMembers().size();
+            }
+        }
+    }
+
+    private static String normalize(String conceptName) {
+        return conceptName.toLowerCase(Locale.ENGLISH);
+    }
+
+    private static String keyFor(Collection<Concept> rootConcepts) {
+        StringBuilder key = new StringBuilder(String.valueOf(Context.getLocale()));
+        for (Concept rootConcept : rootConcepts) {
+            key.append(':').append(rootConcept.getUuid());
+        }
+        return key.toString();
+    }
+}
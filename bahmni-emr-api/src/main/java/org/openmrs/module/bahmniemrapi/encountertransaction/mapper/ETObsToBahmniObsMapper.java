@@ -39,12 +39,16 @@ public class ETObsToBahmniObsMapper {
     }
 
     BahmniObservation map(EncounterTransaction.Observation observation, AdditionalBahmniObservationFields additionalBahmniObservationFields, List<Concept> rootConcepts, boolean flatten) {
+        return map(observation, additionalBahmniObservationFields, ConceptSortWeightIndex.forConcepts(rootConcepts), flatten);
+    }
+
+    private BahmniObservation map(EncounterTransaction.Observation observation, AdditionalBahmniObservationFields additionalBahmniObservationFields, ConceptSortWeightIndex conceptSortWeightIndex, boolean flatten) {
 
         BahmniObservation bahmniObservation = new BahmniObservation();
         bahmniObservation.setEncounterTransactionObservation(observation);
         bahmniObservation.setEncounterDateTime(additionalBahmniObservationFields.getEncounterDateTime());
         bahmniObservation.setVisitStartDateTime(additionalBahmniObservationFields.getVisitDateTime());
-        bahmniObservation.setConceptSortWeight(ConceptSortWeightUtil.getSortWeightFor(bahmniObservation.getConcept().getName(), rootConcepts));
+        bahmniObservation.setConceptSortWeight(conceptSortWeightIndex.getSortWeightFor(bahmniObservation.getConcept().getName()));
         bahmniObservation.setEncounterUuid(additionalBahmniObservationFields.getEncounterUuid());
         bahmniObservation.setObsGroupUuid(additionalBahmniObservationFields.getObsGroupUuid());
         if (CONCEPT_DETAILS_CONCEPT_CLASS.equals(observation.getConcept().getConceptClass()) && flatten) {
@@ -70,7 +74,7 @@ public class ETObsToBahmniObsMapper {
             for (EncounterTransaction.Observation groupMember : observation.getGroupMembers()) {
                 AdditionalBahmniObservationFields additionalFields = (AdditionalBahmniObservationFields) additionalBahmniObservationFields.clone();
                 additionalFields.setObsGroupUuid(observation.getUuid());
-                bahmniObservation.addGroupMember(map(groupMember, additionalFields, rootConcepts, flatten));
+                bahmniObservation.addGroupMember(map(groupMember, additionalFields, conceptSortWeightIndex, flatten));
             }
         } else {
             bahmniObservation.setValue(observation.getValue());
@@ -32,11 +32,12 @@ public class OMRSObsToBahmniObsMapper {
 
     public Collection<BahmniObservation> map(List<Obs> obsList, Collection<Concept> rootConcepts) {
         Collection<BahmniObservation> bahmniObservations = new ArrayList<>();
+        ConceptSortWeightIndex conceptSortWeightIndex = CollectionUtils.isNotEmpty(rootConcepts) ? ConceptSortWeightIndex.forConcepts(rootConcepts) : null;
         for (Obs obs : obsList) {
             if(observationTypeMatcher.getObservationType(obs).equals(ObservationTypeMatcher.ObservationType.OBSERVATION)){
                 BahmniObservation bahmniObservation =map(obs);
-                if(CollectionUtils.isNotEmpty(rootConcepts )){
-                    bahmniObservation.setConceptSortWeight(ConceptSortWeightUtil.getSortWeightFor(bahmniObservation.getConcept().getName(), rootConcepts));
+                if(conceptSortWeightIndex != null){
+                    bahmniObservation.setConceptSortWeight(conceptSortWeightIndex.getSortWeightFor(bahmniObservation.getConcept().getName()));
                 }
                 bahmniObservations.add(bahmniObservation);
             }
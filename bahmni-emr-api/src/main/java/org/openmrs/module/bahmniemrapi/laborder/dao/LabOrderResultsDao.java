@@ -0,0 +1,51 @@
+package org.openmrs.module.bahmniemrapi.laborder.dao;
+
+import org.openmrs.Concept;
+import org.openmrs.Patient;
+import org.openmrs.Visit;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LabOrderResultsDao {
+    /**
+     * Ids of the patient's latest non voided encounters holding non voided test orders in the visits (all visits
+     * when none are given), newest encounter first, at most numberOfAccessions of them.
+     */
+    List<Integer> getLatestAccessionIds(Patient patient, List<Visit> visits, int numberOfAccessions);
+
+    /**
+     * Order uuid, concept id, encounter id, encounter uuid, encounter datetime and visit start of the patient's
+     * non voided test orders in the visits (all visits when none are given), oldest encounter first.
+     */
+    List<Object[]> getTestOrders(Patient patient, List<Visit> visits);
+
+    /**
+     * The same columns as {@link #getTestOrders(Patient, List)} for the non voided test orders of the accession
+     * encounters, newest encounter first and orders within an encounter in the order they were placed.
+     */
+    List<Object[]> getTestOrders(Collection<Integer> accessionIds);
+
+    /**
+     * Obs id, obs group id, order uuid, concept id, value coded concept id, value numeric, value text, value
+     * datetime, value complex, obs datetime, obs uuid and encounter id of every non voided obs in the trees of the
+     * patient's top level obs recorded against one of the orders. Groups come before their members.
+     */
+    List<Object[]> getResultObs(Patient patient, List<Visit> visits, Collection<String> orderUuids);
+
+    /**
+     * Encounter id, value text and obs datetime of the non voided obs of the patient's validation notes
+     * encounters naming one of the accessions, oldest encounter first.
+     */
+    List<Object[]> getValidationNotes(Patient patient, List<Visit> visits, String encounterTypeName, Collection<String> accessionUuids);
+
+    /**
+     * Encounter id and provider of the non voided providers of the encounters, in the order they were added.
+     */
+    List<Object[]> getEncounterProviders(Collection<Integer> encounterIds);
+
+    /**
+     * The concepts with the given ids, in no particular order.
+     */
+    List<Concept> getConcepts(Collection<Integer> conceptIds);
+}
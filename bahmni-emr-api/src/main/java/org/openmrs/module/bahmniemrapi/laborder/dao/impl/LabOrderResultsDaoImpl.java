@@ -0,0 +1,184 @@
+package org.openmrs.module.bahmniemrapi.laborder.dao.impl;
+
+import org.hibernate.Query;
+import org.hibernate.SessionFactory;
+import org.openmrs.Concept;
+import org.openmrs.Patient;
+import org.openmrs.Visit;
+import org.openmrs.module.bahmniemrapi.laborder.dao.LabOrderResultsDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class LabOrderResultsDaoImpl implements LabOrderResultsDao {
+    private static final String TEST_ORDER_COLUMNS = "select testOrder.uuid, testOrder.concept.conceptId, encounter.encounterId, encounter.uuid, " +
+            "encounter.encounterDatetime, visit.startDatetime " +
+            "from TestOrder as testOrder " +
+            "inner join testOrder.encounter as encounter " +
+            "left join encounter.visit as visit ";
+    private static final String OBS_COLUMNS = "select obs.obsId, obsGroup.obsId, ord.uuid, obs.concept.conceptId, valueCoded.conceptId, " +
+            "obs.valueNumeric, obs.valueText, obs.valueDatetime, obs.valueComplex, obs.obsDatetime, obs.uuid, obs.encounter.encounterId " +
+            "from Obs as obs " +
+            "left join obs.obsGroup as obsGroup " +
+            "left join obs.order as ord " +
+            "left join obs.valueCoded as valueCoded ";
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Override
+    public List<Integer> getLatestAccessionIds(Patient patient, List<Visit> visits, int numberOfAccessions) {
+        if (numberOfAccessions <= 0) {
+            return new ArrayList<>();
+        }
+        Query query = sessionFactory.getCurrentSession().createQuery(
+                "select encounter.encounterId " +
+                        "from Encounter as encounter " +
+                        "where encounter.patient = :patient " +
+                        "and encounter.voided = false " +
+                        "and exists (select testOrder.orderId from TestOrder as testOrder " +
+                        "where testOrder.encounter = encounter and testOrder.voided = false) " +
+                        (hasVisits(visits) ? "and encounter.visit.visitId in (:visitIds) " : "") +
+                        "order by encounter.encounterDatetime desc, encounter.encounterId desc");
+        query.setParameter("patient", patient);
+        setVisitIds(query, visits);
+        query.setMaxResults(numberOfAccessions);
+        return query.list();
+    }
+
+    @Override
+    public List<Object[]> getTestOrders(Patient patient, List<Visit> visits) {
+        Query query = sessionFactory.getCurrentSession().createQuery(TEST_ORDER_COLUMNS +
+                "where testOrder.patient = :patient " +
+                "and testOrder.voided = false " +
+                "and encounter.voided = false " +
+                (hasVisits(visits) ? "and visit.visitId in (:visitIds) " : "") +
+                "order by encounter.encounterDatetime, encounter.encounterId, testOrder.orderId");
+        query.setParameter("patient", patient);
+        setVisitIds(query, visits);
+        return query.list();
+    }
+
+    @Override
+    public List<Object[]> getTestOrders(Collection<Integer> accessionIds) {
+        if (accessionIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Query query = sessionFactory.getCurrentSession().createQuery(TEST_ORDER_COLUMNS +
+                "where encounter.encounterId in (:accessionIds) " +
+                "and testOrder.voided = false " +
+                "order by encounter.encounterDatetime desc, encounter.encounterId desc, testOrder.orderId");
+        query.setParameterList("accessionIds", accessionIds);
+        return query.list();
+    }
+
+    @Override
+    public List<Object[]> getResultObs(Patient patient, List<Visit> visits, Collection<String> orderUuids) {
+        if (orderUuids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Query query = sessionFactory.getCurrentSession().createQuery(OBS_COLUMNS +
+                "where obs.person.personId = :personId " +
+                "and ord.uuid in (:orderUuids) " +
+                "and obs.obsGroup is null " +
+                "and obs.voided = false " +
+                (hasVisits(visits) ? "and obs.encounter.visit.visitId in (:visitIds) " : "") +
+                "order by obs.obsId");
+        query.setInteger("personId", patient.getPersonId());
+        query.setParameterList("orderUuids", orderUuids);
+        setVisitIds(query, visits);
+        List<Object[]> resultObs = new ArrayList<>();
+        List<Object[]> level = query.list();
+        while (!level.isEmpty()) {
+            resultObs.addAll(level);
+            level = getGroupMembers(obsIds(level));
+        }
+        return resultObs;
+    }
+
+    private List<Object[]> getGroupMembers(List<Integer> obsGroupIds) {
+        Query query = sessionFactory.getCurrentSession().createQuery(OBS_COLUMNS +
+                "where obsGroup.obsId in (:obsGroupIds) " +
+                "and obs.voided = false " +
+                "order by obs.obsId");
+        query.setParameterList("obsGroupIds", obsGroupIds);
+        return query.list();
+    }
+
+    @Override
+    public List<Object[]> getValidationNotes(Patient patient, List<Visit> visits, String encounterTypeName, Collection<String> accessionUuids) {
+        if (accessionUuids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Query query = sessionFactory.getCurrentSession().createQuery(
+                "select encounter.encounterId, obs.valueText, obs.obsDatetime " +
+                        "from Obs as obs " +
+                        "inner join obs.encounter as encounter " +
+                        "where encounter.patient = :patient " +
+                        "and encounter.encounterType.name = :encounterTypeName " +
+                        "and encounter.voided = false " +
+                        "and obs.voided = false " +
+                        "and exists (select accessionObs.obsId from Obs as accessionObs " +
+                        "where accessionObs.encounter = encounter and accessionObs.voided = false " +
+                        "and accessionObs.valueText in (:accessionUuids)) " +
+                        (hasVisits(visits) ? "and encounter.visit.visitId in (:visitIds) " : "") +
+                        "order by encounter.encounterDatetime, encounter.encounterId, obs.obsId");
+        query.setParameter("patient", patient);
+        query.setString("encounterTypeName", encounterTypeName);
+        query.setParameterList("accessionUuids", accessionUuids);
+        setVisitIds(query, visits);
+        return query.list();
+    }
+
+    @Override
+    public List<Object[]> getEncounterProviders(Collection<Integer> encounterIds) {
+        if (encounterIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Query query = sessionFactory.getCurrentSession().createQuery(
+                "select encounterProvider.encounter.encounterId, encounterProvider.provider " +
+                        "from EncounterProvider as encounterProvider " +
+                        "where encounterProvider.encounter.encounterId in (:encounterIds) " +
+                        "and encounterProvider.voided = false " +
+                        "order by encounterProvider.encounterProviderId");
+        query.setParameterList("encounterIds", encounterIds);
+        return query.list();
+    }
+
+    @Override
+    public List<Concept> getConcepts(Collection<Integer> conceptIds) {
+        if (conceptIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Query query = sessionFactory.getCurrentSession().createQuery("from Concept as concept where concept.conceptId in (:conceptIds)");
+        query.setParameterList("conceptIds", conceptIds);
+        return query.list();
+    }
+
+    private List<Integer> obsIds(List<Object[]> obsRows) {
+        List<Integer> obsIds = new ArrayList<>();
+        for (Object[] obsRow : obsRows) {
+            obsIds.add((Integer) obsRow[0]);
+        }
+        return obsIds;
+    }
+
+    private boolean hasVisits(List<Visit> visits) {
+        return visits != null && !visits.isEmpty();
+    }
+
+    private void setVisitIds(Query query, List<Visit> visits) {
+        if (!hasVisits(visits)) {
+            return;
+        }
+        List<Integer> visitIds = new ArrayList<>();
+        for (Visit visit : visits) {
+            visitIds.add(visit.getVisitId());
+        }
+        query.setParameterList("visitIds", visitIds);
+    }
+}
@@ -1,16 +1,16 @@
 package org.openmrs.module.bahmniemrapi.laborder.service;
 
-import org.openmrs.Encounter;
-import org.openmrs.EncounterProvider;
+import org.openmrs.Concept;
 import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.Provider;
 import org.openmrs.Visit;
-import org.openmrs.api.EncounterService;
 import org.openmrs.module.bahmniemrapi.accessionnote.contract.AccessionNote;
 import org.openmrs.module.bahmniemrapi.laborder.contract.LabOrderResult;
 import org.openmrs.module.bahmniemrapi.laborder.contract.LabOrderResults;
-import org.openmrs.module.emrapi.encounter.EncounterTransactionMapper;
+import org.openmrs.module.bahmniemrapi.laborder.dao.LabOrderResultsDao;
+import org.openmrs.module.emrapi.encounter.ConceptMapper;
+import org.openmrs.module.emrapi.encounter.ObservationMapper;
 import org.openmrs.module.emrapi.encounter.domain.EncounterTransaction;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -18,12 +18,19 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-
+/**
+ * Reads test orders, result obs, validation notes and providers as plain columns through
+ * {@link LabOrderResultsDao} instead of loading encounters, and builds the result obs trees from those rows.
+ * Only the requested accessions are read, and the concepts the rows refer to are loaded in one query per read.
+ */
 @Service
 public class LabOrderResultsServiceImpl implements LabOrderResultsService {
     public static final String LAB_ABNORMAL = "LAB_ABNORMAL";
@@ -35,187 +42,227 @@ public class LabOrderResultsServiceImpl implements LabOrderResultsService {
     private static final String VALIDATION_NOTES_ENCOUNTER_TYPE = "VALIDATION NOTES";
 
     @Autowired
-    private EncounterTransactionMapper encounterTransactionMapper;
+    private LabOrderResultsDao labOrderResultsDao;
 
-    @Autowired
-    private EncounterService encounterService;
+    private ObservationMapper observationMapper = new ObservationMapper();
+    private ConceptMapper conceptMapper = new ConceptMapper();
 
     @Override
     public LabOrderResults getAll(Patient patient, List<Visit> visits, int numberOfAccessions) {
-        List<EncounterTransaction.TestOrder> testOrders = new ArrayList<>();
-        List<EncounterTransaction.Observation> observations = new ArrayList<>();
-        Map<String, Encounter> encounterTestOrderUuidMap = new HashMap<>();
-        Map<String, Encounter> encounterObservationMap = new HashMap<>();
-        Map<String, List<AccessionNote>> encounterToAccessionNotesMap = new HashMap<>();
-
-        List<Encounter> encounters = encounterService.getEncounters(patient, null, null, null, null, null, null, null, visits, false);
-
-        int totalEncounters = encounters.size();
-        int currentAccession = 0;
-        for (int i=totalEncounters -1; i >= 0; i--) {
-            Encounter encounter = encounters.get(i);
-            if (currentAccession >= numberOfAccessions) {
-                break;
-            }
-
-            EncounterTransaction encounterTransaction = encounterTransactionMapper.map(encounter, false);
-            List<EncounterTransaction.TestOrder> existingTestOrders = getTestOrders(encounterTransaction, encounter, encounterTestOrderUuidMap);
-            if (existingTestOrders.size() > 0)
-                currentAccession ++;
-
-            testOrders.addAll(existingTestOrders);
-            List<EncounterTransaction.Observation> nonVoidedObservations = filterVoided(encounterTransaction.getObservations());
-            observations.addAll(nonVoidedObservations);
-            createAccessionNotesByEncounter(encounterToAccessionNotesMap, encounters, encounter);
-            mapObservationsWithEncounter(nonVoidedObservations, encounter, encounterObservationMap);
-        }
-
-        return new LabOrderResults(mapOrdersWithObs(testOrders, observations, encounterTestOrderUuidMap, encounterObservationMap,encounterToAccessionNotesMap));
+        List<Integer> accessionIds = labOrderResultsDao.getLatestAccessionIds(patient, visits, numberOfAccessions);
+        List<TestOrderRow> testOrders = getTestOrders(labOrderResultsDao.getTestOrders(accessionIds));
+        return new LabOrderResults(mapOrdersWithObs(patient, visits, testOrders));
     }
 
-    private void  createAccessionNotesByEncounter(Map<String, List<AccessionNote>> encounterToAccessionNotesMap, List<Encounter> encounters, Encounter encounter) {
-        List<AccessionNote> accessionNotes = getAccessionNotesFor(encounter, encounters);
-        if(accessionNotes.size() != 0){
-            List<AccessionNote> existingAccessionNotes = encounterToAccessionNotesMap.get(encounter.getUuid());
-            if(existingAccessionNotes != null){
-                accessionNotes.addAll(existingAccessionNotes);
+    @Override
+    public List<LabOrderResult> getAllForConcepts(Patient patient, Collection<String> concepts, List<Visit> visits){
+        if (concepts != null && !concepts.isEmpty()) {
+            List<TestOrderRow> testOrders = new ArrayList<>();
+            for (TestOrderRow testOrder : getTestOrders(labOrderResultsDao.getTestOrders(patient, visits))) {
+                if (concepts.contains(testOrder.concept.getName().getName())) {
+                    testOrders.add(testOrder);
+                }
             }
-            encounterToAccessionNotesMap.put(encounter.getUuid(),accessionNotes);
+            return mapOrdersWithObs(patient, visits, testOrders);
         }
+        return Collections.EMPTY_LIST;
     }
 
-    private List<AccessionNote> getAccessionNotesFor(Encounter orderEncounter, List<Encounter> encounters) {
-        for (Encounter encounter : encounters) {
-            if(VALIDATION_NOTES_ENCOUNTER_TYPE.equals(encounter.getEncounterType().getName()) && hasValidationNotesFor(orderEncounter.getUuid(),encounter)){
-                return createAccessionNotesFor(orderEncounter.getUuid(), encounter);
-            }
+    private List<TestOrderRow> getTestOrders(List<Object[]> rows) {
+        Map<Integer, Concept> concepts = getConcepts(rows, 1);
+        List<TestOrderRow> testOrders = new ArrayList<>();
+        for (Object[] row : rows) {
+            testOrders.add(new TestOrderRow((String) row[0], concepts.get(row[1]), (Integer) row[2],
+                    (String) row[3], (Date) row[4], (Date) row[5]));
         }
-        return Collections.EMPTY_LIST;
+        return testOrders;
     }
 
-    private List<AccessionNote> createAccessionNotesFor(String encounterUuid, Encounter accessionNotesEncounter) {
-        List<AccessionNote> accessionNotes = new ArrayList<>();
-        for (Obs observation : accessionNotesEncounter.getAllObs()) {
-            if(!encounterUuid.equals(observation.getValueText())){
-                AccessionNote accessionNote = new AccessionNote();
-                accessionNote.setAccessionUuid(encounterUuid);
-                accessionNote.setDateTime(observation.getObsDatetime());
-                accessionNote.setText(observation.getValueText());
-                Collection<Set<Provider>> providersForRole = accessionNotesEncounter.getProvidersByRoles().values();
-                if(providersForRole.size() >0){
-                    Provider provider = providersForRole.iterator().next().iterator().next();
-                    accessionNote.setProviderName(provider.getName());
+    /**
+     * Loads the concepts whose ids are in the given columns of the rows in one query, keyed by id.
+     */
+    private Map<Integer, Concept> getConcepts(List<Object[]> rows, int... conceptIdColumns) {
+        Set<Integer> conceptIds = new HashSet<>();
+        for (Object[] row : rows) {
+            for (int column : conceptIdColumns) {
+                if (row[column] != null) {
+                    conceptIds.add((Integer) row[column]);
                 }
-                accessionNotes.add(accessionNote);
             }
         }
-        return accessionNotes;
-    }
-
-    private boolean hasValidationNotesFor(String encounterUuid, Encounter encounter) {
-        Set<Obs> observations = encounter.getAllObs();
-        for (Obs observation : observations) {
-            if(encounterUuid.equals(observation.getValueText())) return true;
+        Map<Integer, Concept> concepts = new HashMap<>();
+        for (Concept concept : labOrderResultsDao.getConcepts(conceptIds)) {
+            concepts.put(concept.getConceptId(), concept);
         }
-        return false;
+        return concepts;
     }
 
-    @Override
-    public List<LabOrderResult> getAllForConcepts(Patient patient, Collection<String> concepts, List<Visit> visits){
-        if (concepts != null && !concepts.isEmpty()) {
-
-            List<EncounterTransaction.TestOrder> testOrders = new ArrayList<>();
-            List<EncounterTransaction.Observation> observations = new ArrayList<>();
-            Map<String, Encounter> encounterTestOrderUuidMap = new HashMap<>();
-            Map<String, Encounter> encounterObservationMap = new HashMap<>();
-            Map<String, List<AccessionNote>> encounterToAccessionNotesMap = new HashMap<>();
-
-            List<Encounter> encounters = encounterService.getEncounters(patient, null, null, null, null, null, null, null, visits, false);
-            for (Encounter encounter : encounters) {
-                EncounterTransaction encounterTransaction = encounterTransactionMapper.map(encounter, false);
-                testOrders.addAll(getTestOrdersForConcepts(encounterTransaction, encounter, encounterTestOrderUuidMap, concepts));
-                List<EncounterTransaction.Observation> nonVoidedObservations = filterVoided(encounterTransaction.getObservations());
-                observations.addAll(nonVoidedObservations);
-                createAccessionNotesByEncounter(encounterToAccessionNotesMap, encounters, encounter);
-                mapObservationsWithEncounter(nonVoidedObservations, encounter, encounterObservationMap);
+    private List<LabOrderResult> mapOrdersWithObs(Patient patient, List<Visit> visits, List<TestOrderRow> testOrders) {
+        List<LabOrderResult> labOrderResults = new ArrayList<>();
+        if (testOrders.isEmpty()) {
+            return labOrderResults;
+        }
+        Map<String, TestOrderRow> testOrdersByUuid = new HashMap<>();
+        for (TestOrderRow testOrder : testOrders) {
+            testOrdersByUuid.put(testOrder.uuid, testOrder);
+        }
+        Map<String, Integer> obsEncounters = new HashMap<>();
+        Map<String, List<EncounterTransaction.Observation>> obsGroupsByOrder = getResultObsGroupsByOrder(patient, visits, testOrdersByUuid.keySet(), obsEncounters);
+        Set<String> accessionUuids = new HashSet<>();
+        for (TestOrderRow testOrder : testOrders) {
+            accessionUuids.add(testOrder.encounterUuid);
+        }
+        Map<Integer, List<Object[]>> validationNotes = getValidationNotesByEncounter(patient, visits, accessionUuids);
+        Set<Integer> encounterIds = new HashSet<>(obsEncounters.values());
+        encounterIds.addAll(validationNotes.keySet());
+        Map<Integer, String> providerNames = getProviderNames(encounterIds);
+        Map<String, List<AccessionNote>> accessionNotes = getAccessionNotesByAccession(validationNotes, providerNames);
+
+        for (TestOrderRow testOrder : testOrders) {
+            List<EncounterTransaction.Observation> obsGroups = obsGroupsByOrder.get(testOrder.uuid);
+            if (obsGroups != null) {
+                for (EncounterTransaction.Observation obsGroup : obsGroups) {
+                    labOrderResults.addAll(mapObs(obsGroup, testOrdersByUuid, obsEncounters, providerNames, accessionNotes));
+                }
+            } else {
+                EncounterTransaction.Concept orderConcept = conceptMapper.map(testOrder.concept);
+                LabOrderResult labOrderResult = new LabOrderResult(testOrder.encounterUuid, testOrder.encounterDatetime, orderConcept.getName(), orderConcept.getUnits(), null, null, null, null, false, null, null);
+                labOrderResult.setVisitStartTime(testOrder.visitStartDatetime);
+                labOrderResults.add(labOrderResult);
             }
-            return mapOrdersWithObs(testOrders, observations, encounterTestOrderUuidMap, encounterObservationMap, encounterToAccessionNotesMap);
         }
-        return Collections.EMPTY_LIST;
+        return labOrderResults;
     }
 
-    private List<EncounterTransaction.TestOrder> getTestOrdersForConcepts(EncounterTransaction encounterTransaction, Encounter encounter, Map<String, Encounter> encounterTestOrderUuidMap, Collection<String> concepts) {
-        List<EncounterTransaction.TestOrder> orders = new ArrayList<>();
-        for (EncounterTransaction.TestOrder order : encounterTransaction.getTestOrders()) {
-            if(!order.isVoided() && concepts.contains(order.getConcept().getName())){
-                encounterTestOrderUuidMap.put(order.getUuid(), encounter);
-                orders.add(order);
+    /**
+     * Builds the result obs trees from their rows. Each obs is mapped with emrapi's ObservationMapper through an
+     * unsaved Obs holding just the queried values, so values come out exactly as on the encounter transaction path.
+     */
+    private Map<String, List<EncounterTransaction.Observation>> getResultObsGroupsByOrder(Patient patient, List<Visit> visits, Set<String> orderUuids, Map<String, Integer> obsEncounters) {
+        Map<String, List<EncounterTransaction.Observation>> obsGroupsByOrder = new HashMap<>();
+        Map<Integer, EncounterTransaction.Observation> observations = new HashMap<>();
+        Map<Integer, Integer> rootEncounters = new HashMap<>();
+        List<Object[]> rows = labOrderResultsDao.getResultObs(patient, visits, orderUuids);
+        Map<Integer, Concept> concepts = getConcepts(rows, 3, 4);
+        for (Object[] row : rows) {
+            Integer obsId = (Integer) row[0];
+            Integer obsGroupId = (Integer) row[1];
+            String orderUuid = (String) row[2];
+            Integer encounterId;
+            EncounterTransaction.Observation parent = null;
+            if (obsGroupId == null) {
+                if (!orderUuids.contains(orderUuid)) {
+                    continue;
+                }
+                encounterId = (Integer) row[11];
+            } else {
+                parent = observations.get(obsGroupId);
+                if (parent == null) {
+                    continue;
+                }
+                encounterId = rootEncounters.get(obsGroupId);
+            }
+            EncounterTransaction.Observation observation = mapObservation(row, concepts);
+            observations.put(obsId, observation);
+            rootEncounters.put(obsId, encounterId);
+            obsEncounters.put(observation.getUuid(), encounterId);
+            if (parent != null) {
+                parent.addGroupMember(observation);
+            } else {
+                List<EncounterTransaction.Observation> obsGroups = obsGroupsByOrder.get(orderUuid);
+                if (obsGroups == null) {
+                    obsGroups = new ArrayList<>();
+                    obsGroupsByOrder.put(orderUuid, obsGroups);
+                }
+                obsGroups.add(observation);
             }
         }
-        return orders;
+        return obsGroupsByOrder;
     }
 
+    private EncounterTransaction.Observation mapObservation(Object[] row, Map<Integer, Concept> concepts) {
+        Obs obs = new Obs();
+        obs.setConcept(concepts.get(row[3]));
+        obs.setValueCoded(row[4] != null ? concepts.get(row[4]) : null);
+        obs.setValueNumeric((Double) row[5]);
+        obs.setValueText((String) row[6]);
+        obs.setValueDatetime((Date) row[7]);
+        obs.setValueComplex((String) row[8]);
+        obs.setObsDatetime((Date) row[9]);
+        obs.setUuid((String) row[10]);
+        obs.setGroupMembers(new HashSet<Obs>());
+        EncounterTransaction.Observation observation = observationMapper.map(obs);
+        observation.setOrderUuid((String) row[2]);
+        return observation;
+    }
 
-    private List<EncounterTransaction.Observation> filterVoided(List<EncounterTransaction.Observation> observations) {
-        List<EncounterTransaction.Observation> nonVoidedObservations = new ArrayList<>();
-        for (EncounterTransaction.Observation observation : observations) {
-            if(!observation.getVoided()){
-                nonVoidedObservations.add(observation);
+    /**
+     * Validation notes encounters refer to the accession they annotate through an obs whose text is the
+     * accession encounter uuid, so their rows are grouped per encounter and the first encounter naming an
+     * accession holds its notes.
+     */
+    private Map<Integer, List<Object[]>> getValidationNotesByEncounter(Patient patient, List<Visit> visits, Set<String> accessionUuids) {
+        Map<Integer, List<Object[]>> validationNotes = new LinkedHashMap<>();
+        for (Object[] row : labOrderResultsDao.getValidationNotes(patient, visits, VALIDATION_NOTES_ENCOUNTER_TYPE, accessionUuids)) {
+            List<Object[]> encounterNotes = validationNotes.get(row[0]);
+            if (encounterNotes == null) {
+                encounterNotes = new ArrayList<>();
+                validationNotes.put((Integer) row[0], encounterNotes);
             }
+            encounterNotes.add(row);
         }
-        return nonVoidedObservations;
+        return validationNotes;
     }
 
-    private List<EncounterTransaction.TestOrder> getTestOrders(EncounterTransaction encounterTransaction, Encounter encounter, Map<String, Encounter> encounterTestOrderUuidMap) {
-        List<EncounterTransaction.TestOrder> orders = new ArrayList<>();
-        for (EncounterTransaction.TestOrder order : encounterTransaction.getTestOrders()) {
-            if(!order.isVoided()){
-                encounterTestOrderUuidMap.put(order.getUuid(), encounter);
-                orders.add(order);
+    private Map<String, List<AccessionNote>> getAccessionNotesByAccession(Map<Integer, List<Object[]>> validationNotes, Map<Integer, String> providerNames) {
+        Map<String, List<AccessionNote>> accessionNotes = new HashMap<>();
+        for (Map.Entry<Integer, List<Object[]>> encounterNotes : validationNotes.entrySet()) {
+            for (Object[] row : encounterNotes.getValue()) {
+                String accessionUuid = (String) row[1];
+                if (accessionUuid != null && !accessionNotes.containsKey(accessionUuid)) {
+                    accessionNotes.put(accessionUuid, createAccessionNotesFor(accessionUuid, encounterNotes.getValue(), providerNames.get(encounterNotes.getKey())));
+                }
             }
         }
-        return orders;
+        return accessionNotes;
     }
 
-    private void mapObservationsWithEncounter(List<EncounterTransaction.Observation> observations, Encounter encounter, Map<String, Encounter> encounterObservationMap) {
-        for (EncounterTransaction.Observation observation : observations) {
-            encounterObservationMap.put(observation.getUuid(), encounter);
-            if(observation.getGroupMembers().size() > 0) {
-                mapObservationsWithEncounter(observation.getGroupMembers(), encounter, encounterObservationMap);
+    private List<AccessionNote> createAccessionNotesFor(String accessionUuid, List<Object[]> encounterNotes, String providerName) {
+        List<AccessionNote> accessionNotes = new ArrayList<>();
+        for (Object[] row : encounterNotes) {
+            if (!accessionUuid.equals(row[1])) {
+                AccessionNote accessionNote = new AccessionNote();
+                accessionNote.setAccessionUuid(accessionUuid);
+                accessionNote.setDateTime((Date) row[2]);
+                accessionNote.setText((String) row[1]);
+                accessionNote.setProviderName(providerName);
+                accessionNotes.add(accessionNote);
             }
         }
+        return accessionNotes.isEmpty() ? null : accessionNotes;
     }
 
-    private List<LabOrderResult> mapOrdersWithObs(List<EncounterTransaction.TestOrder> testOrders, List<EncounterTransaction.Observation> observations, Map<String, Encounter> encounterTestOrderMap, Map<String, Encounter> encounterObservationMap, Map<String, List<AccessionNote>> encounterToAccessionNotesMap) {
-        List<LabOrderResult> labOrderResults = new ArrayList<>();
-        for (EncounterTransaction.TestOrder testOrder : testOrders) {
-            List<EncounterTransaction.Observation> obsGroups = findObsGroup(observations, testOrder);
-            if(!obsGroups.isEmpty()) {
-                for (EncounterTransaction.Observation obsGroup : obsGroups) {
-                    labOrderResults.addAll(mapObs(obsGroup, encounterTestOrderMap, encounterObservationMap,encounterToAccessionNotesMap));
-                }
-            } else {
-                EncounterTransaction.Concept orderConcept = testOrder.getConcept();
-                Encounter orderEncounter = encounterTestOrderMap.get(testOrder.getUuid());
-                LabOrderResult labOrderResult = new LabOrderResult(orderEncounter.getUuid(), orderEncounter.getEncounterDatetime(), orderConcept.getName(), orderConcept.getUnits(), null, null, null, null, false, null, null);
-                labOrderResult.setVisitStartTime(orderEncounter.getVisit().getStartDatetime());
-                labOrderResults.add(labOrderResult);
+    private Map<Integer, String> getProviderNames(Set<Integer> encounterIds) {
+        Map<Integer, String> providerNames = new HashMap<>();
+        for (Object[] row : labOrderResultsDao.getEncounterProviders(encounterIds)) {
+            if (!providerNames.containsKey(row[0])) {
+                providerNames.put((Integer) row[0], ((Provider) row[1]).getName());
             }
         }
-        return labOrderResults;
+        return providerNames;
     }
 
-    private List<LabOrderResult> mapObs(EncounterTransaction.Observation obsGroup, Map<String, Encounter> encounterTestOrderMap, Map<String, Encounter> encounterObservationMap, Map<String, List<AccessionNote>> encounterToAccessionNotesMap) {
+    private List<LabOrderResult> mapObs(EncounterTransaction.Observation obsGroup, Map<String, TestOrderRow> testOrders, Map<String, Integer> obsEncounters, Map<Integer, String> providerNames, Map<String, List<AccessionNote>> accessionNotes) {
         List<LabOrderResult> labOrderResults = new ArrayList<>();
         if(isPanel(obsGroup)) {
             for (EncounterTransaction.Observation observation : obsGroup.getGroupMembers()) {
-                LabOrderResult order = createLabOrderResult(observation, encounterTestOrderMap, encounterObservationMap,encounterToAccessionNotesMap);
+                LabOrderResult order = createLabOrderResult(observation, testOrders, obsEncounters, providerNames, accessionNotes);
                 order.setPanelUuid(obsGroup.getConceptUuid());
                 order.setPanelName(obsGroup.getConcept().getName());
                 labOrderResults.add(order);
             }
         } else {
-            labOrderResults.add(createLabOrderResult(obsGroup, encounterTestOrderMap, encounterObservationMap, encounterToAccessionNotesMap));
+            labOrderResults.add(createLabOrderResult(obsGroup, testOrders, obsEncounters, providerNames, accessionNotes));
         }
         return labOrderResults;
     }
@@ -224,15 +271,15 @@ public class LabOrderResultsServiceImpl implements LabOrderResultsService {
         return obsGroup.getConcept().isSet();
     }
 
-    private LabOrderResult createLabOrderResult(EncounterTransaction.Observation observation, Map<String, Encounter> encounterTestOrderMap, Map<String, Encounter> encounterObservationMap, Map<String, List<AccessionNote>> encounterToAccessionNotesMap) {
+    private LabOrderResult createLabOrderResult(EncounterTransaction.Observation observation, Map<String, TestOrderRow> testOrders, Map<String, Integer> obsEncounters, Map<Integer, String> providerNames, Map<String, List<AccessionNote>> accessionNotes) {
         LabOrderResult labOrderResult = new LabOrderResult();
-        Encounter orderEncounter = encounterTestOrderMap.get(observation.getOrderUuid());
+        TestOrderRow testOrder = testOrders.get(observation.getOrderUuid());
         Object resultValue = getValue(observation, observation.getConcept().getName());
         String notes = (String) getValue(observation, LAB_NOTES);
         String uploadedFileName = (String) getValue(observation, LAB_REPORT);
-        labOrderResult.setAccessionUuid(orderEncounter.getUuid());
-        labOrderResult.setAccessionDateTime(orderEncounter.getEncounterDatetime());
-        labOrderResult.setProvider(getProviderName(observation, encounterObservationMap));
+        labOrderResult.setAccessionUuid(testOrder.encounterUuid);
+        labOrderResult.setAccessionDateTime(testOrder.encounterDatetime);
+        labOrderResult.setProvider(providerNames.get(obsEncounters.get(observation.getUuid())));
         labOrderResult.setResultDateTime(observation.getObservationDateTime());
         labOrderResult.setTestUuid(observation.getConceptUuid());
         labOrderResult.setTestName(observation.getConcept().getName());
@@ -244,17 +291,11 @@ public class LabOrderResultsServiceImpl implements LabOrderResultsService {
         labOrderResult.setReferredOut(getLeafObservation(observation, REFERRED_OUT) != null);
         labOrderResult.setTestUnitOfMeasurement(observation.getConcept().getUnits());
         labOrderResult.setUploadedFileName(uploadedFileName != null && uploadedFileName.trim().length() > 0 ? uploadedFileName.trim() : null);
-        labOrderResult.setVisitStartTime(orderEncounter.getVisit().getStartDatetime());
-        labOrderResult.setAccessionNotes(encounterToAccessionNotesMap.get(orderEncounter.getUuid()));
+        labOrderResult.setVisitStartTime(testOrder.visitStartDatetime);
+        labOrderResult.setAccessionNotes(accessionNotes.get(testOrder.encounterUuid));
         return labOrderResult;
     }
 
-    private String getProviderName(EncounterTransaction.Observation observation, Map<String, Encounter> encounterObservationMap) {
-        Encounter obsEncounter = encounterObservationMap.get(observation.getUuid());
-        ArrayList<EncounterProvider> encounterProviders = new ArrayList<>(obsEncounter.getEncounterProviders());
-        return encounterProviders.size() > 0 ? encounterProviders.get(0).getProvider().getName() : null;
-    }
-
     private Object getValue(EncounterTransaction.Observation observation, String conceptName) {
         EncounterTransaction.Observation leafObservation = getLeafObservation(observation, conceptName);
         return leafObservation != null ? leafObservation.getValue() : null;
@@ -272,13 +313,21 @@ public class LabOrderResultsServiceImpl implements LabOrderResultsService {
         return null;
     }
 
-    private List<EncounterTransaction.Observation> findObsGroup(List<EncounterTransaction.Observation> observations, EncounterTransaction.TestOrder testOrder) {
-        List<EncounterTransaction.Observation> obsGroups = new ArrayList<>();
-        for (EncounterTransaction.Observation observation : observations) {
-            if(observation.getOrderUuid() != null && observation.getOrderUuid().equals(testOrder.getUuid())) {
-                obsGroups.add(observation);
-            }
+    private static class TestOrderRow {
+        private final String uuid;
+        private final Concept concept;
+        private final Integer encounterId;
+        private final String encounterUuid;
+        private final Date encounterDatetime;
+        private final Date visitStartDatetime;
+
+        TestOrderRow(String uuid, Concept concept, Integer encounterId, String encounterUuid, Date encounterDatetime, Date visitStartDatetime) {
+            this.uuid = uuid;
+            this.concept = concept;
+            this.encounterId = encounterId;
+            this.encounterUuid = encounterUuid;
+            this.encounterDatetime = encounterDatetime;
+            this.visitStartDatetime = visitStartDatetime;
         }
-        return obsGroups;
     }
 }
@@ -0,0 +1,70 @@
+package org.openmrs.module.bahmniemrapi.obscalculator;
+
+import org.openmrs.module.bahmniemrapi.encountertransaction.contract.BahmniEncounterTransaction;
+import org.openmrs.module.bahmniemrapi.script.ScriptEngineRegistry;
+import org.openmrs.util.OpenmrsUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs BahmniObsValueCalculator.groovy through the shared {@link ScriptEngineRegistry}, so the script is
+ * compiled once and recompiled only when it changes on disk. Keeps run metrics for the calculator.
+ */
+public class ObsValueCalculatorRegistry {
+    public static final String OBS_VALUE_CALCULATOR_DIRECTORY = "obscalculator/";
+    public static final String OBS_VALUE_CALCULATOR_SCRIPT = OBS_VALUE_CALCULATOR_DIRECTORY + "BahmniObsValueCalculator.groovy";
+
+    private static final ObsValueCalculatorRegistry INSTANCE = new ObsValueCalculatorRegistry(ScriptEngineRegistry.getInstance(), null);
+
+    private final ScriptEngineRegistry scriptEngineRegistry;
+    private final File scriptFile;
+
+    private final AtomicLong runCount = new AtomicLong();
+    private final AtomicLong totalRunTimeInMillis = new AtomicLong();
+
+    public static ObsValueCalculatorRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    ObsValueCalculatorRegistry(ScriptEngineRegistry scriptEngineRegistry, File scriptFile) {
+        this.scriptEngineRegistry = scriptEngineRegistry;
+        this.scriptFile = scriptFile;
+    }
+
+    public void run(BahmniEncounterTransaction bahmniEncounterTransaction) throws IOException, IllegalAccessException, InstantiationException {
+        ObsValueCalculator obsValueCalculator = getObsValueCalculator();
+        long start = System.currentTimeMillis();
+        try {
+            obsValueCalculator.run(bahmniEncounterTransaction);
+        } finally {
+            runCount.incrementAndGet();
+            totalRunTimeInMillis.addAndGet(System.currentTimeMillis() - start);
+        }
+    }
+
+    public ObsValueCalculator getObsValueCalculator() throws IOException, IllegalAccessException, InstantiationException {
+        return scriptEngineRegistry.getInstance(getScriptFile(), ObsValueCalculator.class);
+    }
+
+    private File getScriptFile() {
+        return scriptFile != null ? scriptFile : new File(OpenmrsUtil.getApplicationDataDirectory() + OBS_VALUE_CALCULATOR_SCRIPT);
+    }
+
+    public long getCompileCount() {
+        return scriptEngineRegistry.getCompileCount();
+    }
+
+    public long getTotalCompileTimeInMillis() {
+        return scriptEngineRegistry.getTotalCompileTimeInMillis();
+    }
+
+    public long getRunCount() {
+        return runCount.get();
+    }
+
+    public long getTotalRunTimeInMillis() {
+        return totalRunTimeInMillis.get();
+    }
+}
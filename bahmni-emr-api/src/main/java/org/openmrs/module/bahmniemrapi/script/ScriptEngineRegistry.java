@@ -0,0 +1,298 @@
+package org.openmrs.module.bahmniemrapi.script;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovySystem;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Compiles groovy extension scripts (obs calculators, encounter modifiers, patient matching algorithms) once
+ * and shares the resulting instance between threads. Each script gets its own class loader, which is dropped
+ * when the script changes on disk, is evicted to keep the cache within {@link #getMaxScripts()}, or is
+ * invalidated explicitly. A dropped class loader is left open for threads still running the old instance and
+ * is reclaimed by the garbage collector once they are done with it. Changes are picked up through a WatchService on the script directories, with a
+ * modification time check on every lookup for file systems that do not deliver watch events.
+ */
+public class ScriptEngineRegistry {
+    public static final int DEFAULT_MAX_SCRIPTS = 64;
+    public static final String GROOVY_EXTENSION = ".groovy";
+
+    private static final Logger logger = Logger.getLogger(ScriptEngineRegistry.class);
+    private static final ScriptEngineRegistry INSTANCE = new ScriptEngineRegistry(DEFAULT_MAX_SCRIPTS, true);
+
+    private final int maxScripts;
+    private final boolean watchForChanges;
+    private final ConcurrentMap<String, CompiledScript> compiledScripts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> compileLocks = new ConcurrentHashMap<>();
+    private final Set<Path> watchedDirectories = new HashSet<>();
+    private WatchService watchService;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong compileCount = new AtomicLong();
+    private final AtomicLong totalCompileTimeInMillis = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    public static ScriptEngineRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public ScriptEngineRegistry(int maxScripts, boolean watchForChanges) {
+        this.maxScripts = maxScripts;
+        this.watchForChanges = watchForChanges;
+    }
+
+    public <T> T getInstance(File scriptFile, Class<T> type) throws IOException, IllegalAccessException, InstantiationException {
+        String key = scriptFile.getAbsolutePath();
+        CompiledScript compiledScript = compiledScripts.get(key);
+        if (compiledScript == null || compiledScript.lastModified != scriptFile.lastModified()) {
+            compiledScript = compile(key, scriptFile);
+        } else {
+            hitCount.incrementAndGet();
+        }
+        compiledScript.lastAccessed = System.nanoTime();
+        return type.cast(compiledScript.instance);
+    }
+
+    /**
+     * Compiles the script into a class loader of its own on every call, leaving the shared instance and its
+     * class loader alone, for callers that must always see the script as it is on disk.
+     */
+    public <T> T getUncachedInstance(File scriptFile, Class<T> type) throws IOException, IllegalAccessException, InstantiationException {
+        long start = System.currentTimeMillis();
+        GroovyClassLoader classLoader = new GroovyClassLoader(ScriptEngineRegistry.class.getClassLoader());
+        Class clazz = classLoader.parseClass(scriptFile);
+        compileCount.incrementAndGet();
+        totalCompileTimeInMillis.addAndGet(System.currentTimeMillis() - start);
+        return type.cast(clazz.newInstance());
+    }
+
+    public void warmUp(File directory) {
+        File[] scriptFiles = directory.listFiles();
+        if (scriptFiles == null) {
+            return;
+        }
+        for (File scriptFile : scriptFiles) {
+            if (!scriptFile.getName().endsWith(GROOVY_EXTENSION)) {
+                continue;
+            }
+            try {
+                getInstance(scriptFile, Object.class);
+            } catch (Exception e) {
+                logger.warn("ScriptEngineRegistry : Could not warm up " + scriptFile.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    public void invalidate(File scriptFile) {
+        invalidate(scriptFile.getAbsolutePath());
+    }
+
+    public void invalidateAll() {
+        for (String key : compiledScripts.keySet()) {
+            invalidate(key);
+        }
+    }
+
+    private void invalidate(String key) {
+        compileLocks.remove(key);
+        CompiledScript compiledScript = compiledScripts.remove(key);
+        if (compiledScript != null) {
+            invalidationCount.incrementAndGet();
+            release(compiledScript);
+        }
+    }
+
+    private CompiledScript compile(String key, File scriptFile) throws IOException, IllegalAccessException, InstantiationException {
+        synchronized (lockFor(key)) {
+            long lastModified = scriptFile.lastModified();
+            CompiledScript current = compiledScripts.get(key);
+            if (current != null && current.lastModified == lastModified) {
+                return current;
+            }
+
+            byte[] content = Files.readAllBytes(scriptFile.toPath());
+            byte[] hash = hashOf(content);
+            if (current != null && Arrays.equals(current.hash, hash)) {
+                CompiledScript touched = new CompiledScript(current.instance, current.classLoader, lastModified, hash);
+                compiledScripts.put(key, touched);
+                return touched;
+            }
+
+            long start = System.currentTimeMillis();
+            GroovyClassLoader classLoader = new GroovyClassLoader(ScriptEngineRegistry.class.getClassLoader());
+            Class clazz = classLoader.parseClass(new String(content, "UTF-8"), scriptFile.getName());
+            CompiledScript compiledScript = new CompiledScript(clazz.newInstance(), classLoader, lastModified, hash);
+            long compileTime = System.currentTimeMillis() - start;
+            compileCount.incrementAndGet();
+            totalCompileTimeInMillis.addAndGet(compileTime);
+            logger.info("ScriptEngineRegistry : Compiled " + key + " in " + compileTime + " ms");
+
+            compiledScripts.put(key, compiledScript);
+            if (current != null) {
+                release(current);
+            }
+            evictIfNeeded();
+            watch(scriptFile.getAbsoluteFile().getParentFile());
+            return compiledScript;
+        }
+    }
+
+    private Object lockFor(String key) {
+        Object lock = new Object();
+        Object existing = compileLocks.putIfAbsent(key, lock);
+        return existing != null ? existing : lock;
+    }
+
+    private void evictIfNeeded() {
+        while (compiledScripts.size() > maxScripts) {
+            String leastRecentlyUsed = null;
+            long oldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<String, CompiledScript> entry : compiledScripts.entrySet()) {
+                if (entry.getValue().lastAccessed < oldestAccess) {
+                    oldestAccess = entry.getValue().lastAccessed;
+                    leastRecentlyUsed = entry.getKey();
+                }
+            }
+            if (leastRecentlyUsed == null) {
+                return;
+            }
+            invalidate(leastRecentlyUsed);
+        }
+    }
+
+    private void release(CompiledScript compiledScript) {
+        for (Class loadedClass : compiledScript.classLoader.getLoadedClasses()) {
+            GroovySystem.getMetaClassRegistry().removeMetaClass(loadedClass);
+        }
+    }
+
+    private synchronized void watch(File directory) {
+        if (!watchForChanges || directory == null) {
+            return;
+        }
+        Path path = directory.toPath();
+        if (watchedDirectories.contains(path)) {
+            return;
+        }
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                startWatcher(watchService);
+            }
+            path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            watchedDirectories.add(path);
+        } catch (IOException e) {
+            logger.warn("ScriptEngineRegistry : Could not watch " + directory.getAbsolutePath() + ", relying on modification time checks", e);
+        }
+    }
+
+    private void startWatcher(final WatchService watchService) {
+        Thread watcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        WatchKey watchKey = watchService.take();
+                        Path directory = (Path) watchKey.watchable();
+                        for (WatchEvent<?> event : watchKey.pollEvents()) {
+                            if (event.kind() == OVERFLOW) {
+                                invalidateAll();
+                                continue;
+                            }
+                            Path changed = directory.resolve((Path) event.context());
+                            invalidate(changed.toFile().getAbsolutePath());
+                        }
+                        watchKey.reset();
+                    }
+                } catch (InterruptedException | ClosedWatchServiceException e) {
+                    logger.info("ScriptEngineRegistry : Stopped watching script directories");
+                }
+            }
+        }, "bahmni-script-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public synchronized void shutdown() {
+        invalidateAll();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("ScriptEngineRegistry : Could not close watch service", e);
+            }
+            watchService = null;
+            watchedDirectories.clear();
+        }
+    }
+
+    private byte[] hashOf(byte[] content) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public int getMaxScripts() {
+        return maxScripts;
+    }
+
+    public int getCachedScriptCount() {
+        return compiledScripts.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getCompileCount() {
+        return compileCount.get();
+    }
+
+    public long getTotalCompileTimeInMillis() {
+        return totalCompileTimeInMillis.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    private static class CompiledScript {
+        private final Object instance;
+        private final GroovyClassLoader classLoader;
+        private final long lastModified;
+        private final byte[] hash;
+        private volatile long lastAccessed = System.nanoTime();
+
+        private CompiledScript(Object instance, GroovyClassLoader classLoader, long lastModified, byte[] hash) {
+            this.instance = instance;
+            this.classLoader = classLoader;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
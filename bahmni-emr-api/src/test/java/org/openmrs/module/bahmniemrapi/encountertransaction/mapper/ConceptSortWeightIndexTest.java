@@ -0,0 +1,97 @@
+package org.openmrs.module.bahmniemrapi.encountertransaction.mapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openmrs.Concept;
+import org.openmrs.module.bahmniemrapi.builder.ConceptBuilder;
+import org.openmrs.util.LocaleUtility;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(LocaleUtility.class)
+public class ConceptSortWeightIndexTest {
+
+    @Before
+    public void setUp() throws Exception {
+        mockStatic(LocaleUtility.class);
+        when(LocaleUtility.getDefaultLocale()).thenReturn(Locale.ENGLISH);
+        ConceptSortWeightIndex.invalidateAll();
+    }
+
+    @Test
+    public void shouldNumberNestedSetsLikeTheRecursiveWalk() {
+        Concept c1 = concept("c1");
+        Concept c11 = concept("c11");
+        Concept c111 = concept("c111");
+        Concept c112 = concept("c112");
+        c11.addSetMember(c111);
+        c11.addSetMember(c112);
+        c1.addSetMember(c11);
+        c1.addSetMember(concept("c12"));
+        Concept c2 = concept("c2");
+        c2.addSetMember(concept("c21"));
+
+        ConceptSortWeightIndex index = new ConceptSortWeightIndex(Arrays.asList(c1, c2));
+
+        assertEquals(1, index.getSortWeightFor("c1"));
+        assertEquals(2, index.getSortWeightFor("c11"));
+        assertEquals(3, index.getSortWeightFor("c111"));
+        assertEquals(4, index.getSortWeightFor("c112"));
+        assertEquals(5, index.getSortWeightFor("c12"));
+        assertEquals(4, index.getSortWeightFor("c2"));
+        assertEquals(5, index.getSortWeightFor("c21"));
+    }
+
+    @Test
+    public void shouldUseFirstOccurrenceAndIgnoreCase() {
+        Concept c1 = concept("c1");
+        c1.addSetMember(concept("Pulse"));
+        Concept c2 = concept("c2");
+        c2.addSetMember(concept("pulse"));
+
+        ConceptSortWeightIndex index = new ConceptSortWeightIndex(Arrays.asList(c1, c2));
+
+        assertEquals(2, index.getSortWeightFor("PULSE"));
+        assertEquals(0, index.getSortWeightFor("goobe"));
+        assertEquals(0, index.getSortWeightFor(null));
+    }
+
+    @Test
+    public void shouldReuseIndexUntilInvalidated() {
+        List<Concept> rootConcepts = Arrays.asList(concept("c1"), concept("c2"));
+
+        ConceptSortWeightIndex index = ConceptSortWeightIndex.forConcepts(rootConcepts);
+        assertSame(index, ConceptSortWeightIndex.forConcepts(rootConcepts));
+
+        ConceptSortWeightIndex.invalidateAll();
+        assertNotSame(index, ConceptSortWeightIndex.forConcepts(rootConcepts));
+    }
+
+    @Test
+    public void shouldReuseIndexForSameConceptsLoadedInAnotherSession() {
+        Concept c1 = concept("c1");
+        Concept c1InAnotherSession = concept("c1");
+        c1InAnotherSession.setUuid(c1.getUuid());
+
+        ConceptSortWeightIndex index = ConceptSortWeightIndex.forConcepts(Arrays.asList(c1));
+
+        assertSame(index, ConceptSortWeightIndex.forConcepts(Arrays.asList(c1InAnotherSession)));
+        assertNotSame(index, ConceptSortWeightIndex.forConcepts(Arrays.asList(concept("c2"))));
+    }
+
+    private Concept concept(String name) {
+        return new ConceptBuilder().withName(name).withDataType("N/A").build();
+    }
+}
@@ -110,6 +110,58 @@ public class LabOrderResultsServiceIT extends BaseModuleContextSensitiveTest {
 
     }
 
+    @Test
+    public void shouldMapOnlyTheLatestAccessions() throws Exception {
+        executeDataSet("diagnosisMetadata.xml");
+        executeDataSet("dispositionMetadata.xml");
+        executeDataSet("labOrderTestData.xml");
+        Patient patient = Context.getPatientService().getPatient(1);
+
+        List<LabOrderResult> labOrderResults = labOrderResultsService.getAll(patient, null, 1).getResults();
+
+        assertEquals(1, labOrderResults.size());
+        assertOrderPresent(labOrderResults, "PS for Malaria", null, 17, "System OpenMRS", "Result for PS Malaria", null, null, null, null, false, null);
+        assertThat(labOrderResults.get(0).getAccessionNotes().get(0).getText(), is(equalTo("Notes from Lab Manager")));
+    }
+
+    @Test
+    public void shouldMapLatestAccessionFirstAndTestOrdersInTheOrderTheyWerePlaced() throws Exception {
+        executeDataSet("diagnosisMetadata.xml");
+        executeDataSet("dispositionMetadata.xml");
+        executeDataSet("labOrderTestData.xml");
+        Patient patient = Context.getPatientService().getPatient(1);
+
+        List<LabOrderResult> labOrderResults = labOrderResultsService.getAll(patient, null, Integer.MAX_VALUE).getResults();
+
+        assertEquals(Context.getEncounterService().getEncounter(17).getUuid(), labOrderResults.get(0).getAccessionUuid());
+        List<String> testNames = new ArrayList<>();
+        for (LabOrderResult labOrderResult : labOrderResults.subList(1, labOrderResults.size())) {
+            testNames.add(labOrderResult.getTestName());
+        }
+        assertTrue(testNames.indexOf("Urea Nitrogen") < testNames.indexOf("HIV ELISA"));
+        assertTrue(testNames.indexOf("HIV ELISA") < testNames.indexOf("PS for Malaria"));
+        assertTrue(testNames.indexOf("Haemoglobin") < testNames.indexOf("Urea Nitrogen"));
+    }
+
+    @Test
+    public void shouldLeaveOutVoidedTestOrdersAndResults() throws Exception {
+        executeDataSet("diagnosisMetadata.xml");
+        executeDataSet("dispositionMetadata.xml");
+        executeDataSet("labOrderTestData.xml");
+        Patient patient = Context.getPatientService().getPatient(1);
+        Context.getOrderService().voidOrder(Context.getOrderService().getOrder(18), "entered in error");
+        Context.getObsService().voidObs(Context.getObsService().getObs(100), "entered in error");
+
+        List<LabOrderResult> labOrderResults = labOrderResultsService.getAll(patient, null, Integer.MAX_VALUE).getResults();
+
+        assertEquals(5, labOrderResults.size());
+        for (LabOrderResult labOrderResult : labOrderResults) {
+            assertFalse("HIV ELISA".equals(labOrderResult.getTestName()));
+        }
+        assertOrderPresent(labOrderResults, "PS for Malaria", null, 16, null, null, null, null, null, null, false, null);
+        assertOrderPresent(labOrderResults, "Haemoglobin", "Blood Panel", 16, "System OpenMRS", "99.0", 200.0, 300.0, true, null, true, null);
+    }
+
     private void assertOrderPresent(List<LabOrderResult> labOrderResults, String testName, String panelName, Integer accessionEncounterId, String provider, String value, Double minNormal, Double maxNormal, Boolean abnormal, String notes, Boolean referredOut, String uploadedFileName) {
         Encounter accessionEncounter = Context.getEncounterService().getEncounter(accessionEncounterId);
         for (LabOrderResult labOrderResult : labOrderResults) {
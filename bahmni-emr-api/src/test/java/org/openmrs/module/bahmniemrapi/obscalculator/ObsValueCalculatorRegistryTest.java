@@ -0,0 +1,85 @@
+package org.openmrs.module.bahmniemrapi.obscalculator;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.module.bahmniemrapi.encountertransaction.contract.BahmniEncounterTransaction;
+import org.openmrs.module.bahmniemrapi.script.ScriptEngineRegistry;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ObsValueCalculatorRegistryTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File scriptFile;
+    private ObsValueCalculatorRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        scriptFile = new File(temporaryFolder.getRoot(), "BahmniObsValueCalculator.groovy");
+        writeScript("first", 1000L);
+        registry = new ObsValueCalculatorRegistry(new ScriptEngineRegistry(ScriptEngineRegistry.DEFAULT_MAX_SCRIPTS, false), scriptFile);
+    }
+
+    @Test
+    public void shouldCompileScriptOnlyOnceWhenFileIsUnchanged() throws Exception {
+        ObsValueCalculator first = registry.getObsValueCalculator();
+        ObsValueCalculator second = registry.getObsValueCalculator();
+
+        assertSame(first, second);
+        assertEquals(1, registry.getCompileCount());
+    }
+
+    @Test
+    public void shouldRecompileWhenScriptContentChanges() throws Exception {
+        ObsValueCalculator first = registry.getObsValueCalculator();
+        writeScript("second", 2000L);
+
+        ObsValueCalculator second = registry.getObsValueCalculator();
+
+        assertNotSame(first, second);
+        assertEquals(2, registry.getCompileCount());
+    }
+
+    @Test
+    public void shouldNotRecompileWhenOnlyModificationTimeChanges() throws Exception {
+        ObsValueCalculator first = registry.getObsValueCalculator();
+        scriptFile.setLastModified(2000L);
+
+        ObsValueCalculator second = registry.getObsValueCalculator();
+
+        assertSame(first, second);
+        assertEquals(1, registry.getCompileCount());
+    }
+
+    @Test
+    public void shouldRunCalculatorAndRecordRunMetrics() throws Exception {
+        BahmniEncounterTransaction bahmniEncounterTransaction = new BahmniEncounterTransaction();
+
+        registry.run(bahmniEncounterTransaction);
+        registry.run(bahmniEncounterTransaction);
+
+        assertEquals("first", bahmniEncounterTransaction.getEncounterType());
+        assertEquals(2, registry.getRunCount());
+        assertEquals(1, registry.getCompileCount());
+    }
+
+    private void writeScript(String encounterType, long lastModified) throws Exception {
+        FileUtils.writeStringToFile(scriptFile,
+                "import org.openmrs.module.bahmniemrapi.obscalculator.ObsValueCalculator\n" +
+                "import org.openmrs.module.bahmniemrapi.encountertransaction.contract.BahmniEncounterTransaction\n" +
+                "class TestObsValueCalculator implements ObsValueCalculator {\n" +
+                "    void run(BahmniEncounterTransaction bahmniEncounterTransaction) {\n" +
+                "        bahmniEncounterTransaction.setEncounterType(\"" + encounterType + "\")\n" +
+                "    }\n" +
+                "}\n");
+        scriptFile.setLastModified(lastModified);
+    }
+}
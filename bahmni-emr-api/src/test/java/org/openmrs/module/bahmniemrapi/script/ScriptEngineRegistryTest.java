@@ -0,0 +1,121 @@
+package org.openmrs.module.bahmniemrapi.script;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ScriptEngineRegistryTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ScriptEngineRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new ScriptEngineRegistry(2, false);
+    }
+
+    @Test
+    public void shouldShareCompiledInstanceBetweenLookups() throws Exception {
+        File script = writeScript("First.groovy", "first");
+
+        Callable first = registry.getInstance(script, Callable.class);
+        Callable second = registry.getInstance(script, Callable.class);
+
+        assertSame(first, second);
+        assertEquals("first", first.call());
+        assertEquals(1, registry.getCompileCount());
+        assertEquals(1, registry.getHitCount());
+    }
+
+    @Test
+    public void shouldRecompileAfterInvalidation() throws Exception {
+        File script = writeScript("First.groovy", "first");
+        Callable first = registry.getInstance(script, Callable.class);
+
+        registry.invalidate(script);
+        Callable second = registry.getInstance(script, Callable.class);
+
+        assertNotSame(first, second);
+        assertEquals(2, registry.getCompileCount());
+        assertEquals(1, registry.getInvalidationCount());
+    }
+
+    @Test
+    public void shouldKeepInstanceInUseWorkingAfterItsScriptIsRecompiled() throws Exception {
+        File script = new File(temporaryFolder.getRoot(), "Collecting.groovy");
+        FileUtils.writeStringToFile(script,
+                "class Collecting implements java.util.concurrent.Callable {\n" +
+                "    Object call() { return [\"first\"].collect { new Value(it) }.first().text }\n" +
+                "}\n" +
+                "class Value { String text; Value(String text) { this.text = text } }\n");
+        Callable inUse = registry.getInstance(script, Callable.class);
+
+        registry.invalidate(script);
+        registry.getInstance(script, Callable.class);
+
+        assertEquals("first", inUse.call());
+    }
+
+    @Test
+    public void shouldCompileUncachedInstanceWithoutTouchingSharedOne() throws Exception {
+        File script = writeScript("First.groovy", "first");
+        Callable shared = registry.getInstance(script, Callable.class);
+
+        Callable uncached = registry.getUncachedInstance(script, Callable.class);
+
+        assertNotSame(shared, uncached);
+        assertEquals("first", uncached.call());
+        assertSame(shared, registry.getInstance(script, Callable.class));
+        assertEquals(0, registry.getInvalidationCount());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedScriptWhenFull() throws Exception {
+        File first = writeScript("First.groovy", "first");
+        File second = writeScript("Second.groovy", "second");
+        File third = writeScript("Third.groovy", "third");
+
+        registry.getInstance(first, Callable.class);
+        registry.getInstance(second, Callable.class);
+        registry.getInstance(first, Callable.class);
+        registry.getInstance(third, Callable.class);
+
+        assertEquals(2, registry.getCachedScriptCount());
+        registry.getInstance(first, Callable.class);
+        assertEquals(3, registry.getCompileCount());
+        registry.getInstance(second, Callable.class);
+        assertEquals(4, registry.getCompileCount());
+    }
+
+    @Test
+    public void shouldWarmUpGroovyScriptsInDirectory() throws Exception {
+        writeScript("First.groovy", "first");
+        writeScript("Second.groovy", "second");
+        FileUtils.writeStringToFile(new File(temporaryFolder.getRoot(), "readme.txt"), "not a script");
+
+        registry.warmUp(temporaryFolder.getRoot());
+
+        assertEquals(2, registry.getCachedScriptCount());
+        assertEquals(2, registry.getCompileCount());
+    }
+
+    private File writeScript(String fileName, String value) throws Exception {
+        File script = new File(temporaryFolder.getRoot(), fileName);
+        String className = fileName.replace(".groovy", "");
+        FileUtils.writeStringToFile(script,
+                "class " + className + " implements java.util.concurrent.Callable {\n" +
+                "    Object call() { return \"" + value + "\" }\n" +
+                "}\n");
+        return script;
+    }
+}
@@ -2,20 +2,70 @@ package org.bahmni.module.bahmnicore;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.bahmni.module.bahmnicore.service.impl.BahmniEncounterModifierServiceImpl;
+import org.bahmni.module.bahmnicore.service.impl.DrugSearchIndex;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Daemon;
 import org.openmrs.module.BaseModuleActivator;
+import org.openmrs.module.DaemonToken;
+import org.openmrs.module.DaemonTokenAware;
 import org.openmrs.module.ModuleActivator;
+import org.openmrs.module.bahmniemrapi.obscalculator.ObsValueCalculatorRegistry;
+import org.openmrs.module.bahmniemrapi.script.ScriptEngineRegistry;
+import org.openmrs.util.OpenmrsUtil;
 
-public class Activator extends BaseModuleActivator {
+import java.io.File;
+
+public class Activator extends BaseModuleActivator implements DaemonTokenAware {
 	
+	private static final String PATIENT_MATCHING_ALGORITHM_DIRECTORY = "/patientMatchingAlgorithm/";
+
 	private Log log = LogFactory.getLog(this.getClass());
+
+	private DaemonToken daemonToken;
+	
+	@Override
+	public void setDaemonToken(DaemonToken daemonToken) {
+		this.daemonToken = daemonToken;
+	}
 	
 	@Override
 	public void started() {
+		warmUpScripts();
+		warmUpDrugSearchIndex();
 		log.info("Started the Bahmni Core module");
 	}
 	
 	@Override
 	public void stopped() {
+		ScriptEngineRegistry.getInstance().shutdown();
 		log.info("Stopped the Bahmni Core module");
 	}
+
+	private void warmUpScripts() {
+		String applicationDataDirectory = OpenmrsUtil.getApplicationDataDirectory();
+		ScriptEngineRegistry scriptEngineRegistry = ScriptEngineRegistry.getInstance();
+		scriptEngineRegistry.warmUp(new File(applicationDataDirectory + ObsValueCalculatorRegistry.OBS_VALUE_CALCULATOR_DIRECTORY));
+		scriptEngineRegistry.warmUp(new File(applicationDataDirectory + BahmniEncounterModifierServiceImpl.ENCOUNTER_MODIFIER_ALGORITHM_DIRECTORY));
+		scriptEngineRegistry.warmUp(new File(applicationDataDirectory + PATIENT_MATCHING_ALGORITHM_DIRECTORY));
+		log.info("Warmed up " + scriptEngineRegistry.getCachedScriptCount() + " groovy scripts");
+	}
+
+	private void warmUpDrugSearchIndex() {
+		if (daemonToken == null) {
+			log.warn("No daemon token, drugs will be searched in the database");
+			return;
+		}
+		final DrugSearchIndex drugSearchIndex = Context.getRegisteredComponents(DrugSearchIndex.class).get(0);
+		Daemon.runInDaemonThread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					drugSearchIndex.rebuild();
+				} catch (RuntimeException e) {
+					log.error("Could not build the drug search index, drugs will be searched in the database", e);
+				}
+			}
+		}, daemonToken);
+	}
 }
@@ -0,0 +1,67 @@
+package org.bahmni.module.bahmnicore.advice;
+
+import org.bahmni.module.bahmnicore.service.impl.DiseaseTemplateSnapshots;
+import org.openmrs.Encounter;
+import org.openmrs.Obs;
+import org.openmrs.api.ConceptService;
+import org.openmrs.api.context.Context;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Drops the disease template snapshot of a patient when obs or encounters are changed outside the
+ * encounter transaction save, e.g. when an obs is voided or lab results are imported. Templates are concept
+ * sets and show concept names, so every snapshot is dropped when a concept is saved, retired or purged.
+ */
+public class DiseaseTemplateSnapshotAdvice implements AfterReturningAdvice {
+    private static final List<String> EVICTING_METHODS = Arrays.asList("saveObs", "voidObs", "unvoidObs", "purgeObs",
+            "saveEncounter", "voidEncounter", "unvoidEncounter", "purgeEncounter");
+    private static final List<String> EVICTING_CONCEPT_METHOD_PREFIXES = Arrays.asList("save", "update", "retire", "unretire", "purge");
+
+    private DiseaseTemplateSnapshots diseaseTemplateSnapshots;
+
+    public DiseaseTemplateSnapshotAdvice() {
+    }
+
+    public DiseaseTemplateSnapshotAdvice(DiseaseTemplateSnapshots diseaseTemplateSnapshots) {
+        this.diseaseTemplateSnapshots = diseaseTemplateSnapshots;
+    }
+
+    @Override
+    public void afterReturning(Object returnValue, Method method, Object[] arguments, Object service) throws Throwable {
+        if (service instanceof ConceptService) {
+            if (isEvictingConceptMethod(method.getName())) {
+                getDiseaseTemplateSnapshots().evictAll();
+            }
+            return;
+        }
+        if (!EVICTING_METHODS.contains(method.getName()) || arguments == null || arguments.length == 0) {
+            return;
+        }
+        Object argument = arguments[0];
+        if (argument instanceof Obs && ((Obs) argument).getPerson() != null) {
+            getDiseaseTemplateSnapshots().evict(((Obs) argument).getPerson().getUuid());
+        } else if (argument instanceof Encounter && ((Encounter) argument).getPatient() != null) {
+            getDiseaseTemplateSnapshots().evict(((Encounter) argument).getPatient().getUuid());
+        }
+    }
+
+    private boolean isEvictingConceptMethod(String methodName) {
+        for (String prefix : EVICTING_CONCEPT_METHOD_PREFIXES) {
+            if (methodName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private DiseaseTemplateSnapshots getDiseaseTemplateSnapshots() {
+        if (diseaseTemplateSnapshots == null) {
+            diseaseTemplateSnapshots = Context.getRegisteredComponents(DiseaseTemplateSnapshots.class).get(0);
+        }
+        return diseaseTemplateSnapshots;
+    }
+}
@@ -0,0 +1,69 @@
+package org.bahmni.module.bahmnicore.advice;
+
+import org.apache.log4j.Logger;
+import org.bahmni.module.bahmnicore.service.impl.DrugSearchIndex;
+import org.openmrs.Concept;
+import org.openmrs.Drug;
+import org.openmrs.api.context.Context;
+import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the {@link DrugSearchIndex} current as drugs are saved, retired or purged, and as the concepts of
+ * drugs are renamed. The index is only changed once the transaction commits, so rolled back changes never
+ * show up in the typeahead.
+ */
+public class DrugSearchIndexAdvice implements AfterReturningAdvice {
+    private static final Logger logger = Logger.getLogger(DrugSearchIndexAdvice.class);
+    private static final List<String> DRUG_METHODS = Arrays.asList("saveDrug", "retireDrug", "unretireDrug");
+    private static final List<String> CONCEPT_METHODS = Arrays.asList("saveConcept");
+
+    private DrugSearchIndex drugSearchIndex;
+
+    public DrugSearchIndexAdvice() {
+    }
+
+    public DrugSearchIndexAdvice(DrugSearchIndex drugSearchIndex) {
+        this.drugSearchIndex = drugSearchIndex;
+    }
+
+    @Override
+    public void afterReturning(final Object returnValue, final Method method, final Object[] arguments, Object service) throws Throwable {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            updateIndex(returnValue, method, arguments);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                updateIndex(returnValue, method, arguments);
+            }
+        });
+    }
+
+    private void updateIndex(Object returnValue, Method method, Object[] arguments) {
+        try {
+            if (DRUG_METHODS.contains(method.getName()) && returnValue instanceof Drug) {
+                getDrugSearchIndex().index((Drug) returnValue);
+            } else if ("purgeDrug".equals(method.getName()) && arguments != null && arguments.length > 0 && arguments[0] instanceof Drug) {
+                getDrugSearchIndex().remove((Drug) arguments[0]);
+            } else if (CONCEPT_METHODS.contains(method.getName()) && returnValue instanceof Concept) {
+                getDrugSearchIndex().index((Concept) returnValue);
+            }
+        } catch (RuntimeException e) {
+            logger.error("DrugSearchIndexAdvice : Could not update drug search index after " + method.getName(), e);
+        }
+    }
+
+    private DrugSearchIndex getDrugSearchIndex() {
+        if (drugSearchIndex == null) {
+            drugSearchIndex = Context.getRegisteredComponents(DrugSearchIndex.class).get(0);
+        }
+        return drugSearchIndex;
+    }
+}
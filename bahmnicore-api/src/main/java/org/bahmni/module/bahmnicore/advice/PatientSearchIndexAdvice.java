@@ -0,0 +1,147 @@
+package org.bahmni.module.bahmnicore.advice;
+
+import org.apache.log4j.Logger;
+import org.bahmni.module.bahmnicore.dao.PatientSearchIndexDao;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.Person;
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonName;
+import org.openmrs.api.context.Context;
+import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the patient_search index in step with PatientService and PersonService. Any patient, person, name,
+ * address or identifier that is saved, voided, unvoided, merged or purged has its patient re-indexed once the
+ * surrounding transaction commits. Indexing runs in a transaction of its own, so a failure is only logged and
+ * never rolls back or fails the change that triggered it.
+ */
+public class PatientSearchIndexAdvice implements AfterReturningAdvice {
+    private static final Logger logger = Logger.getLogger(PatientSearchIndexAdvice.class);
+    private static final List<String> REINDEX_METHOD_PREFIXES = Arrays.asList("save", "void", "unvoid", "merge", "purge", "processDeath");
+
+    private PatientSearchIndexDao patientSearchIndexDao;
+    private TransactionTemplate transactionTemplate;
+
+    public PatientSearchIndexAdvice() {
+    }
+
+    public PatientSearchIndexAdvice(PatientSearchIndexDao patientSearchIndexDao, PlatformTransactionManager transactionManager) {
+        this(patientSearchIndexDao, newTransactionTemplate(transactionManager));
+    }
+
+    public PatientSearchIndexAdvice(PatientSearchIndexDao patientSearchIndexDao, TransactionTemplate transactionTemplate) {
+        this.patientSearchIndexDao = patientSearchIndexDao;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterReturning(Object returnValue, Method method, Object[] arguments, Object service) throws Throwable {
+        if (!isReindexMethod(method.getName())) {
+            return;
+        }
+        final Set<Integer> personIds = personIdsIn(returnValue, arguments);
+        if (personIds.isEmpty()) {
+            return;
+        }
+        final String methodName = method.getName();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reindex(personIds, methodName);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                reindex(personIds, methodName);
+            }
+        });
+    }
+
+    private void reindex(final Set<Integer> personIds, String methodName) {
+        try {
+            getTransactionTemplate().execute(new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    for (Integer personId : personIds) {
+                        getPatientSearchIndexDao().reindex(personId);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("PatientSearchIndexAdvice : Could not update patient search index after " + methodName + " for " + personIds, e);
+        }
+    }
+
+    private boolean isReindexMethod(String methodName) {
+        for (String prefix : REINDEX_METHOD_PREFIXES) {
+            if (methodName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<Integer> personIdsIn(Object returnValue, Object[] arguments) {
+        Set<Integer> personIds = new LinkedHashSet<>();
+        addPersonIds(personIds, returnValue);
+        for (Object argument : arguments) {
+            addPersonIds(personIds, argument);
+        }
+        return personIds;
+    }
+
+    private void addPersonIds(Set<Integer> personIds, Object value) {
+        if (value instanceof Person) {
+            addPersonId(personIds, (Person) value);
+        } else if (value instanceof PersonName) {
+            addPersonId(personIds, ((PersonName) value).getPerson());
+        } else if (value instanceof PersonAddress) {
+            addPersonId(personIds, ((PersonAddress) value).getPerson());
+        } else if (value instanceof PatientIdentifier) {
+            addPersonId(personIds, ((PatientIdentifier) value).getPatient());
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection) value) {
+                addPersonIds(personIds, element);
+            }
+        }
+    }
+
+    private void addPersonId(Set<Integer> personIds, Person person) {
+        if (person != null && person.getPersonId() != null) {
+            personIds.add(person.getPersonId());
+        }
+    }
+
+    private PatientSearchIndexDao getPatientSearchIndexDao() {
+        if (patientSearchIndexDao == null) {
+            patientSearchIndexDao = Context.getRegisteredComponents(PatientSearchIndexDao.class).get(0);
+        }
+        return patientSearchIndexDao;
+    }
+
+    private TransactionTemplate getTransactionTemplate() {
+        if (transactionTemplate == null) {
+            transactionTemplate = newTransactionTemplate(Context.getRegisteredComponents(PlatformTransactionManager.class).get(0));
+        }
+        return transactionTemplate;
+    }
+
+    private static TransactionTemplate newTransactionTemplate(PlatformTransactionManager transactionManager) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate;
+    }
+}
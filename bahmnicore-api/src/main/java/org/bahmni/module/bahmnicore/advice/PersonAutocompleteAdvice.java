@@ -0,0 +1,67 @@
+package org.bahmni.module.bahmnicore.advice;
+
+import org.apache.log4j.Logger;
+import org.bahmni.module.bahmnicore.service.PersonAutocompleteService;
+import org.openmrs.Person;
+import org.openmrs.api.context.Context;
+import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Feeds saved persons and patients into the autocomplete indexes of {@link PersonAutocompleteService}, and
+ * drops the attribute indexes when person attribute types change. The indexes are only changed once the
+ * transaction commits, so rolled back saves never show up in the autocomplete.
+ */
+public class PersonAutocompleteAdvice implements AfterReturningAdvice {
+    private static final Logger logger = Logger.getLogger(PersonAutocompleteAdvice.class);
+    private static final List<String> SAVE_METHODS = Arrays.asList("savePatient", "savePerson");
+    private static final List<String> ATTRIBUTE_TYPE_METHODS = Arrays.asList("savePersonAttributeType", "retirePersonAttributeType",
+            "unretirePersonAttributeType", "purgePersonAttributeType");
+
+    private PersonAutocompleteService personAutocompleteService;
+
+    public PersonAutocompleteAdvice() {
+    }
+
+    public PersonAutocompleteAdvice(PersonAutocompleteService personAutocompleteService) {
+        this.personAutocompleteService = personAutocompleteService;
+    }
+
+    @Override
+    public void afterReturning(final Object returnValue, final Method method, Object[] arguments, Object service) throws Throwable {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            updateIndexes(returnValue, method);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                updateIndexes(returnValue, method);
+            }
+        });
+    }
+
+    private void updateIndexes(Object returnValue, Method method) {
+        try {
+            if (SAVE_METHODS.contains(method.getName()) && returnValue instanceof Person) {
+                getPersonAutocompleteService().index((Person) returnValue);
+            } else if (ATTRIBUTE_TYPE_METHODS.contains(method.getName())) {
+                getPersonAutocompleteService().invalidateAttributeIndexes();
+            }
+        } catch (RuntimeException e) {
+            logger.error("PersonAutocompleteAdvice : Could not update autocomplete index after " + method.getName(), e);
+        }
+    }
+
+    private PersonAutocompleteService getPersonAutocompleteService() {
+        if (personAutocompleteService == null) {
+            personAutocompleteService = Context.getRegisteredComponents(PersonAutocompleteService.class).get(0);
+        }
+        return personAutocompleteService;
+    }
+}
@@ -0,0 +1,57 @@
+package org.bahmni.module.bahmnicore.advice;
+
+import org.bahmni.module.bahmnicore.service.impl.RestResponseCache;
+import org.openmrs.OpenmrsData;
+import org.openmrs.api.context.Context;
+import org.springframework.aop.AfterReturningAdvice;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Drops the cached REST responses of {@link RestResponseCache} whenever a method that changes something is
+ * called, whatever its arguments, so global properties set by name are covered as well as concepts and other
+ * metadata (encounter types, locations, drugs, order frequencies...). Saving patient data (patients,
+ * encounters, obs, orders, visits) is left out, because none of the cached responses are built from it.
+ */
+public class RestResponseCacheAdvice implements AfterReturningAdvice {
+    private static final List<String> INVALIDATING_METHOD_PREFIXES = Arrays.asList("save", "update", "set", "retire", "unretire", "purge", "delete");
+
+    private RestResponseCache restResponseCache;
+
+    public RestResponseCacheAdvice() {
+    }
+
+    public RestResponseCacheAdvice(RestResponseCache restResponseCache) {
+        this.restResponseCache = restResponseCache;
+    }
+
+    @Override
+    public void afterReturning(Object returnValue, Method method, Object[] arguments, Object service) throws Throwable {
+        if (!isInvalidatingMethod(method.getName()) || isPatientData(arguments)) {
+            return;
+        }
+        getRestResponseCache().invalidateAll();
+    }
+
+    private boolean isInvalidatingMethod(String methodName) {
+        for (String prefix : INVALIDATING_METHOD_PREFIXES) {
+            if (methodName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isPatientData(Object[] arguments) {
+        return arguments != null && arguments.length > 0 && arguments[0] instanceof OpenmrsData;
+    }
+
+    private RestResponseCache getRestResponseCache() {
+        if (restResponseCache == null) {
+            restResponseCache = Context.getRegisteredComponents(RestResponseCache.class).get(0);
+        }
+        return restResponseCache;
+    }
+}
@@ -0,0 +1,27 @@
+package org.bahmni.module.bahmnicore.command;
+
+import org.bahmni.module.bahmnicore.service.impl.DiseaseTemplateSnapshots;
+import org.openmrs.Encounter;
+import org.openmrs.module.bahmniemrapi.encountertransaction.command.EncounterDataPostSaveCommand;
+import org.openmrs.module.bahmniemrapi.encountertransaction.contract.BahmniEncounterTransaction;
+import org.openmrs.module.emrapi.encounter.domain.EncounterTransaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class DiseaseTemplateSnapshotPostSaveCommand implements EncounterDataPostSaveCommand {
+    private DiseaseTemplateSnapshots diseaseTemplateSnapshots;
+
+    @Autowired
+    public DiseaseTemplateSnapshotPostSaveCommand(DiseaseTemplateSnapshots diseaseTemplateSnapshots) {
+        this.diseaseTemplateSnapshots = diseaseTemplateSnapshots;
+    }
+
+    @Override
+    public EncounterTransaction save(BahmniEncounterTransaction bahmniEncounterTransaction, Encounter currentEncounter, EncounterTransaction updatedEncounterTransaction) {
+        if (currentEncounter.getPatient() != null) {
+            diseaseTemplateSnapshots.evict(currentEncounter.getPatient().getUuid());
+        }
+        return updatedEncounterTransaction;
+    }
+}
@@ -39,6 +39,14 @@ public class DiseaseTemplate {
         this.observationTemplates.remove(observationTemplate);
     }
 
+    public DiseaseTemplate copy() {
+        DiseaseTemplate copy = new DiseaseTemplate(concept);
+        for (ObservationTemplate observationTemplate : observationTemplates) {
+            copy.addObservationTemplate(observationTemplate.copy());
+        }
+        return copy;
+    }
+
     public EncounterTransaction.Concept getConcept() {
         return concept;
     }
@@ -53,6 +53,19 @@ public class ObservationTemplate {
         this.visitStartDate = visitStartDate;
     }
 
+    public ObservationTemplate copy() {
+        ObservationTemplate copy = new ObservationTemplate();
+        copy.concept = concept;
+        copy.visitStartDate = visitStartDate;
+        if (bahmniObservations != null) {
+            copy.bahmniObservations = new ArrayList<>();
+            for (BahmniObservation bahmniObservation : bahmniObservations) {
+                copy.bahmniObservations.add(bahmniObservation.copy());
+            }
+        }
+        return copy;
+    }
+
     public void addBahmniObservation(BahmniObservation bahmniObservation){
         if(bahmniObservations == null){
             bahmniObservations = new ArrayList<>();
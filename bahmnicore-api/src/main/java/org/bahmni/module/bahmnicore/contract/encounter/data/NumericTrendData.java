@@ -0,0 +1,82 @@
+package org.bahmni.module.bahmnicore.contract.encounter.data;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class NumericTrendData {
+    private String conceptUuid;
+    private String conceptName;
+    private String units;
+    private List<Point> points = new ArrayList<>();
+
+    public NumericTrendData(String conceptUuid, String conceptName, String units) {
+        this.conceptUuid = conceptUuid;
+        this.conceptName = conceptName;
+        this.units = units;
+    }
+
+    public NumericTrendData() {
+    }
+
+    public String getConceptUuid() {
+        return conceptUuid;
+    }
+
+    public void setConceptUuid(String conceptUuid) {
+        this.conceptUuid = conceptUuid;
+    }
+
+    public String getConceptName() {
+        return conceptName;
+    }
+
+    public void setConceptName(String conceptName) {
+        this.conceptName = conceptName;
+    }
+
+    public String getUnits() {
+        return units;
+    }
+
+    public void setUnits(String units) {
+        this.units = units;
+    }
+
+    public List<Point> getPoints() {
+        return points;
+    }
+
+    public void setPoints(List<Point> points) {
+        this.points = points;
+    }
+
+    public static class Point {
+        private Date observationDate;
+        private Double value;
+
+        public Point(Date observationDate, Double value) {
+            this.observationDate = observationDate;
+            this.value = value;
+        }
+
+        public Point() {
+        }
+
+        public Date getObservationDate() {
+            return observationDate;
+        }
+
+        public void setObservationDate(Date observationDate) {
+            this.observationDate = observationDate;
+        }
+
+        public Double getValue() {
+            return value;
+        }
+
+        public void setValue(Double value) {
+            this.value = value;
+        }
+    }
+}
@@ -3,8 +3,11 @@ package org.bahmni.module.bahmnicore.contract.patient;
 import lombok.Data;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 
+import java.util.Date;
 import java.util.Map;
 
+import static org.apache.commons.lang.StringUtils.isNotEmpty;
+
 @Data
 public class PatientSearchParameters {
     private String identifier;
@@ -14,6 +17,8 @@ public class PatientSearchParameters {
     private Integer length;
     private String localName;
     private String[] patientAttributes;
+    private Date lastDateCreated;
+    private Integer lastPersonId;
 
     public PatientSearchParameters(RequestContext context) {
         String query = context.getParameter("q");
@@ -26,6 +31,12 @@ public class PatientSearchParameters {
         this.setLength(context.getLimit());
         this.setLocalName(context.getParameter("local_name"));
         this.setCityVillage(context.getParameter("city_village"));
+        String lastDateCreated = context.getParameter("last_date_created");
+        String lastPersonId = context.getParameter("last_person_id");
+        if (isNotEmpty(lastDateCreated) && isNotEmpty(lastPersonId)) {
+            this.setLastDateCreated(new Date(Long.parseLong(lastDateCreated)));
+            this.setLastPersonId(Integer.valueOf(lastPersonId));
+        }
         Map parameterMap = context.getRequest().getParameterMap();
         this.patientAttributes = (String[]) parameterMap.get("patientAttributes");
     }
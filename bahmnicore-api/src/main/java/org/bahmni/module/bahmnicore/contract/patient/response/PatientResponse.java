@@ -10,6 +10,7 @@ import java.util.Date;
 @NoArgsConstructor
 public class PatientResponse {
 
+    private Integer personId;
     private String uuid;
     private Date birthDate;
     private Date deathDate;
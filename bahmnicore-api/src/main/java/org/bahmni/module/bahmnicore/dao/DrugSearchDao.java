@@ -0,0 +1,12 @@
+package org.bahmni.module.bahmnicore.dao;
+
+import java.util.List;
+
+public interface DrugSearchDao {
+
+    /**
+     * One row per drug and non voided name of its concept: drug id, drug name, retired, concept id and concept
+     * name, ordered by drug id.
+     */
+    public List<Object[]> getDrugNames();
+}
@@ -4,6 +4,7 @@ import org.openmrs.Concept;
 import org.openmrs.Obs;
 import org.openmrs.Visit;
 
+import java.util.Date;
 import java.util.List;
 
 public interface ObsDao {
@@ -11,6 +12,12 @@ public interface ObsDao {
 
     List<Concept> getNumericConceptsForPerson(String personUUID);
 
+    /**
+     * Concept uuid, obs datetime and numeric value of the person's non voided numeric obs of the concepts,
+     * optionally within a date window, oldest first.
+     */
+    List<Object[]> getNumericObsValues(String personUUID, List<String> conceptUuids, Date from, Date to);
+
     List<Obs> getObsFor(String patientUuid, List<String> conceptName, Integer numberOfVisits);
 
     List<Obs> getLatestObsFor(String patientUuid, String conceptName, Integer limit);
@@ -20,4 +27,8 @@ public interface ObsDao {
     List<Obs> getLatestObsForConceptSetByVisit(String patientUuid, String conceptNames, Integer visitId);
 
     List<Obs> getLatestObsByVisit(Visit visit, String conceptName, Integer limit);
+
+    List<Obs> getLatestObsForConcepts(String patientUuid, List<String> conceptNames, Integer numberOfVisits, Integer limit);
+
+    List<Obs> getLatestObsByVisit(Visit visit, List<String> conceptNames, Integer limit);
 }
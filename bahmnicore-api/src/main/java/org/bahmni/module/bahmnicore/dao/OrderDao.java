@@ -11,7 +11,10 @@ import java.util.List;
 import org.openmrs.module.emrapi.encounter.domain.EncounterTransaction;
 
 public interface OrderDao {
-    List<Order> getCompletedOrdersFrom(List<Order> orders);
+    /**
+     * Non voided orders of the type for the patient that no obs has been recorded against yet, latest first.
+     */
+    List<Order> getPendingOrders(String patientUuid, String orderTypeUuid, Integer offset, Integer limit);
 
     List<DrugOrder> getPrescribedDrugOrders(Patient patient, Boolean includeActiveVisit, Integer numberOfVisits);
 
@@ -3,11 +3,13 @@ package org.bahmni.module.bahmnicore.dao;
 import org.bahmni.module.bahmnicore.contract.patient.response.PatientResponse;
 import org.openmrs.Patient;
 
+import java.util.Date;
 import java.util.List;
 
 public interface PatientDao {
 
     public List<PatientResponse> getPatients(String identifier, String name, String localName, String village, Integer length, Integer offset, String[] patientAttributes);
+    public List<PatientResponse> getPatientsFromIndex(String identifier, String name, String village, Integer length, Integer offset, Date lastDateCreated, Integer lastPersonId);
     public Patient getPatient(String identifier);
     public List<Patient> getPatients(String partialIdentifier, boolean shouldMatchExactPatientId);
 }
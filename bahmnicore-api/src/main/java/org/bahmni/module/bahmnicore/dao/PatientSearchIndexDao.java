@@ -0,0 +1,7 @@
+package org.bahmni.module.bahmnicore.dao;
+
+public interface PatientSearchIndexDao {
+
+    public void reindex(Integer personId);
+    public void remove(Integer personId);
+}
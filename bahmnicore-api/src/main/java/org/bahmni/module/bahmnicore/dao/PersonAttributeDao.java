@@ -5,4 +5,6 @@ import org.bahmni.module.bahmnicore.model.ResultList;
 public interface PersonAttributeDao {
 	
 	public ResultList getUnique(String personAttribute, String query);
+	
+	public void getAllUnique(String personAttribute, UniqueValueHandler uniqueValueHandler);
 }
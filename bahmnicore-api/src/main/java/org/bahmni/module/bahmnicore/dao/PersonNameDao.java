@@ -5,4 +5,6 @@ import org.bahmni.module.bahmnicore.model.ResultList;
 public interface PersonNameDao {
 	
 	public ResultList getUnique(String key, String query);
+	
+	public void getAllUnique(String key, UniqueValueHandler uniqueValueHandler);
 }
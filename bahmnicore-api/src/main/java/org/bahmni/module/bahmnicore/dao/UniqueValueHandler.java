@@ -0,0 +1,8 @@
+package org.bahmni.module.bahmnicore.dao;
+
+public interface UniqueValueHandler {
+    /**
+     * @return false to stop reading further values
+     */
+    boolean handle(String value);
+}
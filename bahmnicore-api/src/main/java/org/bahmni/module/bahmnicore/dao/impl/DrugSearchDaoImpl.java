@@ -0,0 +1,27 @@
+package org.bahmni.module.bahmnicore.dao.impl;
+
+import org.bahmni.module.bahmnicore.dao.DrugSearchDao;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class DrugSearchDaoImpl implements DrugSearchDao {
+    private static final String DRUG_NAMES = "select d.drugId, d.name, d.retired, c.conceptId, cn.name from Drug d " +
+            "left join d.concept c left join c.names cn with cn.voided = false order by d.drugId";
+
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    public DrugSearchDaoImpl(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<Object[]> getDrugNames() {
+        return sessionFactory.getCurrentSession().createQuery(DRUG_NAMES).list();
+    }
+}
@@ -39,7 +39,7 @@ public class ObsDaoImpl implements ObsDao {
     @Override
     public List<Concept> getNumericConceptsForPerson(String personUUID) {
         Query query = sessionFactory.getCurrentSession().createQuery(
-                "select concept " +
+                "select distinct concept " +
                         "from Obs as obs " +
                         "inner join obs.concept as concept " +
                         "inner join concept.datatype as datatype " +
@@ -53,6 +53,34 @@ public class ObsDaoImpl implements ObsDao {
 
     }
 
+    @Override
+    public List<Object[]> getNumericObsValues(String personUUID, List<String> conceptUuids, Date from, Date to) {
+        Query query = sessionFactory.getCurrentSession().createQuery(
+                "select concept.uuid, obs.obsDatetime, obs.valueNumeric " +
+                        "from Obs as obs " +
+                        "inner join obs.concept as concept " +
+                        "inner join concept.datatype as datatype " +
+                        "inner join obs.person as person " +
+                        "where datatype.hl7Abbreviation = :hl7abrv " +
+                        "and person.uuid = :personUUID " +
+                        "and concept.uuid in (:conceptUuids) " +
+                        "and obs.valueNumeric is not null " +
+                        (from != null ? "and obs.obsDatetime >= :from " : "") +
+                        (to != null ? "and obs.obsDatetime <= :to " : "") +
+                        "and obs.voided = false " +
+                        "order by obs.obsDatetime, obs.obsId");
+        query.setString("hl7abrv", ConceptDatatype.NUMERIC);
+        query.setString("personUUID", personUUID);
+        query.setParameterList("conceptUuids", conceptUuids);
+        if (from != null) {
+            query.setTimestamp("from", from);
+        }
+        if (to != null) {
+            query.setTimestamp("to", to);
+        }
+        return query.list();
+    }
+
     public List<Obs> getObsFor(String patientUuid, List<String> conceptNames, Integer numberOfVisits, Integer limit) {
         List<Integer> listOfVisitIds = getVisitIdsFor(patientUuid, numberOfVisits);
         if (listOfVisitIds == null || listOfVisitIds.isEmpty())
@@ -94,6 +122,76 @@ public class ObsDaoImpl implements ObsDao {
         return getObsByPatientAndVisit(visit.getPatient().getUuid(), Arrays.asList(conceptName), Arrays.asList(visit.getVisitId()), limit);
     }
 
+    @Override
+    public List<Obs> getLatestObsForConcepts(String patientUuid, List<String> conceptNames, Integer numberOfVisits, Integer limit) {
+        List<Integer> listOfVisitIds = getVisitIdsFor(patientUuid, numberOfVisits);
+        if (listOfVisitIds == null || listOfVisitIds.isEmpty())
+            return new ArrayList<>();
+
+        return getLatestObsByPatientAndVisit(patientUuid, conceptNames, listOfVisitIds, limit);
+    }
+
+    @Override
+    public List<Obs> getLatestObsByVisit(Visit visit, List<String> conceptNames, Integer limit) {
+        return getLatestObsByPatientAndVisit(visit.getPatient().getUuid(), conceptNames, Arrays.asList(visit.getVisitId()), limit);
+    }
+
+    /**
+     * Latest obs per concept. For a single obs per concept the database picks the obs at the latest obs datetime of
+     * each concept in one query, otherwise every concept is read with its own query bounded by limit. Obs sharing
+     * the latest datetime, or found under more than one of the names, are cut to limit per concept afterwards.
+     */
+    private List<Obs> getLatestObsByPatientAndVisit(String patientUuid, List<String> conceptNames, List<Integer> listOfVisitIds, Integer limit) {
+        if (conceptNames == null || conceptNames.isEmpty())
+            return new ArrayList<>();
+
+        if (limit != 1) {
+            List<Obs> observations = new ArrayList<>();
+            for (String conceptName : conceptNames) {
+                observations.addAll(getObsByPatientAndVisit(patientUuid, Arrays.asList(conceptName), listOfVisitIds, limit));
+            }
+            return limitPerConcept(observations, limit);
+        }
+
+        Query queryToGetObservations = sessionFactory.getCurrentSession().createQuery(
+                "select obs " +
+                        " from Obs as obs, ConceptName as cn " +
+                        " where obs.person.uuid = :patientUuid " +
+                        " and obs.encounter.visit.visitId in (:listOfVisitIds) " +
+                        " and cn.concept = obs.concept.conceptId " +
+                        " and cn.name in (:conceptNames) " +
+                        " and cn.conceptNameType = :conceptNameType " +
+                        " and cn.voided = false " +
+                        " and obs.voided = false " +
+                        " and obs.obsDatetime = (select max(latest.obsDatetime) " +
+                        "     from Obs as latest " +
+                        "     where latest.person = obs.person " +
+                        "     and latest.concept = obs.concept " +
+                        "     and latest.encounter.visit.visitId in (:listOfVisitIds) " +
+                        "     and latest.voided = false) " +
+                        " order by obs.obsDatetime desc, obs.obsId desc ");
+
+        queryToGetObservations.setString("patientUuid", patientUuid);
+        queryToGetObservations.setParameterList("conceptNames", conceptNames);
+        queryToGetObservations.setParameterList("listOfVisitIds", listOfVisitIds);
+        queryToGetObservations.setParameter("conceptNameType", ConceptNameType.FULLY_SPECIFIED);
+        return limitPerConcept(queryToGetObservations.list(), limit);
+    }
+
+    private List<Obs> limitPerConcept(List<Obs> observations, Integer limit) {
+        Map<Integer, Integer> countPerConcept = new HashMap<>();
+        Set<Obs> limitedObservations = new LinkedHashSet<>();
+        for (Obs obs : observations) {
+            Integer conceptId = obs.getConcept().getId();
+            Integer count = countPerConcept.get(conceptId);
+            count = count == null ? 0 : count;
+            if (count < limit && limitedObservations.add(obs)) {
+                countPerConcept.put(conceptId, count + 1);
+            }
+        }
+        return new ArrayList<>(limitedObservations);
+    }
+
     @Override
     public List<Obs> getLatestObsFor(String patientUuid, String conceptName, Integer limit) {
         Query queryToGetObservations = sessionFactory.getCurrentSession().createQuery(
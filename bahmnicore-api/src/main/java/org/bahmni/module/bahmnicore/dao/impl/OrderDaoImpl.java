@@ -1,21 +1,12 @@
 package org.bahmni.module.bahmnicore.dao.impl;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.Collection;
-import org.apache.log4j.Logger;
-import org.bahmni.module.bahmnicore.contract.orderTemplate.OrderTemplateJson;
 import org.bahmni.module.bahmnicore.dao.OrderDao;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.hibernate.Criteria;
 import org.hibernate.Query;
 import org.hibernate.SessionFactory;
 import org.hibernate.classic.Session;
-import org.hibernate.criterion.Projections;
-import org.hibernate.criterion.Restrictions;
 import org.openmrs.Concept;
 import org.openmrs.DrugOrder;
-import org.openmrs.Obs;
 import org.openmrs.Order;
 import org.openmrs.Patient;
 import org.openmrs.Visit;
@@ -27,29 +18,31 @@ import java.util.Date;
 import java.util.List;
 
 public class OrderDaoImpl implements OrderDao {
-    private static final String ORDER_TEMPLATES_DIRECTORY = "ordertemplates";
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
-    private static final Logger log = Logger.getLogger(OrderDaoImpl.class);
-
     private SessionFactory sessionFactory;
-    private ApplicationDataDirectory applicationDataDirectory;
-    private String TEMPLATES_JSON_FILE = "templates.json";
-    private String FILE_SEPARATOR = "/";
+    private RegimenTemplateRegistry regimenTemplateRegistry;
 
 
     @Autowired
     public OrderDaoImpl(SessionFactory sessionFactory) {
         this.sessionFactory = sessionFactory;
-        this.applicationDataDirectory = new ApplicationDataDirectoryImpl();
+        this.regimenTemplateRegistry = new RegimenTemplateRegistry(new ApplicationDataDirectoryImpl());
     }
 
     @Override
-    public List<Order> getCompletedOrdersFrom(List<Order> allOrders) {
-        Criteria criteria = getCurrentSession().createCriteria(Obs.class);
-        criteria.setProjection(Projections.groupProperty("order"));
-
-        criteria.add(Restrictions.in("order", allOrders));
-        return criteria.list();
+    public List<Order> getPendingOrders(String patientUuid, String orderTypeUuid, Integer offset, Integer limit) {
+        Query query = getCurrentSession().createQuery("select o from Order o where o.patient.uuid = :patientUuid " +
+                "and o.orderType.uuid = :orderTypeUuid and o.voided = false " +
+                "and not exists (select obs.obsId from Obs obs where obs.order = o) " +
+                "order by o.dateActivated desc, o.orderId desc");
+        query.setParameter("patientUuid", patientUuid);
+        query.setParameter("orderTypeUuid", orderTypeUuid);
+        if (offset != null) {
+            query.setFirstResult(offset);
+        }
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+        return query.list();
     }
 
     @Override
@@ -106,36 +99,11 @@ public class OrderDaoImpl implements OrderDao {
 
     @Override
     public Collection<EncounterTransaction.DrugOrder> getDrugOrderForRegimen(String regimenName) {
-        File file = getTemplates();
-        OrderTemplateJson orderTemplates = null;
-        try {
-            orderTemplates = OBJECT_MAPPER.readValue(file, OrderTemplateJson.class);
-            setDefaultFields(orderTemplates);
-        } catch (IOException e) {
-            log.error("Could not deserialize file " + file.getAbsolutePath());
-            throw new RuntimeException(e);
-        }
-        for (OrderTemplateJson.OrderTemplate orderTemplate : orderTemplates.getOrderTemplates()) {
-            if (orderTemplate.getName().equals(regimenName)) {
-                return orderTemplate.getDrugOrders();
-            }
-        }
-        return new ArrayList<>();
-    }
-
-    private void setDefaultFields(OrderTemplateJson orderTemplateJson) {
-        for (OrderTemplateJson.OrderTemplate orderTemplate : orderTemplateJson.getOrderTemplates()) {
-            for (EncounterTransaction.DrugOrder drugOrder : orderTemplate.getDrugOrders()) {
-                drugOrder.setCareSetting("Outpatient");
-                drugOrder.setOrderType("Drug Order");
-                drugOrder.setDosingInstructionType("org.openmrs.module.bahmniemrapi.drugorder.dosinginstructions.FlexibleDosingInstructions");
-                drugOrder.getDosingInstructions().setAsNeeded(false);
-            }
-        }
+        return regimenTemplateRegistry.getDrugOrders(regimenName);
     }
 
-    private File getTemplates() {
-        return applicationDataDirectory.getFile(ORDER_TEMPLATES_DIRECTORY + FILE_SEPARATOR + TEMPLATES_JSON_FILE);
+    public RegimenTemplateRegistry getRegimenTemplateRegistry() {
+        return regimenTemplateRegistry;
     }
 
     public List<Visit> getVisitsWithOrders(Patient patient, String orderType, Boolean includeActiveVisit, Integer numberOfVisits) {
@@ -155,7 +123,7 @@ public class OrderDaoImpl implements OrderDao {
     }
 
     void setApplicationDataDirectory(ApplicationDataDirectory applicationDataDirectory) {
-        this.applicationDataDirectory = applicationDataDirectory;
+        this.regimenTemplateRegistry = new RegimenTemplateRegistry(applicationDataDirectory);
     }
 
     @Override
@@ -4,6 +4,7 @@ import org.apache.commons.lang.ArrayUtils;
 import org.bahmni.module.bahmnicore.contract.patient.response.PatientResponse;
 import org.bahmni.module.bahmnicore.dao.PatientDao;
 import org.bahmni.module.bahmnicore.model.NameSearchParameter;
+import org.bahmni.module.bahmnicore.util.PatientSearchTokenizer;
 import org.hibernate.Query;
 import org.hibernate.SQLQuery;
 import org.hibernate.SessionFactory;
@@ -17,6 +18,7 @@ import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import static org.apache.commons.lang.StringUtils.isEmpty;
@@ -31,6 +33,9 @@ public class PatientDaoImpl implements PatientDao {
     private static final String LOCAL_NAME_PARAM = "localName";
     private static final String PERSON_ATTRIBUTE_NAMES_PARAMETER = "personAttributeTypeNames";
     private static final String PERSON_ATTRIBUTE_IDS_PARAMETER = "personAttributeTypeIds";
+    private static final String NAME_TOKEN_PARAM = "nameToken";
+    private static final String LAST_DATE_CREATED_PARAM = "lastDateCreated";
+    private static final String LAST_PERSON_ID_PARAM = "lastPersonId";
 
     public static final String WHERE_CLAUSE = " where p.voided = 'false' and pn.voided = 'false' and pn.preferred=true ";
     public static final String SELECT_STATEMENT = "select p.uuid as uuid, pi.identifier as identifier, pn.given_name as givenName, pn.middle_name as middleName, pn.family_name as familyName, p.gender as gender, p.birthdate as birthDate," +
@@ -46,6 +51,18 @@ public class PatientDaoImpl implements PatientDao {
     public static final String BY_VILLAGE = " pa.city_village like :" + VILLAGE_PARAM;
     public static final String ORDER_BY = " order by p.date_created desc LIMIT :" + LIMIT_PARAM + " OFFSET :" + OFFSET_PARAM;
 
+    public static final String INDEX_SELECT_STATEMENT = "select ps.person_id as personId, ps.uuid as uuid, ps.identifier as identifier, ps.given_name as givenName, ps.middle_name as middleName," +
+            " ps.family_name as familyName, ps.gender as gender, ps.birthdate as birthDate, ps.death_date as deathDate, ps.city_village as cityVillage," +
+            " ps.date_created as dateCreated, v.uuid as activeVisitUuid ";
+    public static final String INDEX_FROM_TABLE = " from patient_search ps " +
+            " left outer join visit v on v.patient_id = ps.person_id and v.date_stopped is null ";
+    public static final String INDEX_BY_ID = "ps.person_id in (select pi.patient_id from patient_identifier pi where pi.identifier = :" + PATIENT_IDENTIFIER_PARAM + ")";
+    public static final String INDEX_BY_NAME_TOKEN = "ps.person_id in (select pst.person_id from patient_search_token pst where pst.token like :" + NAME_TOKEN_PARAM;
+    public static final String INDEX_BY_VILLAGE = "ps.city_village like :" + VILLAGE_PARAM;
+    public static final String INDEX_AFTER_CURSOR = "ps.date_created < :" + LAST_DATE_CREATED_PARAM +
+            " or (ps.date_created = :" + LAST_DATE_CREATED_PARAM + " and ps.person_id < :" + LAST_PERSON_ID_PARAM + ")";
+    public static final String INDEX_ORDER_BY = " order by ps.date_created desc, ps.person_id desc LIMIT :" + LIMIT_PARAM;
+
     private SessionFactory sessionFactory;
 
     @Autowired
@@ -107,6 +124,59 @@ public class PatientDaoImpl implements PatientDao {
         return sqlQuery.list();
     }
 
+    @Override
+    public List<PatientResponse> getPatientsFromIndex(String identifier, String name, String village, Integer length, Integer offset, Date lastDateCreated, Integer lastPersonId) {
+        List<String> nameTokens = PatientSearchTokenizer.tokenize(name);
+        boolean afterCursor = lastDateCreated != null && lastPersonId != null;
+
+        StringBuilder query = new StringBuilder(INDEX_SELECT_STATEMENT).append(INDEX_FROM_TABLE).append(" where 1 = 1 ");
+        if (isNotEmpty(identifier)) {
+            query.append(" and ").append(enclose(INDEX_BY_ID));
+        }
+        for (int index = 0; index < nameTokens.size(); index++) {
+            query.append(" and ").append(enclose(INDEX_BY_NAME_TOKEN + index + ")"));
+        }
+        if (isNotEmpty(village)) {
+            query.append(" and ").append(enclose(INDEX_BY_VILLAGE));
+        }
+        if (afterCursor) {
+            query.append(" and ").append(enclose(INDEX_AFTER_CURSOR));
+        }
+        query.append(afterCursor ? INDEX_ORDER_BY : INDEX_ORDER_BY + " OFFSET :" + OFFSET_PARAM);
+
+        SQLQuery sqlQuery = sessionFactory.getCurrentSession()
+                .createSQLQuery(query.toString())
+                .addScalar("personId", StandardBasicTypes.INTEGER)
+                .addScalar("uuid", StandardBasicTypes.STRING)
+                .addScalar("identifier", StandardBasicTypes.STRING)
+                .addScalar("givenName", StandardBasicTypes.STRING)
+                .addScalar("middleName", StandardBasicTypes.STRING)
+                .addScalar("familyName", StandardBasicTypes.STRING)
+                .addScalar("gender", StandardBasicTypes.STRING)
+                .addScalar("birthDate", StandardBasicTypes.DATE)
+                .addScalar("deathDate", StandardBasicTypes.DATE)
+                .addScalar("cityVillage", StandardBasicTypes.STRING)
+                .addScalar("dateCreated", StandardBasicTypes.TIMESTAMP)
+                .addScalar("activeVisitUuid", StandardBasicTypes.STRING);
+
+        if (isNotEmpty(identifier))
+            sqlQuery.setParameter(PATIENT_IDENTIFIER_PARAM, identifier);
+        for (int index = 0; index < nameTokens.size(); index++) {
+            sqlQuery.setParameter(NAME_TOKEN_PARAM + index, nameTokens.get(index) + "%");
+        }
+        if (isNotEmpty(village))
+            sqlQuery.setParameter(VILLAGE_PARAM, village + "%");
+        if (afterCursor) {
+            sqlQuery.setParameter(LAST_DATE_CREATED_PARAM, lastDateCreated, StandardBasicTypes.TIMESTAMP);
+            sqlQuery.setParameter(LAST_PERSON_ID_PARAM, lastPersonId);
+        } else {
+            sqlQuery.setParameter(OFFSET_PARAM, offset);
+        }
+        sqlQuery.setParameter(LIMIT_PARAM, length);
+        sqlQuery.setResultTransformer(Transformers.aliasToBean(PatientResponse.class));
+        return sqlQuery.list();
+    }
+
     private String getSelectStatementWithLocalName(String selectStatement, String[] patientAttributes){
         if(patientAttributes!= null && patientAttributes.length > 0){
             return selectStatement + " ,group_concat(distinct(coalesce(concat(attrt.name, ':', pattrln.value))) SEPARATOR ' ') as localName ";
@@ -0,0 +1,83 @@
+package org.bahmni.module.bahmnicore.dao.impl;
+
+import org.bahmni.module.bahmnicore.dao.PatientSearchIndexDao;
+import org.bahmni.module.bahmnicore.util.PatientSearchTokenizer;
+import org.hibernate.SessionFactory;
+import org.hibernate.classic.Session;
+import org.hibernate.type.StandardBasicTypes;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Maintains the denormalized patient_search table and its patient_search_token index, which back the
+ * keyset paginated search in {@link PatientDaoImpl#getPatientsFromIndex}. Rows are rebuilt from the
+ * patient as loaded in the current session whenever it changes, so the index never has to be recomputed
+ * in bulk. Patients that are gone or voided are dropped from the index.
+ */
+@Repository
+public class PatientSearchIndexDaoImpl implements PatientSearchIndexDao {
+    private static final String PERSON_ID_PARAM = "personId";
+
+    private static final String DELETE_TOKENS = "delete from patient_search_token where person_id = :" + PERSON_ID_PARAM;
+    private static final String DELETE_ENTRY = "delete from patient_search where person_id = :" + PERSON_ID_PARAM;
+    private static final String INSERT_ENTRY = "insert into patient_search (person_id, uuid, identifier, given_name, middle_name, family_name, " +
+            "gender, birthdate, death_date, city_village, date_created) values (:personId, :uuid, :identifier, :givenName, :middleName, " +
+            ":familyName, :gender, :birthdate, :deathDate, :cityVillage, :dateCreated)";
+    private static final String INSERT_TOKEN = "insert into patient_search_token (person_id, token) values (:personId, :token)";
+
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    public PatientSearchIndexDaoImpl(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void reindex(Integer personId) {
+        remove(personId);
+
+        Session currentSession = sessionFactory.getCurrentSession();
+        Patient patient = (Patient) currentSession.get(Patient.class, personId);
+        if (patient == null || patient.isVoided()) {
+            return;
+        }
+        PersonName personName = patient.getPersonName();
+        if (personName == null) {
+            return;
+        }
+        PatientIdentifier patientIdentifier = patient.getPatientIdentifier();
+        PersonAddress personAddress = patient.getPersonAddress();
+
+        currentSession.createSQLQuery(INSERT_ENTRY)
+                .setParameter(PERSON_ID_PARAM, patient.getPatientId())
+                .setParameter("uuid", patient.getUuid())
+                .setParameter("identifier", patientIdentifier != null ? patientIdentifier.getIdentifier() : null, StandardBasicTypes.STRING)
+                .setParameter("givenName", personName.getGivenName(), StandardBasicTypes.STRING)
+                .setParameter("middleName", personName.getMiddleName(), StandardBasicTypes.STRING)
+                .setParameter("familyName", personName.getFamilyName(), StandardBasicTypes.STRING)
+                .setParameter("gender", patient.getGender(), StandardBasicTypes.STRING)
+                .setParameter("birthdate", patient.getBirthdate(), StandardBasicTypes.DATE)
+                .setParameter("deathDate", patient.getDeathDate(), StandardBasicTypes.TIMESTAMP)
+                .setParameter("cityVillage", personAddress != null ? personAddress.getCityVillage() : null, StandardBasicTypes.STRING)
+                .setParameter("dateCreated", patient.getPersonDateCreated(), StandardBasicTypes.TIMESTAMP)
+                .executeUpdate();
+
+        for (String token : PatientSearchTokenizer.tokensOf(patient)) {
+            currentSession.createSQLQuery(INSERT_TOKEN)
+                    .setParameter(PERSON_ID_PARAM, patient.getPatientId())
+                    .setParameter("token", token)
+                    .executeUpdate();
+        }
+    }
+
+    @Override
+    public void remove(Integer personId) {
+        Session currentSession = sessionFactory.getCurrentSession();
+        currentSession.createSQLQuery(DELETE_TOKENS).setParameter(PERSON_ID_PARAM, personId).executeUpdate();
+        currentSession.createSQLQuery(DELETE_ENTRY).setParameter(PERSON_ID_PARAM, personId).executeUpdate();
+    }
+}
@@ -1,6 +1,9 @@
 package org.bahmni.module.bahmnicore.dao.impl;
 
 import org.bahmni.module.bahmnicore.dao.PersonAttributeDao;
+import org.bahmni.module.bahmnicore.dao.UniqueValueHandler;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.SQLQuery;
 import org.hibernate.SessionFactory;
 import org.bahmni.module.bahmnicore.model.ResultList;
@@ -26,4 +29,26 @@ public class PersonAttributeDaoImpl implements PersonAttributeDao {
 		sqlQuery.setMaxResults(20);
 		return new ResultList(sqlQuery.list());
 	}
+	
+	@Override
+	public void getAllUnique(String personAttribute, UniqueValueHandler uniqueValueHandler) {
+		SQLQuery sqlQuery = sessionFactory
+		        .getCurrentSession()
+		        .createSQLQuery(
+		            "Select distinct value from person_attribute, person_attribute_type "
+		                    + "where person_attribute.person_attribute_type_id = person_attribute_type.person_attribute_type_id "
+		                    + "and person_attribute_type.name = :name");
+		sqlQuery.setParameter("name", personAttribute);
+		ScrollableResults values = sqlQuery.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			while (values.next()) {
+				if (!uniqueValueHandler.handle((String) values.get(0))) {
+					break;
+				}
+			}
+		}
+		finally {
+			values.close();
+		}
+	}
 }
@@ -1,8 +1,11 @@
 package org.bahmni.module.bahmnicore.dao.impl;
 
 import org.bahmni.module.bahmnicore.dao.PersonNameDao;
+import org.bahmni.module.bahmnicore.dao.UniqueValueHandler;
 import org.bahmni.module.bahmnicore.model.ResultList;
 import org.hibernate.Criteria;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
@@ -25,4 +28,22 @@ public class PersonNameDaoImpl implements PersonNameDao {
 		criteria.setMaxResults(20);
 		return new ResultList(criteria.list());
 	}
+	
+	@Override
+	public void getAllUnique(String key, UniqueValueHandler uniqueValueHandler) {
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(PersonName.class);
+		criteria.add(Restrictions.isNotNull(key));
+		criteria.setProjection(Projections.distinct(Projections.property(key)));
+		ScrollableResults values = criteria.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			while (values.next()) {
+				if (!uniqueValueHandler.handle((String) values.get(0))) {
+					break;
+				}
+			}
+		}
+		finally {
+			values.close();
+		}
+	}
 }
@@ -0,0 +1,127 @@
+package org.bahmni.module.bahmnicore.dao.impl;
+
+import org.apache.log4j.Logger;
+import org.bahmni.module.bahmnicore.contract.orderTemplate.OrderTemplateJson;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openmrs.module.emrapi.encounter.domain.EncounterTransaction;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Regimen templates of ordertemplates/templates.json in the application data directory, parsed once and
+ * indexed by name. The file is parsed again, and the templates swapped in at once, when its modification
+ * time or size changes. Every lookup gets its own drug orders, built from the parsed template, as extension
+ * scripts change them before saving.
+ */
+public class RegimenTemplateRegistry {
+    public static final String TEMPLATES_FILE = "ordertemplates/templates.json";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Logger log = Logger.getLogger(RegimenTemplateRegistry.class);
+
+    private final ApplicationDataDirectory applicationDataDirectory;
+    private volatile Templates templates;
+
+    public RegimenTemplateRegistry(ApplicationDataDirectory applicationDataDirectory) {
+        this.applicationDataDirectory = applicationDataDirectory;
+    }
+
+    public Collection<EncounterTransaction.DrugOrder> getDrugOrders(String regimenName) {
+        JsonNode template = getTemplates().byName.get(regimenName);
+        if (template == null) {
+            return new ArrayList<>();
+        }
+        try {
+            OrderTemplateJson.OrderTemplate orderTemplate = OBJECT_MAPPER.readValue(template, OrderTemplateJson.OrderTemplate.class);
+            setDefaultFields(orderTemplate);
+            return orderTemplate.getDrugOrders();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * When the templates in use were loaded, or 0 when they have not been loaded yet.
+     */
+    public long getLoadedAt() {
+        Templates current = templates;
+        return current == null ? 0 : current.loadedAt;
+    }
+
+    public int getTemplateCount() {
+        Templates current = templates;
+        return current == null ? 0 : current.byName.size();
+    }
+
+    private Templates getTemplates() {
+        File file = applicationDataDirectory.getFile(TEMPLATES_FILE);
+        Templates current = templates;
+        if (current != null && current.isLoadedFrom(file)) {
+            return current;
+        }
+        synchronized (this) {
+            current = templates;
+            if (current == null || !current.isLoadedFrom(file)) {
+                current = load(file);
+                templates = current;
+            }
+            return current;
+        }
+    }
+
+    private Templates load(File file) {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        try {
+            JsonNode root = OBJECT_MAPPER.readTree(file);
+            OBJECT_MAPPER.readValue(root, OrderTemplateJson.class);
+            Map<String, JsonNode> byName = new HashMap<>();
+            for (JsonNode template : root.path("orderTemplates")) {
+                String name = template.path("name").getTextValue();
+                if (!byName.containsKey(name)) {
+                    byName.put(name, template);
+                }
+            }
+            Templates loaded = new Templates(file.getAbsolutePath(), lastModified, length, byName);
+            log.info("Loaded " + byName.size() + " regimen templates from " + file.getAbsolutePath());
+            return loaded;
+        } catch (IOException e) {
+            log.error("Could not deserialize file " + file.getAbsolutePath());
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void setDefaultFields(OrderTemplateJson.OrderTemplate orderTemplate) {
+        for (EncounterTransaction.DrugOrder drugOrder : orderTemplate.getDrugOrders()) {
+            drugOrder.setCareSetting("Outpatient");
+            drugOrder.setOrderType("Drug Order");
+            drugOrder.setDosingInstructionType("org.openmrs.module.bahmniemrapi.drugorder.dosinginstructions.FlexibleDosingInstructions");
+            drugOrder.getDosingInstructions().setAsNeeded(false);
+        }
+    }
+
+    private static class Templates {
+        private final String path;
+        private final long lastModified;
+        private final long length;
+        private final long loadedAt = System.currentTimeMillis();
+        private final Map<String, JsonNode> byName;
+
+        private Templates(String path, long lastModified, long length, Map<String, JsonNode> byName) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.byName = Collections.unmodifiableMap(byName);
+        }
+
+        private boolean isLoadedFrom(File file) {
+            return path.equals(file.getAbsolutePath()) && lastModified == file.lastModified() && length == file.length();
+        }
+    }
+}
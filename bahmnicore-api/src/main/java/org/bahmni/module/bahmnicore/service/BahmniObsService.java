@@ -1,11 +1,13 @@
 package org.bahmni.module.bahmnicore.service;
 
+import org.bahmni.module.bahmnicore.contract.encounter.data.NumericTrendData;
 import org.openmrs.Concept;
 import org.openmrs.Obs;
 import org.openmrs.Visit;
 import org.openmrs.module.bahmniemrapi.encountertransaction.contract.BahmniObservation;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface BahmniObsService {
@@ -13,6 +15,10 @@ public interface BahmniObsService {
     public Collection<BahmniObservation> observationsFor(String patientUuid, Collection<Concept> concepts, Integer numberOfVisits);
     public Collection<BahmniObservation> getLatest(String patientUuid, Collection<Concept> conceptNames,Integer numberOfVisits);
     public List<Concept> getNumericConceptsForPerson(String personUUID);
+    /**
+     * Without a start date the trends cover the year up to the end date, or up to now when that is missing too.
+     */
+    public List<NumericTrendData> getNumericTrends(String personUUID, List<String> conceptUuids, Date from, Date to, int maxPoints);
     public Collection<BahmniObservation> getLatestObsForConceptSetByVisit(String patientUuid, String conceptName, Integer visitId);
     Collection<BahmniObservation> getObservationForVisit(String visitUuid, List<String> conceptNames);
     Collection<BahmniObservation> getLatestObsByVisit(Visit visit, Collection<Concept> concepts);
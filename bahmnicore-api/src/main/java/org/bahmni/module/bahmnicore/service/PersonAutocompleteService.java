@@ -0,0 +1,15 @@
+package org.bahmni.module.bahmnicore.service;
+
+import org.bahmni.module.bahmnicore.model.ResultList;
+import org.openmrs.Person;
+
+public interface PersonAutocompleteService {
+
+    public ResultList getUniqueAttributeValues(String personAttribute, String query);
+
+    public ResultList getUniqueNames(String key, String query);
+
+    public void index(Person person);
+
+    public void invalidateAttributeIndexes();
+}
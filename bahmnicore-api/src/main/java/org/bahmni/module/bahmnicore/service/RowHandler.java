@@ -0,0 +1,7 @@
+package org.bahmni.module.bahmnicore.service;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+
+public interface RowHandler {
+    void handle(SimpleObject row) throws Exception;
+}
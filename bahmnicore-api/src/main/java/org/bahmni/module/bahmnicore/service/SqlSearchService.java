@@ -10,4 +10,6 @@ public interface SqlSearchService {
 
     public List<SimpleObject> search(String sqlQuery, Map<String, String[]> params);
 
+    public void search(String sqlQuery, Map<String, String[]> params, RowHandler rowHandler);
+
 }
@@ -47,7 +47,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class BahmniDrugOrderServiceImpl implements BahmniDrugOrderService {
@@ -107,9 +111,11 @@ public class BahmniDrugOrderServiceImpl implements BahmniDrugOrderService {
     }
 
     private List<DrugOrder> getActiveDrugOrders(String patientUuid, Date asOfDate) {
-        Patient patient = openmrsPatientService.getPatientByUuid(patientUuid);
-        return (List<DrugOrder>) (List<? extends Order>) orderService.getActiveOrders(patient, orderService.getOrderTypeByName("Drug order"),
-                orderService.getCareSettingByName(CareSetting.CareSettingType.OUTPATIENT.toString()), asOfDate);
+        return getActiveDrugOrders(openmrsPatientService.getPatientByUuid(patientUuid), getOutpatientCareSetting(), asOfDate);
+    }
+
+    private List<DrugOrder> getActiveDrugOrders(Patient patient, CareSetting careSetting, Date asOfDate) {
+        return (List<DrugOrder>) (List<? extends Order>) orderService.getActiveOrders(patient, getDrugOrderType(), careSetting, asOfDate);
     }
 
     @Override
@@ -187,8 +193,9 @@ public class BahmniDrugOrderServiceImpl implements BahmniDrugOrderService {
     }
 
     private void addDrugOrdersToVisit(Date orderDate, List<BahmniFeedDrugOrder> bahmniDrugOrders, Patient patient, Visit visit) {
-        List<DrugOrder> drugOrders = createOrders(patient, orderDate, bahmniDrugOrders);
-        List<DrugOrder> remainingNewDrugOrders = checkOverlappingOrderAndUpdate(drugOrders, patient.getUuid(), orderDate);
+        FeedOrderMetadata metadata = new FeedOrderMetadata();
+        List<DrugOrder> drugOrders = createOrders(patient, orderDate, bahmniDrugOrders, metadata);
+        List<DrugOrder> remainingNewDrugOrders = checkOverlappingOrderAndUpdate(drugOrders, patient, orderDate, metadata);
         if (remainingNewDrugOrders.isEmpty()) return;
 
         Encounter systemConsultationEncounter = createNewSystemConsultationEncounter(orderDate, patient);
@@ -201,30 +208,51 @@ public class BahmniDrugOrderServiceImpl implements BahmniDrugOrderService {
         bahmniVisitAttributeSaveCommand.save(savedEncounter);
     }
 
-    private List<DrugOrder> checkOverlappingOrderAndUpdate(List<DrugOrder> newDrugOrders, String patientUuid, Date orderDate) {
-        List<DrugOrder> activeDrugOrders = getActiveDrugOrders(patientUuid, orderDate);
+    private List<DrugOrder> checkOverlappingOrderAndUpdate(List<DrugOrder> newDrugOrders, Patient patient, Date orderDate, FeedOrderMetadata metadata) {
+        Map<String, List<DrugOrder>> activeDrugOrdersByOrderable = new HashMap<>();
+        for (DrugOrder activeDrugOrder : getActiveDrugOrders(patient, metadata.getCareSetting(), orderDate)) {
+            String orderable = orderableOf(activeDrugOrder);
+            if (!activeDrugOrdersByOrderable.containsKey(orderable)) {
+                activeDrugOrdersByOrderable.put(orderable, new ArrayList<DrugOrder>());
+            }
+            activeDrugOrdersByOrderable.get(orderable).add(activeDrugOrder);
+        }
+
         List<DrugOrder> drugOrdersToRemove = new ArrayList<>();
+        Set<Encounter> updatedEncounters = new LinkedHashSet<>();
         for (DrugOrder newDrugOrder : newDrugOrders) {
+            List<DrugOrder> activeDrugOrders = activeDrugOrdersByOrderable.get(orderableOf(newDrugOrder));
+            if (activeDrugOrders == null) {
+                continue;
+            }
             for (DrugOrder activeDrugOrder : activeDrugOrders) {
-                if (newDrugOrder.hasSameOrderableAs(activeDrugOrder)) {
-                    Encounter encounter = activeDrugOrder.getEncounter();
-                    newDrugOrder.setEncounter(encounter);
-                    encounter.addOrder(newDrugOrder);
-                    int totalNumberOfDays = getNumberOfDays(activeDrugOrder) + getNumberOfDays(newDrugOrder);
-                    newDrugOrder.setDateActivated(activeDrugOrder.getDateActivated());
-                    setDuration(newDrugOrder, totalNumberOfDays);
-                    newDrugOrder.setQuantity(activeDrugOrder.getQuantity() + newDrugOrder.getQuantity());
-                    activeDrugOrder.setVoided(true);
-                    activeDrugOrder.setVoidReason("To create a new drug order of same concept");
-                    encounterService.saveEncounter(encounter);
-                    drugOrdersToRemove.add(newDrugOrder);
-                }
+                Encounter encounter = activeDrugOrder.getEncounter();
+                newDrugOrder.setEncounter(encounter);
+                encounter.addOrder(newDrugOrder);
+                int totalNumberOfDays = getNumberOfDays(activeDrugOrder) + getNumberOfDays(newDrugOrder);
+                newDrugOrder.setDateActivated(activeDrugOrder.getDateActivated());
+                setDuration(newDrugOrder, totalNumberOfDays, metadata.getDaysConcept());
+                newDrugOrder.setQuantity(activeDrugOrder.getQuantity() + newDrugOrder.getQuantity());
+                activeDrugOrder.setVoided(true);
+                activeDrugOrder.setVoidReason("To create a new drug order of same concept");
+                updatedEncounters.add(encounter);
+                drugOrdersToRemove.add(newDrugOrder);
             }
         }
+        for (Encounter updatedEncounter : updatedEncounters) {
+            encounterService.saveEncounter(updatedEncounter);
+        }
         newDrugOrders.removeAll(drugOrdersToRemove);
         return newDrugOrders;
     }
 
+    // Same orderable as DrugOrder.hasSameOrderableAs, i.e. the same concept and drug
+    private String orderableOf(DrugOrder drugOrder) {
+        String conceptUuid = drugOrder.getConcept() == null ? null : drugOrder.getConcept().getUuid();
+        String drugUuid = drugOrder.getDrug() == null ? null : drugOrder.getDrug().getUuid();
+        return conceptUuid + ":" + drugUuid;
+    }
+
     private int getNumberOfDays(DrugOrder activeDrugOrder) {
         return Days.daysBetween(new DateTime(activeDrugOrder.getDateActivated()), new DateTime(activeDrugOrder.getAutoExpireDate())).getDays();
     }
@@ -266,11 +294,11 @@ public class BahmniDrugOrderServiceImpl implements BahmniDrugOrderService {
         return systemProvider;
     }
 
-    private List<DrugOrder> createOrders(Patient patient, Date orderDate, List<BahmniFeedDrugOrder> bahmniDrugOrders) {
+    private List<DrugOrder> createOrders(Patient patient, Date orderDate, List<BahmniFeedDrugOrder> bahmniDrugOrders, FeedOrderMetadata metadata) {
         List<DrugOrder> orders = new ArrayList<>();
         for (BahmniFeedDrugOrder bahmniDrugOrder : bahmniDrugOrders) {
             DrugOrder drugOrder = new DrugOrder();
-            Drug drug = conceptService.getDrugByUuid(bahmniDrugOrder.getProductUuid());
+            Drug drug = metadata.getDrug(bahmniDrugOrder.getProductUuid());
             drugOrder.setDrug(drug);
             drugOrder.setConcept(drug.getConcept());
             drugOrder.setDateActivated(orderDate);
@@ -278,23 +306,23 @@ public class BahmniDrugOrderServiceImpl implements BahmniDrugOrderService {
             drugOrder.setAsNeeded(false);
             drugOrder.setOrderType(getDrugOrderType());
             drugOrder.setOrderer(getSystemProvider());
-            drugOrder.setCareSetting(orderService.getCareSettingByName(CareSetting.CareSettingType.OUTPATIENT.toString()));
+            drugOrder.setCareSetting(metadata.getCareSetting());
             drugOrder.setDosingType(FlexibleDosingInstructions.class);
             drugOrder.setDosingInstructions(createInstructions(bahmniDrugOrder, drugOrder));
             drugOrder.setQuantity(bahmniDrugOrder.getQuantity());
-            drugOrder.setQuantityUnits(conceptService.getConceptByName("Unit(s)"));
+            drugOrder.setQuantityUnits(metadata.getUnitsConcept());
             drugOrder.setNumRefills(0);
             drugOrder.setUuid(bahmniDrugOrder.getOrderUuid());
-            setDuration(drugOrder, bahmniDrugOrder.getNumberOfDays());
+            setDuration(drugOrder, bahmniDrugOrder.getNumberOfDays(), metadata.getDaysConcept());
             orders.add(drugOrder);
         }
         return orders;
     }
 
-    private void setDuration(DrugOrder drugOrder, int numberOfDays) {
+    private void setDuration(DrugOrder drugOrder, int numberOfDays, Concept daysConcept) {
         drugOrder.setAutoExpireDate(DateUtils.addDays(drugOrder.getDateActivated(), numberOfDays));
         drugOrder.setDuration(numberOfDays);
-        drugOrder.setDurationUnits(conceptService.getConceptByMapping(Duration.SNOMED_CT_DAYS_CODE, Duration.SNOMED_CT_CONCEPT_SOURCE_HL7_CODE));
+        drugOrder.setDurationUnits(daysConcept);
     }
 
     private String createInstructions(BahmniFeedDrugOrder bahmniDrugOrder, DrugOrder drugOrder) {
@@ -307,4 +335,46 @@ public class BahmniDrugOrderServiceImpl implements BahmniDrugOrderService {
         }
         return drugOrderType;
     }
+
+    private CareSetting getOutpatientCareSetting() {
+        return orderService.getCareSettingByName(CareSetting.CareSettingType.OUTPATIENT.toString());
+    }
+
+    /**
+     * Metadata of the drug orders of one sale order, looked up once for all its items.
+     */
+    private class FeedOrderMetadata {
+        private final Map<String, Drug> drugs = new HashMap<>();
+        private CareSetting careSetting;
+        private Concept unitsConcept;
+        private Concept daysConcept;
+
+        private Drug getDrug(String uuid) {
+            if (!drugs.containsKey(uuid)) {
+                drugs.put(uuid, conceptService.getDrugByUuid(uuid));
+            }
+            return drugs.get(uuid);
+        }
+
+        private CareSetting getCareSetting() {
+            if (careSetting == null) {
+                careSetting = getOutpatientCareSetting();
+            }
+            return careSetting;
+        }
+
+        private Concept getUnitsConcept() {
+            if (unitsConcept == null) {
+                unitsConcept = conceptService.getConceptByName("Unit(s)");
+            }
+            return unitsConcept;
+        }
+
+        private Concept getDaysConcept() {
+            if (daysConcept == null) {
+                daysConcept = conceptService.getConceptByMapping(Duration.SNOMED_CT_DAYS_CODE, Duration.SNOMED_CT_CONCEPT_SOURCE_HL7_CODE);
+            }
+            return daysConcept;
+        }
+    }
 }
@@ -1,6 +1,5 @@
 package org.bahmni.module.bahmnicore.service.impl;
 
-import groovy.lang.GroovyClassLoader;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.bahmni.module.bahmnicore.contract.encounter.data.EncounterModifierData;
@@ -8,20 +7,19 @@ import org.bahmni.module.bahmnicore.encounterModifier.EncounterModifier;
 import org.bahmni.module.bahmnicore.encounterModifier.exception.CannotModifyEncounterException;
 import org.bahmni.module.bahmnicore.service.BahmniEncounterModifierService;
 import org.openmrs.api.context.Context;
+import org.openmrs.module.bahmniemrapi.script.ScriptEngineRegistry;
 import org.openmrs.util.OpenmrsUtil;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 @Service
 public class BahmniEncounterModifierServiceImpl implements BahmniEncounterModifierService {
 
     public static final String ENCOUNTER_MODIFIER_ALGORITHM_DIRECTORY = "/encounterModifier/";
     public static final String ENCOUNTER_MODIFIER_GROOVY_ALLOW_CACHING = "encounterModifier.groovy.allowCaching";
-    protected Map<String, EncounterModifier> encounterModifiers = new HashMap<>();
+    protected ScriptEngineRegistry scriptEngineRegistry = ScriptEngineRegistry.getInstance();
 
     private static final Logger log = Logger.getLogger(BahmniEncounterModifierServiceImpl.class);
 
@@ -41,19 +39,11 @@ public class BahmniEncounterModifierServiceImpl implements BahmniEncounterModifi
     }
 
     private EncounterModifier getEncounterModifierAlgorithm(String encounterModifierClassName) throws IOException, InstantiationException, IllegalAccessException {
-        if(isGroovyCachingAllowed()){
-            EncounterModifier encounterModifier = encounterModifiers.get(encounterModifierClassName);
-            if (encounterModifier == null) {
-                encounterModifiers.put(encounterModifierClassName, loadGroovyClass(encounterModifierClassName));
-            }
-            return encounterModifiers.get(encounterModifierClassName);
+        File encounterModifierFile = new File(getEncounterModifierClassPath(encounterModifierClassName));
+        if (!isGroovyCachingAllowed()) {
+            return scriptEngineRegistry.getUncachedInstance(encounterModifierFile, EncounterModifier.class);
         }
-        return loadGroovyClass(encounterModifierClassName);
-    }
-
-    private EncounterModifier loadGroovyClass(String encounterModifierClassName) throws IOException, InstantiationException, IllegalAccessException {
-        Class clazz = new GroovyClassLoader().parseClass(new File(getEncounterModifierClassPath(encounterModifierClassName)));
-        return (EncounterModifier) clazz.newInstance();
+        return scriptEngineRegistry.getInstance(encounterModifierFile, EncounterModifier.class);
     }
 
     private String getEncounterModifierClassPath(String encounterModifierClassName) {
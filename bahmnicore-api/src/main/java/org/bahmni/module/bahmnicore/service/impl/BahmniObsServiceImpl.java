@@ -1,8 +1,11 @@
 package org.bahmni.module.bahmnicore.service.impl;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.time.DateUtils;
+import org.bahmni.module.bahmnicore.contract.encounter.data.NumericTrendData;
 import org.bahmni.module.bahmnicore.dao.ObsDao;
 import org.bahmni.module.bahmnicore.service.BahmniObsService;
+import org.bahmni.module.bahmnicore.util.TrendDownsampler;
 import org.openmrs.*;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.ObsService;
@@ -20,6 +23,7 @@ public class BahmniObsServiceImpl implements BahmniObsService {
     private ObsDao obsDao;
     private OMRSObsToBahmniObsMapper omrsObsToBahmniObsMapper;
     private static final String[] NOT_STANDARD_OBS_CLASSES={"Diagnosis","LabSet","LabTest","Finding"};
+    private static final int DEFAULT_TREND_WINDOW_IN_YEARS = 1;
     private VisitService visitService;
     private ObsService obsService;
     private ConceptService conceptService;
@@ -53,22 +57,44 @@ public class BahmniObsServiceImpl implements BahmniObsService {
 
     @Override
     public Collection<BahmniObservation> getLatest(String patientUuid, Collection<Concept> concepts, Integer numberOfVisits) {
-        List<Obs> latestObs = new ArrayList<>();
-        for (Concept concept : concepts) {
-            latestObs.addAll(obsDao.getLatestObsFor(patientUuid, concept.getName().getName(), numberOfVisits, 1));
-        }
-
-        return omrsObsToBahmniObsMapper.map(latestObs, concepts);
+        List<Obs> latestObs = obsDao.getLatestObsForConcepts(patientUuid, getConceptNames(concepts), numberOfVisits, 1);
+        return omrsObsToBahmniObsMapper.map(orderByConcepts(latestObs, concepts), concepts);
     }
 
     @Override
     public Collection<BahmniObservation> getLatestObsByVisit(Visit visit, Collection<Concept> concepts){
-        List<Obs> latestObs = new ArrayList<>();
+        List<Obs> latestObs = obsDao.getLatestObsByVisit(visit, getConceptNames(concepts), 1);
+        return omrsObsToBahmniObsMapper.map(orderByConcepts(latestObs, concepts), concepts);
+    }
+
+    private List<String> getConceptNames(Collection<Concept> concepts) {
+        List<String> conceptNames = new ArrayList<>();
         for (Concept concept : concepts) {
-            latestObs.addAll(obsDao.getLatestObsByVisit(visit, concept.getName().getName(), 1));
+            conceptNames.add(concept.getName().getName());
         }
+        return conceptNames;
+    }
 
-        return omrsObsToBahmniObsMapper.map(latestObs, concepts);
+    private List<Obs> orderByConcepts(List<Obs> observations, Collection<Concept> concepts) {
+        Map<Integer, List<Obs>> obsByConcept = new LinkedHashMap<>();
+        for (Obs obs : observations) {
+            Integer conceptId = obs.getConcept().getId();
+            if (!obsByConcept.containsKey(conceptId)) {
+                obsByConcept.put(conceptId, new ArrayList<Obs>());
+            }
+            obsByConcept.get(conceptId).add(obs);
+        }
+        List<Obs> orderedObs = new ArrayList<>();
+        for (Concept concept : concepts) {
+            List<Obs> obsForConcept = obsByConcept.remove(concept.getId());
+            if (obsForConcept != null) {
+                orderedObs.addAll(obsForConcept);
+            }
+        }
+        for (List<Obs> remainingObs : obsByConcept.values()) {
+            orderedObs.addAll(remainingObs);
+        }
+        return orderedObs;
     }
 
     @Override
@@ -76,6 +102,33 @@ public class BahmniObsServiceImpl implements BahmniObsService {
         return obsDao.getNumericConceptsForPerson(personUUID);
     }
 
+    @Override
+    public List<NumericTrendData> getNumericTrends(String personUUID, List<String> conceptUuids, Date from, Date to, int maxPoints) {
+        if (CollectionUtils.isEmpty(conceptUuids)) {
+            return new ArrayList<>();
+        }
+        Map<String, NumericTrendData> trends = new LinkedHashMap<>();
+        for (String conceptUuid : conceptUuids) {
+            Concept concept = conceptService.getConceptByUuid(conceptUuid);
+            if (concept != null && concept.isNumeric()) {
+                trends.put(conceptUuid, new NumericTrendData(conceptUuid, concept.getName().getName(), ((ConceptNumeric) concept).getUnits()));
+            }
+        }
+        if (trends.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (from == null) {
+            from = DateUtils.addYears(to != null ? to : new Date(), -DEFAULT_TREND_WINDOW_IN_YEARS);
+        }
+        for (Object[] value : obsDao.getNumericObsValues(personUUID, new ArrayList<>(trends.keySet()), from, to)) {
+            trends.get(value[0]).getPoints().add(new NumericTrendData.Point((Date) value[1], (Double) value[2]));
+        }
+        for (NumericTrendData trend : trends.values()) {
+            trend.setPoints(TrendDownsampler.minMax(trend.getPoints(), maxPoints));
+        }
+        return new ArrayList<>(trends.values());
+    }
+
     @Override
     public Collection<BahmniObservation> getLatestObsForConceptSetByVisit(String patientUuid, String conceptName, Integer visitId) {
         List<Obs> obs = obsDao.getLatestObsForConceptSetByVisit(patientUuid, conceptName, visitId);
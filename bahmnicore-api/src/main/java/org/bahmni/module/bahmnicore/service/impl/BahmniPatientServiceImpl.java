@@ -1,5 +1,7 @@
 package org.bahmni.module.bahmnicore.service.impl;
 
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.bahmni.module.bahmnicore.BahmniCoreApiProperties;
 import org.bahmni.module.bahmnicore.contract.patient.response.PatientConfigResponse;
@@ -15,6 +17,7 @@ import org.openmrs.Concept;
 import org.openmrs.Patient;
 import org.openmrs.PersonAttributeType;
 import org.openmrs.api.APIAuthenticationException;
+import org.openmrs.api.AdministrationService;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.PatientService;
 import org.openmrs.api.PersonService;
@@ -27,6 +30,8 @@ import java.util.List;
 @Service
 @Lazy //to get rid of cyclic dependencies
 public class BahmniPatientServiceImpl implements BahmniPatientService {
+    public static final String SEARCH_INDEX_GLOBAL_PROPERTY = "bahmni.patientSearch.useIndex";
+
     private PatientService patientService;
     private PatientImageService patientImageService;
     private BahmniCoreApiProperties bahmniCoreApiProperties;
@@ -35,11 +40,13 @@ public class BahmniPatientServiceImpl implements BahmniPatientService {
     private PersonService personService;
     private ConceptService conceptService;
     private PatientDao patientDao;
+    private AdministrationService administrationService;
 
     @Autowired
     public BahmniPatientServiceImpl(PatientImageService patientImageService,
                                     PatientService patientService, PersonService personService, ConceptService conceptService,
-                                    BahmniCoreApiProperties bahmniCoreApiProperties, PatientMapper patientMapper, PatientDao patientDao) {
+                                    BahmniCoreApiProperties bahmniCoreApiProperties, PatientMapper patientMapper, PatientDao patientDao,
+                                    AdministrationService administrationService) {
         this.patientImageService = patientImageService;
         this.patientService = patientService;
         this.bahmniCoreApiProperties = bahmniCoreApiProperties;
@@ -47,6 +54,7 @@ public class BahmniPatientServiceImpl implements BahmniPatientService {
         this.conceptService = conceptService;
         this.patientMapper = patientMapper;
         this.patientDao = patientDao;
+        this.administrationService = administrationService;
     }
 
     @Override
@@ -89,9 +97,19 @@ public class BahmniPatientServiceImpl implements BahmniPatientService {
 
     @Override
     public List<PatientResponse> search(PatientSearchParameters searchParameters) {
+        if (canSearchIndex(searchParameters)) {
+            return patientDao.getPatientsFromIndex(searchParameters.getIdentifier(), searchParameters.getName(), searchParameters.getCityVillage(), searchParameters.getLength(), searchParameters.getStart(),
+                    searchParameters.getLastDateCreated(), searchParameters.getLastPersonId());
+        }
         return patientDao.getPatients(searchParameters.getIdentifier(), searchParameters.getName(), searchParameters.getLocalName(), searchParameters.getCityVillage(), searchParameters.getLength(), searchParameters.getStart(), searchParameters.getPatientAttributes());
     }
 
+    private boolean canSearchIndex(PatientSearchParameters searchParameters) {
+        return Boolean.valueOf(administrationService.getGlobalProperty(SEARCH_INDEX_GLOBAL_PROPERTY))
+                && StringUtils.isEmpty(searchParameters.getLocalName())
+                && ArrayUtils.isEmpty(searchParameters.getPatientAttributes());
+    }
+
     @Override
     public List<Patient> get(String partialIdentifier, boolean shouldMatchExactPatientId) {
         return patientDao.getPatients(partialIdentifier, shouldMatchExactPatientId);
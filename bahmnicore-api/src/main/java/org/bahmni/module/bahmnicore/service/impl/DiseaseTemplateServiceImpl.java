@@ -41,14 +41,17 @@ public class DiseaseTemplateServiceImpl implements DiseaseTemplateService {
     private ConceptMapper conceptMapper;
     private ObservationTemplateMapper observationTemplateMapper;
     private BahmniConceptService bahmniConceptService;
+    private DiseaseTemplateSnapshots diseaseTemplateSnapshots;
     private final String CASE_INTAKE_CONCEPT_CLASS = "Case Intake";
+    private static final String LATEST_SNAPSHOT_PREFIX = "latest:";
+    private static final String ALL_SNAPSHOT_PREFIX = "all:";
     private static final org.apache.log4j.Logger log = Logger.getLogger(DiseaseTemplateServiceImpl.class);
 
     @Autowired
     public DiseaseTemplateServiceImpl(BahmniObsService bahmniObsService, BahmniVisitService bahmniVisitService,
                                       ConceptService conceptService,
                                       PatientService patientService, VisitService visitService,
-                                      BahmniConceptService bahmniConceptService) {
+                                      BahmniConceptService bahmniConceptService, DiseaseTemplateSnapshots diseaseTemplateSnapshots) {
         this.bahmniObsService = bahmniObsService;
         this.bahmniVisitService = bahmniVisitService;
         this.conceptService = conceptService;
@@ -57,20 +60,31 @@ public class DiseaseTemplateServiceImpl implements DiseaseTemplateService {
         this.observationTemplateMapper = new ObservationTemplateMapper(conceptMapper);
         this.patientService = patientService;
         this.visitService = visitService;
+        this.diseaseTemplateSnapshots = diseaseTemplateSnapshots;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<DiseaseTemplate> allDiseaseTemplatesFor(DiseaseTemplatesConfig diseaseTemplatesConfig) {
         List<DiseaseTemplate> diseaseTemplates = new ArrayList<>();
+        String patientUuid = diseaseTemplatesConfig.getPatientUuid();
 
         for (DiseaseTemplateConfig diseaseTemplateConfig : diseaseTemplatesConfig.getDiseaseTemplateConfigList()) {
-            Concept diseaseTemplateConcept = conceptService.getConceptByName(diseaseTemplateConfig.getTemplateName());
-            DiseaseTemplate diseaseTemplate = new DiseaseTemplate(getConcept(diseaseTemplateConfig.getTemplateName()));
-            diseaseTemplate.addObservationTemplates(createObservationTemplates(diseaseTemplatesConfig.getPatientUuid(), diseaseTemplateConcept));
-            List<String> showOnlyConceptsForTheDisease = getShowOnlyConceptsForTheDisease(diseaseTemplate, diseaseTemplatesConfig);
+            String snapshotKey = LATEST_SNAPSHOT_PREFIX + diseaseTemplateConfig.getTemplateName();
+            DiseaseTemplate snapshot = diseaseTemplateSnapshots.get(patientUuid, snapshotKey);
+            if (snapshot == null) {
+                long generation = diseaseTemplateSnapshots.getGeneration();
+                Concept diseaseTemplateConcept = conceptService.getConceptByName(diseaseTemplateConfig.getTemplateName());
+                snapshot = new DiseaseTemplate(getConcept(diseaseTemplateConfig.getTemplateName()));
+                snapshot.addObservationTemplates(createObservationTemplates(patientUuid, diseaseTemplateConcept));
+                diseaseTemplateSnapshots.put(patientUuid, snapshotKey, snapshot, generation);
+            }
+            DiseaseTemplate diseaseTemplate = new DiseaseTemplate(snapshot.getConcept());
+            List<String> showOnlyConceptsForTheDisease = getShowOnlyConceptsForTheDisease(snapshot, diseaseTemplatesConfig);
             if (CollectionUtils.isNotEmpty(showOnlyConceptsForTheDisease)) {
-                filterObs(diseaseTemplate, showOnlyConceptsForTheDisease);
+                diseaseTemplate.addObservationTemplates(filterObs(snapshot.getObservationTemplates(), showOnlyConceptsForTheDisease));
+            } else {
+                diseaseTemplate.addObservationTemplates(snapshot.getObservationTemplates());
             }
             diseaseTemplates.add(diseaseTemplate);
         }
@@ -80,6 +94,17 @@ public class DiseaseTemplateServiceImpl implements DiseaseTemplateService {
     @Override
     @Transactional(readOnly = true)
     public DiseaseTemplate diseaseTemplateFor(String patientUUID, String diseaseName) {
+        String snapshotKey = ALL_SNAPSHOT_PREFIX + diseaseName;
+        DiseaseTemplate snapshot = diseaseTemplateSnapshots.get(patientUUID, snapshotKey);
+        if (snapshot == null) {
+            long generation = diseaseTemplateSnapshots.getGeneration();
+            snapshot = createDiseaseTemplate(patientUUID, diseaseName);
+            diseaseTemplateSnapshots.put(patientUUID, snapshotKey, snapshot, generation);
+        }
+        return snapshot;
+    }
+
+    private DiseaseTemplate createDiseaseTemplate(String patientUUID, String diseaseName) {
         Concept diseaseTemplateConcept = conceptService.getConceptByName(diseaseName);
         DiseaseTemplate diseaseTemplate = new DiseaseTemplate(getConcept(diseaseName));
         if (diseaseTemplateConcept == null) {
@@ -111,48 +136,39 @@ public class DiseaseTemplateServiceImpl implements DiseaseTemplateService {
         return new ArrayList<>();
     }
 
-    private void filterObs(DiseaseTemplate diseaseTemplate, List<String> showOnly) {
-        List<ObservationTemplate> removableObservationTemplate = new ArrayList<>();
-        for (ObservationTemplate observationTemplate : diseaseTemplate.getObservationTemplates()) {
-            if (!isExists(observationTemplate.getConcept(), showOnly)) {
-                filterObs(observationTemplate, showOnly);
-                if (observationTemplate.getBahmniObservations().size() == 0) {
-                    removableObservationTemplate.add(observationTemplate);
-                }
+    private List<ObservationTemplate> filterObs(List<ObservationTemplate> observationTemplates, List<String> showOnly) {
+        List<ObservationTemplate> filteredObservationTemplates = new ArrayList<>();
+        for (ObservationTemplate observationTemplate : observationTemplates) {
+            if (isExists(observationTemplate.getConcept(), showOnly)) {
+                filteredObservationTemplates.add(observationTemplate);
+                continue;
             }
-        }
-        diseaseTemplate.getObservationTemplates().removeAll(removableObservationTemplate);
-    }
-
-    private void filterObs(ObservationTemplate observationTemplate, List<String> conceptNames) {
-        Collection<BahmniObservation> removableObservation = new ArrayList<>();
-        for (BahmniObservation bahmniObservation : observationTemplate.getBahmniObservations()) {
-            if (!isExists(bahmniObservation.getConcept(), conceptNames)) {
-                if (bahmniObservation.getGroupMembers().size() > 0) {
-                    filterObsGroupMembers(bahmniObservation, conceptNames);
-                }
-                if (bahmniObservation.getGroupMembers().size() == 0) {
-                    removableObservation.add(bahmniObservation);
-                }
+            List<BahmniObservation> bahmniObservations = filterObs(observationTemplate.getBahmniObservations(), showOnly);
+            if (!bahmniObservations.isEmpty()) {
+                ObservationTemplate filteredObservationTemplate = new ObservationTemplate();
+                filteredObservationTemplate.setConcept(observationTemplate.getConcept());
+                filteredObservationTemplate.setVisitStartDate(observationTemplate.getVisitStartDate());
+                filteredObservationTemplate.setBahmniObservations(bahmniObservations);
+                filteredObservationTemplates.add(filteredObservationTemplate);
             }
         }
-        observationTemplate.removeBahmniObservations(removableObservation);
+        return filteredObservationTemplates;
     }
 
-    private void filterObsGroupMembers(BahmniObservation parent, List<String> conceptNames) {
-        Collection<BahmniObservation> removableObservation = new ArrayList<>();
-        for (BahmniObservation bahmniObservation : parent.getGroupMembers()) {
-            if (!isExists(bahmniObservation.getConcept(), conceptNames)) {
-                if (bahmniObservation.getGroupMembers().size() > 0) {
-                    filterObsGroupMembers(bahmniObservation, conceptNames);
-                }
-                if (bahmniObservation.getGroupMembers().size() == 0) {
-                    removableObservation.add(bahmniObservation);
-                }
+    // Builds filtered copies instead of removing members from the observations of the template
+    private List<BahmniObservation> filterObs(Collection<BahmniObservation> bahmniObservations, List<String> conceptNames) {
+        List<BahmniObservation> filteredObservations = new ArrayList<>();
+        for (BahmniObservation bahmniObservation : bahmniObservations) {
+            if (isExists(bahmniObservation.getConcept(), conceptNames)) {
+                filteredObservations.add(bahmniObservation);
+                continue;
+            }
+            List<BahmniObservation> groupMembers = filterObs(bahmniObservation.getGroupMembers(), conceptNames);
+            if (!groupMembers.isEmpty()) {
+                filteredObservations.add(bahmniObservation.withGroupMembers(groupMembers));
             }
         }
-
-        parent.removeGroupMembers(removableObservation);
+        return filteredObservations;
     }
 
     private boolean isExists(EncounterTransaction.Concept concept, List<String> conceptNames) {
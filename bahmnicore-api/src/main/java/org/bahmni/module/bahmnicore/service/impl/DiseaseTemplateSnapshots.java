@@ -0,0 +1,154 @@
+package org.bahmni.module.bahmnicore.service.impl;
+
+import org.apache.commons.lang.math.NumberUtils;
+import org.bahmni.module.bahmnicore.contract.diseasetemplate.DiseaseTemplate;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.GlobalPropertyListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per patient snapshots of the disease templates built by {@link DiseaseTemplateServiceImpl}, so a dashboard
+ * reload is served without going back to the database. A patient's snapshot is dropped whenever an
+ * encounter or obs of that patient is saved or voided, and all of them when a concept is saved, both straight
+ * away and again once the transaction completes. Every drop starts a new generation and a template built
+ * before the latest drop is not kept, so a read racing with a save cannot put stale data back. Snapshots
+ * are copied on the way in and out, so callers never share them. The number of patients kept is set by the
+ * bahmni.diseaseTemplate.snapshotCacheSize global property; 0, the default, turns snapshots off.
+ */
+@Component
+public class DiseaseTemplateSnapshots implements GlobalPropertyListener {
+    public static final String CACHE_SIZE_GLOBAL_PROPERTY = "bahmni.diseaseTemplate.snapshotCacheSize";
+    private static final int DEFAULT_CACHE_SIZE = 0;
+
+    private AdministrationService administrationService;
+    private volatile Integer cacheSize;
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, ConcurrentMap<String, DiseaseTemplate>> snapshots = new LinkedHashMap<String, ConcurrentMap<String, DiseaseTemplate>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ConcurrentMap<String, DiseaseTemplate>> eldest) {
+            return size() > getCacheSize();
+        }
+    };
+
+    @Autowired
+    public DiseaseTemplateSnapshots(AdministrationService administrationService) {
+        this.administrationService = administrationService;
+    }
+
+    public DiseaseTemplate get(String patientUuid, String templateKey) {
+        if (getCacheSize() <= 0) {
+            return null;
+        }
+        synchronized (snapshots) {
+            Map<String, DiseaseTemplate> patientSnapshot = snapshots.get(patientUuid);
+            DiseaseTemplate diseaseTemplate = patientSnapshot == null ? null : patientSnapshot.get(templateKey);
+            return diseaseTemplate == null ? null : diseaseTemplate.copy();
+        }
+    }
+
+    /**
+     * To be read before building the template that is then put.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public void put(String patientUuid, String templateKey, DiseaseTemplate diseaseTemplate, long generation) {
+        if (getCacheSize() <= 0) {
+            return;
+        }
+        DiseaseTemplate snapshot = diseaseTemplate.copy();
+        synchronized (snapshots) {
+            if (this.generation.get() != generation) {
+                return;
+            }
+            ConcurrentMap<String, DiseaseTemplate> patientSnapshot = snapshots.get(patientUuid);
+            if (patientSnapshot == null) {
+                patientSnapshot = new ConcurrentHashMap<>();
+                snapshots.put(patientUuid, patientSnapshot);
+            }
+            patientSnapshot.put(templateKey, snapshot);
+        }
+    }
+
+    public void evict(final String patientUuid) {
+        if (patientUuid == null) {
+            return;
+        }
+        remove(patientUuid);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(patientUuid);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    public int size() {
+        synchronized (snapshots) {
+            return snapshots.size();
+        }
+    }
+
+    private void remove(String patientUuid) {
+        synchronized (snapshots) {
+            generation.incrementAndGet();
+            snapshots.remove(patientUuid);
+        }
+    }
+
+    private void clear() {
+        synchronized (snapshots) {
+            generation.incrementAndGet();
+            snapshots.clear();
+        }
+    }
+
+    private int getCacheSize() {
+        if (cacheSize == null) {
+            cacheSize = NumberUtils.toInt(administrationService.getGlobalProperty(CACHE_SIZE_GLOBAL_PROPERTY), DEFAULT_CACHE_SIZE);
+        }
+        return cacheSize;
+    }
+
+    @Override
+    public boolean supportsPropertyName(String propertyName) {
+        return CACHE_SIZE_GLOBAL_PROPERTY.equals(propertyName);
+    }
+
+    @Override
+    public void globalPropertyChanged(GlobalProperty newValue) {
+        cacheSize = null;
+        clear();
+    }
+
+    @Override
+    public void globalPropertyDeleted(String propertyName) {
+        cacheSize = null;
+        clear();
+    }
+}
@@ -0,0 +1,375 @@
+package org.bahmni.module.bahmnicore.service.impl;
+
+import org.apache.log4j.Logger;
+import org.bahmni.module.bahmnicore.dao.DrugSearchDao;
+import org.openmrs.Concept;
+import org.openmrs.ConceptName;
+import org.openmrs.Drug;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory trigram index over drug names and the names of their concepts, answering the drug typeahead
+ * with prefix matches ranked ahead of infix matches, each in drug name order. It is built in the background
+ * when the module starts and kept current as drugs and concepts are saved; until then {@link #search}
+ * returns null and callers query the database as before. Changes are kept next to the built index and
+ * merged into it once there are more than {@value #MAX_CHANGES_BEFORE_MERGE} of them. The latest entries are
+ * also kept by concept, so a renamed concept only touches its own drugs.
+ */
+@Component
+public class DrugSearchIndex {
+    private static final Logger logger = Logger.getLogger(DrugSearchIndex.class);
+    private static final int GRAM_LENGTH = 3;
+    private static final int MAX_CHANGES_BEFORE_MERGE = 1000;
+    private static final int RANKS = 4;
+
+    private DrugSearchDao drugSearchDao;
+    private volatile State state;
+    private Map<Integer, Entry> changesWhileBuilding;
+    private final Map<Integer, Map<Integer, Entry>> entriesByConceptId = new HashMap<>();
+    private final Map<Integer, Integer> conceptIdsByDrugId = new HashMap<>();
+
+    @Autowired
+    public DrugSearchIndex(DrugSearchDao drugSearchDao) {
+        this.drugSearchDao = drugSearchDao;
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            changesWhileBuilding = new HashMap<>();
+        }
+        try {
+            Snapshot snapshot = new Snapshot(load());
+            synchronized (this) {
+                state = new State(snapshot, changesWhileBuilding);
+                entriesByConceptId.clear();
+                conceptIdsByDrugId.clear();
+                for (Entry entry : snapshot.entries) {
+                    track(entry);
+                }
+                for (Entry entry : changesWhileBuilding.values()) {
+                    track(entry);
+                }
+            }
+            logger.info("DrugSearchIndex : Indexed " + snapshot.entries.length + " drugs in " + (System.currentTimeMillis() - start) + " ms");
+        } finally {
+            synchronized (this) {
+                changesWhileBuilding = null;
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return state != null;
+    }
+
+    /**
+     * Ids of the drugs with a name containing the query, or null while the index is not built yet.
+     */
+    public List<Integer> search(String query, boolean includeRetired) {
+        State current = state;
+        if (current == null || query == null || query.trim().isEmpty()) {
+            return null;
+        }
+        String lowerCaseQuery = normalize(query.trim());
+        List<List<Entry>> ranked = new ArrayList<>();
+        for (int i = 0; i < RANKS; i++) {
+            ranked.add(new ArrayList<Entry>());
+        }
+        for (Entry entry : current.snapshot.candidates(lowerCaseQuery)) {
+            if (!current.changes.containsKey(entry.drugId)) {
+                collect(entry, lowerCaseQuery, includeRetired, ranked);
+            }
+        }
+        for (Entry entry : current.changes.values()) {
+            collect(entry, lowerCaseQuery, includeRetired, ranked);
+        }
+        List<Integer> drugIds = new ArrayList<>();
+        for (List<Entry> entries : ranked) {
+            if (!current.changes.isEmpty()) {
+                Collections.sort(entries, Entry.BY_NAME);
+            }
+            for (Entry entry : entries) {
+                drugIds.add(entry.drugId);
+            }
+        }
+        return drugIds;
+    }
+
+    public synchronized void index(Drug drug) {
+        if (drug == null || drug.getDrugId() == null) {
+            return;
+        }
+        change(new Entry(drug.getDrugId(), drug.getName(), Boolean.TRUE.equals(drug.isRetired()), drug.getConcept()));
+    }
+
+    public synchronized void remove(Drug drug) {
+        if (drug == null || drug.getDrugId() == null) {
+            return;
+        }
+        change(Entry.removedEntry(drug.getDrugId()));
+    }
+
+    /**
+     * Picks up renamed concepts of indexed drugs.
+     */
+    public synchronized void index(Concept concept) {
+        if (concept == null || concept.getConceptId() == null) {
+            return;
+        }
+        Map<Integer, Entry> entries = entriesByConceptId.get(concept.getConceptId());
+        if (entries == null) {
+            return;
+        }
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            change(new Entry(entry.drugId, entry.name, entry.retired, concept));
+        }
+    }
+
+    private void change(Entry entry) {
+        if (changesWhileBuilding != null) {
+            changesWhileBuilding.put(entry.drugId, entry);
+        }
+        if (state != null) {
+            state = state.with(entry);
+        }
+        track(entry);
+    }
+
+    private void track(Entry entry) {
+        Integer previousConceptId = conceptIdsByDrugId.remove(entry.drugId);
+        if (previousConceptId != null) {
+            Map<Integer, Entry> entries = entriesByConceptId.get(previousConceptId);
+            entries.remove(entry.drugId);
+            if (entries.isEmpty()) {
+                entriesByConceptId.remove(previousConceptId);
+            }
+        }
+        if (entry.removed || entry.conceptId == null) {
+            return;
+        }
+        Map<Integer, Entry> entries = entriesByConceptId.get(entry.conceptId);
+        if (entries == null) {
+            entries = new HashMap<>();
+            entriesByConceptId.put(entry.conceptId, entries);
+        }
+        entries.put(entry.drugId, entry);
+        conceptIdsByDrugId.put(entry.drugId, entry.conceptId);
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+
+    private void collect(Entry entry, String query, boolean includeRetired, List<List<Entry>> ranked) {
+        if (entry.removed || (entry.retired && !includeRetired)) {
+            return;
+        }
+        int rank = entry.rank(query);
+        if (rank >= 0) {
+            ranked.get(rank).add(entry);
+        }
+    }
+
+    private List<Entry> load() {
+        List<Entry> entries = new ArrayList<>();
+        Integer drugId = null;
+        Object[] drugRow = null;
+        List<String> conceptNames = new ArrayList<>();
+        for (Object[] row : drugSearchDao.getDrugNames()) {
+            if (!row[0].equals(drugId)) {
+                if (drugRow != null) {
+                    entries.add(new Entry(drugRow, conceptNames));
+                }
+                drugId = (Integer) row[0];
+                drugRow = row;
+                conceptNames = new ArrayList<>();
+            }
+            if (row[4] != null) {
+                conceptNames.add((String) row[4]);
+            }
+        }
+        if (drugRow != null) {
+            entries.add(new Entry(drugRow, conceptNames));
+        }
+        return entries;
+    }
+
+    private static class State {
+        private final Snapshot snapshot;
+        private final Map<Integer, Entry> changes;
+
+        private State(Snapshot snapshot, Map<Integer, Entry> changes) {
+            this.snapshot = snapshot;
+            this.changes = Collections.unmodifiableMap(new HashMap<>(changes));
+        }
+
+        private State with(Entry entry) {
+            Map<Integer, Entry> newChanges = new HashMap<>(changes);
+            newChanges.put(entry.drugId, entry);
+            if (newChanges.size() <= MAX_CHANGES_BEFORE_MERGE) {
+                return new State(snapshot, newChanges);
+            }
+            List<Entry> entries = new ArrayList<>();
+            for (Entry snapshotEntry : snapshot.entries) {
+                if (!newChanges.containsKey(snapshotEntry.drugId)) {
+                    entries.add(snapshotEntry);
+                }
+            }
+            for (Entry changedEntry : newChanges.values()) {
+                if (!changedEntry.removed) {
+                    entries.add(changedEntry);
+                }
+            }
+            return new State(new Snapshot(entries), Collections.<Integer, Entry>emptyMap());
+        }
+    }
+
+    /**
+     * Entries in drug name order, with the positions of the entries having each trigram in any of their names.
+     */
+    private static class Snapshot {
+        private final Entry[] entries;
+        private final Map<String, int[]> positionsByGram = new HashMap<>();
+
+        private Snapshot(Collection<Entry> unsortedEntries) {
+            entries = unsortedEntries.toArray(new Entry[unsortedEntries.size()]);
+            Arrays.sort(entries, Entry.BY_NAME);
+            Map<String, List<Integer>> positions = new HashMap<>();
+            for (int position = 0; position < entries.length; position++) {
+                Set<String> grams = new LinkedHashSet<>();
+                for (String name : entries[position].names) {
+                    for (int i = 0; i + GRAM_LENGTH <= name.length(); i++) {
+                        grams.add(name.substring(i, i + GRAM_LENGTH));
+                    }
+                }
+                for (String gram : grams) {
+                    List<Integer> gramPositions = positions.get(gram);
+                    if (gramPositions == null) {
+                        gramPositions = new ArrayList<>();
+                        positions.put(gram, gramPositions);
+                    }
+                    gramPositions.add(position);
+                }
+            }
+            for (Map.Entry<String, List<Integer>> gramPositions : positions.entrySet()) {
+                int[] array = new int[gramPositions.getValue().size()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = gramPositions.getValue().get(i);
+                }
+                positionsByGram.put(gramPositions.getKey(), array);
+            }
+        }
+
+        /**
+         * Entries having the rarest trigram of the query, or all entries for queries shorter than a trigram.
+         */
+        private List<Entry> candidates(String query) {
+            if (query.length() < GRAM_LENGTH) {
+                return Arrays.asList(entries);
+            }
+            int[] rarest = null;
+            for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+                int[] positions = positionsByGram.get(query.substring(i, i + GRAM_LENGTH));
+                if (positions == null) {
+                    return Collections.emptyList();
+                }
+                if (rarest == null || positions.length < rarest.length) {
+                    rarest = positions;
+                }
+            }
+            List<Entry> candidates = new ArrayList<>(rarest.length);
+            for (int position : rarest) {
+                candidates.add(entries[position]);
+            }
+            return candidates;
+        }
+    }
+
+    private static class Entry {
+        private static final Comparator<Entry> BY_NAME = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry entry1, Entry entry2) {
+                int byName = entry1.names[0].compareTo(entry2.names[0]);
+                return byName != 0 ? byName : entry1.drugId.compareTo(entry2.drugId);
+            }
+        };
+
+        private final Integer drugId;
+        private final String name;
+        private final boolean retired;
+        private final Integer conceptId;
+        private final String[] names;
+        private final boolean removed;
+
+        private Entry(Object[] drugRow, List<String> conceptNames) {
+            this((Integer) drugRow[0], (String) drugRow[1], Boolean.TRUE.equals(drugRow[2]), (Integer) drugRow[3], conceptNames, false);
+        }
+
+        private Entry(Integer drugId, String name, boolean retired, Concept concept) {
+            this(drugId, name, retired, concept == null ? null : concept.getConceptId(), conceptNames(concept), false);
+        }
+
+        private Entry(Integer drugId, String name, boolean retired, Integer conceptId, List<String> conceptNames, boolean removed) {
+            this.drugId = drugId;
+            this.name = name;
+            this.retired = retired;
+            this.conceptId = conceptId;
+            this.removed = removed;
+            Set<String> lowerCaseNames = new LinkedHashSet<>();
+            lowerCaseNames.add(name == null ? "" : normalize(name));
+            for (String conceptName : conceptNames) {
+                lowerCaseNames.add(normalize(conceptName));
+            }
+            this.names = lowerCaseNames.toArray(new String[lowerCaseNames.size()]);
+        }
+
+        private static Entry removedEntry(Integer drugId) {
+            return new Entry(drugId, null, true, null, Collections.<String>emptyList(), true);
+        }
+
+        private static List<String> conceptNames(Concept concept) {
+            List<String> conceptNames = new ArrayList<>();
+            if (concept != null) {
+                for (ConceptName conceptName : concept.getNames()) {
+                    if (!conceptName.isVoided() && conceptName.getName() != null) {
+                        conceptNames.add(conceptName.getName());
+                    }
+                }
+            }
+            return conceptNames;
+        }
+
+        /**
+         * 0 when the drug name starts with the query, 1 when a concept name does, 2 when a word of a name does,
+         * 3 when a name only contains it and -1 when no name does.
+         */
+        private int rank(String query) {
+            int rank = -1;
+            for (int i = 0; i < names.length; i++) {
+                int position = names[i].indexOf(query);
+                if (position < 0) {
+                    continue;
+                }
+                int nameRank = position == 0 ? (i == 0 ? 0 : 1) : (Character.isLetterOrDigit(names[i].charAt(position - 1)) ? 3 : 2);
+                if (rank < 0 || nameRank < rank) {
+                    rank = nameRank;
+                }
+            }
+            return rank;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.bahmni.module.bahmnicore.service.impl;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.apache.log4j.Logger;
+import org.bahmni.module.bahmnicore.dao.PersonAttributeDao;
+import org.bahmni.module.bahmnicore.dao.PersonNameDao;
+import org.bahmni.module.bahmnicore.dao.UniqueValueHandler;
+import org.bahmni.module.bahmnicore.model.ResultList;
+import org.bahmni.module.bahmnicore.service.PersonAutocompleteService;
+import org.bahmni.module.bahmnicore.util.PrefixIndex;
+import org.openmrs.Person;
+import org.openmrs.PersonAttribute;
+import org.openmrs.PersonName;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.PersonService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers person attribute and person name autocomplete from in memory prefix indexes. An index per existing
+ * attribute type (or name part) is loaded from the database the first time it is asked for, gets the values
+ * of saved persons through {@link #index(Person)}, and is loaded again once it is an hour old, which drops
+ * values that were changed or purged since. All indexes together stay within the memory budget set by the
+ * bahmni.autocomplete.memoryBudgetInMB global property, checked as values are read; an index that does not fit
+ * is dropped and its lookups go to the database as before.
+ */
+@Service
+public class PersonAutocompleteServiceImpl implements PersonAutocompleteService {
+    public static final String MEMORY_BUDGET_GLOBAL_PROPERTY = "bahmni.autocomplete.memoryBudgetInMB";
+    public static final List<String> INDEXED_NAME_KEYS = Arrays.asList("givenName", "middleName", "familyName");
+    private static final long DEFAULT_MEMORY_BUDGET_IN_MB = 32;
+    private static final int MAX_RESULTS = 20;
+    private static final long RELOAD_INTERVAL_IN_MILLIS = 60 * 60 * 1000L;
+    private static final Logger logger = Logger.getLogger(PersonAutocompleteServiceImpl.class);
+
+    private PersonAttributeDao personAttributeDao;
+    private PersonNameDao personNameDao;
+    private AdministrationService administrationService;
+    private PersonService personService;
+
+    private final ConcurrentMap<String, IndexHolder> attributeIndexes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, IndexHolder> nameIndexes = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    @Autowired
+    public PersonAutocompleteServiceImpl(PersonAttributeDao personAttributeDao, PersonNameDao personNameDao, AdministrationService administrationService,
+                                         PersonService personService) {
+        this.personAttributeDao = personAttributeDao;
+        this.personNameDao = personNameDao;
+        this.administrationService = administrationService;
+        this.personService = personService;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResultList getUniqueAttributeValues(final String personAttribute, String query) {
+        // Only attribute types that exist get an index, whatever key a client sends
+        boolean indexed = attributeIndexes.containsKey(personAttribute) || personService.getPersonAttributeTypeByName(personAttribute) != null;
+        PrefixIndex prefixIndex = !indexed ? null : readyIndex(attributeIndexes, personAttribute, new ValueLoader() {
+            @Override
+            void load(UniqueValueHandler uniqueValueHandler) {
+                personAttributeDao.getAllUnique(personAttribute, uniqueValueHandler);
+            }
+        });
+        if (prefixIndex == null) {
+            return personAttributeDao.getUnique(personAttribute, query);
+        }
+        return new ResultList(prefixIndex.find(query, MAX_RESULTS));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResultList getUniqueNames(final String key, String query) {
+        PrefixIndex prefixIndex = !INDEXED_NAME_KEYS.contains(key) ? null : readyIndex(nameIndexes, key, new ValueLoader() {
+            @Override
+            void load(UniqueValueHandler uniqueValueHandler) {
+                personNameDao.getAllUnique(key, uniqueValueHandler);
+            }
+        });
+        if (prefixIndex == null) {
+            return personNameDao.getUnique(key, query);
+        }
+        return new ResultList(prefixIndex.find(query, MAX_RESULTS));
+    }
+
+    @Override
+    public void index(Person person) {
+        long memoryBudgetInBytes = getMemoryBudgetInBytes();
+        for (PersonAttribute personAttribute : person.getActiveAttributes()) {
+            if (personAttribute.getAttributeType() != null) {
+                add(attributeIndexes.get(personAttribute.getAttributeType().getName()), personAttribute.getValue(), memoryBudgetInBytes);
+            }
+        }
+        for (PersonName personName : person.getNames()) {
+            if (personName.isVoided()) {
+                continue;
+            }
+            add(nameIndexes.get("givenName"), personName.getGivenName(), memoryBudgetInBytes);
+            add(nameIndexes.get("middleName"), personName.getMiddleName(), memoryBudgetInBytes);
+            add(nameIndexes.get("familyName"), personName.getFamilyName(), memoryBudgetInBytes);
+        }
+    }
+
+    @Override
+    public void invalidateAttributeIndexes() {
+        for (String personAttribute : attributeIndexes.keySet()) {
+            IndexHolder indexHolder = attributeIndexes.remove(personAttribute);
+            if (indexHolder != null) {
+                indexHolder.release();
+            }
+        }
+    }
+
+    private PrefixIndex readyIndex(ConcurrentMap<String, IndexHolder> indexes, String key, ValueLoader valueLoader) {
+        IndexHolder indexHolder = indexes.get(key);
+        if (indexHolder != null && indexHolder.isDueForReload()) {
+            if (indexes.remove(key, indexHolder)) {
+                indexHolder.release();
+            }
+            indexHolder = indexes.get(key);
+        }
+        if (indexHolder == null) {
+            IndexHolder newIndexHolder = new IndexHolder(key);
+            indexHolder = indexes.putIfAbsent(key, newIndexHolder);
+            if (indexHolder == null) {
+                indexHolder = newIndexHolder;
+                build(indexes, indexHolder, valueLoader);
+            }
+        }
+        return indexHolder.ready ? indexHolder.prefixIndex : null;
+    }
+
+    private void build(ConcurrentMap<String, IndexHolder> indexes, final IndexHolder indexHolder, ValueLoader valueLoader) {
+        long start = System.currentTimeMillis();
+        final long memoryBudgetInBytes = getMemoryBudgetInBytes();
+        try {
+            valueLoader.load(new UniqueValueHandler() {
+                @Override
+                public boolean handle(String value) {
+                    return add(indexHolder, value, memoryBudgetInBytes);
+                }
+            });
+            if (indexHolder.prefixIndex == null) {
+                return;
+            }
+            indexHolder.ready = true;
+            logger.info("PersonAutocompleteService : Indexed " + indexHolder.prefixIndex.size() + " values of " + indexHolder.key
+                    + " in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            indexes.remove(indexHolder.key, indexHolder);
+            indexHolder.release();
+            throw e;
+        }
+    }
+
+    private boolean add(IndexHolder indexHolder, String value, long memoryBudgetInBytes) {
+        if (indexHolder == null) {
+            return false;
+        }
+        synchronized (indexHolder) {
+            if (indexHolder.prefixIndex == null) {
+                return false;
+            }
+            if (usedBytes.addAndGet(indexHolder.prefixIndex.add(value)) > memoryBudgetInBytes) {
+                logger.warn("PersonAutocompleteService : Memory budget exceeded, " + indexHolder.key + " will be searched in the database");
+                indexHolder.release();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private long getMemoryBudgetInBytes() {
+        String memoryBudget = administrationService.getGlobalProperty(MEMORY_BUDGET_GLOBAL_PROPERTY);
+        return NumberUtils.toLong(StringUtils.trim(memoryBudget), DEFAULT_MEMORY_BUDGET_IN_MB) * 1024 * 1024;
+    }
+
+    long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    private abstract static class ValueLoader {
+        abstract void load(UniqueValueHandler uniqueValueHandler);
+    }
+
+    private class IndexHolder {
+        private final String key;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile PrefixIndex prefixIndex = new PrefixIndex();
+        private volatile boolean ready;
+
+        IndexHolder(String key) {
+            this.key = key;
+        }
+
+        // Indexes still loading are left alone; dropped ones are tried again
+        boolean isDueForReload() {
+            return (ready || prefixIndex == null) && System.currentTimeMillis() - createdAt > RELOAD_INTERVAL_IN_MILLIS;
+        }
+
+        synchronized void release() {
+            if (prefixIndex != null) {
+                usedBytes.addAndGet(-prefixIndex.getEstimatedSizeInBytes());
+                prefixIndex = null;
+                ready = false;
+            }
+        }
+    }
+}
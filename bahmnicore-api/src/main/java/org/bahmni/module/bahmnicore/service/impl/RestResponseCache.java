@@ -0,0 +1,167 @@
+package org.bahmni.module.bahmnicore.service.impl;
+
+import org.apache.commons.lang.math.NumberUtils;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.GlobalPropertyListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bodies of read mostly GET responses (concepts, reference data, configs) served by the CacheHeadersFilter,
+ * with their strong ETags, so a repeated request or an If-None-Match poll is answered without running the
+ * controller again. Everything is dropped whenever concepts or other metadata are saved, both straight away
+ * and again once the transaction completes. Every drop starts a new generation, and a response read before the
+ * latest drop is not kept, so a request racing a metadata save cannot put stale data back. The number of
+ * responses kept is set by the bahmni.cacheHeadersFilter.responseCacheSize global property; 0, the default,
+ * turns the cache off. Also keeps the
+ * bahmni.cacheHeadersFilter.expiresDuration global property, so the filter does not read it on every request.
+ */
+@Component
+public class RestResponseCache implements GlobalPropertyListener {
+    public static final String CACHE_SIZE_GLOBAL_PROPERTY = "bahmni.cacheHeadersFilter.responseCacheSize";
+    public static final String EXPIRES_DURATION_GLOBAL_PROPERTY = "bahmni.cacheHeadersFilter.expiresDuration";
+    public static final int MAX_CACHED_BODY_SIZE = 1024 * 1024;
+    private static final int DEFAULT_CACHE_SIZE = 0;
+
+    private AdministrationService administrationService;
+    private volatile Integer cacheSize;
+    private volatile Integer expiresDuration;
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, CachedResponse> responses = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > getCacheSize();
+        }
+    };
+
+    @Autowired
+    public RestResponseCache(AdministrationService administrationService) {
+        this.administrationService = administrationService;
+    }
+
+    public CachedResponse get(String key) {
+        if (getCacheSize() <= 0) {
+            return null;
+        }
+        synchronized (responses) {
+            return responses.get(key);
+        }
+    }
+
+    /**
+     * To be read before running the request whose response is then put.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the response with its ETag, keeping it only when the cache is on, the body is not too large and
+     * nothing was dropped since the given generation was read.
+     */
+    public CachedResponse put(String key, long generation, String contentType, byte[] body) {
+        CachedResponse response = new CachedResponse(contentType, body);
+        if (getCacheSize() > 0 && body.length <= MAX_CACHED_BODY_SIZE) {
+            synchronized (responses) {
+                if (this.generation.get() == generation) {
+                    responses.put(key, response);
+                }
+            }
+        }
+        return response;
+    }
+
+    public void invalidateAll() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    public int size() {
+        synchronized (responses) {
+            return responses.size();
+        }
+    }
+
+    public int getExpiresDuration() {
+        if (expiresDuration == null) {
+            expiresDuration = NumberUtils.toInt(administrationService.getGlobalProperty(EXPIRES_DURATION_GLOBAL_PROPERTY), 0);
+        }
+        return expiresDuration;
+    }
+
+    private void clear() {
+        synchronized (responses) {
+            generation.incrementAndGet();
+            responses.clear();
+        }
+    }
+
+    private int getCacheSize() {
+        if (cacheSize == null) {
+            cacheSize = NumberUtils.toInt(administrationService.getGlobalProperty(CACHE_SIZE_GLOBAL_PROPERTY), DEFAULT_CACHE_SIZE);
+        }
+        return cacheSize;
+    }
+
+    @Override
+    public boolean supportsPropertyName(String propertyName) {
+        return CACHE_SIZE_GLOBAL_PROPERTY.equals(propertyName) || EXPIRES_DURATION_GLOBAL_PROPERTY.equals(propertyName);
+    }
+
+    @Override
+    public void globalPropertyChanged(GlobalProperty newValue) {
+        cacheSize = null;
+        expiresDuration = null;
+        clear();
+    }
+
+    @Override
+    public void globalPropertyDeleted(String propertyName) {
+        cacheSize = null;
+        expiresDuration = null;
+        clear();
+    }
+
+    public static class CachedResponse {
+        private final String contentType;
+        private final byte[] body;
+        private final String eTag;
+
+        private CachedResponse(String contentType, byte[] body) {
+            this.contentType = contentType;
+            this.body = body;
+            this.eTag = "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public boolean matches(String ifNoneMatch) {
+            return ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(eTag));
+        }
+    }
+}
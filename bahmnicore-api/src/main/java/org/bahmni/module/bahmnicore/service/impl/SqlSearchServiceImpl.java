@@ -1,22 +1,47 @@
 package org.bahmni.module.bahmnicore.service.impl;
 
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.log4j.Logger;
+import org.bahmni.module.bahmnicore.service.RowHandler;
 import org.bahmni.module.bahmnicore.service.RowMapper;
 import org.bahmni.module.bahmnicore.service.SqlSearchService;
+import org.bahmni.module.bahmnicore.util.SqlQuery;
 import org.bahmni.module.bahmnicore.util.SqlQueryHelper;
+import org.hibernate.SessionFactory;
+import org.hibernate.jdbc.Work;
+import org.openmrs.GlobalProperty;
 import org.openmrs.api.AdministrationService;
+import org.openmrs.api.GlobalPropertyListener;
 import org.openmrs.module.webservices.rest.SimpleObject;
-import org.openmrs.util.DatabaseUpdater;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Runs the sql queries stored in global properties on the connection of the current hibernate session, so
+ * they share the connection pool. Parsed queries and the fetch size and timeout settings are cached until
+ * the corresponding global property changes.
+ */
+public class SqlSearchServiceImpl implements SqlSearchService, GlobalPropertyListener {
+    public static final String FETCH_SIZE_GLOBAL_PROPERTY = "bahmni.sqlSearch.fetchSize";
+    public static final String QUERY_TIMEOUT_GLOBAL_PROPERTY = "bahmni.sqlSearch.queryTimeoutInSeconds";
+    private static final int DEFAULT_FETCH_SIZE = 0;
+    private static final int DEFAULT_QUERY_TIMEOUT_IN_SECONDS = 0;
 
-public class SqlSearchServiceImpl implements SqlSearchService {
     private AdministrationService administrationService;
+    private SessionFactory sessionFactory;
+    private final SqlQueryHelper sqlQueryHelper = new SqlQueryHelper();
+    private final ConcurrentMap<String, SqlQuery> sqlQueries = new ConcurrentHashMap<>();
+    private volatile Integer fetchSize;
+    private volatile Integer queryTimeoutInSeconds;
 
     private static Logger logger = Logger.getLogger(SqlSearchServiceImpl.class);
 
@@ -24,23 +49,55 @@ public class SqlSearchServiceImpl implements SqlSearchService {
         this.administrationService = administrationService;
     }
 
+    public void setSessionFactory(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public List<SimpleObject>  search(String queryId, Map<String, String[]> params) {
-        List<SimpleObject> results = new ArrayList<>();
-        SqlQueryHelper sqlQueryHelper = new SqlQueryHelper();
-        String query = getSql(queryId);
-        try( Connection conn = DatabaseUpdater.getConnection();
-             PreparedStatement statement = sqlQueryHelper.constructPreparedStatement(query,params,conn);
-             ResultSet resultSet = statement.executeQuery()) {
-
-            RowMapper rowMapper = new RowMapper();
-            while (resultSet.next()) {
-                results.add(rowMapper.mapRow(resultSet));
+        final List<SimpleObject> results = new ArrayList<>();
+        search(queryId, params, new RowHandler() {
+            @Override
+            public void handle(SimpleObject row) {
+                results.add(row);
+            }
+        });
+        return results;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void search(String queryId, final Map<String, String[]> params, final RowHandler rowHandler) {
+        final SqlQuery sqlQuery = getSqlQuery(queryId);
+        sessionFactory.getCurrentSession().doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                try (PreparedStatement statement = sqlQueryHelper.constructPreparedStatement(sqlQuery, params, connection)) {
+                    statement.setFetchSize(getFetchSize());
+                    statement.setQueryTimeout(getQueryTimeoutInSeconds());
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        RowMapper rowMapper = new RowMapper();
+                        while (resultSet.next()) {
+                            rowHandler.handle(rowMapper.mapRow(resultSet));
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
             }
-            return results;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        });
+    }
+
+    SqlQuery getSqlQuery(String queryId) {
+        SqlQuery sqlQuery = sqlQueries.get(queryId);
+        if (sqlQuery == null) {
+            sqlQuery = sqlQueryHelper.parse(getSql(queryId));
+            sqlQueries.put(queryId, sqlQuery);
         }
+        return sqlQuery;
     }
 
     private String getSql(String queryId) {
@@ -48,4 +105,45 @@ public class SqlSearchServiceImpl implements SqlSearchService {
         if (query == null) throw new RuntimeException("No such query:" + queryId);
         return query;
     }
+
+    private int getFetchSize() {
+        if (fetchSize == null) {
+            fetchSize = NumberUtils.toInt(administrationService.getGlobalProperty(FETCH_SIZE_GLOBAL_PROPERTY), DEFAULT_FETCH_SIZE);
+        }
+        return fetchSize;
+    }
+
+    private int getQueryTimeoutInSeconds() {
+        if (queryTimeoutInSeconds == null) {
+            queryTimeoutInSeconds = NumberUtils.toInt(administrationService.getGlobalProperty(QUERY_TIMEOUT_GLOBAL_PROPERTY), DEFAULT_QUERY_TIMEOUT_IN_SECONDS);
+        }
+        return queryTimeoutInSeconds;
+    }
+
+    @Override
+    public boolean supportsPropertyName(String propertyName) {
+        return sqlQueries.containsKey(propertyName)
+                || FETCH_SIZE_GLOBAL_PROPERTY.equals(propertyName)
+                || QUERY_TIMEOUT_GLOBAL_PROPERTY.equals(propertyName);
+    }
+
+    @Override
+    public void globalPropertyChanged(GlobalProperty newValue) {
+        invalidate(newValue.getProperty());
+    }
+
+    @Override
+    public void globalPropertyDeleted(String propertyName) {
+        invalidate(propertyName);
+    }
+
+    private void invalidate(String propertyName) {
+        if (FETCH_SIZE_GLOBAL_PROPERTY.equals(propertyName)) {
+            fetchSize = null;
+        } else if (QUERY_TIMEOUT_GLOBAL_PROPERTY.equals(propertyName)) {
+            queryTimeoutInSeconds = null;
+        } else if (sqlQueries.remove(propertyName) != null) {
+            logger.info("Sql query " + propertyName + " changed, it will be parsed again on next search");
+        }
+    }
 }
@@ -0,0 +1,72 @@
+package org.bahmni.module.bahmnicore.util;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.SetupException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Fills patient_search_token for the patients already in patient_search from their non voided names, using
+ * {@link PatientSearchTokenizer} so that existing patients get the same tokens as patients indexed on save.
+ */
+public class PatientSearchTokenBackfill implements CustomTaskChange {
+    private static final String SELECT_NAMES = "select pn.person_id, pn.given_name, pn.middle_name, pn.family_name from person_name pn " +
+            "inner join patient_search ps on ps.person_id = pn.person_id where pn.voided = 0";
+    private static final String INSERT_TOKEN = "insert ignore into patient_search_token (token, person_id) values (?, ?)";
+    private static final int BATCH_SIZE = 1000;
+
+    private int tokenCount;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        try (Statement select = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(INSERT_TOKEN);
+             ResultSet names = select.executeQuery(SELECT_NAMES)) {
+            while (names.next()) {
+                Set<String> tokens = new LinkedHashSet<>();
+                tokens.addAll(PatientSearchTokenizer.tokenize(names.getString("given_name")));
+                tokens.addAll(PatientSearchTokenizer.tokenize(names.getString("middle_name")));
+                tokens.addAll(PatientSearchTokenizer.tokenize(names.getString("family_name")));
+                for (String token : tokens) {
+                    insert.setString(1, token);
+                    insert.setInt(2, names.getInt("person_id"));
+                    insert.addBatch();
+                    if (++tokenCount % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+            }
+            insert.executeBatch();
+        } catch (Exception e) {
+            throw new CustomChangeException("Could not fill patient_search_token", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Added " + tokenCount + " patient search name tokens";
+    }
+
+    @Override
+    public void setUp() throws SetupException {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package org.bahmni.module.bahmnicore.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.openmrs.Patient;
+import org.openmrs.PersonName;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Breaks the names of a patient into the normalized tokens stored in patient_search_token. Name parts are
+ * split on whitespace and lower cased so that searches can use a plain prefix match on the token index.
+ * Identifiers are not tokenized, they are matched exactly against patient_identifier.
+ */
+public class PatientSearchTokenizer {
+    public static final int MAX_TOKEN_LENGTH = 255;
+
+    public static Set<String> tokensOf(Patient patient) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (PersonName personName : patient.getNames()) {
+            if (personName.isVoided()) {
+                continue;
+            }
+            tokens.addAll(tokenize(personName.getGivenName()));
+            tokens.addAll(tokenize(personName.getMiddleName()));
+            tokens.addAll(tokenize(personName.getFamilyName()));
+        }
+        return tokens;
+    }
+
+    public static List<String> tokenize(String value) {
+        List<String> tokens = new ArrayList<>();
+        if (StringUtils.isBlank(value)) {
+            return tokens;
+        }
+        for (String part : value.trim().split("\\s+")) {
+            tokens.add(normalize(part));
+        }
+        return tokens;
+    }
+
+    public static String normalize(String value) {
+        String token = value.trim().toLowerCase(Locale.ENGLISH);
+        return token.length() > MAX_TOKEN_LENGTH ? token.substring(0, MAX_TOKEN_LENGTH) : token;
+    }
+}
@@ -0,0 +1,60 @@
+package org.bahmni.module.bahmnicore.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sorted, case insensitive set of distinct values answering prefix lookups. Values that differ only in case
+ * are kept once, in the case they were first added in, and ordered by their lower cased form, so results come
+ * back like "select distinct ... order by value" on a case insensitive collation. Safe for concurrent reads
+ * and additions.
+ */
+public class PrefixIndex {
+    private static final int ENTRY_OVERHEAD_IN_BYTES = 96;
+
+    private final ConcurrentSkipListMap<String, String> values = new ConcurrentSkipListMap<>();
+    private final AtomicLong estimatedSizeInBytes = new AtomicLong();
+
+    public long add(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        String key = normalize(value);
+        if (values.putIfAbsent(key, value) != null) {
+            return 0;
+        }
+        long entrySize = ENTRY_OVERHEAD_IN_BYTES + 2L * (key.length() + value.length());
+        estimatedSizeInBytes.addAndGet(entrySize);
+        return entrySize;
+    }
+
+    public List<String> find(String prefix, int limit) {
+        String lowerCasePrefix = normalize(prefix);
+        List<String> matches = new ArrayList<>();
+        ConcurrentNavigableMap<String, String> tail = values.tailMap(lowerCasePrefix, true);
+        for (Map.Entry<String, String> entry : tail.entrySet()) {
+            if (matches.size() >= limit || !entry.getKey().startsWith(lowerCasePrefix)) {
+                break;
+            }
+            matches.add(entry.getValue());
+        }
+        return matches;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public long getEstimatedSizeInBytes() {
+        return estimatedSizeInBytes.get();
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,21 @@
+package org.bahmni.module.bahmnicore.util;
+
+import java.util.List;
+
+public class SqlQuery {
+    private final String statement;
+    private final List<String> paramNames;
+
+    public SqlQuery(String statement, List<String> paramNames) {
+        this.statement = statement;
+        this.paramNames = paramNames;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public List<String> getParamNames() {
+        return paramNames;
+    }
+}
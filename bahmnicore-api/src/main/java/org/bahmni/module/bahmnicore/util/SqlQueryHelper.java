@@ -4,6 +4,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -34,13 +35,19 @@ public class SqlQueryHelper {
         return  queryString.replaceAll(PARAM_PLACE_HOLDER_REGEX,"?");
     }
 
+    public SqlQuery parse(String queryString) {
+        return new SqlQuery(transformIntoPreparedStatementFormat(queryString), Collections.unmodifiableList(getParamNamesFromPlaceHolders(queryString)));
+    }
+
     public PreparedStatement constructPreparedStatement(String queryString,Map<String, String[]> params,Connection conn) throws SQLException {
-        List<String> paramNamesFromPlaceHolders = getParamNamesFromPlaceHolders(queryString);
-        String statement = transformIntoPreparedStatementFormat(queryString);
-        PreparedStatement preparedStatement = conn.prepareStatement(statement);
+        return constructPreparedStatement(parse(queryString), params, conn);
+    }
+
+    public PreparedStatement constructPreparedStatement(SqlQuery sqlQuery, Map<String, String[]> params, Connection conn) throws SQLException {
+        PreparedStatement preparedStatement = conn.prepareStatement(sqlQuery.getStatement());
         if(params != null ){
             int i=1;
-            for (String paramName : paramNamesFromPlaceHolders) {
+            for (String paramName : sqlQuery.getParamNames()) {
                 String paramValue = params.get(paramName)[0];
                 preparedStatement.setObject(i++,paramValue);
             }
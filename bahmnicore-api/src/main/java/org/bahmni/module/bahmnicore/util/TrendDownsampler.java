@@ -0,0 +1,46 @@
+package org.bahmni.module.bahmnicore.util;
+
+import org.bahmni.module.bahmnicore.contract.encounter.data.NumericTrendData.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reduces a series of points, oldest first, to at most a given number of points for charting. The time span
+ * of the series is cut into equal buckets and only the lowest and highest point of each bucket are kept, in
+ * time order, so spikes and dips still show up on the chart.
+ */
+public class TrendDownsampler {
+
+    public static List<Point> minMax(List<Point> points, int maxPoints) {
+        if (points.size() <= Math.max(maxPoints, 2)) {
+            return points;
+        }
+        int buckets = Math.max(maxPoints, 2) / 2;
+        long start = points.get(0).getObservationDate().getTime();
+        long span = points.get(points.size() - 1).getObservationDate().getTime() - start + 1;
+        List<Point> downsampled = new ArrayList<>();
+        int index = 0;
+        for (int bucket = 1; bucket <= buckets && index < points.size(); bucket++) {
+            long bucketEnd = start + span * bucket / buckets;
+            int min = -1;
+            int max = -1;
+            for (; index < points.size() && points.get(index).getObservationDate().getTime() < bucketEnd; index++) {
+                if (min < 0 || points.get(index).getValue() < points.get(min).getValue()) {
+                    min = index;
+                }
+                if (max < 0 || points.get(index).getValue() > points.get(max).getValue()) {
+                    max = index;
+                }
+            }
+            if (min < 0) {
+                continue;
+            }
+            downsampled.add(points.get(Math.min(min, max)));
+            if (min != max) {
+                downsampled.add(points.get(Math.max(min, max)));
+            }
+        }
+        return downsampled;
+    }
+}
@@ -0,0 +1,177 @@
+package org.bahmni.module.bahmnicore.advice;
+
+import org.bahmni.module.bahmnicore.contract.patient.response.PatientResponse;
+import org.bahmni.module.bahmnicore.dao.PatientDao;
+import org.bahmni.module.bahmnicore.dao.PatientSearchIndexDao;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Patient;
+import org.openmrs.PersonName;
+import org.openmrs.api.PatientService;
+import org.openmrs.api.PersonService;
+import org.openmrs.api.context.Context;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.hibernate3.SessionHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+@org.springframework.test.context.ContextConfiguration(locations = {"classpath:TestingApplicationContext.xml"}, inheritLocations = true)
+public class PatientSearchIndexAdviceIT extends BaseModuleWebContextSensitiveTest {
+    @Autowired
+    private PatientSearchIndexDao patientSearchIndexDao;
+    @Autowired
+    private PatientDao patientDao;
+    @Autowired
+    private SessionFactory sessionFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PatientSearchIndexAdvice patientSearchIndexAdvice;
+
+    @Before
+    public void setUp() throws Exception {
+        createIndexTables();
+        executeDataSet("apiTestData.xml");
+        // The deferred indexing joins the test transaction here instead of starting a new one, so that it sees
+        // the uncommitted test data and is rolled back with it.
+        patientSearchIndexAdvice = new PatientSearchIndexAdvice(patientSearchIndexDao, new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    public void shouldIndexSavedPatientOnlyAfterCommit() throws Throwable {
+        Patient patient = Context.getPatientService().getPatient(1025);
+
+        List<TransactionSynchronization> synchronizations = advise(patient, savePatient(), patient);
+        assertNull(familyNameIndexedFor(1025));
+
+        commit(synchronizations);
+        assertEquals("Sinha", familyNameIndexedFor(1025));
+        assertEquals("GAN200001", sqlValue("select identifier from patient_search where person_id = 1025"));
+        assertEquals("Ramgarh", sqlValue("select city_village from patient_search where person_id = 1025"));
+        List<String> tokens = tokensIndexedFor(1025);
+        assertTrue(tokens.contains("sinha"));
+        assertTrue(tokens.contains("banjara"));
+        assertFalse(tokens.contains("gan200001"));
+    }
+
+    @Test
+    public void shouldFindIndexedPatientByExactIdentifierOnly() throws Throwable {
+        Patient patient = Context.getPatientService().getPatient(1025);
+        commit(advise(patient, savePatient(), patient));
+
+        List<PatientResponse> patients = patientDao.getPatientsFromIndex("GAN200001", null, null, 10, 0, null, null);
+
+        assertEquals(1, patients.size());
+        assertEquals("341b4e41-790c-484f-b6ed-71dc8da222db", patients.get(0).getUuid());
+        assertTrue(patientDao.getPatientsFromIndex("sinha", null, null, 10, 0, null, null).isEmpty());
+        assertTrue(patientDao.getPatientsFromIndex("GAN2000", null, null, 10, 0, null, null).isEmpty());
+    }
+
+    @Test
+    public void shouldIndexPatientWithoutPreferredName() throws Throwable {
+        Patient patient = Context.getPatientService().getPatient(101);
+
+        commit(advise(patient, savePatient(), patient));
+
+        assertEquals("Patient", sqlValue("select given_name from patient_search where person_id = 101"));
+        assertEquals("1", familyNameIndexedFor(101));
+    }
+
+    @Test
+    public void shouldReindexPatientWhenNameIsSavedThroughPersonService() throws Throwable {
+        Patient patient = Context.getPatientService().getPatient(1024);
+        commit(advise(patient, savePatient(), patient));
+        PersonName personName = patient.getPersonName();
+        personName.setFamilyName("Bankar");
+
+        commit(advise(personName, PersonService.class.getMethod("savePersonName", PersonName.class), personName));
+
+        assertEquals("Bankar", familyNameIndexedFor(1024));
+        List<String> tokens = tokensIndexedFor(1024);
+        assertTrue(tokens.contains("bankar"));
+        assertFalse(tokens.contains("banka"));
+    }
+
+    @Test
+    public void shouldDropVoidedPatientFromIndex() throws Throwable {
+        Patient patient = Context.getPatientService().getPatient(1024);
+        commit(advise(patient, savePatient(), patient));
+        patient.setVoided(true);
+
+        commit(advise(patient, PatientService.class.getMethod("voidPatient", Patient.class, String.class), patient, "duplicate"));
+
+        assertNull(familyNameIndexedFor(1024));
+        assertTrue(tokensIndexedFor(1024).isEmpty());
+    }
+
+    @Test
+    public void shouldNotFailTheSurroundingTransactionWhenIndexingFails() throws Throwable {
+        PatientSearchIndexDao failingDao = mock(PatientSearchIndexDao.class);
+        doThrow(new RuntimeException("patient_search is locked")).when(failingDao).reindex(anyInt());
+        patientSearchIndexAdvice = new PatientSearchIndexAdvice(failingDao, transactionManager);
+        Patient patient = Context.getPatientService().getPatient(1025);
+
+        commit(advise(patient, savePatient(), patient));
+
+        SessionHolder sessionHolder = (SessionHolder) TransactionSynchronizationManager.getResource(sessionFactory);
+        assertFalse(sessionHolder.isRollbackOnly());
+    }
+
+    private List<TransactionSynchronization> advise(Object returnValue, Method method, Object... arguments) throws Throwable {
+        List<TransactionSynchronization> existing = TransactionSynchronizationManager.getSynchronizations();
+        patientSearchIndexAdvice.afterReturning(returnValue, method, arguments, null);
+        List<TransactionSynchronization> registered = new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        registered.removeAll(existing);
+        return registered;
+    }
+
+    private void commit(List<TransactionSynchronization> synchronizations) {
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+    }
+
+    private Method savePatient() throws NoSuchMethodException {
+        return PatientService.class.getMethod("savePatient", Patient.class);
+    }
+
+    private String familyNameIndexedFor(Integer personId) {
+        return sqlValue("select family_name from patient_search where person_id = " + personId);
+    }
+
+    private List<String> tokensIndexedFor(Integer personId) {
+        return sessionFactory.getCurrentSession().createSQLQuery("select token from patient_search_token where person_id = " + personId).list();
+    }
+
+    private String sqlValue(String sql) {
+        Object value = sessionFactory.getCurrentSession().createSQLQuery(sql).uniqueResult();
+        return value != null ? value.toString() : null;
+    }
+
+    private void createIndexTables() throws Exception {
+        // The tables come from the module liquibase changesets, which are not run against the test database.
+        Statement statement = getConnection().createStatement();
+        statement.execute("create table if not exists patient_search (person_id int not null primary key, uuid char(38) not null, " +
+                "identifier varchar(50), given_name varchar(50), middle_name varchar(50), family_name varchar(50), gender varchar(50), " +
+                "birthdate date, death_date datetime, city_village varchar(255), date_created datetime not null)");
+        statement.execute("create table if not exists patient_search_token (token varchar(255) not null, person_id int not null, " +
+                "primary key (token, person_id))");
+        statement.close();
+    }
+}
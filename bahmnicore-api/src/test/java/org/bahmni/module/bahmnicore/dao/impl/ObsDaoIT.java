@@ -4,11 +4,15 @@ import org.bahmni.module.bahmnicore.dao.ObsDao;
 import org.junit.Before;
 import org.junit.Test;
 import org.openmrs.Obs;
+import org.openmrs.api.context.Context;
 import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import static junit.framework.Assert.assertEquals;
@@ -78,4 +82,64 @@ public class ObsDaoIT extends BaseModuleWebContextSensitiveTest {
         List<Obs> allObs = obsDao.getObsFor("86526ed5-3c11-11de-a0ba-001e378eb67a", Arrays.asList("Blood Pressure"), null);
         assertEquals(1, allObs.size());
     }
+
+    @Test
+    public void shouldRetrieveNumericObsValuesOrderedByObsDatetimeAndObsId() throws Exception {
+        List<Object[]> values = obsDao.getNumericObsValues("86526ed5-3c11-11de-a0ba-001e378eb67a", Arrays.asList("7f596de5-5caa-11e3-a4c0-0800271c1b75",
+                "3f596de5-5caa-11e3-a4c0-0800271c1b75", "diastolic_value_uuid", "5f596de5-5caa-11e3-a4c0-0800271c1b75", "systolic_value_uuid"), null, null);
+
+        assertEquals(5, values.size());
+        assertNumericValue(values.get(0), "systolic_value_uuid", "2008-08-18 15:09:05", 120.0);
+        assertNumericValue(values.get(1), "diastolic_value_uuid", "2008-08-18 15:09:05", 100.0);
+        assertNumericValue(values.get(2), "3f596de5-5caa-11e3-a4c0-0800271c1b75", "2013-12-04 11:36:42", 1.1);
+        assertNumericValue(values.get(3), "5f596de5-5caa-11e3-a4c0-0800271c1b75", "2013-12-04 11:36:42", 2.1);
+        assertNumericValue(values.get(4), "7f596de5-5caa-11e3-a4c0-0800271c1b75", "2013-12-04 11:36:42", 3.1);
+    }
+
+    @Test
+    public void shouldRetrieveNumericObsValuesOfOnlyTheGivenNumericConcepts() throws Exception {
+        List<Object[]> values = obsDao.getNumericObsValues("86526ed5-3c11-11de-a0ba-001e378eb67a", Arrays.asList("systolic_value_uuid",
+                "5f596de5-5caa-11e3-a4c0-0800271c1b75", "4f596de5-5caa-11e3-a4c0-0800271c1b75"), null, null);
+
+        assertEquals(2, values.size());
+        assertEquals("systolic_value_uuid", values.get(0)[0]);
+        assertEquals("5f596de5-5caa-11e3-a4c0-0800271c1b75", values.get(1)[0]);
+    }
+
+    @Test
+    public void shouldRetrieveNumericObsValuesWithinInclusiveDateWindow() throws Exception {
+        List<String> conceptUuids = Arrays.asList("systolic_value_uuid", "3f596de5-5caa-11e3-a4c0-0800271c1b75");
+        String personUuid = "86526ed5-3c11-11de-a0ba-001e378eb67a";
+
+        assertEquals(2, obsDao.getNumericObsValues(personUuid, conceptUuids, date("2008-08-18 15:09:05"), date("2013-12-04 11:36:42")).size());
+
+        List<Object[]> fromAfterFirst = obsDao.getNumericObsValues(personUuid, conceptUuids, date("2008-08-18 15:09:06"), null);
+        assertEquals(1, fromAfterFirst.size());
+        assertEquals("3f596de5-5caa-11e3-a4c0-0800271c1b75", fromAfterFirst.get(0)[0]);
+
+        List<Object[]> toBeforeLast = obsDao.getNumericObsValues(personUuid, conceptUuids, null, date("2013-12-04 11:36:41"));
+        assertEquals(1, toBeforeLast.size());
+        assertEquals("systolic_value_uuid", toBeforeLast.get(0)[0]);
+    }
+
+    @Test
+    public void shouldNotRetrieveVoidedNumericObsValues() throws Exception {
+        Context.getObsService().voidObs(Context.getObsService().getObs(1026), "entered in error");
+
+        List<Object[]> values = obsDao.getNumericObsValues("86526ed5-3c11-11de-a0ba-001e378eb67a", Arrays.asList("3f596de5-5caa-11e3-a4c0-0800271c1b75",
+                "5f596de5-5caa-11e3-a4c0-0800271c1b75"), null, null);
+
+        assertEquals(1, values.size());
+        assertEquals("3f596de5-5caa-11e3-a4c0-0800271c1b75", values.get(0)[0]);
+    }
+
+    private void assertNumericValue(Object[] value, String conceptUuid, String obsDatetime, Double valueNumeric) throws ParseException {
+        assertEquals(conceptUuid, value[0]);
+        assertEquals(date(obsDatetime).getTime(), ((Date) value[1]).getTime());
+        assertEquals(valueNumeric, value[2]);
+    }
+
+    private Date date(String dateTime) throws ParseException {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(dateTime);
+    }
 }
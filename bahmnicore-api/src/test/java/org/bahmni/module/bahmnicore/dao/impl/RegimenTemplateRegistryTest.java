@@ -0,0 +1,76 @@
+package org.bahmni.module.bahmnicore.dao.impl;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openmrs.module.emrapi.encounter.domain.EncounterTransaction;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class RegimenTemplateRegistryTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File templatesFile;
+    private RegimenTemplateRegistry regimenTemplateRegistry;
+
+    @Before
+    public void setUp() throws IOException {
+        templatesFile = temporaryFolder.newFile("templates.json");
+        regimenTemplateRegistry = new RegimenTemplateRegistry(new ApplicationDataDirectory() {
+            @Override
+            public File getFile(String relativePath) {
+                return templatesFile;
+            }
+        });
+    }
+
+    @Test
+    public void shouldParseTemplatesOnceAndHandOutOwnDrugOrders() throws IOException {
+        writeTemplates("{\"orderTemplates\": [{\"name\": \"CAF\", \"drugOrders\": [" + drugOrder("DNS") + "]}, " +
+                "{\"name\": \"AC\", \"drugOrders\": []}]}");
+
+        Collection<EncounterTransaction.DrugOrder> drugOrders = regimenTemplateRegistry.getDrugOrders("CAF");
+        long loadedAt = regimenTemplateRegistry.getLoadedAt();
+
+        assertEquals(1, drugOrders.size());
+        assertEquals("Outpatient", drugOrders.iterator().next().getCareSetting());
+        assertEquals(2, regimenTemplateRegistry.getTemplateCount());
+        assertNotSame(drugOrders.iterator().next(), regimenTemplateRegistry.getDrugOrders("CAF").iterator().next());
+        assertEquals(loadedAt, regimenTemplateRegistry.getLoadedAt());
+        assertTrue(regimenTemplateRegistry.getDrugOrders("Unknown").isEmpty());
+    }
+
+    @Test
+    public void shouldReloadTemplatesWhenFileChanges() throws IOException {
+        writeTemplates("{\"orderTemplates\": [{\"name\": \"CAF\", \"drugOrders\": []}]}");
+        assertTrue(regimenTemplateRegistry.getDrugOrders("CAF").isEmpty());
+
+        writeTemplates("{\"orderTemplates\": [{\"name\": \"CAF\", \"drugOrders\": [" + drugOrder("DNS") + "," + drugOrder("Paracetamol") + "]}]}");
+        templatesFile.setLastModified(templatesFile.lastModified() + 2000);
+
+        assertEquals(2, regimenTemplateRegistry.getDrugOrders("CAF").size());
+        assertEquals(1, regimenTemplateRegistry.getTemplateCount());
+    }
+
+    private String drugOrder(String drugName) {
+        return "{\"drug\": {\"name\": \"" + drugName + "\"}, \"dosingInstructions\": {\"dose\": 1}}";
+    }
+
+    private void writeTemplates(String json) throws IOException {
+        FileWriter writer = new FileWriter(templatesFile);
+        try {
+            writer.write(json);
+        } finally {
+            writer.close();
+        }
+    }
+}
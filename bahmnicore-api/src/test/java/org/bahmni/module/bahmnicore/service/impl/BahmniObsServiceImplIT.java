@@ -6,6 +6,7 @@ import org.bahmni.test.builder.ConceptBuilder;
 import org.junit.Before;
 import org.junit.Test;
 import org.openmrs.Concept;
+import org.openmrs.Obs;
 import org.openmrs.Visit;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.VisitService;
@@ -13,8 +14,10 @@ import org.openmrs.module.bahmniemrapi.encountertransaction.contract.BahmniObser
 import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -90,6 +93,51 @@ public class BahmniObsServiceImplIT extends BaseModuleWebContextSensitiveTest {
 
     }
 
+    @Test
+    public void shouldReturnSameLatestObsForMultipleConceptsAsPerConceptQueries() {
+        String patientUuid = "86526ed5-3c11-11de-a0ba-001e378eb67a";
+        List<String> conceptNames = Arrays.asList("Vitals", "Sitting", "Pulse", "Weight", "Blood Pressure");
+
+        List<Obs> expected = new ArrayList<>();
+        for (String conceptName : conceptNames) {
+            expected.addAll(obsDao.getLatestObsFor(patientUuid, conceptName, 3, 1));
+        }
+        List<Obs> actual = obsDao.getLatestObsForConcepts(patientUuid, conceptNames, 3, 1);
+
+        assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+        assertEquals(expected.size(), actual.size());
+    }
+
+    @Test
+    public void shouldReturnSameLatestObsForMultipleConceptsAsPerConceptQueriesWhenMoreThanOneIsAskedFor() {
+        String patientUuid = "86526ed5-3c11-11de-a0ba-001e378eb67a";
+        List<String> conceptNames = Arrays.asList("Vitals", "Sitting", "Pulse", "Weight", "Blood Pressure");
+
+        List<Obs> expected = new ArrayList<>();
+        for (String conceptName : conceptNames) {
+            expected.addAll(obsDao.getLatestObsFor(patientUuid, conceptName, 3, 2));
+        }
+        List<Obs> actual = obsDao.getLatestObsForConcepts(patientUuid, conceptNames, 3, 2);
+
+        assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+        assertEquals(expected.size(), actual.size());
+    }
+
+    @Test
+    public void shouldReturnSameLatestObsByVisitForMultipleConceptsAsPerConceptQueries() {
+        Visit visit = visitService.getVisitByUuid("e10186d8-1c8e-11e4-bb80-f18add123456");
+        List<String> conceptNames = Arrays.asList("Sitting", "Pulse", "Weight");
+
+        List<Obs> expected = new ArrayList<>();
+        for (String conceptName : conceptNames) {
+            expected.addAll(obsDao.getLatestObsByVisit(visit, conceptName, 1));
+        }
+        List<Obs> actual = obsDao.getLatestObsByVisit(visit, conceptNames, 1);
+
+        assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+        assertEquals(expected.size(), actual.size());
+    }
+
     @Test
     public void return_orphaned_obs_for_patient() throws Exception {
         Concept bloodPressureConcept = new ConceptBuilder().withName("Blood Pressure").build();
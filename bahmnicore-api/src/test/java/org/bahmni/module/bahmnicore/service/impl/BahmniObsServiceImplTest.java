@@ -1,5 +1,6 @@
 package org.bahmni.module.bahmnicore.service.impl;
 
+import org.bahmni.module.bahmnicore.contract.encounter.data.NumericTrendData;
 import org.bahmni.module.bahmnicore.dao.ObsDao;
 import org.bahmni.module.bahmnicore.service.BahmniObsService;
 import org.bahmni.test.builder.ConceptBuilder;
@@ -8,6 +9,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.openmrs.Concept;
+import org.openmrs.ConceptDatatype;
+import org.openmrs.ConceptName;
+import org.openmrs.ConceptNumeric;
 import org.openmrs.Obs;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.ObsService;
@@ -19,9 +23,13 @@ import org.openmrs.util.LocaleUtility;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -69,6 +77,47 @@ public class BahmniObsServiceImplTest {
         verify(obsDao).getNumericConceptsForPerson(personUUID);
     }
 
+    @Test
+    public void shouldGetNumericTrendsOfNumericConcepts() throws Exception {
+        Date from = new Date(1000);
+        Date to = new Date(5000);
+        when(conceptService.getConceptByUuid("pulse-uuid")).thenReturn(pulseConcept());
+        when(obsDao.getNumericObsValues(personUUID, Arrays.asList("pulse-uuid"), from, to)).thenReturn(Arrays.asList(
+                new Object[]{"pulse-uuid", new Date(2000), 72.0},
+                new Object[]{"pulse-uuid", new Date(3000), 80.0}));
+
+        List<NumericTrendData> trends = bahmniObsService.getNumericTrends(personUUID, Arrays.asList("pulse-uuid", "unknown-uuid"), from, to, 500);
+
+        assertEquals(1, trends.size());
+        assertEquals("Pulse", trends.get(0).getConceptName());
+        assertEquals("/min", trends.get(0).getUnits());
+        assertEquals(2, trends.get(0).getPoints().size());
+        assertEquals(80.0, trends.get(0).getPoints().get(1).getValue(), 0);
+    }
+
+    @Test
+    public void shouldLimitNumericTrendsToTheYearBeforeEndDateWhenStartDateIsNotGiven() throws Exception {
+        Date to = new SimpleDateFormat("yyyy-MM-dd").parse("2015-01-10");
+        Date aYearBefore = new SimpleDateFormat("yyyy-MM-dd").parse("2014-01-10");
+        when(conceptService.getConceptByUuid("pulse-uuid")).thenReturn(pulseConcept());
+
+        bahmniObsService.getNumericTrends(personUUID, Arrays.asList("pulse-uuid"), null, to, 500);
+
+        verify(obsDao).getNumericObsValues(personUUID, Arrays.asList("pulse-uuid"), aYearBefore, to);
+    }
+
+    private ConceptNumeric pulseConcept() {
+        ConceptNumeric pulse = new ConceptNumeric();
+        pulse.setUuid("pulse-uuid");
+        pulse.setUnits("/min");
+        ConceptDatatype numeric = new ConceptDatatype();
+        numeric.setUuid(ConceptDatatype.NUMERIC_UUID);
+        numeric.setHl7Abbreviation(ConceptDatatype.NUMERIC);
+        pulse.setDatatype(numeric);
+        pulse.addName(new ConceptName("Pulse", Locale.ENGLISH));
+        return pulse;
+    }
+
     @Test
     public void shouldGetObsByPatientUuidConceptNameAndNumberOfVisits() throws Exception {
         Concept bloodPressureConcept = new ConceptBuilder().withName("Blood Pressure").build();
@@ -16,6 +16,7 @@ import org.openmrs.Concept;
 import org.openmrs.Patient;
 import org.openmrs.PersonAttributeType;
 import org.openmrs.api.APIAuthenticationException;
+import org.openmrs.api.AdministrationService;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.PatientService;
 import org.openmrs.api.PersonService;
@@ -48,6 +49,8 @@ public class BahmniPatientServiceImplTest {
     private ConceptService conceptService;
     @Mock
     private PatientDao patientDao;
+    @Mock
+    private AdministrationService administrationService;
 
     private BahmniPatientServiceImpl bahmniPatientService;
 
@@ -55,7 +58,7 @@ public class BahmniPatientServiceImplTest {
     public void setup() {
         initMocks(this);
         when(bahmniCoreApiProperties.getExecutionMode()).thenReturn(new ExecutionMode("false"));
-        bahmniPatientService = new BahmniPatientServiceImpl(patientImageService, patientService, personService, conceptService, bahmniCoreApiProperties, patientMapper, patientDao);
+        bahmniPatientService = new BahmniPatientServiceImpl(patientImageService, patientService, personService, conceptService, bahmniCoreApiProperties, patientMapper, patientDao, administrationService);
     }
 
     @Test
@@ -0,0 +1,110 @@
+package org.bahmni.module.bahmnicore.service.impl;
+
+import org.bahmni.module.bahmnicore.contract.diseasetemplate.DiseaseTemplate;
+import org.bahmni.module.bahmnicore.contract.diseasetemplate.ObservationTemplate;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.module.bahmniemrapi.encountertransaction.contract.BahmniObservation;
+import org.openmrs.module.emrapi.encounter.domain.EncounterTransaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class DiseaseTemplateSnapshotsTest {
+    @Mock
+    private AdministrationService administrationService;
+
+    private DiseaseTemplateSnapshots diseaseTemplateSnapshots;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        when(administrationService.getGlobalProperty(DiseaseTemplateSnapshots.CACHE_SIZE_GLOBAL_PROPERTY)).thenReturn("2");
+        diseaseTemplateSnapshots = new DiseaseTemplateSnapshots(administrationService);
+    }
+
+    @Test
+    public void shouldReturnSnapshotUntilPatientIsEvicted() {
+        diseaseTemplateSnapshots.put("patient1", "latest:Diabetes", diabetesTemplate(), diseaseTemplateSnapshots.getGeneration());
+
+        assertEquals("Diabetes", diseaseTemplateSnapshots.get("patient1", "latest:Diabetes").getConcept().getName());
+        assertNull(diseaseTemplateSnapshots.get("patient1", "all:Diabetes"));
+
+        diseaseTemplateSnapshots.evict("patient1");
+
+        assertNull(diseaseTemplateSnapshots.get("patient1", "latest:Diabetes"));
+    }
+
+    @Test
+    public void shouldKeepOnlyMostRecentlyUsedPatients() {
+        diseaseTemplateSnapshots.put("patient1", "latest:Diabetes", new DiseaseTemplate(), diseaseTemplateSnapshots.getGeneration());
+        diseaseTemplateSnapshots.put("patient2", "latest:Diabetes", new DiseaseTemplate(), diseaseTemplateSnapshots.getGeneration());
+        diseaseTemplateSnapshots.get("patient1", "latest:Diabetes");
+        diseaseTemplateSnapshots.put("patient3", "latest:Diabetes", new DiseaseTemplate(), diseaseTemplateSnapshots.getGeneration());
+
+        assertEquals(2, diseaseTemplateSnapshots.size());
+        assertNull(diseaseTemplateSnapshots.get("patient2", "latest:Diabetes"));
+    }
+
+    @Test
+    public void shouldNotKeepSnapshotsWhenTurnedOff() {
+        when(administrationService.getGlobalProperty(DiseaseTemplateSnapshots.CACHE_SIZE_GLOBAL_PROPERTY)).thenReturn("0");
+        diseaseTemplateSnapshots.globalPropertyChanged(new GlobalProperty(DiseaseTemplateSnapshots.CACHE_SIZE_GLOBAL_PROPERTY, "0"));
+
+        diseaseTemplateSnapshots.put("patient1", "latest:Diabetes", new DiseaseTemplate(), diseaseTemplateSnapshots.getGeneration());
+
+        assertNull(diseaseTemplateSnapshots.get("patient1", "latest:Diabetes"));
+    }
+
+    @Test
+    public void shouldHandOutCopiesOfSnapshots() {
+        DiseaseTemplate diseaseTemplate = diabetesTemplate();
+        diseaseTemplateSnapshots.put("patient1", "latest:Diabetes", diseaseTemplate, diseaseTemplateSnapshots.getGeneration());
+        diseaseTemplate.getObservationTemplates().clear();
+
+        DiseaseTemplate snapshot = diseaseTemplateSnapshots.get("patient1", "latest:Diabetes");
+        snapshot.getObservationTemplates().get(0).getBahmniObservations().iterator().next().setValue(180.0);
+        snapshot.getObservationTemplates().clear();
+
+        DiseaseTemplate anotherSnapshot = diseaseTemplateSnapshots.get("patient1", "latest:Diabetes");
+        assertNotSame(snapshot, anotherSnapshot);
+        assertEquals(1, anotherSnapshot.getObservationTemplates().size());
+        assertEquals(120.0, anotherSnapshot.getObservationTemplates().get(0).getBahmniObservations().iterator().next().getValue());
+    }
+
+    @Test
+    public void shouldNotKeepTemplateBuiltBeforePatientWasEvicted() {
+        long generation = diseaseTemplateSnapshots.getGeneration();
+        diseaseTemplateSnapshots.evict("patient1");
+
+        diseaseTemplateSnapshots.put("patient1", "latest:Diabetes", diabetesTemplate(), generation);
+
+        assertNull(diseaseTemplateSnapshots.get("patient1", "latest:Diabetes"));
+    }
+
+    @Test
+    public void shouldEvictAllPatients() {
+        diseaseTemplateSnapshots.put("patient1", "latest:Diabetes", diabetesTemplate(), diseaseTemplateSnapshots.getGeneration());
+        diseaseTemplateSnapshots.put("patient2", "latest:Diabetes", diabetesTemplate(), diseaseTemplateSnapshots.getGeneration());
+
+        diseaseTemplateSnapshots.evictAll();
+
+        assertEquals(0, diseaseTemplateSnapshots.size());
+    }
+
+    private DiseaseTemplate diabetesTemplate() {
+        EncounterTransaction.Concept bloodSugar = new EncounterTransaction.Concept("bloodSugarUuid", "Blood Sugar");
+        ObservationTemplate observationTemplate = new ObservationTemplate();
+        observationTemplate.setConcept(bloodSugar);
+        observationTemplate.addBahmniObservation(new BahmniObservation().setConcept(bloodSugar).setValue(120.0));
+        DiseaseTemplate diseaseTemplate = new DiseaseTemplate(new EncounterTransaction.Concept("diabetesUuid", "Diabetes"));
+        diseaseTemplate.addObservationTemplate(observationTemplate);
+        return diseaseTemplate;
+    }
+}
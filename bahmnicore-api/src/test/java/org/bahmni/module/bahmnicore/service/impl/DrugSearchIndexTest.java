@@ -0,0 +1,110 @@
+package org.bahmni.module.bahmnicore.service.impl;
+
+import org.bahmni.module.bahmnicore.dao.DrugSearchDao;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.openmrs.Concept;
+import org.openmrs.ConceptName;
+import org.openmrs.Drug;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class DrugSearchIndexTest {
+    @Mock
+    private DrugSearchDao drugSearchDao;
+
+    private DrugSearchIndex drugSearchIndex;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        when(drugSearchDao.getDrugNames()).thenReturn(Arrays.asList(
+                new Object[]{1, "Paracetamol 500mg", false, 10, "Paracetamol"},
+                new Object[]{1, "Paracetamol 500mg", false, 10, "Acetaminophen"},
+                new Object[]{2, "Calpol Syrup", false, 20, "Paracetamol Syrup"},
+                new Object[]{3, "Cetirizine 10mg", false, 30, "Cetirizine"},
+                new Object[]{4, "Amoxicillin 250mg", true, 40, "Amoxicillin"},
+                new Object[]{5, "Ibuprofen/Paracetamol", false, null, null}));
+        drugSearchIndex = new DrugSearchIndex(drugSearchDao);
+    }
+
+    @Test
+    public void shouldNotSearchUntilBuilt() {
+        assertNull(drugSearchIndex.search("para", false));
+    }
+
+    @Test
+    public void shouldRankPrefixMatchesAheadOfInfixMatches() {
+        drugSearchIndex.rebuild();
+
+        assertEquals(Arrays.asList(1, 2, 5), drugSearchIndex.search("Para", false));
+        assertEquals(Arrays.asList(3, 2, 5, 1), drugSearchIndex.search("cet", false));
+        assertEquals(Arrays.asList(3, 2, 5, 1), drugSearchIndex.search("ce", false));
+        assertEquals(Arrays.<Integer>asList(), drugSearchIndex.search("aspirin", false));
+    }
+
+    @Test
+    public void shouldLeaveOutRetiredDrugsUnlessAsked() {
+        drugSearchIndex.rebuild();
+
+        assertEquals(Arrays.<Integer>asList(), drugSearchIndex.search("amox", false));
+        assertEquals(Arrays.asList(4), drugSearchIndex.search("amox", true));
+    }
+
+    @Test
+    public void shouldPickUpSavedAndPurgedDrugsAndRenamedConcepts() {
+        drugSearchIndex.rebuild();
+        Drug drug = new Drug(6);
+        drug.setName("Paracetamol Drops");
+        drug.setRetired(false);
+        Concept cetirizine = new Concept(30);
+        cetirizine.addName(new ConceptName("Zyrtec", Locale.ENGLISH));
+
+        drugSearchIndex.index(drug);
+        drugSearchIndex.remove(new Drug(2));
+        drugSearchIndex.index(cetirizine);
+
+        assertEquals(Arrays.asList(1, 6, 5), drugSearchIndex.search("para", false));
+        assertEquals(Arrays.asList(3), drugSearchIndex.search("zyr", false));
+    }
+
+    @Test
+    public void shouldRenameOnlyDrugsCurrentlyOfTheConcept() {
+        drugSearchIndex.rebuild();
+        Drug drug = new Drug(3);
+        drug.setName("Cetirizine 10mg");
+        drug.setRetired(false);
+        drug.setConcept(new Concept(10));
+        Concept cetirizine = new Concept(30);
+        cetirizine.addName(new ConceptName("Zyrtec", Locale.ENGLISH));
+        Concept paracetamol = new Concept(10);
+        paracetamol.addName(new ConceptName("Tylenol", Locale.ENGLISH));
+
+        drugSearchIndex.index(drug);
+        drugSearchIndex.index(cetirizine);
+        drugSearchIndex.index(paracetamol);
+
+        assertEquals(Arrays.<Integer>asList(), drugSearchIndex.search("zyr", false));
+        assertEquals(Arrays.asList(3, 1), drugSearchIndex.search("tyl", false));
+    }
+
+    @Test
+    public void shouldMatchIgnoringCaseWhateverTheDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr"));
+        try {
+            drugSearchIndex.rebuild();
+
+            assertEquals(Arrays.asList(5), drugSearchIndex.search("IBU", false));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
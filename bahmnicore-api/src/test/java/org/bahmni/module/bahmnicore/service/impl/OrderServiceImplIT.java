@@ -39,6 +39,16 @@ public class OrderServiceImplIT extends BaseModuleWebContextSensitiveTest {
         Assert.assertEquals("Radiology Order", pendingOrder.getOrderType().getName());
     }
 
+    @Test
+    public void shouldPagePendingOrders() throws Exception {
+        String patientUuid = "75e04d42-3ca8-11e3-bf2b-0800271c1b75";
+        String radiologyOrderTypeUuid = "92c1bdef-72d4-49d9-8a1f-804892f66abd";
+        executeDataSet("radiologyOrderTestData.xml");
+
+        Assert.assertEquals(1, bahmniOrderService.getPendingOrders(patientUuid, radiologyOrderTypeUuid, 0, 1).size());
+        Assert.assertTrue(bahmniOrderService.getPendingOrders(patientUuid, radiologyOrderTypeUuid, 1, 1).isEmpty());
+    }
+
     @Test
     public void shouldGetAllVisitsWhenNumberOfVisitsIsNull() throws Exception{
         executeDataSet("drugOrdersForVisits.xml");
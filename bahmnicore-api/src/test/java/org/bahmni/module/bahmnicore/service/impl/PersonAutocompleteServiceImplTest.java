@@ -0,0 +1,147 @@
+package org.bahmni.module.bahmnicore.service.impl;
+
+import org.bahmni.module.bahmnicore.dao.PersonAttributeDao;
+import org.bahmni.module.bahmnicore.dao.PersonNameDao;
+import org.bahmni.module.bahmnicore.dao.UniqueValueHandler;
+import org.bahmni.module.bahmnicore.model.ResultList;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openmrs.Person;
+import org.openmrs.PersonAttribute;
+import org.openmrs.PersonAttributeType;
+import org.openmrs.PersonName;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.PersonService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class PersonAutocompleteServiceImplTest {
+    @Mock
+    private PersonAttributeDao personAttributeDao;
+    @Mock
+    private PersonNameDao personNameDao;
+    @Mock
+    private AdministrationService administrationService;
+    @Mock
+    private PersonService personService;
+
+    private PersonAutocompleteServiceImpl personAutocompleteService;
+    private List<String> readCasteValues;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        readCasteValues = new ArrayList<>();
+        doAnswer(uniqueValues(readCasteValues, "General", "OBC", "Obscure")).when(personAttributeDao).getAllUnique(eq("caste"), any(UniqueValueHandler.class));
+        doAnswer(uniqueValues(new ArrayList<String>(), "Singh", "Sinha")).when(personNameDao).getAllUnique(eq("familyName"), any(UniqueValueHandler.class));
+        when(personService.getPersonAttributeTypeByName("caste")).thenReturn(new PersonAttributeType(1));
+        personAutocompleteService = new PersonAutocompleteServiceImpl(personAttributeDao, personNameDao, administrationService, personService);
+    }
+
+    @Test
+    public void shouldLoadAttributeValuesOnceAndAnswerFromMemory() {
+        assertEquals(Arrays.asList("OBC", "Obscure"), personAutocompleteService.getUniqueAttributeValues("caste", "ob").getResults());
+        assertEquals(Arrays.asList("General"), personAutocompleteService.getUniqueAttributeValues("caste", "g").getResults());
+
+        verify(personAttributeDao, times(1)).getAllUnique(eq("caste"), any(UniqueValueHandler.class));
+        verify(personAttributeDao, never()).getUnique("caste", "ob");
+    }
+
+    @Test
+    public void shouldSearchAttributesThatAreNotPersonAttributeTypesInDatabase() {
+        when(personAttributeDao.getUnique("unknown", "ob")).thenReturn(new ResultList(new ArrayList<String>()));
+
+        personAutocompleteService.getUniqueAttributeValues("unknown", "ob");
+
+        verify(personAttributeDao).getUnique("unknown", "ob");
+        verify(personAttributeDao, never()).getAllUnique(eq("unknown"), any(UniqueValueHandler.class));
+    }
+
+    @Test
+    public void shouldAddValuesOfSavedPersonToLoadedIndexes() {
+        personAutocompleteService.getUniqueAttributeValues("caste", "s");
+        personAutocompleteService.getUniqueNames("familyName", "s");
+
+        personAutocompleteService.index(person("Shah", "caste", "SC"));
+
+        assertEquals(Arrays.asList("SC"), personAutocompleteService.getUniqueAttributeValues("caste", "s").getResults());
+        assertEquals(Arrays.asList("Shah", "Singh", "Sinha"), personAutocompleteService.getUniqueNames("familyName", "s").getResults());
+    }
+
+    @Test
+    public void shouldFallBackToDatabaseWhenIndexDoesNotFitTheMemoryBudget() {
+        when(administrationService.getGlobalProperty(PersonAutocompleteServiceImpl.MEMORY_BUDGET_GLOBAL_PROPERTY)).thenReturn("0");
+        when(personAttributeDao.getUnique("caste", "ob")).thenReturn(new ResultList(Arrays.asList("OBC")));
+
+        assertEquals(Arrays.asList("OBC"), personAutocompleteService.getUniqueAttributeValues("caste", "ob").getResults());
+
+        verify(personAttributeDao).getUnique("caste", "ob");
+        assertEquals(0, personAutocompleteService.getUsedBytes());
+        assertEquals(Arrays.asList("General"), readCasteValues);
+    }
+
+    @Test
+    public void shouldUseDefaultMemoryBudgetWhenGlobalPropertyIsNotANumber() {
+        when(administrationService.getGlobalProperty(PersonAutocompleteServiceImpl.MEMORY_BUDGET_GLOBAL_PROPERTY)).thenReturn("32MB");
+
+        assertEquals(Arrays.asList("OBC", "Obscure"), personAutocompleteService.getUniqueAttributeValues("caste", "ob").getResults());
+    }
+
+    @Test
+    public void shouldSearchNameKeysThatAreNotIndexedInDatabase() {
+        personAutocompleteService.getUniqueNames("familyName2", "s");
+
+        verify(personNameDao).getUnique("familyName2", "s");
+        verify(personNameDao, never()).getAllUnique(eq("familyName2"), any(UniqueValueHandler.class));
+    }
+
+    @Test
+    public void shouldReloadAttributeIndexesAfterInvalidation() {
+        personAutocompleteService.getUniqueAttributeValues("caste", "ob");
+
+        personAutocompleteService.invalidateAttributeIndexes();
+        personAutocompleteService.getUniqueAttributeValues("caste", "ob");
+
+        verify(personAttributeDao, times(2)).getAllUnique(eq("caste"), any(UniqueValueHandler.class));
+    }
+
+    private Answer uniqueValues(final List<String> readValues, final String... values) {
+        return new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                UniqueValueHandler uniqueValueHandler = (UniqueValueHandler) invocation.getArguments()[1];
+                for (String value : values) {
+                    readValues.add(value);
+                    if (!uniqueValueHandler.handle(value)) {
+                        break;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private Person person(String familyName, String attributeTypeName, String attributeValue) {
+        Person person = new Person();
+        person.addName(new PersonName("Ram", null, familyName));
+        PersonAttributeType personAttributeType = new PersonAttributeType();
+        personAttributeType.setName(attributeTypeName);
+        person.addAttribute(new PersonAttribute(personAttributeType, attributeValue));
+        return person;
+    }
+}
@@ -0,0 +1,81 @@
+package org.bahmni.module.bahmnicore.service.impl;
+
+import org.bahmni.module.bahmnicore.service.impl.RestResponseCache.CachedResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.AdministrationService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class RestResponseCacheTest {
+    @Mock
+    private AdministrationService administrationService;
+
+    private RestResponseCache restResponseCache;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        when(administrationService.getGlobalProperty(RestResponseCache.CACHE_SIZE_GLOBAL_PROPERTY)).thenReturn("2");
+        restResponseCache = new RestResponseCache(administrationService);
+    }
+
+    @Test
+    public void shouldReturnResponseWithStrongETagUntilInvalidated() {
+        CachedResponse response = restResponseCache.put("/ws/rest/v1/concept?q=Weight", restResponseCache.getGeneration(), "application/json", "{\"results\":[]}".getBytes());
+
+        assertSame(response, restResponseCache.get("/ws/rest/v1/concept?q=Weight"));
+        assertTrue(response.getETag().startsWith("\"0"));
+        assertTrue(response.matches(response.getETag()));
+        assertFalse(response.matches("\"0abc\""));
+
+        restResponseCache.invalidateAll();
+
+        assertNull(restResponseCache.get("/ws/rest/v1/concept?q=Weight"));
+    }
+
+    @Test
+    public void shouldKeepOnlyMostRecentlyUsedResponses() {
+        restResponseCache.put("concept1", restResponseCache.getGeneration(), "application/json", new byte[0]);
+        restResponseCache.put("concept2", restResponseCache.getGeneration(), "application/json", new byte[0]);
+        restResponseCache.get("concept1");
+        restResponseCache.put("concept3", restResponseCache.getGeneration(), "application/json", new byte[0]);
+
+        assertEquals(2, restResponseCache.size());
+        assertNull(restResponseCache.get("concept2"));
+    }
+
+    @Test
+    public void shouldNotKeepResponsesTooLargeOrWhenTurnedOff() {
+        restResponseCache.put("large", restResponseCache.getGeneration(), "application/json", new byte[RestResponseCache.MAX_CACHED_BODY_SIZE + 1]);
+        assertNull(restResponseCache.get("large"));
+
+        when(administrationService.getGlobalProperty(RestResponseCache.CACHE_SIZE_GLOBAL_PROPERTY)).thenReturn("0");
+        restResponseCache.globalPropertyChanged(new GlobalProperty(RestResponseCache.CACHE_SIZE_GLOBAL_PROPERTY, "0"));
+        CachedResponse response = restResponseCache.put("concept1", restResponseCache.getGeneration(), "application/json", "{}".getBytes());
+
+        assertEquals("{}", new String(response.getBody()));
+        assertNull(restResponseCache.get("concept1"));
+    }
+
+    @Test
+    public void shouldNotKeepResponseReadBeforeTheCacheWasDropped() {
+        long generation = restResponseCache.getGeneration();
+        restResponseCache.invalidateAll();
+
+        CachedResponse response = restResponseCache.put("concept1", generation, "application/json", "{}".getBytes());
+
+        assertEquals("{}", new String(response.getBody()));
+        assertNull(restResponseCache.get("concept1"));
+        restResponseCache.put("concept1", restResponseCache.getGeneration(), "application/json", "{}".getBytes());
+        assertEquals(1, restResponseCache.size());
+    }
+}
@@ -0,0 +1,68 @@
+package org.bahmni.module.bahmnicore.service.impl;
+
+import org.bahmni.module.bahmnicore.util.SqlQuery;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.AdministrationService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class SqlSearchServiceImplTest {
+    private static final String QUERY_ID = "emrapi.sqlSearch.activePatients";
+
+    @Mock
+    private AdministrationService administrationService;
+
+    private SqlSearchServiceImpl sqlSearchService;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        sqlSearchService = new SqlSearchServiceImpl();
+        sqlSearchService.setAdministrationService(administrationService);
+        when(administrationService.getGlobalProperty(QUERY_ID)).thenReturn("select * from visit where location_id = ${location_id}");
+    }
+
+    @Test
+    public void shouldParseQueryOnlyOnce() {
+        SqlQuery first = sqlSearchService.getSqlQuery(QUERY_ID);
+        SqlQuery second = sqlSearchService.getSqlQuery(QUERY_ID);
+
+        assertSame(first, second);
+        assertEquals("select * from visit where location_id = ?", first.getStatement());
+        verify(administrationService, times(1)).getGlobalProperty(QUERY_ID);
+    }
+
+    @Test
+    public void shouldParseQueryAgainWhenGlobalPropertyChanges() {
+        sqlSearchService.getSqlQuery(QUERY_ID);
+        assertTrue(sqlSearchService.supportsPropertyName(QUERY_ID));
+
+        when(administrationService.getGlobalProperty(QUERY_ID)).thenReturn("select * from visit where patient_id = ${patient_id}");
+        sqlSearchService.globalPropertyChanged(new GlobalProperty(QUERY_ID, "select * from visit where patient_id = ${patient_id}"));
+        SqlQuery sqlQuery = sqlSearchService.getSqlQuery(QUERY_ID);
+
+        assertEquals("select * from visit where patient_id = ?", sqlQuery.getStatement());
+        assertEquals("patient_id", sqlQuery.getParamNames().get(0));
+    }
+
+    @Test
+    public void shouldNotListenToUnrelatedGlobalProperties() {
+        assertFalse(sqlSearchService.supportsPropertyName("some.other.property"));
+        assertTrue(sqlSearchService.supportsPropertyName(SqlSearchServiceImpl.FETCH_SIZE_GLOBAL_PROPERTY));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldFailForUnknownQuery() {
+        sqlSearchService.getSqlQuery("unknown.query");
+    }
+}
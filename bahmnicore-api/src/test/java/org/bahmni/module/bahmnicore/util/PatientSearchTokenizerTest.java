@@ -0,0 +1,49 @@
+package org.bahmni.module.bahmnicore.util;
+
+import org.junit.Test;
+import org.openmrs.Patient;
+import org.openmrs.PersonName;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PatientSearchTokenizerTest {
+
+    @Test
+    public void shouldTokenizeNamePartsInLowerCaseLeavingOutIdentifiers() {
+        Patient patient = new PatientMother().withName("Ram Kumar", null, "Singh").withPatientIdentifier("GAN200001").build();
+
+        assertEquals(Arrays.asList("ram", "kumar", "singh"), new ArrayList<>(PatientSearchTokenizer.tokensOf(patient)));
+    }
+
+    @Test
+    public void shouldIgnoreVoidedNames() {
+        Patient patient = new PatientMother().withName("Ram", null, "Singh").withPatientIdentifier("GAN200001").build();
+        PersonName voidedName = new PersonName("Shyam", null, "Sharma");
+        voidedName.setVoided(true);
+        patient.addName(voidedName);
+
+        assertEquals(Arrays.asList("ram", "singh"), new ArrayList<>(PatientSearchTokenizer.tokensOf(patient)));
+    }
+
+    @Test
+    public void shouldLowerCaseIndependentOfTheDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr"));
+        try {
+            assertEquals(Arrays.asList("ibrahim"), PatientSearchTokenizer.tokenize("IBRAHIM"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void shouldReturnNoTokensForBlankValue() {
+        assertTrue(PatientSearchTokenizer.tokenize("  ").isEmpty());
+        assertTrue(PatientSearchTokenizer.tokenize(null).isEmpty());
+    }
+}
@@ -0,0 +1,46 @@
+package org.bahmni.module.bahmnicore.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrefixIndexTest {
+
+    @Test
+    public void shouldFindValuesByCaseInsensitivePrefixInSortedOrder() {
+        PrefixIndex prefixIndex = new PrefixIndex();
+        prefixIndex.add("Singh");
+        prefixIndex.add("sinha");
+        prefixIndex.add("Banka");
+        prefixIndex.add("Sin");
+
+        assertEquals(Arrays.asList("Sin", "Singh", "sinha"), prefixIndex.find("SIN", 20));
+    }
+
+    @Test
+    public void shouldLimitResults() {
+        PrefixIndex prefixIndex = new PrefixIndex();
+        prefixIndex.add("test1");
+        prefixIndex.add("test2");
+        prefixIndex.add("test3");
+
+        assertEquals(Arrays.asList("test1", "test2"), prefixIndex.find("test", 2));
+    }
+
+    @Test
+    public void shouldKeepValuesDistinctIgnoringCaseAndTrackTheirSize() {
+        PrefixIndex prefixIndex = new PrefixIndex();
+
+        assertTrue(prefixIndex.add("Singh") > 0);
+        assertEquals(0, prefixIndex.add("Singh"));
+        assertEquals(0, prefixIndex.add(null));
+        assertEquals(0, prefixIndex.add("SINGH"));
+
+        assertEquals(1, prefixIndex.size());
+        assertEquals(Arrays.asList("Singh"), prefixIndex.find("sing", 20));
+        assertTrue(prefixIndex.getEstimatedSizeInBytes() > 0);
+    }
+}
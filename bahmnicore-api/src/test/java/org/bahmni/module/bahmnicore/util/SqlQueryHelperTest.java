@@ -31,4 +31,14 @@ public class SqlQueryHelperTest {
         String result = sqlQueryHelper.transformIntoPreparedStatementFormat(queryString);
         assertEquals(expectQueryString,result);
     }
+
+    @Test
+    public void shouldParseQueryIntoStatementAndParamNames(){
+        String queryString ="select * from encounter where visit_id=${en_visit_id} and patient_id=${en_patient_id}";
+        SqlQuery sqlQuery = sqlQueryHelper.parse(queryString);
+        assertEquals("select * from encounter where visit_id=? and patient_id=?", sqlQuery.getStatement());
+        assertEquals(2, sqlQuery.getParamNames().size());
+        assertEquals("en_visit_id", sqlQuery.getParamNames().get(0));
+        assertEquals("en_patient_id", sqlQuery.getParamNames().get(1));
+    }
 }
@@ -0,0 +1,57 @@
+package org.bahmni.module.bahmnicore.util;
+
+import org.bahmni.module.bahmnicore.contract.encounter.data.NumericTrendData.Point;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TrendDownsamplerTest {
+
+    @Test
+    public void shouldKeepSeriesThatFit() {
+        List<Point> points = Arrays.asList(point(0, 1.0), point(1, 2.0));
+
+        assertSame(points, TrendDownsampler.minMax(points, 2));
+    }
+
+    @Test
+    public void shouldKeepLowestAndHighestPointOfEachBucketInTimeOrder() {
+        List<Point> points = Arrays.asList(point(0, 5.0), point(1, 9.0), point(2, 1.0), point(3, 4.0),
+                point(4, 3.0), point(5, 3.0), point(6, 8.0), point(7, 2.0));
+
+        List<Point> downsampled = TrendDownsampler.minMax(points, 4);
+
+        assertEquals(Arrays.asList(9.0, 1.0, 8.0, 2.0), values(downsampled));
+        assertEquals(1, downsampled.get(0).getObservationDate().getTime());
+        assertEquals(7, downsampled.get(3).getObservationDate().getTime());
+    }
+
+    @Test
+    public void shouldKeepOnePointOfFlatBucketsAndSkipEmptyOnes() {
+        List<Point> points = Arrays.asList(point(0, 3.0), point(1, 3.0), point(2, 3.0), point(3, 3.0),
+                point(4, 3.0), point(5, 3.0), point(100, 7.0));
+
+        List<Point> downsampled = TrendDownsampler.minMax(points, 6);
+
+        assertEquals(Arrays.asList(3.0, 7.0), values(downsampled));
+        assertEquals(0, downsampled.get(0).getObservationDate().getTime());
+    }
+
+    private List<Double> values(List<Point> points) {
+        List<Double> values = new ArrayList<>();
+        for (Point point : points) {
+            values.add(point.getValue());
+        }
+        return values;
+    }
+
+    private Point point(long time, Double value) {
+        return new Point(new Date(time), value);
+    }
+}
@@ -13,31 +13,42 @@
  */
 package org.openmrs.module.bahmnicore.web.filter;
 
-import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.bahmni.module.bahmnicore.service.impl.RestResponseCache;
+import org.bahmni.module.bahmnicore.service.impl.RestResponseCache.CachedResponse;
+import org.openmrs.User;
 import org.openmrs.api.context.Context;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.util.Date;
 
 /**
- * Filter intended for all /ws/rest/* calls to sets Expires headers
- * based on global property bahmni.cacheHeadersFilter.expiresDuration
+ * Filter intended for read mostly /ws/rest/* calls (concepts, reference data, configs) to set Expires headers
+ * based on global property bahmni.cacheHeadersFilter.expiresDuration, and strong ETags. Successful GET responses
+ * are kept in {@link RestResponseCache} per user, locale and Accept header, so a repeated request is served,
+ * or answered with 304 Not Modified when its If-None-Match matches, without running the controller again.
  */
 public class CacheHeadersFilter implements Filter {
 
     protected final Log log = LogFactory.getLog(getClass());
 
+    private RestResponseCache restResponseCache;
+
     @Override
     public void init(FilterConfig arg0) throws ServletException {
         log.debug("Initializing CacheHeadersFilter");
@@ -51,19 +62,168 @@ public class CacheHeadersFilter implements Filter {
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException,
             ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)
+                || !"GET".equals(((HttpServletRequest) request).getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        chain.doFilter(request, response);
+        String cacheKey = getCacheKey(httpRequest);
+        CachedResponse cachedResponse = cacheKey == null ? null : getRestResponseCache().get(cacheKey);
+        if (cachedResponse != null) {
+            log.debug(String.format("Serving %s from the response cache", cacheKey));
+            write(cachedResponse, httpRequest, httpResponse);
+            return;
+        }
 
-        if (response instanceof HttpServletResponse) {
-            HttpServletResponse httpResponse = (HttpServletResponse) response;
-            HttpServletRequest httpRequest = (HttpServletRequest) request;
-            if ("GET".equals(httpRequest.getMethod()) &&  httpResponse.getStatus() == 200) {
-                int expiresDuration = NumberUtils.toInt(Context.getAdministrationService().getGlobalProperty("bahmni.cacheHeadersFilter.expiresDuration"), 0);
-                log.debug(String.format("Setting expires header with duration %s", expiresDuration));
-                httpResponse.setDateHeader("Expires", DateUtils.addMinutes(new Date(), expiresDuration).getTime());
-             }
+        long generation = getRestResponseCache().getGeneration();
+        BufferingResponseWrapper responseWrapper = new BufferingResponseWrapper(httpResponse);
+        chain.doFilter(request, responseWrapper);
+        if (responseWrapper.isSentWithoutBody()) {
+            return;
         }
+        byte[] body = responseWrapper.getBody();
+        if (httpResponse.getStatus() != HttpServletResponse.SC_OK || cacheKey == null) {
+            if (httpResponse.getStatus() == HttpServletResponse.SC_OK) {
+                setExpiresHeader(httpResponse);
+            }
+            copy(body, httpResponse);
+            return;
+        }
+        write(getRestResponseCache().put(cacheKey, generation, httpResponse.getContentType(), body), httpRequest, httpResponse);
+    }
+
+    private void write(CachedResponse cachedResponse, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        setExpiresHeader(response);
+        response.setHeader("ETag", cachedResponse.getETag());
+        if (cachedResponse.matches(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        if (cachedResponse.getContentType() != null) {
+            response.setContentType(cachedResponse.getContentType());
+        }
+        copy(cachedResponse.getBody(), response);
     }
-}
 
+    private void copy(byte[] body, HttpServletResponse response) throws IOException {
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void setExpiresHeader(HttpServletResponse response) {
+        int expiresDuration = getRestResponseCache().getExpiresDuration();
+        log.debug(String.format("Setting expires header with duration %s", expiresDuration));
+        response.setDateHeader("Expires", DateUtils.addMinutes(new Date(), expiresDuration).getTime());
+    }
+
+    /**
+     * Responses depend on the privileges and locale of the user, so they are only cached for an authenticated user.
+     */
+    private String getCacheKey(HttpServletRequest request) {
+        User user = Context.getAuthenticatedUser();
+        if (user == null) {
+            return null;
+        }
+        return request.getRequestURI() + "?" + request.getQueryString() + "|" + request.getHeader("Accept")
+                + "|" + Context.getLocale() + "|" + user.getUuid();
+    }
+
+    private RestResponseCache getRestResponseCache() {
+        if (restResponseCache == null) {
+            restResponseCache = Context.getRegisteredComponents(RestResponseCache.class).get(0);
+        }
+        return restResponseCache;
+    }
+
+    private static class BufferingResponseWrapper extends HttpServletResponseWrapper {
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean sentWithoutBody;
+
+        private BufferingResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            sentWithoutBody = true;
+            super.sendError(sc);
+        }
 
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            sentWithoutBody = true;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            sentWithoutBody = true;
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void setContentLength(int len) {
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        content.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        content.write(b, off, len);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                String characterEncoding = getCharacterEncoding() == null ? "ISO-8859-1" : getCharacterEncoding();
+                writer = new PrintWriter(new OutputStreamWriter(content, characterEncoding));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            content.reset();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            content.reset();
+        }
+
+        private boolean isSentWithoutBody() {
+            return sentWithoutBody;
+        }
+
+        private byte[] getBody() {
+            if (writer != null) {
+                writer.flush();
+            }
+            return content.toByteArray();
+        }
+    }
+}
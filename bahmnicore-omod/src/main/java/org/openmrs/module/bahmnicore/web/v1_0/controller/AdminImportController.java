@@ -1,6 +1,7 @@
 package org.openmrs.module.bahmnicore.web.v1_0.controller;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.apache.log4j.Logger;
 import org.bahmni.csv.CSVFile;
@@ -22,6 +23,7 @@ import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseRestControlle
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -48,8 +50,13 @@ public class AdminImportController extends BaseRestController {
 
     public static final String PARENT_DIRECTORY_UPLOADED_FILES_CONFIG = "uploaded.files.directory";
     public static final String SHOULD_MATCH_EXACT_PATIENT_ID_CONFIG = "uploaded.should.matchExactPatientId";
+    public static final String ENCOUNTER_IMPORT_THREADS_CONFIG = "bahmni.encounterImport.numberOfThreads";
+    public static final String IMPORT_CHUNK_SIZE_CONFIG = "bahmni.csvImport.chunkSize";
 
     private static final boolean DEFAULT_SHOULD_MATCH_EXACT_PATIENT_ID = false;
+    private static final int DEFAULT_ENCOUNTER_IMPORT_THREADS = 5;
+    private static final int DEFAULT_IMPORT_CHUNK_SIZE = 0;
+    private static final int MAX_IMPORT_CHUNK_SIZE = 100;
     public static final String ENCOUNTER_FILES_DIRECTORY = "encounter/";
     private static final String PROGRAM_FILES_DIRECTORY = "program/";
     private static final String CONCEPT_FILES_DIRECTORY = "concept/";
@@ -60,7 +67,7 @@ public class AdminImportController extends BaseRestController {
     private static final String REFERENCETERM_FILES_DIRECTORY = "referenceterms/";
 
     @Autowired
-    private EncounterPersister encounterPersister;
+    private PartitionedEncounterPersister partitionedEncounterPersister;
 
     @Autowired
     private PatientProgramPersister patientProgramPersister;
@@ -86,6 +93,9 @@ public class AdminImportController extends BaseRestController {
     @Autowired
     private SessionFactory sessionFactory;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Autowired
     @Qualifier("adminService")
     private AdministrationService administrationService;
@@ -94,8 +104,8 @@ public class AdminImportController extends BaseRestController {
     @ResponseBody
     public boolean upload(@RequestParam(value = "file") MultipartFile file) throws IOException {
         try {
-            patientPersister.init(Context.getUserContext());
-            return importCsv(PATIENT_FILES_DIRECTORY, file, patientPersister, 1, true, PatientRow.class);
+            patientPersister.init();
+            return importInChunks(PATIENT_FILES_DIRECTORY, file, patientPersister, true, PatientRow.class);
         } catch (Throwable e) {
             logger.error("Could not upload file", e);
             throw e;
@@ -111,8 +121,10 @@ public class AdminImportController extends BaseRestController {
             if (configuredExactPatientIdMatch != null)
                 shouldMatchExactPatientId = Boolean.parseBoolean(configuredExactPatientIdMatch);
 
-            encounterPersister.init(Context.getUserContext(), patientMatchingAlgorithm, shouldMatchExactPatientId);
-            return importCsv(ENCOUNTER_FILES_DIRECTORY, file, encounterPersister, 5, true, MultipleEncounterRow.class);
+            int numberOfThreads = NumberUtils.toInt(administrationService.getGlobalProperty(ENCOUNTER_IMPORT_THREADS_CONFIG), DEFAULT_ENCOUNTER_IMPORT_THREADS);
+            partitionedEncounterPersister.init(Context.getUserContext(), patientMatchingAlgorithm, shouldMatchExactPatientId, numberOfThreads);
+            // Twice as many readers as partitions, so a partition still has rows queued while a reader waits on another
+            return importCsv(ENCOUNTER_FILES_DIRECTORY, file, partitionedEncounterPersister, numberOfThreads * 2, true, MultipleEncounterRow.class);
         } catch (Throwable e) {
             logger.error("Could not upload file", e);
             throw e;
@@ -148,7 +160,7 @@ public class AdminImportController extends BaseRestController {
     @ResponseBody
     public boolean uploadDrug(@RequestParam(value = "file") MultipartFile file) throws IOException {
         try {
-            return importCsv(DRUG_FILES_DIRECTORY, file, new DatabasePersister<>(drugPersister), 1, false, DrugRow.class);
+            return importInChunks(DRUG_FILES_DIRECTORY, file, drugPersister, false, DrugRow.class);
         } catch (Throwable e) {
             logger.error("Could not upload file", e);
             throw e;
@@ -197,6 +209,23 @@ public class AdminImportController extends BaseRestController {
         return importStatusDao.getImportStatusFromDate(DateUtils.addDays(new Date(), (numberOfDays * -1)));
     }
 
+    @RequestMapping(value = baseUrl + "/status/encounter", method = RequestMethod.GET)
+    @ResponseBody
+    public ImportThroughput encounterImportThroughput() {
+        return partitionedEncounterPersister.getThroughput();
+    }
+
+    // A chunk size above 0 saves rows in chunked transactions instead of one transaction per row. A row is only
+    // reported once its chunk commits, so the migrator gets one thread per row of a chunk.
+    private <T extends org.bahmni.csv.CSVEntity> boolean importInChunks(String filesDirectory, MultipartFile file, EntityPersister<T> persister,
+                                                                        boolean skipValidation, Class entityClass) throws IOException {
+        int chunkSize = Math.min(NumberUtils.toInt(administrationService.getGlobalProperty(IMPORT_CHUNK_SIZE_CONFIG), DEFAULT_IMPORT_CHUNK_SIZE), MAX_IMPORT_CHUNK_SIZE);
+        if (chunkSize <= 0) {
+            return importCsv(filesDirectory, file, new DatabasePersister<>(persister), 1, skipValidation, entityClass);
+        }
+        return importCsv(filesDirectory, file, new ChunkedTransactionPersister<>(persister, transactionManager, chunkSize), chunkSize, skipValidation, entityClass);
+    }
+
     private <T extends org.bahmni.csv.CSVEntity> boolean importCsv(String filesDirectory, MultipartFile file, EntityPersister<T> persister,
                                                                    int numberOfThreads, boolean skipValidation, Class entityClass) throws IOException {
         String uploadedOriginalFileName = ((CommonsMultipartFile) file).getFileItem().getName();
@@ -1,25 +1,31 @@
 package org.openmrs.module.bahmnicore.web.v1_0.controller;
 
 import org.bahmni.module.bahmnicore.contract.encounter.data.ConceptData;
+import org.bahmni.module.bahmnicore.contract.encounter.data.NumericTrendData;
 import org.bahmni.module.bahmnicore.contract.encounter.data.PersonObservationData;
 import org.bahmni.module.bahmnicore.service.BahmniObsService;
 import org.openmrs.Concept;
 import org.openmrs.ConceptNumeric;
 import org.openmrs.Obs;
+import org.openmrs.module.emrapi.encounter.DateMapper;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseRestController;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 @Controller
 @RequestMapping(value = "/rest/" + RestConstants.VERSION_1 + "/bahmnicore/bahmniobs")
 public class BahmniTrendsController extends BaseRestController {
+    private static final int DEFAULT_MAX_POINTS = 500;
+
     @Autowired
     private BahmniObsService personObsService;
 
@@ -48,6 +54,24 @@ public class BahmniTrendsController extends BaseRestController {
         return observationDataList;
     }
 
+    /**
+     * Numeric obs of the concepts within the date window, as (date, value) points reduced to at most maxPoints per
+     * concept by keeping the lowest and highest value of each time bucket. Without a startDate the window is the
+     * year up to endDate, or up to now.
+     */
+    @RequestMapping(method = RequestMethod.GET, value = "trends")
+    @ResponseBody
+    public List<NumericTrendData> getTrends(@RequestParam("patientUuid") String patientUuid,
+                                            @RequestParam("conceptUuids") List<String> conceptUuids,
+                                            @RequestParam(value = "startDate", required = false) String startDate,
+                                            @RequestParam(value = "endDate", required = false) String endDate,
+                                            @RequestParam(value = "maxPoints", required = false) Integer maxPoints) {
+        DateMapper dateMapper = new DateMapper();
+        Date from = startDate == null ? null : dateMapper.toDate(startDate);
+        Date to = endDate == null ? null : dateMapper.toDate(endDate);
+        return personObsService.getNumericTrends(patientUuid, conceptUuids, from, to, maxPoints == null ? DEFAULT_MAX_POINTS : maxPoints);
+    }
+
     @RequestMapping(method = RequestMethod.GET, value = "concepts")
     @ResponseBody
     public List<ConceptData> getConceptsfor(String patientUUID) {
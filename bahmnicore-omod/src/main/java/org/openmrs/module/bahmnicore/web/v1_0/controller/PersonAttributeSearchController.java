@@ -2,8 +2,8 @@ package org.openmrs.module.bahmnicore.web.v1_0.controller;
 
 import org.openmrs.module.webservices.rest.web.annotation.WSDoc;
 import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseRestController;
-import org.bahmni.module.bahmnicore.dao.PersonAttributeDao;
 import org.bahmni.module.bahmnicore.model.ResultList;
+import org.bahmni.module.bahmnicore.service.PersonAutocompleteService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -14,16 +14,16 @@ import org.springframework.web.bind.annotation.RequestParam;
 @RequestMapping(value = "/rest/v1/bahmnicore/unique/personattribute")
 public class PersonAttributeSearchController extends BaseRestController {
 	
-	private PersonAttributeDao personAttributeDao;
+	private PersonAutocompleteService personAutocompleteService;
 	
 	@Autowired
-	public PersonAttributeSearchController(PersonAttributeDao personAttributeDao) {
-		this.personAttributeDao = personAttributeDao;
+	public PersonAttributeSearchController(PersonAutocompleteService personAutocompleteService) {
+		this.personAutocompleteService = personAutocompleteService;
 	}
 	
 	@RequestMapping(method = RequestMethod.GET, params = { "q", "key" })
 	@WSDoc("Get unique values for a person attribute")
 	public ResultList search(@RequestParam String key, @RequestParam String q) {
-		return personAttributeDao.getUnique(key, q);
+		return personAutocompleteService.getUniqueAttributeValues(key, q);
 	}
 }
@@ -2,8 +2,8 @@ package org.openmrs.module.bahmnicore.web.v1_0.controller;
 
 import org.openmrs.module.webservices.rest.web.annotation.WSDoc;
 import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseRestController;
-import org.bahmni.module.bahmnicore.dao.PersonNameDao;
 import org.bahmni.module.bahmnicore.model.ResultList;
+import org.bahmni.module.bahmnicore.service.PersonAutocompleteService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -14,16 +14,16 @@ import org.springframework.web.bind.annotation.RequestParam;
 @RequestMapping(value = "/rest/v1/bahmnicore/unique/personname")
 public class PersonNameSearchController extends BaseRestController {
 	
-	private PersonNameDao namesDao;
+	private PersonAutocompleteService personAutocompleteService;
 	
 	@Autowired
-	public PersonNameSearchController(PersonNameDao namesDao) {
-		this.namesDao = namesDao;
+	public PersonNameSearchController(PersonAutocompleteService personAutocompleteService) {
+		this.personAutocompleteService = personAutocompleteService;
 	}
 	
 	@RequestMapping(method = RequestMethod.GET, params = { "q", "key" })
 	@WSDoc("Returns unique patient attributes for the given key that match the query term")
 	public ResultList searchFor(@RequestParam String q, @RequestParam String key) {
-		return namesDao.getUnique(key, q);
+		return personAutocompleteService.getUniqueNames(key, q);
 	}
 }
\ No newline at end of file
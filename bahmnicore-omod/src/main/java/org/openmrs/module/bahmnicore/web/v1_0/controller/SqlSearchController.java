@@ -1,6 +1,11 @@
 package org.openmrs.module.bahmnicore.web.v1_0.controller;
 
+import org.apache.log4j.Logger;
+import org.bahmni.module.bahmnicore.service.RowHandler;
 import org.bahmni.module.bahmnicore.service.SqlSearchService;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
 import org.openmrs.module.webservices.rest.SimpleObject;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseRestController;
@@ -12,19 +17,89 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @Controller
 @RequestMapping(method = RequestMethod.GET, value = "/rest/" + RestConstants.VERSION_1 + "/bahmnicore/sql")
 public class SqlSearchController extends BaseRestController {
+    private static Logger logger = Logger.getLogger(SqlSearchController.class);
 
-    @Autowired
     private SqlSearchService sqlSearchService;
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    public SqlSearchController(SqlSearchService sqlSearchService) {
+        this.sqlSearchService = sqlSearchService;
+    }
+
     @RequestMapping(method = RequestMethod.GET)
     @ResponseBody
     public List<SimpleObject> search(@RequestParam("q") String query, HttpServletRequest request) throws Exception {
         return sqlSearchService.search(query, request.getParameterMap());
     }
 
+    /**
+     * Writes rows as they are read. Nothing is written until the first row comes, so a query failing before
+     * that gets the usual error response. Once rows are sent the status can no longer change, so a failure
+     * ends the array with an {"error": {"message": ...}} element instead of leaving it truncated.
+     */
+    @RequestMapping(method = RequestMethod.GET, params = "stream=true")
+    public void streamSearch(@RequestParam("q") String query, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        JsonRowWriter rowWriter = new JsonRowWriter(response);
+        try {
+            sqlSearchService.search(query, request.getParameterMap(), rowWriter);
+        } catch (Exception e) {
+            if (!rowWriter.isStarted()) {
+                throw e;
+            }
+            logger.error("Sql search " + query + " failed after rows were sent", e);
+            rowWriter.fail(e);
+            return;
+        }
+        rowWriter.finish();
+    }
+
+    private class JsonRowWriter implements RowHandler {
+        private final HttpServletResponse response;
+        private JsonGenerator jsonGenerator;
+
+        JsonRowWriter(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void handle(SimpleObject row) throws Exception {
+            start();
+            jsonGenerator.writeObject(row);
+        }
+
+        boolean isStarted() {
+            return jsonGenerator != null;
+        }
+
+        void finish() throws IOException {
+            start();
+            jsonGenerator.writeEndArray();
+            jsonGenerator.close();
+        }
+
+        void fail(Exception e) throws IOException {
+            jsonGenerator.writeObject(new SimpleObject().add("error", new SimpleObject().add("message", e.getMessage())));
+            finish();
+        }
+
+        private void start() throws IOException {
+            if (jsonGenerator != null) {
+                return;
+            }
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            jsonGenerator = objectMapper.getJsonFactory().createJsonGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+            jsonGenerator.writeStartArray();
+        }
+    }
+
 }
@@ -1,15 +1,18 @@
 package org.openmrs.module.bahmnicore.web.v1_0.search;
 
+import org.bahmni.module.bahmnicore.service.impl.DrugSearchIndex;
 import org.openmrs.Drug;
-import org.openmrs.api.context.Context;
+import org.openmrs.api.ConceptService;
 import org.openmrs.module.webservices.rest.web.RequestContext;
 import org.openmrs.module.webservices.rest.web.RestConstants;
 import org.openmrs.module.webservices.rest.web.resource.api.PageableResult;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchConfig;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchHandler;
 import org.openmrs.module.webservices.rest.web.resource.api.SearchQuery;
+import org.openmrs.module.webservices.rest.web.resource.impl.AlreadyPaged;
 import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
 import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -20,6 +23,15 @@ import java.util.List;
 @Component
 public class BahmniDrugSearchHandler implements SearchHandler {
 
+    private ConceptService conceptService;
+    private DrugSearchIndex drugSearchIndex;
+
+    @Autowired
+    public BahmniDrugSearchHandler(ConceptService conceptService, DrugSearchIndex drugSearchIndex) {
+        this.conceptService = conceptService;
+        this.drugSearchIndex = drugSearchIndex;
+    }
+
     @Override
     public SearchConfig getSearchConfig() {
         SearchQuery searchQuery = new SearchQuery.Builder("Allows you to search for drugs").withRequiredParameters("q").build();
@@ -31,17 +43,35 @@ public class BahmniDrugSearchHandler implements SearchHandler {
         boolean includeRetired = ctx.getIncludeAll();
         String searchPhrase = ctx.getParameter("q");
 
+        List<Integer> drugIds = drugSearchIndex.search(searchPhrase, includeRetired);
+        if (drugIds != null) {
+            return getPage(drugIds, ctx);
+        }
+
         LinkedHashSet<Drug> drugs = new LinkedHashSet<>(findDrugsStartingWith(searchPhrase, includeRetired, ctx));
         drugs.addAll(findDrugsContaining(searchPhrase, includeRetired, ctx));
 
         return new NeedsPaging<>(new ArrayList<>(drugs), ctx);
     }
 
+    private PageableResult getPage(List<Integer> drugIds, RequestContext ctx) {
+        int startIndex = Math.min(ctx.getStartIndex(), drugIds.size());
+        int endIndex = Math.min(startIndex + ctx.getLimit(), drugIds.size());
+        List<Drug> drugs = new ArrayList<>();
+        for (Integer drugId : drugIds.subList(startIndex, endIndex)) {
+            Drug drug = conceptService.getDrug(drugId);
+            if (drug != null) {
+                drugs.add(drug);
+            }
+        }
+        return new AlreadyPaged<>(ctx, drugs, endIndex < drugIds.size());
+    }
+
     private List<Drug> findDrugsStartingWith(String searchPhrase, boolean includeRetired, RequestContext ctx) {
-        return Context.getConceptService().getDrugs(searchPhrase, null, false, true, includeRetired, ctx.getStartIndex(), ctx.getLimit());
+        return conceptService.getDrugs(searchPhrase, null, false, true, includeRetired, ctx.getStartIndex(), ctx.getLimit());
     }
 
     private List<Drug> findDrugsContaining(String searchPhrase, boolean includeRetired, RequestContext ctx) {
-        return Context.getConceptService().getDrugs(searchPhrase, null, true, true, includeRetired, ctx.getStartIndex(), ctx.getLimit());
+        return conceptService.getDrugs(searchPhrase, null, true, true, includeRetired, ctx.getStartIndex(), ctx.getLimit());
     }
 }
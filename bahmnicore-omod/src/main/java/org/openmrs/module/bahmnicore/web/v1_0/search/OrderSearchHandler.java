@@ -37,8 +37,12 @@ public class OrderSearchHandler implements SearchHandler{
         String patientUuid = requestContext.getParameter("patientUuid");
         String orderTypeUuid = requestContext.getParameter("orderTypeUuid");
 
-        List<Order> pendingOrders = bahmniOrderService.getPendingOrders(patientUuid, orderTypeUuid);
-        return new AlreadyPaged<>(requestContext, pendingOrders, false);
+        List<Order> pendingOrders = bahmniOrderService.getPendingOrders(patientUuid, orderTypeUuid, requestContext.getStartIndex(), requestContext.getLimit() + 1);
+        boolean hasMoreResults = pendingOrders.size() > requestContext.getLimit();
+        if (hasMoreResults) {
+            pendingOrders = pendingOrders.subList(0, requestContext.getLimit());
+        }
+        return new AlreadyPaged<>(requestContext, pendingOrders, hasMoreResults);
     }
 }
 
@@ -3,8 +3,8 @@ package org.bahmni.module.bahmnicore.web.v1_0.controller;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
-import org.bahmni.module.bahmnicore.dao.PersonAttributeDao;
 import org.bahmni.module.bahmnicore.model.ResultList;
+import org.bahmni.module.bahmnicore.service.PersonAutocompleteService;
 import org.openmrs.module.bahmnicore.web.v1_0.controller.PersonAttributeSearchController;
 
 import java.util.Arrays;
@@ -18,24 +18,24 @@ public class PersonAttributeSearchControllerTest {
 	private PersonAttributeSearchController controller;
 	
 	@Mock
-	PersonAttributeDao personAttributeDao;
+	PersonAutocompleteService personAutocompleteService;
 	
 	@Before
 	public void init() {
 		initMocks(this);
-		controller = new PersonAttributeSearchController(personAttributeDao);
+		controller = new PersonAttributeSearchController(personAutocompleteService);
 	}
 	
 	@Test
-	public void shouldCallDaoToSearchForPatientAttributeValuesForCaste() {
+	public void shouldCallServiceToSearchForPatientAttributeValuesForCaste() {
 		String query = "someCaste";
 		String personAttribute = "caste";
-		when(personAttributeDao.getUnique(personAttribute, query)).thenReturn(
+		when(personAutocompleteService.getUniqueAttributeValues(personAttribute, query)).thenReturn(
 		    new ResultList(Arrays.asList("blah1", "blah2", "blah3")));
 		
 		controller.search(personAttribute, query);
 		
-		verify(personAttributeDao).getUnique(personAttribute, query);
+		verify(personAutocompleteService).getUniqueAttributeValues(personAttribute, query);
 	}
 	
 }
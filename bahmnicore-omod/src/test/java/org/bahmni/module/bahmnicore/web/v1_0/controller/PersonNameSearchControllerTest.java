@@ -3,8 +3,8 @@ package org.bahmni.module.bahmnicore.web.v1_0.controller;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
-import org.bahmni.module.bahmnicore.dao.PersonNameDao;
 import org.bahmni.module.bahmnicore.model.ResultList;
+import org.bahmni.module.bahmnicore.service.PersonAutocompleteService;
 import org.openmrs.module.bahmnicore.web.v1_0.controller.PersonNameSearchController;
 
 import java.util.Arrays;
@@ -19,7 +19,7 @@ import static org.mockito.MockitoAnnotations.initMocks;
 public class PersonNameSearchControllerTest {
 	
 	@Mock
-	PersonNameDao lastNameList;
+	PersonAutocompleteService personAutocompleteService;
 	
 	@Before
 	public void setup() {
@@ -27,16 +27,16 @@ public class PersonNameSearchControllerTest {
 	}
 	
 	@Test
-	public void shouldCallDaoToSearchForPatientLastNames() {
+	public void shouldCallServiceToSearchForPatientLastNames() {
 		String query = "family";
 		String key = "familyName";
 		List<String> requiredResult = Arrays.asList("familyName1", "familyName2", "familyName3");
-		when(lastNameList.getUnique(key, query)).thenReturn(new ResultList(requiredResult));
-		PersonNameSearchController controller = new PersonNameSearchController(lastNameList);
+		when(personAutocompleteService.getUniqueNames(key, query)).thenReturn(new ResultList(requiredResult));
+		PersonNameSearchController controller = new PersonNameSearchController(personAutocompleteService);
 		
 		ResultList resultList = controller.searchFor(query, key);
 		
-		verify(lastNameList).getUnique(key, query);
+		verify(personAutocompleteService).getUniqueNames(key, query);
 		assertEquals(requiredResult.size(), resultList.size());
 		for (String name : requiredResult) {
 			assertTrue(resultList.getResults().contains(name));
@@ -0,0 +1,87 @@
+package org.bahmni.module.bahmnicore.web.v1_0.controller;
+
+import org.bahmni.module.bahmnicore.service.RowHandler;
+import org.bahmni.module.bahmnicore.service.SqlSearchService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openmrs.module.bahmnicore.web.v1_0.controller.SqlSearchController;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class SqlSearchControllerTest {
+    @Mock
+    private SqlSearchService sqlSearchService;
+
+    private SqlSearchController controller;
+    private MockHttpServletResponse response;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        controller = new SqlSearchController(sqlSearchService);
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void shouldStreamRowsAsJsonArray() throws Exception {
+        searchReturns("emr.sqlSearch.activePatients", null);
+
+        controller.streamSearch("emr.sqlSearch.activePatients", new MockHttpServletRequest(), response);
+
+        assertEquals("[{\"name\":\"Ram\"},{\"name\":\"Sita\"}]", response.getContentAsString());
+    }
+
+    @Test
+    public void shouldLeaveResponseUntouchedWhenQueryFailsBeforeFirstRow() throws Exception {
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                throw new RuntimeException("No such query:emr.sqlSearch.unknown");
+            }
+        }).when(sqlSearchService).search(eq("emr.sqlSearch.unknown"), anyMap(), any(RowHandler.class));
+
+        try {
+            controller.streamSearch("emr.sqlSearch.unknown", new MockHttpServletRequest(), response);
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("No such query:emr.sqlSearch.unknown", e.getMessage());
+        }
+        assertEquals("", response.getContentAsString());
+    }
+
+    @Test
+    public void shouldEndStreamWithErrorWhenQueryFailsAfterRowsWereSent() throws Exception {
+        searchReturns("emr.sqlSearch.activePatients", new RuntimeException("Query timed out"));
+
+        controller.streamSearch("emr.sqlSearch.activePatients", new MockHttpServletRequest(), response);
+
+        assertEquals("[{\"name\":\"Ram\"},{\"name\":\"Sita\"},{\"error\":{\"message\":\"Query timed out\"}}]", response.getContentAsString());
+    }
+
+    private void searchReturns(String queryId, final RuntimeException failure) throws Exception {
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                RowHandler rowHandler = (RowHandler) invocation.getArguments()[2];
+                rowHandler.handle(new SimpleObject().add("name", "Ram"));
+                rowHandler.handle(new SimpleObject().add("name", "Sita"));
+                if (failure != null) {
+                    throw failure;
+                }
+                return null;
+            }
+        }).when(sqlSearchService).search(eq(queryId), anyMap(), any(RowHandler.class));
+    }
+}
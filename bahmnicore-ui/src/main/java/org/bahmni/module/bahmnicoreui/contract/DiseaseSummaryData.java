@@ -11,6 +11,7 @@ public class DiseaseSummaryData {
 
     private DiseaseSummaryMap tabularData = new DiseaseSummaryMap();
     private Set<ConceptDetails> conceptDetails = new LinkedHashSet<>();
+    private Map<String, Long> aggregationTimeInMillis = new LinkedHashMap<>();
 
     public DiseaseSummaryMap getTabularData() {
         return tabularData;
@@ -44,8 +45,17 @@ public class DiseaseSummaryData {
         this.conceptDetails.addAll(conceptDetails);
     }
 
+    public Map<String, Long> getAggregationTimeInMillis() {
+        return aggregationTimeInMillis;
+    }
+
+    public void addAggregationTime(String aggregator, Long timeInMillis) {
+        this.aggregationTimeInMillis.put(aggregator, timeInMillis);
+    }
+
     public void concat(DiseaseSummaryData diseaseSummaryData){
         addTabularData(diseaseSummaryData.getTabularData());
         addConceptDetails(diseaseSummaryData.getConceptDetails());
+        aggregationTimeInMillis.putAll(diseaseSummaryData.getAggregationTimeInMillis());
     }
 }
@@ -1,5 +1,7 @@
 package org.bahmni.module.bahmnicoreui.service.impl;
 
+import org.apache.log4j.Logger;
+import org.bahmni.module.bahmnicore.BahmniCoreException;
 import org.bahmni.module.bahmnicoreui.contract.DiseaseDataParams;
 import org.bahmni.module.bahmnicoreui.contract.DiseaseSummaryData;
 import org.bahmni.module.bahmnicoreui.helper.DrugOrderDiseaseSummaryAggregator;
@@ -7,21 +9,48 @@ import org.bahmni.module.bahmnicoreui.helper.LabDiseaseSummaryAggregator;
 import org.bahmni.module.bahmnicoreui.helper.ObsDiseaseSummaryAggregator;
 import org.bahmni.module.bahmnicoreui.service.BahmniDiseaseSummaryService;
 import org.openmrs.Patient;
+import org.openmrs.api.AdministrationService;
 import org.openmrs.api.PatientService;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 @Service
-public class BahmniDiseaseSummaryServiceImpl implements BahmniDiseaseSummaryService {
+public class BahmniDiseaseSummaryServiceImpl implements BahmniDiseaseSummaryService, DisposableBean {
+
+    public static final String PARALLEL_AGGREGATION_GLOBAL_PROPERTY = "bahmni.diseaseSummary.parallelAggregation";
+    private static final int AGGREGATOR_THREADS = 6;
+    private static final int AGGREGATOR_QUEUE_SIZE = 30;
+    private static final Logger log = Logger.getLogger(BahmniDiseaseSummaryServiceImpl.class);
 
     private PatientService patientService;
     private LabDiseaseSummaryAggregator labDiseaseSummaryAggregator;
     private DrugOrderDiseaseSummaryAggregator drugOrderDiseaseSummaryAggregator;
     private ObsDiseaseSummaryAggregator obsDiseaseSummaryAggregator;
+    private AdministrationService administrationService;
+    private TransactionTemplate readOnlyTransactionTemplate;
+    private ThreadPoolExecutor aggregatorExecutor;
 
-    @Autowired
     public BahmniDiseaseSummaryServiceImpl(PatientService patientService, LabDiseaseSummaryAggregator labDiseaseSummaryAggregator, DrugOrderDiseaseSummaryAggregator drugOrderDiseaseSummaryAggregator, ObsDiseaseSummaryAggregator obsDiseaseSummaryAggregator){
         this.patientService = patientService;
         this.labDiseaseSummaryAggregator = labDiseaseSummaryAggregator;
@@ -29,16 +58,162 @@ public class BahmniDiseaseSummaryServiceImpl implements BahmniDiseaseSummaryServ
         this.obsDiseaseSummaryAggregator = obsDiseaseSummaryAggregator;
     }
 
+    @Autowired
+    public BahmniDiseaseSummaryServiceImpl(PatientService patientService, LabDiseaseSummaryAggregator labDiseaseSummaryAggregator, DrugOrderDiseaseSummaryAggregator drugOrderDiseaseSummaryAggregator, ObsDiseaseSummaryAggregator obsDiseaseSummaryAggregator,
+                                           AdministrationService administrationService, PlatformTransactionManager transactionManager){
+        this(patientService, labDiseaseSummaryAggregator, drugOrderDiseaseSummaryAggregator, obsDiseaseSummaryAggregator);
+        this.administrationService = administrationService;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.aggregatorExecutor = new ThreadPoolExecutor(AGGREGATOR_THREADS, AGGREGATOR_THREADS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(AGGREGATOR_QUEUE_SIZE), new AggregatorThreadFactory());
+        this.aggregatorExecutor.allowCoreThreadTimeOut(true);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public DiseaseSummaryData getDiseaseSummary(String patientUuid, DiseaseDataParams queryParams) {
+        if (isParallelAggregationEnabled()) {
+            try {
+                return aggregateInParallel(patientUuid, queryParams);
+            } catch (RejectedExecutionException e) {
+                log.warn("Disease summary aggregator pool is saturated, aggregating sequentially");
+            }
+        }
+        return aggregateSequentially(patientUuid, queryParams);
+    }
+
+    private DiseaseSummaryData aggregateSequentially(String patientUuid, DiseaseDataParams queryParams) {
         DiseaseSummaryData diseaseSummaryData = new DiseaseSummaryData();
 
         Patient patient = patientService.getPatientByUuid(patientUuid);
 
-        diseaseSummaryData.concat(obsDiseaseSummaryAggregator.aggregate(patient, queryParams));
-        diseaseSummaryData.concat(labDiseaseSummaryAggregator.aggregate(patient, queryParams));
-        diseaseSummaryData.concat(drugOrderDiseaseSummaryAggregator.aggregate(patient, queryParams));
+        for (AggregatorTask aggregatorTask : aggregatorTasks(patientUuid, queryParams, null)) {
+            diseaseSummaryData.concat(aggregatorTask.aggregate(patient));
+        }
         return diseaseSummaryData;
     }
+
+    private DiseaseSummaryData aggregateInParallel(String patientUuid, DiseaseDataParams queryParams) {
+        List<Future<DiseaseSummaryData>> futures = new ArrayList<>();
+        try {
+            for (AggregatorTask aggregatorTask : aggregatorTasks(patientUuid, queryParams, Context.getUserContext())) {
+                futures.add(aggregatorExecutor.submit(aggregatorTask));
+            }
+        } catch (RejectedExecutionException e) {
+            cancel(futures);
+            throw e;
+        }
+
+        DiseaseSummaryData diseaseSummaryData = new DiseaseSummaryData();
+        try {
+            for (Future<DiseaseSummaryData> future : futures) {
+                diseaseSummaryData.concat(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BahmniCoreException("Interrupted while aggregating disease summary", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BahmniCoreException("Could not aggregate disease summary", e.getCause());
+        } finally {
+            cancel(futures);
+        }
+        return diseaseSummaryData;
+    }
+
+    private void cancel(List<Future<DiseaseSummaryData>> futures) {
+        for (Future<DiseaseSummaryData> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private List<AggregatorTask> aggregatorTasks(String patientUuid, final DiseaseDataParams queryParams, UserContext userContext) {
+        List<AggregatorTask> aggregatorTasks = new ArrayList<>();
+        aggregatorTasks.add(new AggregatorTask("obs", patientUuid, userContext) {
+            @Override
+            DiseaseSummaryData run(Patient patient) {
+                return obsDiseaseSummaryAggregator.aggregate(patient, queryParams);
+            }
+        });
+        aggregatorTasks.add(new AggregatorTask("lab", patientUuid, userContext) {
+            @Override
+            DiseaseSummaryData run(Patient patient) {
+                return labDiseaseSummaryAggregator.aggregate(patient, queryParams);
+            }
+        });
+        aggregatorTasks.add(new AggregatorTask("drug", patientUuid, userContext) {
+            @Override
+            DiseaseSummaryData run(Patient patient) {
+                return drugOrderDiseaseSummaryAggregator.aggregate(patient, queryParams);
+            }
+        });
+        return aggregatorTasks;
+    }
+
+    private boolean isParallelAggregationEnabled() {
+        return aggregatorExecutor != null
+                && Boolean.valueOf(administrationService.getGlobalProperty(PARALLEL_AGGREGATION_GLOBAL_PROPERTY));
+    }
+
+    @Override
+    public void destroy() {
+        if (aggregatorExecutor != null) {
+            aggregatorExecutor.shutdownNow();
+        }
+    }
+
+    private abstract class AggregatorTask implements Callable<DiseaseSummaryData> {
+        private final String name;
+        private final String patientUuid;
+        private final UserContext userContext;
+
+        AggregatorTask(String name, String patientUuid, UserContext userContext) {
+            this.name = name;
+            this.patientUuid = patientUuid;
+            this.userContext = userContext;
+        }
+
+        abstract DiseaseSummaryData run(Patient patient);
+
+        DiseaseSummaryData aggregate(Patient patient) {
+            long start = System.currentTimeMillis();
+            DiseaseSummaryData diseaseSummaryData = run(patient);
+            diseaseSummaryData.addAggregationTime(name, System.currentTimeMillis() - start);
+            return diseaseSummaryData;
+        }
+
+        @Override
+        public DiseaseSummaryData call() {
+            try {
+                Context.openSession();
+                Context.setUserContext(userContext);
+                return readOnlyTransactionTemplate.execute(new TransactionCallback<DiseaseSummaryData>() {
+                    @Override
+                    public DiseaseSummaryData doInTransaction(TransactionStatus status) {
+                        return aggregate(patientService.getPatientByUuid(patientUuid));
+                    }
+                });
+            } finally {
+                try {
+                    Context.clearUserContext();
+                } finally {
+                    Context.closeSession();
+                }
+            }
+        }
+    }
+
+    private static class AggregatorThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "disease-summary-aggregator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
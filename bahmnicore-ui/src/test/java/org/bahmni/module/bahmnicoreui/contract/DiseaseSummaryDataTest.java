@@ -41,6 +41,22 @@ public class DiseaseSummaryDataTest {
 
     }
 
+    @Test
+    public void shouldMergeAggregationTimesOnConcat(){
+        DiseaseSummaryData obsSummaryData = new DiseaseSummaryData();
+        obsSummaryData.addAggregationTime("obs", 20L);
+        DiseaseSummaryData labSummaryData = new DiseaseSummaryData();
+        labSummaryData.addAggregationTime("lab", 35L);
+
+        DiseaseSummaryData diseaseSummaryData = new DiseaseSummaryData();
+        diseaseSummaryData.concat(obsSummaryData);
+        diseaseSummaryData.concat(labSummaryData);
+
+        assertEquals(2, diseaseSummaryData.getAggregationTimeInMillis().size());
+        assertEquals(Long.valueOf(20L), diseaseSummaryData.getAggregationTimeInMillis().get("obs"));
+        assertEquals(Long.valueOf(35L), diseaseSummaryData.getAggregationTimeInMillis().get("lab"));
+    }
+
     @Test
     public void shouldAddConceptNamesToExistingSetOfConceptNames(){
         DiseaseSummaryData diseaseSummaryData = new DiseaseSummaryData();
@@ -8,13 +8,23 @@ import org.bahmni.module.bahmnicoreui.helper.LabDiseaseSummaryAggregator;
 import org.bahmni.module.bahmnicoreui.helper.ObsDiseaseSummaryAggregator;
 import org.bahmni.module.referencedata.contract.ConceptDetails;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openmrs.GlobalProperty;
+import org.openmrs.Patient;
+import org.openmrs.api.AdministrationService;
 import org.openmrs.api.PatientService;
+import org.openmrs.api.context.Context;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.*;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 @org.springframework.test.context.ContextConfiguration(locations = {"classpath:TestingApplicationContext.xml"}, inheritLocations = true)
 public class BahmniDiseaseSummaryServiceImplIT extends BaseModuleContextSensitiveTest {
 
@@ -29,6 +39,11 @@ public class BahmniDiseaseSummaryServiceImplIT extends BaseModuleContextSensitiv
     private LabDiseaseSummaryAggregator labDiseaseSummaryAggregator;
     @Autowired
     private DrugOrderDiseaseSummaryAggregator drugOrderDiseaseSummaryAggregator;
+    @Autowired
+    @Qualifier("adminService")
+    private AdministrationService administrationService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @org.junit.Before
     public void setUp() throws Exception {
@@ -300,4 +315,52 @@ public class BahmniDiseaseSummaryServiceImplIT extends BaseModuleContextSensitiv
         DiseaseSummaryData diseaseSummary = bahmniDiseaseSummaryData.getDiseaseSummary("86526ed5-3c11-11de-a0ba-001e378eb67a", diseaseDataParams);
         assertEquals("CCAnswer1", diseaseSummary.getTabularData().get("2008-09-18").get("CodedConcept").getValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldAggregateOnPoolThreadsAsTheCallingUserWhenParallelAggregationIsOn() throws Exception {
+        administrationService.saveGlobalProperty(new GlobalProperty(BahmniDiseaseSummaryServiceImpl.PARALLEL_AGGREGATION_GLOBAL_PROPERTY, "true"));
+        Patient patient = new Patient();
+        PatientService poolPatientService = mock(PatientService.class);
+        when(poolPatientService.getPatientByUuid("patientUuid")).thenReturn(patient);
+        DiseaseDataParams diseaseDataParams = new DiseaseDataParams();
+        List<String> aggregatingUsers = Collections.synchronizedList(new ArrayList<String>());
+        ObsDiseaseSummaryAggregator obsAggregator = mock(ObsDiseaseSummaryAggregator.class);
+        when(obsAggregator.aggregate(patient, diseaseDataParams)).thenAnswer(summaryOf("Weight", aggregatingUsers));
+        LabDiseaseSummaryAggregator labAggregator = mock(LabDiseaseSummaryAggregator.class);
+        when(labAggregator.aggregate(patient, diseaseDataParams)).thenAnswer(summaryOf("Haemoglobin", aggregatingUsers));
+        DrugOrderDiseaseSummaryAggregator drugOrderAggregator = mock(DrugOrderDiseaseSummaryAggregator.class);
+        when(drugOrderAggregator.aggregate(patient, diseaseDataParams)).thenAnswer(summaryOf("Paracetamol", aggregatingUsers));
+        BahmniDiseaseSummaryServiceImpl parallelService = new BahmniDiseaseSummaryServiceImpl(poolPatientService, labAggregator,
+                drugOrderAggregator, obsAggregator, administrationService, transactionManager);
+
+        try {
+            DiseaseSummaryData diseaseSummary = parallelService.getDiseaseSummary("patientUuid", diseaseDataParams);
+
+            assertEquals(Arrays.asList("Weight", "Haemoglobin", "Paracetamol"), new ArrayList<>(diseaseSummary.getTabularData().get("2008-09-18").keySet()));
+            assertEquals(new HashSet<>(Arrays.asList("obs", "lab", "drug")), diseaseSummary.getAggregationTimeInMillis().keySet());
+            String callingUser = Context.getAuthenticatedUser().getSystemId();
+            assertEquals(Arrays.asList(callingUser, callingUser, callingUser), aggregatingUsers);
+        } finally {
+            parallelService.destroy();
+        }
+    }
+
+    private Answer<DiseaseSummaryData> summaryOf(final String conceptName, final List<String> aggregatingUsers) {
+        return new Answer<DiseaseSummaryData>() {
+            @Override
+            public DiseaseSummaryData answer(InvocationOnMock invocation) {
+                assertTrue(Thread.currentThread().getName().startsWith("disease-summary-aggregator"));
+                aggregatingUsers.add(Context.getAuthenticatedUser().getSystemId());
+                ConceptValue conceptValue = new ConceptValue();
+                conceptValue.setValue(conceptName);
+                Map<String, ConceptValue> valuesForVisit = new LinkedHashMap<>();
+                valuesForVisit.put(conceptName, conceptValue);
+                Map<String, Map<String, ConceptValue>> tabularData = new LinkedHashMap<>();
+                tabularData.put("2008-09-18", valuesForVisit);
+                DiseaseSummaryData diseaseSummaryData = new DiseaseSummaryData();
+                diseaseSummaryData.addTabularData(tabularData);
+                return diseaseSummaryData;
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package org.bahmni.module.elisatomfeedclient.api;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.ict4h.atomfeed.client.AtomFeedProperties;
 import org.springframework.stereotype.Component;
 
@@ -13,6 +14,9 @@ public class ElisAtomFeedProperties extends AtomFeedProperties {
     private static final String CONNECT_TIMEOUT = "feed.connectionTimeoutInMilliseconds";
     private static final String MAX_FAILED_EVENTS = "feed.maxFailedEvents";
     private static final String READ_TIMEOUT = "feed.replyTimeoutInMilliseconds";
+    private static final String ACCESSION_PREFETCH_SIZE = "feed.accessionPrefetchSize";
+    private static final String METADATA_CACHE_TIME_TO_LIVE = "feed.metadataCacheTimeToLiveInSeconds";
+    private static final int DEFAULT_METADATA_CACHE_TIME_TO_LIVE = 300;
     private static final String ENCOUNTER_TYPE_CLINICAL = "openmrs.encounterType.clinical";
     private static final String LAB_SYSTEM_USERNAME= "openmrs.labSystem.username";
     private static final String ORDER_TYPE_LAB_ORDER= "openmrs.orderType.labOrder";
@@ -47,6 +51,17 @@ public class ElisAtomFeedProperties extends AtomFeedProperties {
         return Integer.parseInt(atomFeedProperties.getProperty(CONNECT_TIMEOUT));
     }
 
+    /**
+     * Number of accessions read ahead of the one being processed, 0 reads each accession as it is processed.
+     */
+    public int getAccessionPrefetchSize() {
+        return NumberUtils.toInt(atomFeedProperties.getProperty(ACCESSION_PREFETCH_SIZE), 0);
+    }
+
+    public int getMetadataCacheTimeToLiveInSeconds() {
+        return NumberUtils.toInt(atomFeedProperties.getProperty(METADATA_CACHE_TIME_TO_LIVE), DEFAULT_METADATA_CACHE_TIME_TO_LIVE);
+    }
+
     public String getEncounterTypeClinical() {
         return atomFeedProperties.getProperty(ENCOUNTER_TYPE_CLINICAL);
     }
@@ -0,0 +1,60 @@
+package org.bahmni.module.elisatomfeedclient.api.client;
+
+import com.sun.syndication.feed.atom.Content;
+import com.sun.syndication.feed.atom.Entry;
+import com.sun.syndication.feed.atom.Feed;
+import org.bahmni.module.elisatomfeedclient.api.ElisAtomFeedProperties;
+import org.bahmni.module.elisatomfeedclient.api.worker.AccessionPrefetcher;
+import org.bahmni.webclients.ClientCookies;
+import org.ict4h.atomfeed.client.repository.AllFeeds;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands the accession urls of every feed page read to the {@link AccessionPrefetcher}, so it can read them
+ * ahead of the worker.
+ */
+public class AccessionPrefetchingFeeds extends AllFeeds {
+    private static final String ACCESSION_EVENT_TITLE = "accession";
+    private static final String CDATA_START = "<![CDATA[";
+    private static final String CDATA_END = "]]>";
+
+    private final ElisAtomFeedProperties properties;
+    private final AccessionPrefetcher accessionPrefetcher;
+
+    public AccessionPrefetchingFeeds(ElisAtomFeedProperties properties, ClientCookies cookies, AccessionPrefetcher accessionPrefetcher) {
+        super(properties, cookies);
+        this.properties = properties;
+        this.accessionPrefetcher = accessionPrefetcher;
+    }
+
+    @Override
+    public Feed getFor(URI uri) {
+        Feed feed = super.getFor(uri);
+        if (feed != null) {
+            accessionPrefetcher.feedPageRead(getAccessionUrls(feed));
+        }
+        return feed;
+    }
+
+    private List<String> getAccessionUrls(Feed feed) {
+        List<String> accessionUrls = new ArrayList<>();
+        for (Object item : feed.getEntries()) {
+            Entry entry = (Entry) item;
+            if (ACCESSION_EVENT_TITLE.equals(entry.getTitle()) && !entry.getContents().isEmpty()) {
+                accessionUrls.add(properties.getOpenElisUri() + getContent(entry));
+            }
+        }
+        return accessionUrls;
+    }
+
+    private String getContent(Entry entry) {
+        String content = ((Content) entry.getContents().get(0)).getValue().trim();
+        if (content.startsWith(CDATA_START) && content.endsWith(CDATA_END)) {
+            content = content.substring(CDATA_START.length(), content.length() - CDATA_END.length());
+        }
+        return content;
+    }
+}
@@ -2,6 +2,8 @@ package org.bahmni.module.elisatomfeedclient.api.client;
 
 import org.apache.log4j.Logger;
 import org.bahmni.module.elisatomfeedclient.api.ElisAtomFeedProperties;
+import org.bahmni.module.elisatomfeedclient.api.worker.AccessionPrefetcher;
+import org.bahmni.module.elisatomfeedclient.api.worker.LabMetadataCache;
 import org.bahmni.webclients.AnonymousAuthenticator;
 import org.bahmni.webclients.ClientCookies;
 import org.bahmni.webclients.ConnectionDetails;
@@ -10,14 +12,17 @@ import org.ict4h.atomfeed.client.repository.AllFeeds;
 import org.ict4h.atomfeed.client.repository.jdbc.AllFailedEventsJdbcImpl;
 import org.ict4h.atomfeed.client.repository.jdbc.AllMarkersJdbcImpl;
 import org.ict4h.atomfeed.client.service.*;
+import org.openmrs.api.context.Context;
 import org.openmrs.module.atomfeed.transaction.support.AtomFeedSpringTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
 
 public abstract class OpenElisFeedClient {
     protected AtomFeedClient atomFeedClient;
+    private LabMetadataCache labMetadataCache;
     private ElisAtomFeedProperties properties;
     private PlatformTransactionManager transactionManager;
     private Logger logger = Logger.getLogger(OpenElisFeedClient.class);
@@ -49,10 +54,13 @@ public abstract class OpenElisFeedClient {
             ConnectionDetails connectionDetails = createConnectionDetails(properties);
                 HttpClient httpClient = new HttpClient(connectionDetails, new AnonymousAuthenticator(connectionDetails));
                 ClientCookies cookies = httpClient.getCookies(uriForFeed);
-                EventWorker openMRSEventWorker = createWorker(httpClient, properties);
+                AccessionPrefetcher accessionPrefetcher = createAccessionPrefetcher(connectionDetails, properties);
+                labMetadataCache = new LabMetadataCache(Context.getEncounterService(), Context.getConceptService(), Context.getProviderService(),
+                        TimeUnit.SECONDS.toMillis(properties.getMetadataCacheTimeToLiveInSeconds()));
+                EventWorker openMRSEventWorker = createWorker(httpClient, properties, accessionPrefetcher, labMetadataCache);
                 AtomFeedSpringTransactionManager txMgr = new AtomFeedSpringTransactionManager(transactionManager);
             atomFeedClient = new AtomFeedClient(
-                        new AllFeeds(properties, cookies),
+                        createAllFeeds(properties, cookies, accessionPrefetcher),
                         new AllMarkersJdbcImpl(txMgr),
                         new AllFailedEventsJdbcImpl(txMgr),
                         properties,
@@ -66,11 +74,33 @@ public abstract class OpenElisFeedClient {
         }
     }
 
+    /**
+     * Metadata is looked up afresh on every run of the feed.
+     */
+    protected void startRun() {
+        if (labMetadataCache != null) {
+            labMetadataCache.clear();
+        }
+    }
+
     protected abstract String getFeedUri(ElisAtomFeedProperties properties);
 
     private ConnectionDetails createConnectionDetails(ElisAtomFeedProperties properties) {
         return new ConnectionDetails(properties.getOpenElisUri(),null,null,properties.getConnectTimeout(),properties.getReadTimeout());
     }
 
-    protected abstract EventWorker createWorker(HttpClient authenticatedWebClient, ElisAtomFeedProperties properties);
+    private AccessionPrefetcher createAccessionPrefetcher(ConnectionDetails connectionDetails, ElisAtomFeedProperties properties) {
+        int prefetchSize = properties.getAccessionPrefetchSize();
+        return prefetchSize > 0 ? new AccessionPrefetcher(connectionDetails, prefetchSize) : null;
+    }
+
+    private AllFeeds createAllFeeds(ElisAtomFeedProperties properties, ClientCookies cookies, AccessionPrefetcher accessionPrefetcher) {
+        return accessionPrefetcher == null ? new AllFeeds(properties, cookies) : new AccessionPrefetchingFeeds(properties, cookies, accessionPrefetcher);
+    }
+
+    /**
+     * @param accessionPrefetcher null when accessions are not to be read ahead
+     */
+    protected abstract EventWorker createWorker(HttpClient authenticatedWebClient, ElisAtomFeedProperties properties, AccessionPrefetcher accessionPrefetcher,
+                                                LabMetadataCache labMetadataCache);
 }
@@ -6,6 +6,8 @@ import org.bahmni.module.elisatomfeedclient.api.ElisAtomFeedProperties;
 import org.bahmni.module.elisatomfeedclient.api.client.OpenElisFeedClient;
 import org.bahmni.module.elisatomfeedclient.api.client.OpenElisPatientFailedEventsFeedClient;
 import org.bahmni.module.elisatomfeedclient.api.mapper.AccessionHelper;
+import org.bahmni.module.elisatomfeedclient.api.worker.AccessionPrefetcher;
+import org.bahmni.module.elisatomfeedclient.api.worker.LabMetadataCache;
 import org.bahmni.module.elisatomfeedclient.api.worker.OpenElisAccessionEventWorker;
 import org.bahmni.module.elisatomfeedclient.api.worker.OpenElisPatientFeedWorker;
 import org.bahmni.webclients.HttpClient;
@@ -45,7 +47,8 @@ public class OpenElisPatientFailedEventsFeedClientImpl extends OpenElisFeedClien
     }
 
     @Override
-    protected EventWorker createWorker(HttpClient authenticatedWebClient, ElisAtomFeedProperties properties) {
+    protected EventWorker createWorker(HttpClient authenticatedWebClient, ElisAtomFeedProperties properties, AccessionPrefetcher accessionPrefetcher,
+                                       LabMetadataCache labMetadataCache) {
         EncounterService encounterService = Context.getService(EncounterService.class);
         OpenElisAccessionEventWorker accessionEventWorker = new OpenElisAccessionEventWorker(
                 properties,
@@ -53,7 +56,7 @@ public class OpenElisPatientFailedEventsFeedClientImpl extends OpenElisFeedClien
                 encounterService,
                 conceptService,
                 new AccessionHelper(properties),
-                providerService, bahmniVisitAttributeSaveCommand);
+                providerService, bahmniVisitAttributeSaveCommand, accessionPrefetcher, labMetadataCache);
         return new OpenElisPatientFeedWorker(accessionEventWorker);
     }
 
@@ -61,6 +64,7 @@ public class OpenElisPatientFailedEventsFeedClientImpl extends OpenElisFeedClien
     public void processFailedEvents() {
         try {
             logger.info("openelisatomfeedclient:processing failed events " + DateTime.now());
+            startRun();
             getAtomFeedClient().processFailedEvents();
         } catch (Exception e) {
             try {
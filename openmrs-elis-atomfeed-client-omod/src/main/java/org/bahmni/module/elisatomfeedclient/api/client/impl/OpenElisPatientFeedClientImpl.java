@@ -7,6 +7,8 @@ import org.bahmni.module.elisatomfeedclient.api.ElisAtomFeedProperties;
 import org.bahmni.module.elisatomfeedclient.api.client.OpenElisFeedClient;
 import org.bahmni.module.elisatomfeedclient.api.client.OpenElisPatientFeedClient;
 import org.bahmni.module.elisatomfeedclient.api.mapper.AccessionHelper;
+import org.bahmni.module.elisatomfeedclient.api.worker.AccessionPrefetcher;
+import org.bahmni.module.elisatomfeedclient.api.worker.LabMetadataCache;
 import org.bahmni.module.elisatomfeedclient.api.worker.OpenElisAccessionEventWorker;
 import org.bahmni.module.elisatomfeedclient.api.worker.OpenElisPatientFeedWorker;
 import org.bahmni.webclients.HttpClient;
@@ -43,14 +45,15 @@ public class OpenElisPatientFeedClientImpl extends OpenElisFeedClient implements
     }
 
     @Override
-    protected EventWorker createWorker(HttpClient authenticatedWebClient, ElisAtomFeedProperties properties) {
+    protected EventWorker createWorker(HttpClient authenticatedWebClient, ElisAtomFeedProperties properties, AccessionPrefetcher accessionPrefetcher,
+                                       LabMetadataCache labMetadataCache) {
         EncounterService encounterService = Context.getService(EncounterService.class);
         ConceptService conceptService = Context.getService(ConceptService.class);
         ProviderService providerService = Context.getProviderService();
 
         OpenElisAccessionEventWorker accessionEventWorker = new OpenElisAccessionEventWorker(properties,
                 authenticatedWebClient, encounterService, conceptService, new AccessionHelper(properties),
-                providerService, bahmniVisitAttributeSaveCommand);
+                providerService, bahmniVisitAttributeSaveCommand, accessionPrefetcher, labMetadataCache);
         return new OpenElisPatientFeedWorker(accessionEventWorker);
     }
 
@@ -58,6 +61,7 @@ public class OpenElisPatientFeedClientImpl extends OpenElisFeedClient implements
     public void processFeed() {
         try {
             logger.info("openelisatomfeedclient:processing feed " + DateTime.now());
+            startRun();
             getAtomFeedClient().processEvents();
         } catch (Exception e) {
             try {
@@ -0,0 +1,164 @@
+package org.bahmni.module.elisatomfeedclient.api.worker;
+
+import org.apache.log4j.Logger;
+import org.bahmni.module.elisatomfeedclient.api.domain.OpenElisAccession;
+import org.bahmni.webclients.AnonymousAuthenticator;
+import org.bahmni.webclients.ConnectionDetails;
+import org.bahmni.webclients.HttpClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the accessions of the feed page being processed ahead of the worker, so the round trips to OpenELIS
+ * overlap instead of adding up. At most size accessions following the one being processed are fetched and
+ * held at a time. Only reading happens here, the worker still applies every accession itself, one at a time
+ * and in feed order. An accession that was not prefetched, or whose prefetch failed, is read again by the
+ * worker as before, so failures surface from the event being processed.
+ */
+public class AccessionPrefetcher {
+    private static Logger logger = Logger.getLogger(AccessionPrefetcher.class);
+
+    private final ConnectionDetails connectionDetails;
+    private final int size;
+    private final ThreadLocal<HttpClient> httpClients = new ThreadLocal<>();
+    private final Map<Integer, Future<OpenElisAccession>> prefetchedAccessions = new HashMap<>();
+    private List<String> pageAccessionUrls = new ArrayList<>();
+    private int nextPosition;
+    private ThreadPoolExecutor executor;
+
+    public AccessionPrefetcher(ConnectionDetails connectionDetails, int size) {
+        this.connectionDetails = connectionDetails;
+        this.size = size;
+    }
+
+    /**
+     * Called with the accession urls of every feed page read, in feed order. Nothing is fetched until the
+     * worker asks for one of them, as the entries before the marker have been processed already.
+     */
+    public synchronized void feedPageRead(List<String> accessionUrls) {
+        cancel(prefetchedAccessions.values());
+        prefetchedAccessions.clear();
+        pageAccessionUrls = new ArrayList<>(accessionUrls);
+        nextPosition = 0;
+    }
+
+    /**
+     * The prefetched accession at accessionUrl, or null when the worker has to read it itself. Starts
+     * prefetching the accessions that follow it on the page.
+     */
+    public OpenElisAccession take(String accessionUrl) {
+        Future<OpenElisAccession> prefetchedAccession;
+        synchronized (this) {
+            int position = positionOf(accessionUrl);
+            if (position < 0) {
+                return null;
+            }
+            prefetchedAccession = prefetchedAccessions.remove(position);
+            dropBefore(position);
+            nextPosition = position + 1;
+            prefetchFrom(nextPosition);
+        }
+        return prefetchedAccession == null ? null : get(accessionUrl, prefetchedAccession);
+    }
+
+    private int positionOf(String accessionUrl) {
+        int position = pageAccessionUrls.subList(nextPosition, pageAccessionUrls.size()).indexOf(accessionUrl);
+        return position < 0 ? position : nextPosition + position;
+    }
+
+    // Entries skipped by the feed client are not coming back on this page
+    private void dropBefore(int position) {
+        Iterator<Map.Entry<Integer, Future<OpenElisAccession>>> iterator = prefetchedAccessions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Future<OpenElisAccession>> prefetchedAccession = iterator.next();
+            if (prefetchedAccession.getKey() < position) {
+                prefetchedAccession.getValue().cancel(true);
+                iterator.remove();
+            }
+        }
+    }
+
+    private void prefetchFrom(int position) {
+        int end = Math.min(position + size, pageAccessionUrls.size());
+        for (int i = position; i < end; i++) {
+            if (!prefetchedAccessions.containsKey(i)) {
+                prefetchedAccessions.put(i, getExecutor().submit(fetch(pageAccessionUrls.get(i))));
+            }
+        }
+    }
+
+    private Callable<OpenElisAccession> fetch(final String accessionUrl) {
+        return new Callable<OpenElisAccession>() {
+            @Override
+            public OpenElisAccession call() throws Exception {
+                return getHttpClient().get(accessionUrl, OpenElisAccession.class);
+            }
+        };
+    }
+
+    private OpenElisAccession get(String accessionUrl, Future<OpenElisAccession> prefetchedAccession) {
+        try {
+            return prefetchedAccession.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            logger.warn("openelisatomfeedclient:could not prefetch accession : " + accessionUrl + ", reading it again", e.getCause());
+            return null;
+        }
+    }
+
+    private void cancel(Iterable<Future<OpenElisAccession>> prefetchedAccessions) {
+        for (Future<OpenElisAccession> prefetchedAccession : prefetchedAccessions) {
+            prefetchedAccession.cancel(true);
+        }
+    }
+
+    // Every prefetch thread reads with a client of its own rather than sharing the worker's
+    private HttpClient getHttpClient() {
+        HttpClient httpClient = httpClients.get();
+        if (httpClient == null) {
+            httpClient = createHttpClient(connectionDetails);
+            httpClients.set(httpClient);
+        }
+        return httpClient;
+    }
+
+    protected HttpClient createHttpClient(ConnectionDetails connectionDetails) {
+        return new HttpClient(connectionDetails, new AnonymousAuthenticator(connectionDetails));
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new PrefetchThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    private static class PrefetchThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "openelis-accession-prefetch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.bahmni.module.elisatomfeedclient.api.worker;
+
+import org.openmrs.Concept;
+import org.openmrs.EncounterType;
+import org.openmrs.Provider;
+import org.openmrs.api.ConceptService;
+import org.openmrs.api.EncounterService;
+import org.openmrs.api.ProviderService;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encounter types, concepts and providers looked up while processing accessions. The feed clients clear it at
+ * the start of every run, and entries older than the time to live are looked up again, so a long catch up
+ * still sees metadata changed while it runs. Lookups that find nothing are kept too, as results often come
+ * from lab technicians who are not providers in OpenMRS. A time to live of 0 keeps nothing.
+ */
+public class LabMetadataCache {
+    private final EncounterService encounterService;
+    private final ConceptService conceptService;
+    private final ProviderService providerService;
+    private final long timeToLiveInMillis;
+
+    private final Map<String, CachedValue<EncounterType>> encounterTypes = new ConcurrentHashMap<>();
+    private final Map<String, CachedValue<Concept>> concepts = new ConcurrentHashMap<>();
+    private final Map<String, CachedValue<Provider>> providersByIdentifier = new ConcurrentHashMap<>();
+    private final Map<String, CachedValue<Provider>> providersByUuid = new ConcurrentHashMap<>();
+
+    public LabMetadataCache(EncounterService encounterService, ConceptService conceptService, ProviderService providerService, long timeToLiveInMillis) {
+        this.encounterService = encounterService;
+        this.conceptService = conceptService;
+        this.providerService = providerService;
+        this.timeToLiveInMillis = timeToLiveInMillis;
+    }
+
+    public void clear() {
+        encounterTypes.clear();
+        concepts.clear();
+        providersByIdentifier.clear();
+        providersByUuid.clear();
+    }
+
+    public EncounterType getEncounterType(String name) {
+        CachedValue<EncounterType> encounterType = get(encounterTypes, name);
+        if (encounterType == null) {
+            encounterType = put(encounterTypes, name, encounterService.getEncounterType(name));
+        }
+        return encounterType.value;
+    }
+
+    public Concept getConcept(String name) {
+        CachedValue<Concept> concept = get(concepts, name);
+        if (concept == null) {
+            concept = put(concepts, name, conceptService.getConcept(name));
+        }
+        return concept.value;
+    }
+
+    public Provider getProviderByIdentifier(String identifier) {
+        CachedValue<Provider> provider = get(providersByIdentifier, identifier);
+        if (provider == null) {
+            provider = put(providersByIdentifier, identifier, providerService.getProviderByIdentifier(identifier));
+        }
+        return provider.value;
+    }
+
+    public Provider getProviderByUuid(String uuid) {
+        CachedValue<Provider> provider = get(providersByUuid, uuid);
+        if (provider == null) {
+            provider = put(providersByUuid, uuid, providerService.getProviderByUuid(uuid));
+        }
+        return provider.value;
+    }
+
+    private <T> CachedValue<T> get(Map<String, CachedValue<T>> values, String key) {
+        if (key == null) {
+            return null;
+        }
+        CachedValue<T> cachedValue = values.get(key);
+        if (cachedValue != null && System.currentTimeMillis() - cachedValue.cachedAt >= timeToLiveInMillis) {
+            values.remove(key);
+            return null;
+        }
+        return cachedValue;
+    }
+
+    private <T> CachedValue<T> put(Map<String, CachedValue<T>> values, String key, T value) {
+        CachedValue<T> cachedValue = new CachedValue<>(value);
+        if (key != null && timeToLiveInMillis > 0) {
+            values.put(key, cachedValue);
+        }
+        return cachedValue;
+    }
+
+    private static class CachedValue<T> {
+        private final T value;
+        private final long cachedAt = System.currentTimeMillis();
+
+        private CachedValue(T value) {
+            this.value = value;
+        }
+    }
+}
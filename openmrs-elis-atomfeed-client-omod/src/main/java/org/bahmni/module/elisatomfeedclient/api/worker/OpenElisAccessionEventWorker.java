@@ -50,6 +50,8 @@ public class OpenElisAccessionEventWorker implements EventWorker {
     private AccessionHelper accessionMapper;
     private ProviderService providerService;
     private BahmniVisitAttributeSaveCommandImpl bahmniVisitAttributeSaveCommand;
+    private AccessionPrefetcher accessionPrefetcher;
+    private LabMetadataCache labMetadataCache;
 
     //TODO : add the new service classes to bean initialization
     public OpenElisAccessionEventWorker(ElisAtomFeedProperties atomFeedProperties,
@@ -58,6 +60,17 @@ public class OpenElisAccessionEventWorker implements EventWorker {
                                         ConceptService conceptService,
                                         AccessionHelper accessionMapper,
                                         ProviderService providerService, BahmniVisitAttributeSaveCommandImpl bahmniVisitAttributeSaveCommand) {
+        this(atomFeedProperties, httpClient, encounterService, conceptService, accessionMapper, providerService, bahmniVisitAttributeSaveCommand, null,
+                new LabMetadataCache(encounterService, conceptService, providerService, 0));
+    }
+
+    public OpenElisAccessionEventWorker(ElisAtomFeedProperties atomFeedProperties,
+                                        HttpClient httpClient,
+                                        EncounterService encounterService,
+                                        ConceptService conceptService,
+                                        AccessionHelper accessionMapper,
+                                        ProviderService providerService, BahmniVisitAttributeSaveCommandImpl bahmniVisitAttributeSaveCommand,
+                                        AccessionPrefetcher accessionPrefetcher, LabMetadataCache labMetadataCache) {
 
         this.atomFeedProperties = atomFeedProperties;
         this.httpClient = httpClient;
@@ -66,8 +79,10 @@ public class OpenElisAccessionEventWorker implements EventWorker {
         this.accessionMapper = accessionMapper;
         this.providerService = providerService;
         this.bahmniVisitAttributeSaveCommand = bahmniVisitAttributeSaveCommand;
+        this.accessionPrefetcher = accessionPrefetcher;
+        this.labMetadataCache = labMetadataCache;
         this.encounterHelper = new EncounterHelper(encounterService);
-        this.providerHelper = new ProviderHelper(providerService);
+        this.providerHelper = new ProviderHelper(labMetadataCache);
     }
 
     @Override
@@ -75,7 +90,7 @@ public class OpenElisAccessionEventWorker implements EventWorker {
         String accessionUrl = atomFeedProperties.getOpenElisUri() + event.getContent();
         logger.info("Processing event : " + accessionUrl);
         try {
-            OpenElisAccession openElisAccession = httpClient.get(accessionUrl, OpenElisAccession.class);
+            OpenElisAccession openElisAccession = getAccession(accessionUrl);
 
             Encounter orderEncounter = encounterService.getEncounterByUuid(openElisAccession.getAccessionUuid());
 
@@ -112,10 +127,15 @@ public class OpenElisAccessionEventWorker implements EventWorker {
         }
     }
 
+    private OpenElisAccession getAccession(String accessionUrl) throws IOException {
+        OpenElisAccession openElisAccession = accessionPrefetcher != null ? accessionPrefetcher.take(accessionUrl) : null;
+        return openElisAccession != null ? openElisAccession : httpClient.get(accessionUrl, OpenElisAccession.class);
+    }
+
     private void processAccessionNotes(OpenElisAccession openElisAccession, Encounter orderEncounter) throws ParseException {
 
         EncounterType labNotesEncounterType = getLabNotesEncounterType();
-        Provider defaultLabManagerProvider = providerService.getProviderByIdentifier(LAB_MANAGER_IDENTIFIER);
+        Provider defaultLabManagerProvider = labMetadataCache.getProviderByIdentifier(LAB_MANAGER_IDENTIFIER);
 
         Concept labNotesConcept = getLabNotesConcept();
         Concept accessionConcept = getAccessionConcept();
@@ -152,15 +172,15 @@ public class OpenElisAccessionEventWorker implements EventWorker {
     }
 
     private Concept getAccessionConcept() {
-        return conceptService.getConcept(ACCESSION_UUID_CONCEPT);
+        return labMetadataCache.getConcept(ACCESSION_UUID_CONCEPT);
     }
 
     private Concept getLabNotesConcept() {
-        return conceptService.getConcept(LAB_MANAGER_NOTES);
+        return labMetadataCache.getConcept(LAB_MANAGER_NOTES);
     }
 
     private EncounterType getLabNotesEncounterType() {
-        return encounterService.getEncounterType(ACCESSION_NOTE_ENCOUNTER_TYPE);
+        return labMetadataCache.getEncounterType(ACCESSION_NOTE_ENCOUNTER_TYPE);
     }
 
     private Obs createObsWith(String textValue, Concept concept,Date obsDateTime) {
@@ -180,30 +200,33 @@ public class OpenElisAccessionEventWorker implements EventWorker {
         HashSet<Encounter> resultEncounters = new HashSet<>(labResultEncounters);
         Set<Encounter> updatedEncounters = new HashSet<>();
         ResultObsHelper resultObsHelper = new ResultObsHelper(conceptService);
-        List<Provider> labResultProviders = new ArrayList<>();
+        ResultObsIndex resultObsIndex = new ResultObsIndex(orderEncounter, resultEncounters);
         Visit resultVisit = orderEncounter.getVisit();
         for (OpenElisTestDetail testDetail : allTests) {
             if (testDetail.isReferredOut() && StringUtils.isBlank(testDetail.getDateTime())) {
                 testDetail.setDateTime(openElisAccession.getDateTime());
             }
             if (StringUtils.isNotBlank(testDetail.getDateTime())) {
-                Order testOrder = identifyOrder(orderEncounter, testDetail);
-                Encounter resultEncounterForTest = identifyResultEncounter(resultEncounters, testDetail, testOrder);
-                Provider testProvider = getProviderForResults(labResultProviders, testDetail.getProviderUuid());
+                Order testOrder = resultObsIndex.getOrder(testDetail);
+                Encounter resultEncounterForTest = resultObsIndex.getResultEncounter(testDetail, testOrder);
+                Provider testProvider = getProviderForResults(testDetail.getProviderUuid());
                 boolean isResultUpdated = true;
 
                 Date testDate = DateTime.parse(testDetail.getDateTime()).toDate();
                 if (resultEncounterForTest != null) {
-                    Obs prevObs = identifyResultObs(resultEncounterForTest, testDetail, testOrder);
+                    Obs prevObs = resultObsIndex.getResultObs(testDetail, testOrder);
                     isResultUpdated = prevObs.getObsDatetime().getTime() < testDate.getTime();
                     if (isResultUpdated) {
                         resultObsHelper.voidObs(prevObs, testDate);
+                        resultObsIndex.voided(testDetail, testOrder);
                     }
                 }
 
                 if (isResultUpdated) {
                     resultEncounterForTest = encounterHelper.findOrInitializeEncounter(resultVisit, testProvider, labResultEncounterType, orderEncounter.getEncounterDatetime());
-                    resultEncounterForTest.addObs(resultObsHelper.createNewObsForOrder(testDetail, testOrder, resultEncounterForTest));
+                    Obs resultObs = resultObsHelper.createNewObsForOrder(testDetail, testOrder, resultEncounterForTest);
+                    resultEncounterForTest.addObs(resultObs);
+                    resultObsIndex.added(resultEncounterForTest, resultObs);
                     resultVisit.addEncounter(resultEncounterForTest);
                     updatedEncounters.add(resultEncounterForTest);
                     labResultEncounters.add(resultEncounterForTest);
@@ -228,88 +251,20 @@ public class OpenElisAccessionEventWorker implements EventWorker {
 
     private EncounterType getLabResultEncounterType() {
         String resultEncounterType = atomFeedProperties.getEncounterTypeForInvestigation();
-        return encounterService.getEncounterType(resultEncounterType);
+        return labMetadataCache.getEncounterType(resultEncounterType);
     }
 
-    /**
-     * For a given test/panel result, there ought to be only one encounter containing non voided corresponding observation
-     *
-     * @param labResultEncounters
-     * @param testDetail
-     * @param testOrder
-     * @return
-     */
-    private Encounter identifyResultEncounter(HashSet<Encounter> labResultEncounters, OpenElisTestDetail testDetail, Order testOrder) {
-        for (Encounter encounter : labResultEncounters) {
-            final Obs resultObs = identifyResultObs(encounter, testDetail, testOrder);
-            if (resultObs != null) {
-                return encounter;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * This method currenly checks at the topLevel Obs.
-     * if its a panel, then it goes through the next level and identifes a test by the concept at the next level
-     * If its a test, then it just checks at the top level concept
-     * <p/>
-     * However, for future multi-value tests, in both the cases (panel and indiv test), it would need go to one more
-     * level down and return the matching observation.
-     *
-     * @param resultEncounter
-     * @param testDetail
-     * @param testOrder
-     * @return
-     */
-    private Obs identifyResultObs(Encounter resultEncounter, OpenElisTestDetail testDetail, Order testOrder) {
-        boolean isPanel = StringUtils.isNotBlank(testDetail.getPanelUuid());
-        final Set<Obs> obsAtTopLevel = resultEncounter.getObsAtTopLevel(false);
-        for (Obs obs : obsAtTopLevel) {
-            if (isPanel && obs.getConcept().getUuid().equals(testDetail.getPanelUuid()) && obs.getOrder().getId().equals(testOrder.getId())) {
-                for (Obs member : obs.getGroupMembers()) {
-                    if (member.getConcept().getUuid().equals(testDetail.getTestUuid())
-                            && member.getOrder().getId().equals(testOrder.getId())) {
-                        return member;
-                    }
-                }
-            } else if (obs.getConcept().getUuid().equals(testDetail.getTestUuid())
-                    && obs.getOrder().getId().equals(testOrder.getId())) {
-                return obs;
-            }
-        }
-        return null;
-    }
-
-    private Order identifyOrder(Encounter orderEncounter, OpenElisTestDetail testDetail) {
-        for (Order order : orderEncounter.getOrders()) {
-            String testConceptUuid = StringUtils.isBlank(testDetail.getPanelUuid()) ? testDetail.getTestUuid() : testDetail.getPanelUuid();
-            if (order.getConcept() != null && order.getConcept().getUuid().equals(testConceptUuid)) {
-                return order;
-            }
-        }
-        return null; //this should never be the case.
-    }
-
-    private Provider getProviderForResults(List<Provider> labResultProviders, String providerUuid) {
-        for (Provider labResultProvider : labResultProviders) {
-            if (labResultProvider.getUuid().equals(providerUuid)) {
-                return labResultProvider;
-            }
-        }
-
+    private Provider getProviderForResults(String providerUuid) {
         Provider provider = null;
         if (StringUtils.isNotBlank(providerUuid)) {
-            provider = providerService.getProviderByUuid(providerUuid);
+            provider = labMetadataCache.getProviderByUuid(providerUuid);
         }
 
         //the lab results provider may not be register as provider in MRS,
         //hence instead of failing, get the system provider
         if (provider == null) {
-            provider = providerService.getProviderByIdentifier(atomFeedProperties.getLabSystemIdentifier());
+            provider = labMetadataCache.getProviderByIdentifier(atomFeedProperties.getLabSystemIdentifier());
         }
-
-        labResultProviders.add(provider);
         return provider;
     }
 
@@ -2,13 +2,12 @@ package org.bahmni.module.elisatomfeedclient.api.worker;
 
 import org.openmrs.Encounter;
 import org.openmrs.Provider;
-import org.openmrs.api.ProviderService;
 
 public class ProviderHelper {
-    private ProviderService providerService;
+    private LabMetadataCache labMetadataCache;
 
-    public ProviderHelper(ProviderService providerService) {
-        this.providerService = providerService;
+    public ProviderHelper(LabMetadataCache labMetadataCache) {
+        this.labMetadataCache = labMetadataCache;
     }
 
     public static Provider getProviderFrom(Encounter encounter) {
@@ -16,12 +15,12 @@ public class ProviderHelper {
     }
 
     public Provider getProviderByUuidOrReturnDefault(String providerUuid, String defaultProviderIdentifier) {
-        Provider provider = providerService.getProviderByUuid(providerUuid);
+        Provider provider = labMetadataCache.getProviderByUuid(providerUuid);
         if (provider != null) {
             return provider;
         }
         if (defaultProviderIdentifier != null) {
-            return providerService.getProviderByIdentifier(defaultProviderIdentifier);
+            return labMetadataCache.getProviderByIdentifier(defaultProviderIdentifier);
         }
         return null;
     }
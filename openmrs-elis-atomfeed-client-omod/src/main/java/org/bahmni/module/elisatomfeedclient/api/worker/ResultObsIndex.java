@@ -0,0 +1,121 @@
+package org.bahmni.module.elisatomfeedclient.api.worker;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bahmni.module.elisatomfeedclient.api.domain.OpenElisTestDetail;
+import org.openmrs.Encounter;
+import org.openmrs.Obs;
+import org.openmrs.Order;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The orders of an accession by concept uuid, and the non voided result obs of its visit by test (and panel)
+ * concept uuid and order, built once per accession so results are matched without going through every
+ * result encounter for every test.
+ */
+public class ResultObsIndex {
+    private final Map<String, Order> ordersByConceptUuid = new HashMap<>();
+    private final Map<String, ResultObs> resultObs = new HashMap<>();
+    private final Collection<Encounter> resultEncounters;
+
+    public ResultObsIndex(Encounter orderEncounter, Collection<Encounter> resultEncounters) {
+        this.resultEncounters = resultEncounters;
+        for (Order order : orderEncounter.getOrders()) {
+            if (order.getConcept() != null && !ordersByConceptUuid.containsKey(order.getConcept().getUuid())) {
+                ordersByConceptUuid.put(order.getConcept().getUuid(), order);
+            }
+        }
+        for (Encounter resultEncounter : resultEncounters) {
+            for (Obs obs : resultEncounter.getObsAtTopLevel(false)) {
+                add(resultEncounter, obs);
+            }
+        }
+    }
+
+    public Order getOrder(OpenElisTestDetail testDetail) {
+        String testConceptUuid = StringUtils.isBlank(testDetail.getPanelUuid()) ? testDetail.getTestUuid() : testDetail.getPanelUuid();
+        return ordersByConceptUuid.get(testConceptUuid);
+    }
+
+    /**
+     * For a given test/panel result, there ought to be only one encounter containing non voided corresponding observation
+     */
+    public Encounter getResultEncounter(OpenElisTestDetail testDetail, Order testOrder) {
+        ResultObs resultObs = get(testDetail, testOrder);
+        return resultObs == null ? null : resultObs.encounter;
+    }
+
+    /**
+     * This currently checks at the top level obs. If its a panel, then the test is identified by the concept at
+     * the next level. If its a test, then just the top level concept is checked.
+     */
+    public Obs getResultObs(OpenElisTestDetail testDetail, Order testOrder) {
+        ResultObs resultObs = get(testDetail, testOrder);
+        return resultObs == null ? null : resultObs.obs;
+    }
+
+    public void voided(OpenElisTestDetail testDetail, Order testOrder) {
+        if (StringUtils.isNotBlank(testDetail.getPanelUuid()) && resultObs.remove(key(testDetail.getPanelUuid(), testDetail.getTestUuid(), testOrder)) != null) {
+            return;
+        }
+        resultObs.remove(key(testDetail.getTestUuid(), testOrder));
+    }
+
+    /**
+     * Only obs of result encounters the index was built from are matched, as before they were indexed.
+     */
+    public void added(Encounter resultEncounter, Obs obs) {
+        if (resultEncounters.contains(resultEncounter)) {
+            add(resultEncounter, obs);
+        }
+    }
+
+    private ResultObs get(OpenElisTestDetail testDetail, Order testOrder) {
+        if (testOrder == null) {
+            return null;
+        }
+        ResultObs panelMemberObs = null;
+        if (StringUtils.isNotBlank(testDetail.getPanelUuid())) {
+            panelMemberObs = resultObs.get(key(testDetail.getPanelUuid(), testDetail.getTestUuid(), testOrder));
+        }
+        return panelMemberObs != null ? panelMemberObs : resultObs.get(key(testDetail.getTestUuid(), testOrder));
+    }
+
+    private void add(Encounter resultEncounter, Obs obs) {
+        if (obs.getOrder() == null) {
+            return;
+        }
+        put(key(obs.getConcept().getUuid(), obs.getOrder()), new ResultObs(resultEncounter, obs));
+        for (Obs member : obs.getGroupMembers()) {
+            if (!member.isVoided() && member.getOrder() != null && member.getOrder().getId().equals(obs.getOrder().getId())) {
+                put(key(obs.getConcept().getUuid(), member.getConcept().getUuid(), obs.getOrder()), new ResultObs(resultEncounter, member));
+            }
+        }
+    }
+
+    private void put(String key, ResultObs obs) {
+        if (!resultObs.containsKey(key)) {
+            resultObs.put(key, obs);
+        }
+    }
+
+    private String key(String testUuid, Order order) {
+        return testUuid + ":" + order.getId();
+    }
+
+    private String key(String panelUuid, String testUuid, Order order) {
+        return panelUuid + ":" + testUuid + ":" + order.getId();
+    }
+
+    private static class ResultObs {
+        private final Encounter encounter;
+        private final Obs obs;
+
+        private ResultObs(Encounter encounter, Obs obs) {
+            this.encounter = encounter;
+            this.obs = obs;
+        }
+    }
+}
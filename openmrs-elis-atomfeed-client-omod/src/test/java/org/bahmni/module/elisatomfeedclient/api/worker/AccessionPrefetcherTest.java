@@ -0,0 +1,98 @@
+package org.bahmni.module.elisatomfeedclient.api.worker;
+
+import org.bahmni.module.elisatomfeedclient.api.builder.OpenElisAccessionBuilder;
+import org.bahmni.module.elisatomfeedclient.api.domain.OpenElisAccession;
+import org.bahmni.webclients.ConnectionDetails;
+import org.bahmni.webclients.HttpClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class AccessionPrefetcherTest {
+    private static final String ACCESSION_URL_1 = "http://localhost:8080/openelis/accession/1";
+    private static final String ACCESSION_URL_2 = "http://localhost:8080/openelis/accession/2";
+    private static final String ACCESSION_URL_3 = "http://localhost:8080/openelis/accession/3";
+    private static final String ACCESSION_URL_4 = "http://localhost:8080/openelis/accession/4";
+
+    @Mock
+    private HttpClient httpClient;
+
+    private AccessionPrefetcher accessionPrefetcher;
+
+    @Before
+    public void setUp() throws IOException {
+        initMocks(this);
+        accessionPrefetcher = new AccessionPrefetcher(new ConnectionDetails("http://localhost:8080", null, null, 1000, 1000), 2) {
+            @Override
+            protected HttpClient createHttpClient(ConnectionDetails connectionDetails) {
+                return httpClient;
+            }
+        };
+        stubAccession(ACCESSION_URL_2, "accession2");
+        stubAccession(ACCESSION_URL_3, "accession3");
+        stubAccession(ACCESSION_URL_4, "accession4");
+    }
+
+    @Test
+    public void shouldPrefetchAccessionsFollowingTheOneBeingProcessed() throws IOException {
+        accessionPrefetcher.feedPageRead(Arrays.asList(ACCESSION_URL_1, ACCESSION_URL_2, ACCESSION_URL_3, ACCESSION_URL_4));
+
+        assertNull(accessionPrefetcher.take(ACCESSION_URL_1));
+
+        verify(httpClient, timeout(1000)).get(ACCESSION_URL_2, OpenElisAccession.class);
+        verify(httpClient, timeout(1000)).get(ACCESSION_URL_3, OpenElisAccession.class);
+        verify(httpClient, never()).get(ACCESSION_URL_1, OpenElisAccession.class);
+        verify(httpClient, never()).get(ACCESSION_URL_4, OpenElisAccession.class);
+
+        assertEquals("accession2", accessionPrefetcher.take(ACCESSION_URL_2).getAccessionUuid());
+        assertEquals("accession3", accessionPrefetcher.take(ACCESSION_URL_3).getAccessionUuid());
+        assertEquals("accession4", accessionPrefetcher.take(ACCESSION_URL_4).getAccessionUuid());
+    }
+
+    @Test
+    public void shouldNotFetchAnythingUntilAnAccessionOfThePageIsTaken() throws IOException {
+        accessionPrefetcher.feedPageRead(Arrays.asList(ACCESSION_URL_1, ACCESSION_URL_2));
+
+        assertNull(accessionPrefetcher.take("http://localhost:8080/openelis/accession/failed"));
+
+        verify(httpClient, never()).get(ACCESSION_URL_2, OpenElisAccession.class);
+    }
+
+    @Test
+    public void shouldLeaveAccessionToWorkerWhenPrefetchFails() throws IOException {
+        when(httpClient.get(ACCESSION_URL_2, OpenElisAccession.class)).thenThrow(new IOException("connection refused"));
+        accessionPrefetcher.feedPageRead(Arrays.asList(ACCESSION_URL_1, ACCESSION_URL_2, ACCESSION_URL_3));
+
+        accessionPrefetcher.take(ACCESSION_URL_1);
+
+        assertNull(accessionPrefetcher.take(ACCESSION_URL_2));
+        assertEquals("accession3", accessionPrefetcher.take(ACCESSION_URL_3).getAccessionUuid());
+    }
+
+    @Test
+    public void shouldForgetPrefetchedAccessionsOfPreviousPage() throws IOException {
+        accessionPrefetcher.feedPageRead(Arrays.asList(ACCESSION_URL_1, ACCESSION_URL_2));
+        accessionPrefetcher.take(ACCESSION_URL_1);
+
+        accessionPrefetcher.feedPageRead(Arrays.asList(ACCESSION_URL_3, ACCESSION_URL_4));
+
+        assertNull(accessionPrefetcher.take(ACCESSION_URL_2));
+    }
+
+    private void stubAccession(String accessionUrl, String accessionUuid) throws IOException {
+        OpenElisAccession openElisAccession = new OpenElisAccessionBuilder().build();
+        openElisAccession.setAccessionUuid(accessionUuid);
+        when(httpClient.get(accessionUrl, OpenElisAccession.class)).thenReturn(openElisAccession);
+    }
+}
@@ -0,0 +1,67 @@
+package org.bahmni.module.elisatomfeedclient.api.worker;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.openmrs.EncounterType;
+import org.openmrs.Provider;
+import org.openmrs.api.ConceptService;
+import org.openmrs.api.EncounterService;
+import org.openmrs.api.ProviderService;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class LabMetadataCacheTest {
+    @Mock
+    private EncounterService encounterService;
+    @Mock
+    private ConceptService conceptService;
+    @Mock
+    private ProviderService providerService;
+
+    private LabMetadataCache labMetadataCache;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        labMetadataCache = new LabMetadataCache(encounterService, conceptService, providerService, 60000);
+    }
+
+    @Test
+    public void shouldLookUpMetadataOnceUntilCleared() {
+        EncounterType encounterType = new EncounterType();
+        when(encounterService.getEncounterType("VALIDATION NOTES")).thenReturn(encounterType);
+
+        assertSame(encounterType, labMetadataCache.getEncounterType("VALIDATION NOTES"));
+        assertSame(encounterType, labMetadataCache.getEncounterType("VALIDATION NOTES"));
+        labMetadataCache.clear();
+        assertSame(encounterType, labMetadataCache.getEncounterType("VALIDATION NOTES"));
+
+        verify(encounterService, times(2)).getEncounterType("VALIDATION NOTES");
+    }
+
+    @Test
+    public void shouldRememberProvidersThatAreNotFound() {
+        assertNull(labMetadataCache.getProviderByUuid("lab-technician-uuid"));
+        assertNull(labMetadataCache.getProviderByUuid("lab-technician-uuid"));
+
+        verify(providerService, times(1)).getProviderByUuid("lab-technician-uuid");
+    }
+
+    @Test
+    public void shouldNotKeepAnythingWithoutTimeToLive() {
+        Provider provider = new Provider();
+        when(providerService.getProviderByIdentifier("LABSYSTEM")).thenReturn(provider);
+        labMetadataCache = new LabMetadataCache(encounterService, conceptService, providerService, 0);
+
+        assertSame(provider, labMetadataCache.getProviderByIdentifier("LABSYSTEM"));
+        assertSame(provider, labMetadataCache.getProviderByIdentifier("LABSYSTEM"));
+
+        verify(providerService, times(2)).getProviderByIdentifier("LABSYSTEM");
+    }
+}
@@ -0,0 +1,98 @@
+package org.bahmni.module.elisatomfeedclient.api.worker;
+
+import org.bahmni.module.elisatomfeedclient.api.builder.OpenElisTestDetailBuilder;
+import org.bahmni.module.elisatomfeedclient.api.domain.OpenElisTestDetail;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.Encounter;
+import org.openmrs.Obs;
+import org.openmrs.Order;
+import org.openmrs.TestOrder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ResultObsIndexTest {
+    private Encounter orderEncounter;
+    private Order panelOrder;
+    private Order testOrder;
+
+    @Before
+    public void setUp() {
+        orderEncounter = new Encounter();
+        panelOrder = createOrder(1, "panel");
+        testOrder = createOrder(2, "test");
+        orderEncounter.addOrder(panelOrder);
+        orderEncounter.addOrder(testOrder);
+    }
+
+    @Test
+    public void shouldFindOrderOfTestOrOfItsPanel() {
+        ResultObsIndex resultObsIndex = new ResultObsIndex(orderEncounter, new HashSet<Encounter>());
+
+        assertSame(testOrder, resultObsIndex.getOrder(new OpenElisTestDetailBuilder().withTestUuid("test").build()));
+        assertSame(panelOrder, resultObsIndex.getOrder(new OpenElisTestDetailBuilder().withTestUuid("panelTest").withPanelUuid("panel").build()));
+        assertNull(resultObsIndex.getOrder(new OpenElisTestDetailBuilder().withTestUuid("unknown").build()));
+    }
+
+    @Test
+    public void shouldFindResultObsOfTestsAndPanelMembers() {
+        Encounter resultEncounter = new Encounter();
+        Obs testObs = createObs("test", testOrder);
+        Obs panelObs = createObs("panel", panelOrder);
+        Obs panelMemberObs = createObs("panelTest", panelOrder);
+        panelObs.addGroupMember(panelMemberObs);
+        resultEncounter.addObs(testObs);
+        resultEncounter.addObs(panelObs);
+        OpenElisTestDetail testDetail = new OpenElisTestDetailBuilder().withTestUuid("test").build();
+        OpenElisTestDetail panelTestDetail = new OpenElisTestDetailBuilder().withTestUuid("panelTest").withPanelUuid("panel").build();
+
+        ResultObsIndex resultObsIndex = new ResultObsIndex(orderEncounter, new HashSet<>(Arrays.asList(resultEncounter)));
+
+        assertSame(testObs, resultObsIndex.getResultObs(testDetail, testOrder));
+        assertSame(resultEncounter, resultObsIndex.getResultEncounter(testDetail, testOrder));
+        assertSame(panelMemberObs, resultObsIndex.getResultObs(panelTestDetail, panelOrder));
+        assertNull(resultObsIndex.getResultObs(testDetail, panelOrder));
+    }
+
+    @Test
+    public void shouldForgetVoidedObsAndFindObsAddedInPlaceOfIt() {
+        Encounter resultEncounter = new Encounter();
+        Obs testObs = createObs("test", testOrder);
+        resultEncounter.addObs(testObs);
+        OpenElisTestDetail testDetail = new OpenElisTestDetailBuilder().withTestUuid("test").build();
+        ResultObsIndex resultObsIndex = new ResultObsIndex(orderEncounter, new HashSet<>(Arrays.asList(resultEncounter)));
+
+        resultObsIndex.voided(testDetail, testOrder);
+        assertNull(resultObsIndex.getResultEncounter(testDetail, testOrder));
+
+        Obs newTestObs = createObs("test", testOrder);
+        resultEncounter.addObs(newTestObs);
+        resultObsIndex.added(resultEncounter, newTestObs);
+        assertSame(newTestObs, resultObsIndex.getResultObs(testDetail, testOrder));
+    }
+
+    private Order createOrder(int id, String conceptUuid) {
+        TestOrder order = new TestOrder();
+        order.setId(id);
+        order.setConcept(createConcept(conceptUuid));
+        return order;
+    }
+
+    private Obs createObs(String conceptUuid, Order order) {
+        Obs obs = new Obs();
+        obs.setConcept(createConcept(conceptUuid));
+        obs.setOrder(order);
+        return obs;
+    }
+
+    private Concept createConcept(String uuid) {
+        Concept concept = new Concept();
+        concept.setUuid(uuid);
+        return concept;
+    }
+}
@@ -10,8 +10,12 @@ import org.openmrs.api.context.Context;
 import org.openmrs.module.atomfeed.transaction.support.AtomFeedSpringTransactionManager;
 import org.springframework.aop.AfterReturningAdvice;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.apache.commons.collections.CollectionUtils.isNotEmpty;
@@ -45,26 +49,68 @@ public class ConceptServiceEventInterceptor implements AfterReturningAdvice {
         Operation operation = new Operation(method);
         final List<Event> events = operation.apply(arguments);
         if (isNotEmpty(events)) {
-            atomFeedSpringTransactionManager.executeWithTransaction(
-                    new AFTransactionWorkWithoutResult() {
-                        @Override
-                        protected void doInTransaction() {
-                            for (Event event : events) {
-                                eventService.notify(event);
-                            }
-                        }
+            if (TransactionSynchronizationManager.isSynchronizationActive() && TransactionSynchronizationManager.isActualTransactionActive()) {
+                getPendingEvents().add(events);
+            } else {
+                save(events);
+            }
+        }
+    }
 
-                        @Override
-                        public PropagationDefinition getTxPropagationDefinition() {
-                            return PropagationDefinition.PROPAGATION_REQUIRED;
+    /**
+     * Events of concepts changed within a transaction, e.g. by a concept csv upload, are saved together just
+     * before it commits, in the same transaction as the changes.
+     */
+    private PendingEvents getPendingEvents() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingEvents && ((PendingEvents) synchronization).isFor(this)) {
+                return (PendingEvents) synchronization;
+            }
+        }
+        PendingEvents pendingEvents = new PendingEvents();
+        TransactionSynchronizationManager.registerSynchronization(pendingEvents);
+        return pendingEvents;
+    }
+
+    private void save(final List<Event> events) {
+        atomFeedSpringTransactionManager.executeWithTransaction(
+                new AFTransactionWorkWithoutResult() {
+                    @Override
+                    protected void doInTransaction() {
+                        for (Event event : events) {
+                            eventService.notify(event);
                         }
                     }
-            );
-        }
+
+                    @Override
+                    public PropagationDefinition getTxPropagationDefinition() {
+                        return PropagationDefinition.PROPAGATION_REQUIRED;
+                    }
+                }
+        );
     }
 
     private PlatformTransactionManager getSpringPlatformTransactionManager() {
         List<PlatformTransactionManager> platformTransactionManagers = Context.getRegisteredComponents(PlatformTransactionManager.class);
         return platformTransactionManagers.get(0);
     }
+
+    private class PendingEvents extends TransactionSynchronizationAdapter {
+        private final List<Event> events = new ArrayList<>();
+
+        private boolean isFor(ConceptServiceEventInterceptor interceptor) {
+            return ConceptServiceEventInterceptor.this == interceptor;
+        }
+
+        private void add(List<Event> events) {
+            this.events.addAll(events);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!events.isEmpty()) {
+                save(events);
+            }
+        }
+    }
 }
@@ -21,6 +21,8 @@ import org.openmrs.module.atomfeed.transaction.support.AtomFeedSpringTransaction
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -142,4 +144,26 @@ public class ConceptServiceEventInterceptorTest {
         assertEquals(AFTransactionWork.PropagationDefinition.PROPAGATION_REQUIRED, captor.getValue().getTxPropagationDefinition());
     }
 
+    @Test
+    public void shouldSaveEventsOfATransactionTogetherBeforeItCommits() throws Throwable {
+        Method method = ConceptService.class.getMethod("saveConcept", Concept.class);
+        Object[] objects = new Object[]{concept};
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            publishedFeed.afterReturning(null, method, objects, null);
+            publishedFeed.afterReturning(null, method, objects, null);
+            verify(atomFeedSpringTransactionManager, never()).executeWithTransaction(any(AFTransactionWorkWithoutResult.class));
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.beforeCommit(false);
+            }
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(atomFeedSpringTransactionManager, times(1)).executeWithTransaction(any(AFTransactionWorkWithoutResult.class));
+    }
+
 }
\ No newline at end of file